@@ -0,0 +1,140 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.utils.BayesianNetworkGenerator;
+import eu.amidst.core.utils.BayesianNetworkSampler;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * This class provides the models shared by the benchmarks of this module, so that all of them are run on the same
+ * networks.
+ *
+ * <p> A model is referred to by a name, which is used as the value of the {@code network} parameter of the
+ * benchmarks. The names {@code asia}, {@code Pigs}, {@code Munin1} and {@code WasteIncinerator} load the networks
+ * of the {@code networks} folder of the toolbox, which is looked up in the directory given by the system property
+ * {@code amidst.home} (by default, the parent of the working directory, i.e., the root of the toolbox when running
+ * from this module). The names {@code GeneratedDiscrete} and {@code GeneratedHybrid} build networks with
+ * {@link BayesianNetworkGenerator} from a fixed seed. </p>
+ */
+public final class BenchmarkModels {
+
+    /** Represents the name of the system property with the root folder of the toolbox. */
+    public static final String HOME_PROPERTY = "amidst.home";
+
+    /** Represents the seed used for generating the networks and sampling the data. */
+    public static final int SEED = 0;
+
+    private BenchmarkModels() {
+    }
+
+    /**
+     * Returns the path of a file of the toolbox.
+     * @param relativePath the path of the file relative to the root of the toolbox, e.g., "networks/dataWeka/asia.bn".
+     * @return the path of the file.
+     */
+    public static String getPath(String relativePath) {
+        return new File(System.getProperty(HOME_PROPERTY, ".."), relativePath).getPath();
+    }
+
+    /**
+     * Returns the network with a given name.
+     * @param name the name of the network.
+     * @return a {@link BayesianNetwork} object.
+     */
+    public static BayesianNetwork getNetwork(String name) {
+        try {
+            switch (name) {
+                case "asia":
+                    return BayesianNetworkLoader.loadFromFile(getPath("networks/dataWeka/asia.bn"));
+                case "Pigs":
+                    return BayesianNetworkLoader.loadFromFile(getPath("networks/dataWeka/Pigs.bn"));
+                case "Munin1":
+                    return BayesianNetworkLoader.loadFromFile(getPath("networks/dataWeka/Munin1.bn"));
+                case "WasteIncinerator":
+                    return BayesianNetworkLoader.loadFromFile(getPath("networks/simulated/WasteIncinerator.bn"));
+                case "GeneratedDiscrete":
+                    return generateNetwork(100, 3, 0, 200);
+                case "GeneratedHybrid":
+                    return generateNetwork(50, 3, 50, 200);
+                default:
+                    throw new IllegalArgumentException("Unknown benchmark network: " + name);
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("The network " + name + " could not be loaded. Set the system property "
+                    + HOME_PROPERTY + " to the root folder of the toolbox.", ex);
+        }
+    }
+
+    /**
+     * Generates a network with {@link BayesianNetworkGenerator}.
+     * @param nDiscrete the number of multinomial variables.
+     * @param nStates the number of states of the multinomial variables.
+     * @param nGaussian the number of normal variables.
+     * @param nLinks the number of links.
+     * @return a {@link BayesianNetwork} object.
+     */
+    public static BayesianNetwork generateNetwork(int nDiscrete, int nStates, int nGaussian, int nLinks) {
+        synchronized (BayesianNetworkGenerator.class) {
+            BayesianNetworkGenerator.setSeed(SEED);
+            BayesianNetworkGenerator.setNumberOfMultinomialVars(nDiscrete, nStates);
+            BayesianNetworkGenerator.setNumberOfGaussianVars(nGaussian);
+            BayesianNetworkGenerator.setNumberOfLinks(nLinks);
+            return BayesianNetworkGenerator.generateBayesianNetwork();
+        }
+    }
+
+    /**
+     * Samples a data set from a network, using the seed of the benchmarks.
+     * @param network a {@link BayesianNetwork} object.
+     * @param nSamples the number of samples.
+     * @return a {@link DataOnMemory} object with the samples.
+     */
+    public static DataOnMemory<DataInstance> sampleData(BayesianNetwork network, int nSamples) {
+        BayesianNetworkSampler sampler = new BayesianNetworkSampler(network);
+        sampler.setSeed(SEED);
+        return sampler.sampleToDataStream(nSamples).toDataOnMemory();
+    }
+
+    /**
+     * Samples an evidence from a network, where each variable is observed with a given probability.
+     * @param network a {@link BayesianNetwork} object.
+     * @param ratio the probability of observing each variable.
+     * @return an {@link Assignment} object with the observed values.
+     */
+    public static Assignment sampleEvidence(BayesianNetwork network, double ratio) {
+        DataInstance sample = sampleData(network, 1).getDataInstance(0);
+        Random random = new Random(SEED);
+        HashMapAssignment evidence = new HashMapAssignment(network.getNumberOfVars());
+        for (Variable var : network.getVariables()) {
+            if (random.nextDouble() < ratio)
+                evidence.setValue(var, sample.getValue(var));
+        }
+        return evidence;
+    }
+}
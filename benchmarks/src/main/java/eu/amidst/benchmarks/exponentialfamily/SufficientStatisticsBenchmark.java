@@ -0,0 +1,79 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.exponentialfamily;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput, in instances per second, of {@link EF_BayesianNetwork#getSufficientStatistics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SufficientStatisticsBenchmark {
+
+    /** Represents the number of instances processed in each invocation. */
+    private static final int N_SAMPLES = 1000;
+
+    /** Represents the network whose sufficient statistics are computed. */
+    @Param({"asia", "Pigs", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents the exponential family form of the network. */
+    private EF_BayesianNetwork efBayesianNetwork;
+
+    /** Represents the instances whose sufficient statistics are computed. */
+    private DataOnMemory<DataInstance> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.efBayesianNetwork = new EF_BayesianNetwork(BenchmarkModels.getNetwork(this.network));
+        this.data = BenchmarkModels.sampleData(BenchmarkModels.getNetwork(this.network), N_SAMPLES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_SAMPLES)
+    public void getSufficientStatistics(Blackhole blackhole) {
+        for (DataInstance instance : this.data) {
+            blackhole.consume(this.efBayesianNetwork.getSufficientStatistics(instance));
+        }
+    }
+}
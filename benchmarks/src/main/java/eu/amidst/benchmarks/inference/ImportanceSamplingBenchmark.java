@@ -0,0 +1,90 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.inference;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.inference.ImportanceSampling;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.Variable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput, in weighted samples per second, of {@link ImportanceSampling} given an evidence where a
+ * fifth of the variables are observed. Each invocation draws the samples and computes the posterior of one of the
+ * variables from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportanceSamplingBenchmark {
+
+    /** Represents the number of samples drawn in each invocation. */
+    private static final int SAMPLE_SIZE = 10000;
+
+    /** Represents the network on which the inference is run. */
+    @Param({"asia", "Pigs", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents whether the samples are drawn in parallel. */
+    @Param({"false", "true"})
+    public boolean parallelMode;
+
+    /** Represents the inference algorithm. */
+    private ImportanceSampling importanceSampling;
+
+    /** Represents the variable whose posterior is computed. */
+    private Variable variable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BayesianNetwork bn = BenchmarkModels.getNetwork(this.network);
+        this.importanceSampling = new ImportanceSampling();
+        this.importanceSampling.setModel(bn);
+        this.importanceSampling.setSeed(BenchmarkModels.SEED);
+        this.importanceSampling.setSampleSize(SAMPLE_SIZE);
+        this.importanceSampling.setParallelMode(this.parallelMode);
+        this.importanceSampling.setKeepDataOnMemory(true);
+        this.importanceSampling.setEvidence(BenchmarkModels.sampleEvidence(bn, 0.2));
+        this.variable = bn.getVariables().getVariableById(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE_SIZE)
+    public Object runInference() {
+        this.importanceSampling.runInference();
+        return this.importanceSampling.getPosterior(this.variable);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.inference;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.inference.messagepassing.VMP;
+import eu.amidst.core.models.BayesianNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of {@link VMP#runInference()} until convergence, given an evidence where a fifth of the
+ * variables are observed. The model is compiled once, so only the message passing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VMPBenchmark {
+
+    /** Represents the network on which the inference is run. */
+    @Param({"asia", "Pigs", "Munin1", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents the inference algorithm. */
+    private VMP vmp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BayesianNetwork bn = BenchmarkModels.getNetwork(this.network);
+        this.vmp = new VMP();
+        this.vmp.setSeed(BenchmarkModels.SEED);
+        this.vmp.setModel(bn);
+        this.vmp.setEvidence(BenchmarkModels.sampleEvidence(bn, 0.2));
+    }
+
+    @Benchmark
+    public double runInference() {
+        this.vmp.runInference();
+        return this.vmp.getLogProbabilityOfEvidence();
+    }
+}
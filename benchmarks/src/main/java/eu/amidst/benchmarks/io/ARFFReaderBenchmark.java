@@ -0,0 +1,112 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.io;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.datastream.Attribute;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.io.DataStreamLoader;
+import eu.amidst.core.io.DataStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput, in instances per second, of reading an ARFF file with {@link DataStreamLoader}, i.e.,
+ * parsing every row and reading every value of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ARFFReaderBenchmark {
+
+    /** Represents the number of instances of the ARFF file. */
+    private static final int N_SAMPLES = 50000;
+
+    /** Represents the network from which the ARFF file is sampled. */
+    @Param({"asia", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents the path of the ARFF file. */
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File file = File.createTempFile("amidst-benchmark-" + this.network, ".arff");
+        file.deleteOnExit();
+        this.path = file.getPath();
+        DataStreamWriter.writeDataToFile(BenchmarkModels.sampleData(BenchmarkModels.getNetwork(this.network), N_SAMPLES), this.path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new File(this.path).delete();
+    }
+
+    /**
+     * Returns the sum of the values of an instance, so that the parsed values are used.
+     */
+    private static double sumValues(DataInstance instance, List<Attribute> attributes) {
+        double sum = 0;
+        for (Attribute attribute : attributes) {
+            sum += instance.getValue(attribute);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_SAMPLES)
+    public double readSequential() {
+        DataStream<DataInstance> data = DataStreamLoader.open(this.path);
+        List<Attribute> attributes = data.getAttributes().getFullListOfAttributes();
+        double sum = data.stream().mapToDouble(instance -> sumValues(instance, attributes)).sum();
+        data.close();
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_SAMPLES)
+    public double readParallel() {
+        DataStream<DataInstance> data = DataStreamLoader.open(this.path);
+        List<Attribute> attributes = data.getAttributes().getFullListOfAttributes();
+        double sum = data.parallelStream(1000).mapToDouble(instance -> sumValues(instance, attributes)).sum();
+        data.close();
+        return sum;
+    }
+}
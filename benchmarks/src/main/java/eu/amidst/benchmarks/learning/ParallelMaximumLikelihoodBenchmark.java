@@ -0,0 +1,100 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.learning;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.learning.parametric.ParallelMaximumLikelihood;
+import eu.amidst.core.models.BayesianNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput, in instances per second, of {@link ParallelMaximumLikelihood} on complete data, either
+ * updating the model with a single batch or with a data stream split in windows, which are processed in parallel in
+ * parallel mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelMaximumLikelihoodBenchmark {
+
+    /** Represents the number of instances of the batch. */
+    private static final int BATCH_SIZE = 10000;
+
+    /** Represents the network from which the batch is sampled. */
+    @Param({"asia", "Pigs", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents whether the windows of the data stream are processed in parallel. */
+    @Param({"false", "true"})
+    public boolean parallelMode;
+
+    /** Represents the learning algorithm. */
+    private ParallelMaximumLikelihood maximumLikelihood;
+
+    /** Represents the batch of data. */
+    private DataOnMemory<DataInstance> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BayesianNetwork bn = BenchmarkModels.getNetwork(this.network);
+        this.batch = BenchmarkModels.sampleData(bn, BATCH_SIZE);
+        this.maximumLikelihood = new ParallelMaximumLikelihood();
+        this.maximumLikelihood.setDAG(bn.getDAG());
+        this.maximumLikelihood.setParallelMode(this.parallelMode);
+        this.maximumLikelihood.setDebug(false);
+        this.maximumLikelihood.setWindowsSize(1000);
+    }
+
+    @Setup(Level.Iteration)
+    public void initLearning() {
+        this.maximumLikelihood.initLearning();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public double updateModel() {
+        return this.maximumLikelihood.updateModel(this.batch);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public double updateModelOnDataStream() {
+        return this.maximumLikelihood.updateModel((DataStream<DataInstance>) this.batch);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.learning;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.learning.parametric.bayesian.SVB;
+import eu.amidst.core.models.BayesianNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time of {@link SVB#updateModel(DataOnMemory)} for a batch of complete data. The prior is reset at
+ * the beginning of each iteration, so that all the iterations start from the same posterior.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SVBBenchmark {
+
+    /** Represents the network from which the batch is sampled. */
+    @Param({"asia", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents the number of instances of the batch. */
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    /** Represents the learning algorithm. */
+    private SVB svb;
+
+    /** Represents the batch of data. */
+    private DataOnMemory<DataInstance> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BayesianNetwork bn = BenchmarkModels.getNetwork(this.network);
+        this.batch = BenchmarkModels.sampleData(bn, this.batchSize);
+        this.svb = new SVB();
+        this.svb.setDAG(bn.getDAG());
+        this.svb.setSeed(BenchmarkModels.SEED);
+        this.svb.setWindowsSize(this.batchSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void initLearning() {
+        this.svb.initLearning();
+    }
+
+    @Benchmark
+    public double updateModel() {
+        return this.svb.updateModel(this.batch);
+    }
+}
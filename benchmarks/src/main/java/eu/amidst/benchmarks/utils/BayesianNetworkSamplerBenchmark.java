@@ -0,0 +1,72 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.benchmarks.utils;
+
+import eu.amidst.benchmarks.BenchmarkModels;
+import eu.amidst.core.utils.BayesianNetworkSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput, in instances per second, of {@link BayesianNetworkSampler#sampleToDataStream(int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BayesianNetworkSamplerBenchmark {
+
+    /** Represents the number of instances sampled in each invocation. */
+    private static final int N_SAMPLES = 10000;
+
+    /** Represents the network from which the instances are sampled. */
+    @Param({"asia", "Pigs", "Munin1", "WasteIncinerator", "GeneratedHybrid"})
+    public String network;
+
+    /** Represents the sampler. */
+    private BayesianNetworkSampler sampler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.sampler = new BayesianNetworkSampler(BenchmarkModels.getNetwork(this.network));
+        this.sampler.setSeed(BenchmarkModels.SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_SAMPLES)
+    public void sampleToDataStream(Blackhole blackhole) {
+        this.sampler.sampleToDataStream(N_SAMPLES).stream().forEach(blackhole::consume);
+    }
+}
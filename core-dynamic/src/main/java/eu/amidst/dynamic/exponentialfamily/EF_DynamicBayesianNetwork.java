@@ -304,6 +304,16 @@ public class EF_DynamicBayesianNetwork extends EF_DynamicDistribution {
             this.copy((DynamiceBNCompoundVector) vector);
         }
 
+        @Override
+        public DynamiceBNCompoundVector deepCopy() {
+            DynamiceBNCompoundVector copy = new DynamiceBNCompoundVector(this.totalVectorSize);
+            copy.setIndicatorTime0(this.indicatorTime0);
+            copy.setIndicatorTimeT(this.indicatorTimeT);
+            if (this.vectorTime0!=null) copy.setVectorTime0(this.vectorTime0.deepCopy());
+            if (this.vectorTimeT!=null) copy.setVectorTimeT(this.vectorTimeT.deepCopy());
+            return copy;
+        }
+
         @Override
         public void divideBy(double val) {
             this.indicatorTime0/=val;
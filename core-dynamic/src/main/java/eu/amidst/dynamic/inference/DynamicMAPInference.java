@@ -25,6 +25,7 @@ import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
 import eu.amidst.core.utils.MultinomialIndex;
 import eu.amidst.core.utils.Serialization;
+import eu.amidst.core.utils.Utils;
 import eu.amidst.core.variables.*;
 import eu.amidst.dynamic.models.DynamicBayesianNetwork;
 import eu.amidst.dynamic.models.DynamicDAG;
@@ -32,6 +33,7 @@ import eu.amidst.dynamic.utils.DynamicBayesianNetworkGenerator;
 import eu.amidst.dynamic.utils.DynamicToStaticBNConverter;
 import eu.amidst.dynamic.variables.DynamicAssignment;
 import eu.amidst.dynamic.variables.DynamicVariables;
+import eu.amidst.dynamic.variables.HashMapDynamicAssignment;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
@@ -103,12 +105,73 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
     List<List<UnivariateDistribution>> allGroupedPosteriorDistributions;
     List<UnivariateDistribution> allUngroupedPosteriorDistributions;
 
+    /** Represents the number of time steps observed after a time step before its MAP value is finalized in the online mode, or -1 if the online mode is off. */
+    private int onlineLag = -1;
+
+    /** Represents the search algorithm used in the online mode. */
+    private SearchAlgorithm onlineSearchAlgorithm = SearchAlgorithm.VMP;
+
+    /** Represents the online evidence which may still fall into the window of a pending MAP decision, ordered by time ID. */
+    private Deque<DynamicAssignment> onlineEvidence = new ArrayDeque<>();
+
+    /** Represents the sequence ID of the online evidence. */
+    private long onlineSequenceID = -1;
+
+    /** Represents the time ID of the last online evidence. */
+    private long onlineLastTimeID = -1;
+
+    /** Represents the time ID of the last finalized MAP decision in the online mode. */
+    private long onlineLastDecisionTimeID = -1;
+
+    /** Represents the finalized MAP decisions not yet polled, indexed by time ID. */
+    private SortedMap<Long, Integer> onlineDecisions = new TreeMap<>();
+
+    /** Represents the filter which summarizes the online evidence before the current window. */
+    private InferenceAlgorithmForDBN onlineFilter = new DynamicVMP();
+
+    /** Represents the time ID of the last online evidence added to the filter. */
+    private long onlineFilteredTimeID = -1;
+
+    /** Represents the distribution of the MAP variable in the first time step of a window starting after time 0, or null. */
+    private Multinomial windowInitialMAPDistribution;
+
+    /** Represents the models with merged class variable for the online windows starting at time 0. */
+    private List<BayesianNetwork> firstWindowMergedClassVarModels;
+
+    /** Represents the models with merged class variable for the online windows starting after time 0. */
+    private List<BayesianNetwork> laterWindowMergedClassVarModels;
+
     /**
      * {@inheritDoc}
+     * Only available in the online mode, see {@link #setOnlineLag(int)}. The evidence is queued until the next call
+     * to {@link #runInference()}.
      */
     @Override
     public void addDynamicEvidence(DynamicAssignment assignment) {
-        throw new UnsupportedOperationException("Operation not supported in Dynamic MAP Inference");
+        if (onlineLag<0)
+            throw new UnsupportedOperationException("Operation only supported in the online mode of Dynamic MAP Inference");
+
+        if (this.onlineSequenceID!= -1 && this.onlineSequenceID != assignment.getSequenceID())
+            throw new IllegalArgumentException("The sequence ID does not match. If you want to change the sequence, invoke flushOnlineMAPDecisions method");
+
+        if (this.onlineLastTimeID>= assignment.getTimeID())
+            throw new IllegalArgumentException("The provided assignment is not posterior to the previous provided assignment.");
+
+        if (!Utils.isMissingValue(assignment.getValue(MAPvariable)))
+            throw new IllegalArgumentException("MAP variable should not be in the evidence");
+
+        HashMapDynamicAssignment copy = new HashMapDynamicAssignment(model.getNumberOfDynamicVars());
+        copy.setSequenceID((int) assignment.getSequenceID());
+        copy.setTimeID((int) assignment.getTimeID());
+        for (Variable var : model.getDynamicVariables().getListOfDynamicVariables()) {
+            double value = assignment.getValue(var);
+            if (!Utils.isMissingValue(value))
+                copy.setValue(var, value);
+        }
+
+        this.onlineEvidence.addLast(copy);
+        this.onlineSequenceID = assignment.getSequenceID();
+        this.onlineLastTimeID = assignment.getTimeID();
     }
 
     /**
@@ -126,6 +189,8 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         model=null;
         unfoldedStaticModel =null;
         mergedClassVarModels=null;
+        firstWindowMergedClassVarModels=null;
+        laterWindowMergedClassVarModels=null;
 
         evidence=null;
         MAPvarName=null;
@@ -133,6 +198,11 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         MAPestimate=null;
         MAPsequence=null;
         MAPestimateLogProbability=Double.NaN;
+
+        onlineLag = -1;
+        onlineSearchAlgorithm = SearchAlgorithm.VMP;
+        this.resetOnlineSequence();
+        onlineDecisions.clear();
     }
 
     /**
@@ -156,6 +226,8 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
      */
     @Override
     public long getTimeIDOfLastEvidence() {
+        if (onlineLag>=0)
+            return onlineLastTimeID;
         return (long)this.evidence.stream().mapToDouble(DynamicAssignment::getTimeID).max().getAsDouble();
     }
 
@@ -164,6 +236,8 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
      */
     @Override
     public long getTimeIDOfPosterior() {
+        if (onlineLag>=0)
+            return onlineLastDecisionTimeID;
         throw new UnsupportedOperationException("Operation not supported in Dynamic MAP Inference");
     }
 
@@ -280,6 +354,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
     public void setModel(DynamicBayesianNetwork model) {
         this.model = model;
         this.unfoldedStaticModel = DynamicToStaticBNConverter.convertDBNtoBN(model,nTimeSteps);
+        this.discardMergedClassVarModels();
     }
 
     /**
@@ -310,6 +385,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         }
         this.MAPvariable = MAPvariable;
         this.MAPvarName = MAPvariable.getName();
+        this.discardMergedClassVarModels();
 
     }
 
@@ -343,6 +419,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
             System.exit(-14);
         }
         this.nMergedClassVars = nMergedClassVars;
+        this.discardMergedClassVarModels();
     }
 
     /**
@@ -361,6 +438,263 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         this.seed = seed;
     }
 
+    /**
+     * Switches this DynamicMAPInference to the online mode, where the evidence is added time step by time step
+     * through {@link #addDynamicEvidence(DynamicAssignment)} and the sequence can be arbitrarily long.
+     * Each time step is decided once the evidence up to {@code lag} time steps later has been added, by running the
+     * MAP inference on the unfolded model of {@link #setNumberOfTimeSteps(int)} time steps placed as a window ending
+     * at that later time step. The evidence before the window is carried forward by a filter, see
+     * {@link #setOnlineFilter(InferenceAlgorithmForDBN)}: the MAP variable in the first time step of the window is
+     * given its predictive distribution, and the variables without temporal parents their time T distributions.
+     * The unfolded models are built once, and only the distribution of the MAP variable in their first time step is
+     * updated for each window. Thus, the memory and time per time step do not depend on the length of the sequence.
+     * The lag must be lower than the number of time steps when the inference is run.
+     * @param lag an {@code int} that represents the lag.
+     * @throws IllegalArgumentException if the lag is negative.
+     */
+    public void setOnlineLag(int lag) {
+        if (lag<0)
+            throw new IllegalArgumentException("The lag should not be negative");
+        this.onlineLag = lag;
+        this.resetOnlineSequence();
+        this.onlineDecisions.clear();
+    }
+
+    /**
+     * Sets the filter used in the online mode to summarize the evidence before each window. By default,
+     * {@link DynamicVMP} is used.
+     * @param onlineFilter a valid {@link InferenceAlgorithmForDBN} object.
+     */
+    public void setOnlineFilter(InferenceAlgorithmForDBN onlineFilter) {
+        this.resetOnlineSequence();
+        this.onlineFilter = onlineFilter;
+    }
+
+    /**
+     * Returns the lag of the online mode.
+     * @return an {@code int} that represents the lag, or -1 if the online mode is off.
+     */
+    public int getOnlineLag() {
+        return onlineLag;
+    }
+
+    /**
+     * Returns and removes the MAP decisions finalized in the online mode since the last call to this method.
+     * @return a {@code SortedMap} from time IDs to the MAP states of the MAP variable.
+     */
+    public SortedMap<Long, Integer> pollOnlineMAPDecisions() {
+        SortedMap<Long, Integer> decisions = this.onlineDecisions;
+        this.onlineDecisions = new TreeMap<>();
+        return decisions;
+    }
+
+    /**
+     * Finalizes the MAP decisions of all the pending time steps of the current sequence in the online mode, using the
+     * window ending at the last evidence. After that, the evidence of a new sequence can be added.
+     */
+    public void flushOnlineMAPDecisions() {
+        if (onlineLag<0)
+            throw new UnsupportedOperationException("Operation only supported in the online mode of Dynamic MAP Inference");
+
+        this.updateOnlineMAPDecisions(onlineSearchAlgorithm);
+
+        if (onlineLastDecisionTimeID<onlineLastTimeID) {
+            this.runWindowInference(onlineSearchAlgorithm, onlineLastTimeID);
+            long start = Math.max(0, onlineLastTimeID - nTimeSteps + 1);
+            for (long t = onlineLastDecisionTimeID + 1; t <= onlineLastTimeID; t++) {
+                onlineDecisions.put(t, MAPsequence[(int) (t - start)]);
+            }
+        }
+        this.resetOnlineSequence();
+    }
+
+    /**
+     * Finalizes the MAP decisions of the time steps followed by, at least, {@code onlineLag} time steps of evidence,
+     * and drops the evidence which no longer falls into the window of a pending decision or of a flush.
+     * @param searchAlgorithm a valid {@link SearchAlgorithm} value.
+     */
+    private void updateOnlineMAPDecisions(SearchAlgorithm searchAlgorithm) {
+        if (onlineLag>=nTimeSteps)
+            throw new IllegalStateException("The number of time steps should be greater than the lag of the online mode");
+
+        for (long t = onlineLastDecisionTimeID + 1; t <= onlineLastTimeID - onlineLag; t++) {
+            this.runWindowInference(searchAlgorithm, t + onlineLag);
+            long start = Math.max(0, t + onlineLag - nTimeSteps + 1);
+            onlineDecisions.put(t, MAPsequence[(int) (t - start)]);
+            onlineLastDecisionTimeID = t;
+        }
+
+        long nextStart = Math.max(0, Math.min(onlineLastDecisionTimeID + 1 + onlineLag, onlineLastTimeID) - nTimeSteps + 1);
+        this.updateOnlineFilter(nextStart);
+        while (!onlineEvidence.isEmpty() && onlineEvidence.peekFirst().getTimeID()<nextStart) {
+            onlineEvidence.removeFirst();
+        }
+    }
+
+    /**
+     * Runs the MAP inference on the window of time steps ending at the given time ID, with the online evidence shifted
+     * to the time IDs of the unfolded model.
+     * @param searchAlgorithm a valid {@link SearchAlgorithm} value.
+     * @param end a {@code long} that represents the time ID of the last time step of the window.
+     */
+    private void runWindowInference(SearchAlgorithm searchAlgorithm, long end) {
+        long start = Math.max(0, end - nTimeSteps + 1);
+
+        // The merged models of each kind of window are built once. After that, only the distribution of the MAP
+        // variable in the first time step changes from one window to the next.
+        if (start>0) {
+            this.updateOnlineFilter(start);
+            this.windowInitialMAPDistribution = this.getPredictiveMAPDistribution(start);
+            if (this.laterWindowMergedClassVarModels==null) {
+                this.computeMergedClassVarModels();
+                this.laterWindowMergedClassVarModels = this.mergedClassVarModels;
+            }
+            else {
+                this.setInitialMAPDistribution(this.laterWindowMergedClassVarModels, this.windowInitialMAPDistribution);
+            }
+            this.mergedClassVarModels = this.laterWindowMergedClassVarModels;
+        }
+        else {
+            this.windowInitialMAPDistribution = null;
+            if (this.firstWindowMergedClassVarModels==null) {
+                this.computeMergedClassVarModels();
+                this.firstWindowMergedClassVarModels = this.mergedClassVarModels;
+            }
+            this.mergedClassVarModels = this.firstWindowMergedClassVarModels;
+        }
+
+        List<DynamicAssignment> windowEvidence = new ArrayList<>(nTimeSteps);
+        for (DynamicAssignment assignment : onlineEvidence) {
+            if (assignment.getTimeID()<start || assignment.getTimeID()>end)
+                continue;
+            HashMapDynamicAssignment shifted = new HashMapDynamicAssignment(assignment.getVariables().size());
+            shifted.setSequenceID((int) assignment.getSequenceID());
+            shifted.setTimeID((int) (assignment.getTimeID() - start));
+            for (Variable var : assignment.getVariables()) {
+                shifted.setValue(var, assignment.getValue(var));
+            }
+            windowEvidence.add(shifted);
+        }
+
+        this.setEvidence(windowEvidence.isEmpty() ? null : windowEvidence);
+        this.runBatchInference(searchAlgorithm);
+    }
+
+    /**
+     * Sets, in place, the distribution of the grouped MAP variable in the first time step of some models with merged
+     * class variable, given the distribution of the MAP variable in the first time step.
+     * @param models the {@code List} of models with merged class variable.
+     * @param initialDistribution the {@link Multinomial} distribution of the MAP variable in the first time step.
+     */
+    private void setInitialMAPDistribution(List<BayesianNetwork> models, Multinomial initialDistribution) {
+        Variable dynVar = model.getDynamicVariables().getVariableByName(MAPvarName);
+        ConditionalDistribution conDistT = model.getConditionalDistributionsTimeT().get(dynVar.getVarID());
+        for (int modelNumber = 0; modelNumber < models.size(); modelNumber++) {
+            BayesianNetwork bn = models.get(modelNumber);
+            Variable staticVar = bn.getVariables().getVariableByName(groupedClassName + "_t0");
+            Multinomial grouped = groupedDistributionMAPVariableTime0(dynVar, staticVar, initialDistribution, conDistT, modelNumber);
+            Multinomial multinomial = bn.getConditionalDistribution(staticVar);
+            multinomial.setProbabilities(grouped.getProbabilities().clone());
+        }
+    }
+
+    /**
+     * Discards the models with merged class variable, which are built again when needed.
+     */
+    private void discardMergedClassVarModels() {
+        this.mergedClassVarModels = null;
+        this.firstWindowMergedClassVarModels = null;
+        this.laterWindowMergedClassVarModels = null;
+    }
+
+    /**
+     * Adds to the online filter the queued evidence before a given time ID.
+     * @param time a {@code long} that represents the time ID.
+     */
+    private void updateOnlineFilter(long time) {
+        if (onlineFilter.getOriginalModel()!=model)
+            onlineFilter.setModel(model);
+
+        for (DynamicAssignment assignment : onlineEvidence) {
+            if (assignment.getTimeID()>=time)
+                break;
+            if (assignment.getTimeID()<=onlineFilteredTimeID)
+                continue;
+            onlineFilter.addDynamicEvidence(assignment);
+            onlineFilter.runInference();
+            onlineFilteredTimeID = assignment.getTimeID();
+        }
+    }
+
+    /**
+     * Returns the distribution of the MAP variable at a given time ID given the online evidence added to the filter,
+     * by propagating the last filtered posterior, or the time 0 distribution, with the time T distribution.
+     * @param time a {@code long} that represents the time ID.
+     * @return a {@link Multinomial} distribution of the MAP variable.
+     */
+    private Multinomial getPredictiveMAPDistribution(long time) {
+        double[] probs;
+        long from;
+        if (onlineFilteredTimeID<0) {
+            probs = ((Multinomial) model.getConditionalDistributionTime0(MAPvariable)).getProbabilities().clone();
+            from = 0;
+        }
+        else {
+            probs = onlineFilter.getFilteredPosterior(MAPvariable).getParameters().clone();
+            from = onlineFilteredTimeID;
+        }
+
+        ConditionalDistribution conDistT = model.getConditionalDistributionTimeT(MAPvariable);
+        int nStates = MAPvariable.getNumberOfStates();
+        Assignment assignment = new HashMapAssignment(2);
+        for (long t = from; t < time; t++) {
+            double[] next = new double[nStates];
+            for (int previous = 0; previous < nStates; previous++) {
+                assignment.setValue(MAPvariable.getInterfaceVariable(), previous);
+                for (int current = 0; current < nStates; current++) {
+                    assignment.setValue(MAPvariable, current);
+                    next[current] += probs[previous] * conDistT.getConditionalProbability(assignment);
+                }
+            }
+            probs = next;
+        }
+
+        Multinomial multinomial = new Multinomial(MAPvariable);
+        multinomial.setProbabilities(probs);
+        return multinomial;
+    }
+
+    /**
+     * Returns the conditional distribution of a variable in the first time step of the unfolded model: the time 0
+     * distribution or, in a window starting after time 0, the time T distribution if it has no temporal parents.
+     * @param dynVariable the dynamic {@link Variable} object.
+     * @return a {@link ConditionalDistribution} object.
+     */
+    private ConditionalDistribution getFirstTimeStepDistribution(Variable dynVariable) {
+        DynamicDAG dynamicDAG = model.getDynamicDAG();
+        if (windowInitialMAPDistribution!=null && dynamicDAG.getParentSetTimeT(dynVariable).getParents().equals(dynamicDAG.getParentSetTime0(dynVariable).getParents()))
+            return model.getConditionalDistributionTimeT(dynVariable);
+        return model.getConditionalDistributionTime0(dynVariable);
+    }
+
+    /**
+     * Clears the evidence of the current sequence in the online mode.
+     */
+    private void resetOnlineSequence() {
+        onlineEvidence.clear();
+        onlineSequenceID = -1;
+        onlineLastTimeID = -1;
+        onlineLastDecisionTimeID = -1;
+
+        if (onlineFilter.getOriginalModel()!=null)
+            onlineFilter.reset();
+        onlineFilteredTimeID = -1;
+        if (windowInitialMAPDistribution!=null) {
+            windowInitialMAPDistribution = null;
+            mergedClassVarModels = firstWindowMergedClassVarModels;
+        }
+    }
+
     /**
      * Returns the MAP sequence found as an {@link Assignment} of variables
      * @return an {@link Assignment} object with the MAP sequence
@@ -501,10 +835,25 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
     }
 
     /**
-     * Runs the inference given an input search algorithm.
+     * Runs the inference given an input search algorithm. In the online mode, it finalizes the MAP decisions of the
+     * time steps followed by, at least, the lag time steps of evidence, see {@link #pollOnlineMAPDecisions()}.
      * @param searchAlgorithm a valid {@link SearchAlgorithm} value.
      */
     public void runInference(SearchAlgorithm searchAlgorithm) {
+        if (onlineLag>=0) {
+            this.onlineSearchAlgorithm = searchAlgorithm;
+            this.updateOnlineMAPDecisions(searchAlgorithm);
+        }
+        else {
+            this.runBatchInference(searchAlgorithm);
+        }
+    }
+
+    /**
+     * Runs the inference over the unfolded model and the current evidence given an input search algorithm.
+     * @param searchAlgorithm a valid {@link SearchAlgorithm} value.
+     */
+    private void runBatchInference(SearchAlgorithm searchAlgorithm) {
 
         if (MAPvariable == null || MAPvarName == null) {
             System.out.println("Error: The MAP variable has not been set");
@@ -1785,7 +2134,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         staticVar = variables.getVariableByName(groupedClassName + "_t0");
         dynVar = model.getDynamicVariables().getVariableByName(MAPvarName);
 
-        conDist0 = Serialization.deepCopy(model.getConditionalDistributionsTime0().get(dynVar.getVarID()));
+        conDist0 = Serialization.deepCopy(windowInitialMAPDistribution!=null ? windowInitialMAPDistribution : model.getConditionalDistributionsTime0().get(dynVar.getVarID()));
         conDistT = Serialization.deepCopy(model.getConditionalDistributionsTimeT().get(dynVar.getVarID()));
 
         Multinomial multinomial = groupedDistributionMAPVariableTime0(dynVar, staticVar, conDist0, conDistT, modelNumber);
@@ -1908,7 +2257,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
             IntStream.range(0, nTimeSteps).forEachOrdered(timeStep -> {
 
                 ConditionalDistribution dynamicConDist;
-                dynamicConDist = Serialization.deepCopy( timeStep==0 ? model.getConditionalDistributionTime0(dynVariable) : model.getConditionalDistributionTimeT(dynVariable) );
+                dynamicConDist = Serialization.deepCopy( timeStep==0 ? this.getFirstTimeStepDistribution(dynVariable) : model.getConditionalDistributionTimeT(dynVariable) );
 //                )if(timeStep==0) {
 //                     = Serialization.deepCopy(model.getConditionalDistributionTime0(dynVariable));
 //                }
@@ -1930,7 +2279,7 @@ public class DynamicMAPInference implements InferenceAlgorithmForDBN {
         dynVariablesNoClassParent.stream().forEach(dynVariable -> {
 
             // TIME T=0
-            ConditionalDistribution conditionalDistribution = Serialization.deepCopy(model.getConditionalDistributionTime0(dynVariable));
+            ConditionalDistribution conditionalDistribution = Serialization.deepCopy(this.getFirstTimeStepDistribution(dynVariable));
             Variable staticVar1 = variables.getVariableByName(dynVariable.getName() + "_t0");
             List<Variable> thisVarParents = conditionalDistribution.getConditioningVariables();
             thisVarParents = thisVarParents.stream().map(parent -> variables.getVariableByName(parent.getName() + "_t0")).collect(Collectors.toList());
@@ -40,11 +40,11 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
- * This class implements the interfaces {@link InferenceAlgorithmForDBN}.
+ * This class implements the interface {@link StatefulInferenceAlgorithmForDBN}.
  * It handles and implements the Variational message passing (VMP) algorithm to perform inference on {@link DynamicBayesianNetwork} models.
  * Winn, J.M., Bishop, C.M.: Variational message passing. Journal of Machine Learning Research 6 (2005) 661–694.
  */
-public class DynamicVMP implements InferenceAlgorithmForDBN {
+public class DynamicVMP implements StatefulInferenceAlgorithmForDBN {
 
     /** Represents the {@link DynamicBayesianNetwork} model. */
     DynamicBayesianNetwork model;
@@ -73,6 +73,32 @@ public class DynamicVMP implements InferenceAlgorithmForDBN {
     /** Represents the sequence ID. */
     long sequenceID;
 
+    /**
+     * This class represents the filtering state of a sequence: the posteriors of the non-observed nodes at the time
+     * of the posterior, which are also the distributions of the interface nodes at the next time step.
+     */
+    private static final class FilterState {
+
+        /** Represents the sequence ID. */
+        private final long sequenceID;
+
+        /** Represents the time ID of the posteriors. */
+        private final long timeID;
+
+        /** Represents the last evidence. */
+        private final DynamicAssignment assignment;
+
+        /** Represents the posteriors of the non-observed variables. */
+        private final Map<Variable, EF_UnivariateDistribution> posteriors;
+
+        FilterState(long sequenceID, long timeID, DynamicAssignment assignment, Map<Variable, EF_UnivariateDistribution> posteriors) {
+            this.sequenceID = sequenceID;
+            this.timeID = timeID;
+            this.assignment = assignment;
+            this.posteriors = posteriors;
+        }
+    }
+
     /**
      * Creates a new DynamicVMP object.
      */
@@ -167,6 +193,65 @@ public class DynamicVMP implements InferenceAlgorithmForDBN {
         return (getTimeIDOfPosterior()==0)? this.vmpTime0.getPosterior(var): this.vmpTimeT.getPosterior(var);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getFilterState() {
+        Map<Variable, EF_UnivariateDistribution> posteriors = new HashMap<>();
+        if (this.timeID != -1) {
+            VMP vmp = (this.timeID == 0) ? this.vmpTime0 : this.vmpTimeT;
+            vmp.getNodes().stream()
+                    .filter(node -> !node.getMainVariable().isInterfaceVariable())
+                    .filter(node -> !node.isObserved())
+                    .forEach(node -> posteriors.put(node.getMainVariable(), node.getQDist().deepCopy()));
+        }
+        return new FilterState(this.sequenceID, this.timeID, this.assignment, posteriors);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> Unlike {@link #reset()}, the distributions of the nodes without a restored posterior are set to their
+     * initial value, not to a random one, so the result does not depend on the previous use of this object. </p>
+     */
+    @Override
+    public void setFilterState(Object state) {
+        initQDists(this.vmpTime0.getNodes());
+        initQDists(this.vmpTimeT.getNodes());
+
+        if (state == null) {
+            this.timeID = -1;
+            this.sequenceID = -1;
+            this.assignment = new HashMapDynamicAssignment(0);
+            return;
+        }
+
+        FilterState filterState = (FilterState) state;
+        this.sequenceID = filterState.sequenceID;
+        this.timeID = filterState.timeID;
+        this.assignment = filterState.assignment;
+        if (this.timeID == -1)
+            return;
+
+        VMP vmp = (this.timeID == 0) ? this.vmpTime0 : this.vmpTimeT;
+        vmp.setEvidence(this.assignment);
+        filterState.posteriors.forEach((var, posterior) -> {
+            Node node = vmp.getNodeOfVar(var);
+            node.setQDist(posterior.deepCopy());
+            Variable temporalClone = this.model.getDynamicVariables().getInterfaceVariable(var);
+            moveNodeQDist(this.vmpTimeT.getNodeOfVar(temporalClone), node);
+        });
+    }
+
+    /**
+     * Sets the distributions of a list of nodes to their initial value.
+     * @param nodes a {@code List} of {@link Node}s.
+     */
+    private static void initQDists(List<Node> nodes){
+        nodes.forEach(node -> node.setQDist(node.getMainVariable().getDistributionType().newEFUnivariateDistribution()));
+    }
+
     private static void moveNodeQDist(Node toTemporalCloneNode, Node fromNode){
             EF_UnivariateDistribution uni = fromNode.getQDist().deepCopy(toTemporalCloneNode.getMainVariable());
             toTemporalCloneNode.setPDist(uni);
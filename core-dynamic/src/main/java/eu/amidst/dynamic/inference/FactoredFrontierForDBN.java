@@ -21,6 +21,8 @@ import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.distribution.UnivariateDistribution;
 import eu.amidst.core.inference.ImportanceSampling;
 import eu.amidst.core.inference.InferenceAlgorithm;
+import eu.amidst.core.inference.messagepassing.MessagePassingAlgorithm;
+import eu.amidst.core.inference.messagepassing.Node;
 import eu.amidst.core.inference.messagepassing.VMP;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.dynamic.utils.DataSetGenerator;
@@ -44,10 +46,14 @@ import java.util.stream.Collectors;
 
 
 /**
- * This class implements the interfaces {@link InferenceAlgorithmForDBN}.
+ * This class implements the interface {@link StatefulInferenceAlgorithmForDBN}.
  * It handles and implements the Factored Frontier (FF) algorithm to perform inference on {@link DynamicBayesianNetwork} models.
+ *
+ * <p> When the inference algorithm at time T is a {@link MessagePassingAlgorithm}, its model is compiled once, and at
+ * each time step only the distributions of the nodes of the interface variables are replaced. Other algorithms are
+ * given the model at time T again at each time step. </p>
  */
-public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
+public class FactoredFrontierForDBN  implements StatefulInferenceAlgorithmForDBN {
 
     /** Represents the {@link InferenceAlgorithm} at time 0. */
     private InferenceAlgorithm infAlgTime0;
@@ -73,6 +79,41 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
     /** Represents the sequence ID. */
     private long sequenceID;
 
+    /** Represents the filtered posteriors of a restored filtering state, or null if inference has been run since. */
+    private Map<Variable, UnivariateDistribution> restoredPosteriors;
+
+    /**
+     * This class represents the filtering state of a sequence: the distributions of the interface variables in the
+     * model at time T, and the filtered posteriors of the non-observed variables.
+     */
+    private static final class FilterState {
+
+        /** Represents the sequence ID. */
+        private final long sequenceID;
+
+        /** Represents the time ID of the posteriors. */
+        private final long timeID;
+
+        /** Represents the last evidence. */
+        private final DynamicAssignment assignment;
+
+        /** Represents the distributions of the interface variables. */
+        private final Map<Variable, UnivariateDistribution> interfaceDistributions;
+
+        /** Represents the filtered posteriors of the non-observed variables. */
+        private final Map<Variable, UnivariateDistribution> posteriors;
+
+        FilterState(long sequenceID, long timeID, DynamicAssignment assignment,
+                    Map<Variable, UnivariateDistribution> interfaceDistributions,
+                    Map<Variable, UnivariateDistribution> posteriors) {
+            this.sequenceID = sequenceID;
+            this.timeID = timeID;
+            this.assignment = assignment;
+            this.interfaceDistributions = interfaceDistributions;
+            this.posteriors = posteriors;
+        }
+    }
+
     /**
      * Creates a new FactoredFrontierForDBN object.
      * @param inferenceAlgorithm an {@link InferenceAlgorithm} object.
@@ -129,6 +170,8 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
     @Override
     public void runInference() {
 
+        this.restoredPosteriors = null;
+
         if (this.timeID==-1 && assignment.getTimeID()>0) {
             this.infAlgTime0.setModel(this.bnTime0);
             this.infAlgTime0.setEvidence(null);
@@ -152,7 +195,7 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
                 this.moveWindow((int)(this.assignment.getTimeID() - this.timeID - 1));
 
             this.timeID=this.assignment.getTimeID();
-            this.infAlgTimeT.setModel(this.bnTimeT);
+            this.updateInfAlgTimeT();
             this.infAlgTimeT.setEvidence(updateDynamicAssignmentTimeT(this.assignment));
             this.infAlgTimeT.runInference();
             this.getTargetVarsTimeT().stream()
@@ -174,6 +217,32 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
         bnTo.setConditionalDistribution(temporalClone, posteriorDist);
     }
 
+    /**
+     * Prepares the inference algorithm at time T with the current distributions of the interface variables. A
+     * {@link MessagePassingAlgorithm} is given the model at time T only once; afterwards, the distributions of the
+     * nodes of the interface variables are replaced and all the nodes are set to their initial distribution, which
+     * gives the same result without building the exponential family model again.
+     */
+    private void updateInfAlgTimeT(){
+        if (!(this.infAlgTimeT instanceof MessagePassingAlgorithm)) {
+            this.infAlgTimeT.setModel(this.bnTimeT);
+            return;
+        }
+
+        MessagePassingAlgorithm messagePassing = (MessagePassingAlgorithm) this.infAlgTimeT;
+        if (messagePassing.getOriginalModel() != this.bnTimeT) {
+            messagePassing.setModel(this.bnTimeT);
+            return;
+        }
+
+        for (Node node : (List<Node>) messagePassing.getNodes()) {
+            Variable var = node.getMainVariable();
+            if (var.isInterfaceVariable())
+                node.setPDist(this.bnTimeT.getConditionalDistribution(var).toEFConditionalDistribution());
+            node.setQDist(var.getDistributionType().newEFUnivariateDistribution());
+        }
+    }
+
     /**
      * Moves the window ahead for a given number of time steps.
      * @param nsteps an {@link int} that represents a given number of time steps.
@@ -191,7 +260,7 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
         }
 
         for (int i = 0; i < nsteps; i++) {
-            this.infAlgTimeT.setModel(this.bnTimeT);
+            this.updateInfAlgTimeT();
             this.infAlgTimeT.setEvidence(updateDynamicAssignmentTimeT(newassignment));
             this.infAlgTimeT.runInference();
             this.getTargetVarsTimeT().stream()
@@ -238,6 +307,7 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
     public void reset() {
         this.timeID = -1;
         this.sequenceID = -1;
+        this.restoredPosteriors = null;
 
         this.resetInfAlgorithms();
     }
@@ -253,7 +323,9 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
      */
     @Override
     public <E extends UnivariateDistribution> E getFilteredPosterior(Variable var) {
-        if(getTimeIDOfPosterior()==0){
+        if (this.restoredPosteriors != null && this.restoredPosteriors.containsKey(var)) {
+            return (E) this.restoredPosteriors.get(var);
+        }else if(getTimeIDOfPosterior()==0){
             return this.infAlgTime0.getPosterior(var);
         }else{
             return this.infAlgTimeT.getPosterior(var);
@@ -277,34 +349,72 @@ public class FactoredFrontierForDBN  implements InferenceAlgorithmForDBN {
             this.resetInfAlgorithms();
 
             return resultQ;
-        }else if(timeID==0){
-            //Don't need to create a copy of the Q's because they will not be modified at Time 0
+        }else {
+
+            //Keep the distributions of the interface variables, which hold the filtered posteriors
+            Map<Variable, UnivariateDistribution> map = this.getInterfaceDistributions();
+
             this.moveWindow(nTimesAhead);
-            E resultQ = this.getFilteredPosterior(var);
+            E resultQ = this.infAlgTimeT.getPosterior(var);
 
-            //But we need to manually move the posteriors from Time 0 to the Interface Variables in Time T again
-            this.getTargetVarsTime0().stream()
-                    .forEach(v -> moveNodeQDist(this.infAlgTime0, this.bnTimeT, v));
+            //Come to the original state
+            map.forEach(this.bnTimeT::setConditionalDistribution);
 
             return resultQ;
         }
-        else {
-
-            Map<Variable, UnivariateDistribution> map = new HashMap<>();
-
-            //Create at copy of Qs
-            this.getTargetVarsTimeT().stream()
-                    .forEach(v -> map.put(v,this.infAlgTimeT.getPosterior(v).deepCopy(v.getInterfaceVariable())));
+    }
 
-            this.moveWindow(nTimesAhead);
-            E resultQ = this.getFilteredPosterior(var);
+    /**
+     * Returns the distributions of the interface variables in the model at time T.
+     * @return a {@code Map} from the interface variables to their distributions.
+     */
+    private Map<Variable, UnivariateDistribution> getInterfaceDistributions(){
+        Map<Variable, UnivariateDistribution> map = new HashMap<>();
+        for (Variable var : this.model.getDynamicVariables()) {
+            Variable temporalClone = this.model.getDynamicVariables().getInterfaceVariable(var);
+            map.put(temporalClone, this.bnTimeT.getConditionalDistribution(temporalClone));
+        }
+        return map;
+    }
 
-            //Come to the original state
-            map.entrySet().forEach(e -> this.bnTimeT.setConditionalDistribution(e.getKey().getInterfaceVariable(),
-                    e.getValue()));
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The filtered posteriors of all the non-observed variables are computed, so this method is more expensive
+     * than a time step when the inference algorithm computes the posteriors on demand. </p>
+     */
+    @Override
+    public Object getFilterState() {
+        Map<Variable, UnivariateDistribution> posteriors = new HashMap<>();
+        if (this.timeID != -1) {
+            this.getTargetVarsTime0()
+                    .forEach(var -> posteriors.put(var, this.getFilteredPosterior(var).deepCopy(var)));
+        }
+        Map<Variable, UnivariateDistribution> interfaceDistributions = new HashMap<>();
+        this.getInterfaceDistributions()
+                .forEach((var, dist) -> interfaceDistributions.put(var, dist.deepCopy(var)));
+        return new FilterState(this.sequenceID, this.timeID, this.assignment, interfaceDistributions, posteriors);
+    }
 
-            return resultQ;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFilterState(Object state) {
+        if (state == null) {
+            this.timeID = -1;
+            this.sequenceID = -1;
+            this.assignment = new HashMapDynamicAssignment(0);
+            this.restoredPosteriors = null;
+            return;
         }
+
+        FilterState filterState = (FilterState) state;
+        this.sequenceID = filterState.sequenceID;
+        this.timeID = filterState.timeID;
+        this.assignment = filterState.assignment;
+        filterState.interfaceDistributions.forEach(this.bnTimeT::setConditionalDistribution);
+        this.restoredPosteriors = filterState.posteriors;
     }
 
     /**
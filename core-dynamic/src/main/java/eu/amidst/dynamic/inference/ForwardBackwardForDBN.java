@@ -0,0 +1,788 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.distribution.ConditionalDistribution;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.variables.DynamicAssignment;
+import eu.amidst.dynamic.variables.HashMapDynamicAssignment;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the interface {@link StatefulInferenceAlgorithmForDBN}.
+ * It handles and implements exact inference on {@link DynamicBayesianNetwork} models whose non observed variables are
+ * multinomial, such as hidden Markov models and their factorial, input-output and autoregressive variants.
+ *
+ * <p> The joint configurations of the hidden variables define the K states of a Markov chain, and the rest of the
+ * variables must be observed or be leaves of the network. Forward filtering, forward-backward smoothing and Viterbi
+ * decoding are then computed in log-space in O(T K^2) time, where T is the length of the sequence. The conditional
+ * distributions of the hidden variables which only depend on hidden variables give a transition matrix which is
+ * computed once. </p>
+ *
+ * <p> Filtering is performed online through {@link #addDynamicEvidence(DynamicAssignment)} and {@link #runInference()},
+ * as in the other {@link InferenceAlgorithmForDBN}. Smoothing and decoding are performed on a complete sequence with
+ * {@link #computeSmoothedPosteriors(List)} and {@link #computeMAPSequence(List)}, and on many sequences in parallel
+ * with {@link #computeSmoothedPosteriorsOfSequences(List)} and {@link #computeMAPSequences(List)}. </p>
+ */
+public class ForwardBackwardForDBN implements StatefulInferenceAlgorithmForDBN, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 5106478329834729117L;
+
+    /** Represents the {@link DynamicBayesianNetwork} model. */
+    private DynamicBayesianNetwork model;
+
+    /** Represents the hidden variables, or null if they are taken from the first evidence. */
+    private List<Variable> hiddenVars;
+
+    /** Indicates if the sequences are processed in parallel. */
+    private boolean parallelMode = true;
+
+    /** Represents an {@link DynamicAssignment} object. */
+    private DynamicAssignment assignment = new HashMapDynamicAssignment(0);
+
+    /** Represents the time ID. */
+    private long timeID = -1;
+
+    /** Represents the sequence ID. */
+    private long sequenceID = -1;
+
+    /** Represents the normalized logarithm of the filtered distribution of the hidden states. */
+    private double[] logBelief;
+
+    /** Represents the values of the observed variables at the previous time step. */
+    private double[] previousValues;
+
+    /** Represents the log probability of the evidence of the current sequence. */
+    private double logProbabilityOfEvidence = 0;
+
+    /** Represents the number of joint states of the hidden variables. */
+    private transient int nStates;
+
+    /** Represents the state of each hidden variable in each joint state. */
+    private transient int[][] states;
+
+    /** Represents the position of each dynamic variable in the list of hidden variables, or -1. */
+    private transient int[] hiddenIndex;
+
+    /** Indicates, for each dynamic variable, if another variable depends on it at the same or the next time step. */
+    private transient boolean[] hasChildren;
+
+    /** Represents the conditional distributions at time T which do not depend on the previous hidden variables. */
+    private transient ConditionalDistribution[] emissionsTimeT;
+
+    /** Represents the conditional distributions at time T which depend on the previous hidden variables and on data. */
+    private transient ConditionalDistribution[] transitionsTimeT;
+
+    /** Represents the log transition matrix given by the distributions which only depend on hidden variables. */
+    private transient double[][] fixedLogTransition;
+
+    /**
+     * This class represents the filtering state of a sequence.
+     */
+    private static final class FilterState {
+
+        /** Represents the sequence ID. */
+        private final long sequenceID;
+
+        /** Represents the time ID of the belief. */
+        private final long timeID;
+
+        /** Represents the last evidence. */
+        private final DynamicAssignment assignment;
+
+        /** Represents the normalized logarithm of the filtered distribution of the hidden states. */
+        private final double[] logBelief;
+
+        /** Represents the values of the observed variables at the time ID of the belief. */
+        private final double[] previousValues;
+
+        /** Represents the log probability of the evidence of the sequence. */
+        private final double logProbabilityOfEvidence;
+
+        FilterState(long sequenceID, long timeID, DynamicAssignment assignment, double[] logBelief,
+                    double[] previousValues, double logProbabilityOfEvidence) {
+            this.sequenceID = sequenceID;
+            this.timeID = timeID;
+            this.assignment = assignment;
+            this.logBelief = logBelief;
+            this.previousValues = previousValues;
+            this.logProbabilityOfEvidence = logProbabilityOfEvidence;
+        }
+    }
+
+    /**
+     * Sets the parallel mode for the methods processing several sequences.
+     * @param parallelMode_ true if the sequences are processed in parallel.
+     */
+    public void setParallelMode(boolean parallelMode_) {
+        this.parallelMode = parallelMode_;
+    }
+
+    /**
+     * Sets the hidden variables. By default, they are the multinomial variables which are missing in the first
+     * evidence.
+     * @param hiddenVars_ a {@code List} of multinomial dynamic {@link Variable}s.
+     */
+    public void setHiddenVariables(List<Variable> hiddenVars_) {
+        for (Variable var : hiddenVars_) {
+            if (!var.isMultinomial() || var.isInterfaceVariable())
+                throw new IllegalArgumentException("The hidden variables must be multinomial dynamic variables: " + var.getName());
+        }
+        this.hiddenVars = new ArrayList<>(hiddenVars_);
+        this.states = null;
+        this.reset();
+    }
+
+    /**
+     * Returns the hidden variables.
+     * @return a {@code List} of {@link Variable}s, or null if they have not been set nor taken from an evidence yet.
+     */
+    public List<Variable> getHiddenVariables() {
+        return hiddenVars;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setModel(DynamicBayesianNetwork model_) {
+        this.model = model_;
+        this.hiddenVars = null;
+        this.states = null;
+        this.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DynamicBayesianNetwork getOriginalModel() {
+        return this.model;
+    }
+
+    /**
+     * Takes the hidden variables from a given evidence if they were not set, and precomputes the joint states and
+     * the classification of the conditional distributions.
+     * @param evidence a {@link DynamicAssignment} object.
+     */
+    private void compile(DynamicAssignment evidence) {
+        if (states != null)
+            return;
+
+        if (hiddenVars == null) {
+            hiddenVars = model.getDynamicVariables().getListOfDynamicVariables().stream()
+                    .filter(Variable::isMultinomial)
+                    .filter(var -> Utils.isMissingValue(evidence.getValue(var)))
+                    .collect(Collectors.toList());
+        }
+
+        int nVars = model.getNumberOfDynamicVars();
+        hiddenIndex = new int[nVars];
+        Arrays.fill(hiddenIndex, -1);
+        for (int i = 0; i < hiddenVars.size(); i++) {
+            hiddenIndex[hiddenVars.get(i).getVarID()] = i;
+        }
+
+        int n = 1;
+        for (Variable var : hiddenVars) {
+            n *= var.getNumberOfStates();
+        }
+        nStates = n;
+        states = new int[nStates][hiddenVars.size()];
+        for (int j = 0; j < nStates; j++) {
+            int index = j;
+            for (int i = hiddenVars.size() - 1; i >= 0; i--) {
+                states[j][i] = index % hiddenVars.get(i).getNumberOfStates();
+                index /= hiddenVars.get(i).getNumberOfStates();
+            }
+        }
+
+        hasChildren = new boolean[nVars];
+        List<ConditionalDistribution> all = new ArrayList<>(model.getConditionalDistributionsTime0());
+        all.addAll(model.getConditionalDistributionsTimeT());
+        for (ConditionalDistribution dist : all) {
+            for (Variable parent : dist.getConditioningVariables()) {
+                hasChildren[this.getDynamicVarID(parent)] = true;
+            }
+        }
+
+        List<ConditionalDistribution> emissions = new ArrayList<>();
+        List<ConditionalDistribution> transitions = new ArrayList<>();
+        List<ConditionalDistribution> fixedTransitions = new ArrayList<>();
+        for (ConditionalDistribution dist : model.getConditionalDistributionsTimeT()) {
+            List<Variable> parents = dist.getConditioningVariables();
+            if (parents.stream().noneMatch(var -> var.isInterfaceVariable() && this.isHidden(var)))
+                emissions.add(dist);
+            else if (this.isHidden(dist.getVariable()) && parents.stream().allMatch(this::isHidden))
+                fixedTransitions.add(dist);
+            else
+                transitions.add(dist);
+        }
+        emissionsTimeT = emissions.toArray(new ConditionalDistribution[emissions.size()]);
+        transitionsTimeT = transitions.toArray(new ConditionalDistribution[transitions.size()]);
+
+        StepAssignment stepAssignment = new StepAssignment(nVars);
+        fixedLogTransition = new double[nStates][nStates];
+        for (int i = 0; i < nStates; i++) {
+            this.setHiddenStates(stepAssignment, i, true);
+            for (int j = 0; j < nStates; j++) {
+                this.setHiddenStates(stepAssignment, j, false);
+                for (ConditionalDistribution dist : fixedTransitions) {
+                    fixedLogTransition[i][j] += dist.getLogConditionalProbability(stepAssignment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether a dynamic or interface variable corresponds to a hidden variable.
+     * @param var a {@link Variable} object.
+     * @return true if it is hidden.
+     */
+    private boolean isHidden(Variable var) {
+        return hiddenIndex[this.getDynamicVarID(var)] >= 0;
+    }
+
+    /**
+     * Returns the ID of a dynamic variable or of the dynamic variable of an interface variable.
+     * @param var a {@link Variable} object.
+     * @return an {@code int} value.
+     */
+    private int getDynamicVarID(Variable var) {
+        return var.isInterfaceVariable() ? model.getDynamicVariables().getVariableFromInterface(var).getVarID() : var.getVarID();
+    }
+
+    private void setHiddenStates(StepAssignment stepAssignment, int state, boolean past) {
+        double[] values = past ? stepAssignment.past : stepAssignment.present;
+        for (int i = 0; i < hiddenVars.size(); i++) {
+            values[hiddenVars.get(i).getVarID()] = states[state][i];
+        }
+    }
+
+    /**
+     * Tests whether the conditional distribution of a variable is part of the likelihood of a time step.
+     * @param var a {@link Variable} object.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @return false if the variable is not hidden and its value is missing.
+     */
+    private boolean isIncluded(Variable var, StepAssignment stepAssignment) {
+        if (this.isHidden(var) || !Utils.isMissingValue(stepAssignment.present[var.getVarID()]))
+            return true;
+        if (hasChildren[var.getVarID()])
+            throw new UnsupportedOperationException("The value of " + var.getName() + " is missing, but only " +
+                    "hidden variables and variables without children can be missing.");
+        return false;
+    }
+
+    /**
+     * Computes the log likelihood of each hidden state given the evidence of a time step, which includes the
+     * distributions that do not depend on the previous hidden variables and the observed hidden variables.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @param time0 true for the first time step.
+     * @return an array with the log likelihood of each hidden state.
+     */
+    private double[] computeLogEmission(StepAssignment stepAssignment, boolean time0) {
+        List<ConditionalDistribution> dists = new ArrayList<>();
+        for (ConditionalDistribution dist : time0 ? model.getConditionalDistributionsTime0() : Arrays.asList(emissionsTimeT)) {
+            if (this.isIncluded(dist.getVariable(), stepAssignment))
+                dists.add(dist);
+        }
+
+        double[] observedHidden = new double[hiddenVars.size()];
+        for (int i = 0; i < hiddenVars.size(); i++) {
+            observedHidden[i] = stepAssignment.present[hiddenVars.get(i).getVarID()];
+        }
+
+        double[] logEmission = new double[nStates];
+        for (int j = 0; j < nStates; j++) {
+            boolean consistent = true;
+            for (int i = 0; i < observedHidden.length; i++) {
+                consistent = consistent && (Utils.isMissingValue(observedHidden[i]) || observedHidden[i] == states[j][i]);
+            }
+            if (!consistent) {
+                logEmission[j] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            this.setHiddenStates(stepAssignment, j, false);
+            for (ConditionalDistribution dist : dists) {
+                logEmission[j] += dist.getLogConditionalProbability(stepAssignment);
+            }
+        }
+
+        for (int i = 0; i < observedHidden.length; i++) {
+            stepAssignment.present[hiddenVars.get(i).getVarID()] = observedHidden[i];
+        }
+        return logEmission;
+    }
+
+    /**
+     * Computes the log transition matrix of a time step. It is the fixed one, unless some distributions which depend
+     * on the previous hidden variables also depend on data.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @return the log transition matrix, indexed by the previous and the current hidden state.
+     */
+    private double[][] computeLogTransition(StepAssignment stepAssignment) {
+        List<ConditionalDistribution> dists = Arrays.stream(transitionsTimeT)
+                .filter(dist -> this.isIncluded(dist.getVariable(), stepAssignment))
+                .collect(Collectors.toList());
+        if (dists.isEmpty())
+            return fixedLogTransition;
+
+        double[] present = stepAssignment.present.clone();
+        double[] past = stepAssignment.past.clone();
+        double[][] logTransition = new double[nStates][nStates];
+        for (int i = 0; i < nStates; i++) {
+            this.setHiddenStates(stepAssignment, i, true);
+            for (int j = 0; j < nStates; j++) {
+                this.setHiddenStates(stepAssignment, j, false);
+                logTransition[i][j] = fixedLogTransition[i][j];
+                for (ConditionalDistribution dist : dists) {
+                    logTransition[i][j] += dist.getLogConditionalProbability(stepAssignment);
+                }
+            }
+        }
+        System.arraycopy(present, 0, stepAssignment.present, 0, present.length);
+        System.arraycopy(past, 0, stepAssignment.past, 0, past.length);
+        return logTransition;
+    }
+
+    /**
+     * Computes the unnormalized log forward message of a time step.
+     * @param logPrevious the normalized log forward message of the previous time step.
+     * @param logTransition the log transition matrix.
+     * @param logEmission the log likelihood of each hidden state.
+     * @return the log forward message.
+     */
+    private static double[] forward(double[] logPrevious, double[][] logTransition, double[] logEmission) {
+        int n = logEmission.length;
+        double[] logAlpha = new double[n];
+        double[] terms = new double[n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                terms[i] = logPrevious[i] + logTransition[i][j];
+            }
+            logAlpha[j] = logSumExp(terms) + logEmission[j];
+        }
+        return logAlpha;
+    }
+
+    private static double logSumExp(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        if (max == Double.NEGATIVE_INFINITY)
+            return max;
+        double sum = 0;
+        for (double value : values) {
+            sum += Math.exp(value - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    /**
+     * Normalizes a log forward message and returns its normalization constant.
+     * @param logAlpha the log forward message, which is normalized in place.
+     * @return the log normalization constant.
+     */
+    private static double normalize(double[] logAlpha) {
+        double logZ = logSumExp(logAlpha);
+        if (logZ == Double.NEGATIVE_INFINITY)
+            throw new IllegalStateException("The evidence has zero probability.");
+        for (int j = 0; j < logAlpha.length; j++) {
+            logAlpha[j] -= logZ;
+        }
+        return logZ;
+    }
+
+    /**
+     * Returns the values of the observed variables of a time step, which are used at the next time step.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @return an array indexed by variable ID.
+     */
+    private double[] getObservedValues(StepAssignment stepAssignment) {
+        double[] values = stepAssignment.present.clone();
+        for (Variable var : hiddenVars) {
+            values[var.getVarID()] = Utils.missingValue();
+        }
+        return values;
+    }
+
+    /**
+     * Moves the filtered distribution one time step ahead.
+     * @param evidence a {@link DynamicAssignment} object, or null if the time step has no evidence.
+     */
+    private void forwardStep(DynamicAssignment evidence) {
+        StepAssignment stepAssignment = StepAssignment.of(model, evidence, previousValues);
+        if (logBelief == null) {
+            logBelief = this.computeLogEmission(stepAssignment, true);
+        } else {
+            logBelief = forward(logBelief, this.computeLogTransition(stepAssignment), this.computeLogEmission(stepAssignment, false));
+        }
+        logProbabilityOfEvidence += normalize(logBelief);
+        previousValues = this.getObservedValues(stepAssignment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDynamicEvidence(DynamicAssignment assignment_) {
+        if (this.sequenceID != -1 && this.sequenceID != assignment_.getSequenceID())
+            throw new IllegalArgumentException("The sequence ID does not match. If you want to change the sequence, invoke reset method");
+
+        if (this.timeID >= assignment_.getTimeID())
+            throw new IllegalArgumentException("The provided assignment is not posterior to the previous provided assignment.");
+
+        this.assignment = assignment_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runInference() {
+        this.compile(this.assignment);
+        this.sequenceID = this.assignment.getSequenceID();
+
+        //Time steps without evidence
+        for (long t = this.timeID + 1; t < this.assignment.getTimeID(); t++) {
+            this.forwardStep(null);
+        }
+        this.forwardStep(this.assignment);
+        this.timeID = this.assignment.getTimeID();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.timeID = -1;
+        this.sequenceID = -1;
+        this.logBelief = null;
+        this.previousValues = null;
+        this.logProbabilityOfEvidence = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getFilterState() {
+        return new FilterState(this.sequenceID, this.timeID, this.assignment,
+                (logBelief == null) ? null : this.logBelief.clone(),
+                (previousValues == null) ? null : this.previousValues.clone(),
+                this.logProbabilityOfEvidence);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFilterState(Object state) {
+        if (state == null) {
+            this.reset();
+            this.assignment = new HashMapDynamicAssignment(0);
+            return;
+        }
+
+        FilterState filterState = (FilterState) state;
+        this.sequenceID = filterState.sequenceID;
+        this.timeID = filterState.timeID;
+        this.assignment = filterState.assignment;
+        this.logBelief = filterState.logBelief;
+        this.previousValues = filterState.previousValues;
+        this.logProbabilityOfEvidence = filterState.logProbabilityOfEvidence;
+        if (this.logBelief != null)
+            this.compile(this.assignment);
+    }
+
+    /**
+     * Returns the log probability of the evidence provided since the last reset.
+     * @return a {@code double} value.
+     */
+    public double getLogProbabilityOfEvidence() {
+        return logProbabilityOfEvidence;
+    }
+
+    /**
+     * Returns the marginal distribution of a hidden variable given a distribution of the hidden states.
+     * @param var a hidden {@link Variable}.
+     * @param logProbs the normalized logarithm of the distribution of the hidden states.
+     * @return a {@link Multinomial} distribution.
+     */
+    private Multinomial getMarginal(Variable var, double[] logProbs) {
+        if (states == null || !this.isHidden(var) || var.isInterfaceVariable())
+            throw new IllegalArgumentException("Only the posteriors of the hidden variables are computed: " + var.getName());
+        int index = hiddenIndex[var.getVarID()];
+        double[] probs = new double[var.getNumberOfStates()];
+        for (int j = 0; j < nStates; j++) {
+            probs[states[j][index]] += Math.exp(logProbs[j]);
+        }
+        Multinomial multinomial = new Multinomial(var);
+        multinomial.setProbabilities(Utils.normalize(probs));
+        return multinomial;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getFilteredPosterior(Variable var) {
+        if (logBelief == null)
+            throw new IllegalStateException("The inference has not been run.");
+        return (E) this.getMarginal(var, logBelief);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getPredictivePosterior(Variable var, int nTimesAhead) {
+        if (logBelief == null) {
+            this.compile(new HashMapDynamicAssignment(0));
+            double[] logPrior = this.computeLogEmission(StepAssignment.of(model, null, null), true);
+            normalize(logPrior);
+            return (E) this.getMarginal(var, this.predict(logPrior, null, nTimesAhead - 1));
+        }
+        return (E) this.getMarginal(var, this.predict(logBelief, previousValues, nTimesAhead));
+    }
+
+    /**
+     * Moves a distribution of the hidden states a number of time steps ahead without evidence.
+     * @param logProbs the normalized logarithm of the distribution of the hidden states.
+     * @param previous the values of the observed variables at the current time step, or null.
+     * @param nSteps the number of time steps.
+     * @return the normalized logarithm of the predicted distribution.
+     */
+    private double[] predict(double[] logProbs, double[] previous, int nSteps) {
+        for (int t = 0; t < nSteps; t++) {
+            StepAssignment stepAssignment = StepAssignment.of(model, null, previous);
+            logProbs = forward(logProbs, this.computeLogTransition(stepAssignment), this.computeLogEmission(stepAssignment, false));
+            normalize(logProbs);
+            previous = null;
+        }
+        return logProbs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeIDOfLastEvidence() {
+        return this.assignment.getTimeID();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeIDOfPosterior() {
+        return this.timeID;
+    }
+
+    /**
+     * Computes the assignments and the log likelihoods of the hidden states of all the time steps of a sequence.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return the assignments of the time steps.
+     */
+    private StepAssignment[] getStepAssignments(List<DynamicDataInstance> sequence) {
+        if (sequence.isEmpty())
+            throw new IllegalArgumentException("The sequence is empty.");
+        synchronized (this) {
+            this.compile(sequence.get(0));
+        }
+        StepAssignment[] stepAssignments = new StepAssignment[sequence.size()];
+        double[] previous = null;
+        for (int t = 0; t < stepAssignments.length; t++) {
+            stepAssignments[t] = StepAssignment.of(model, sequence.get(t), previous);
+            previous = this.getObservedValues(stepAssignments[t]);
+        }
+        return stepAssignments;
+    }
+
+    /**
+     * Computes the normalized log forward messages of a sequence.
+     * @param stepAssignments the assignments of the time steps.
+     * @param logAlphas the array where the forward messages are stored.
+     * @return the log probability of the sequence.
+     */
+    private double computeForwardMessages(StepAssignment[] stepAssignments, double[][] logAlphas) {
+        double logProbability = 0;
+        for (int t = 0; t < stepAssignments.length; t++) {
+            if (t == 0)
+                logAlphas[t] = this.computeLogEmission(stepAssignments[t], true);
+            else
+                logAlphas[t] = forward(logAlphas[t - 1], this.computeLogTransition(stepAssignments[t]), this.computeLogEmission(stepAssignments[t], false));
+            logProbability += normalize(logAlphas[t]);
+        }
+        return logProbability;
+    }
+
+    /**
+     * Computes the log probability of the evidence of a complete sequence.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return a {@code double} value.
+     */
+    public double computeLogProbabilityOfSequence(List<DynamicDataInstance> sequence) {
+        StepAssignment[] stepAssignments = this.getStepAssignments(sequence);
+        return this.computeForwardMessages(stepAssignments, new double[stepAssignments.length][]);
+    }
+
+    /**
+     * Computes the smoothed posterior distributions of the hidden variables at each time step of a complete
+     * sequence with the forward-backward algorithm.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return a {@code List} with, for each time step, the posteriors of the hidden variables in the order given by
+     * {@link #getHiddenVariables()}.
+     */
+    public List<List<UnivariateDistribution>> computeSmoothedPosteriors(List<DynamicDataInstance> sequence) {
+        StepAssignment[] stepAssignments = this.getStepAssignments(sequence);
+        int nSteps = stepAssignments.length;
+        double[][] logAlphas = new double[nSteps][];
+        this.computeForwardMessages(stepAssignments, logAlphas);
+
+        List<List<UnivariateDistribution>> posteriors = new ArrayList<>(nSteps);
+        for (int t = 0; t < nSteps; t++) {
+            posteriors.add(null);
+        }
+
+        double[] logBeta = new double[nStates];
+        double[] terms = new double[nStates];
+        for (int t = nSteps - 1; t >= 0; t--) {
+            if (t < nSteps - 1) {
+                double[][] logTransition = this.computeLogTransition(stepAssignments[t + 1]);
+                double[] logEmission = this.computeLogEmission(stepAssignments[t + 1], false);
+                double[] next = new double[nStates];
+                for (int i = 0; i < nStates; i++) {
+                    for (int j = 0; j < nStates; j++) {
+                        terms[j] = logTransition[i][j] + logEmission[j] + logBeta[j];
+                    }
+                    next[i] = logSumExp(terms);
+                }
+                normalize(next);
+                logBeta = next;
+            }
+
+            double[] logGamma = new double[nStates];
+            for (int j = 0; j < nStates; j++) {
+                logGamma[j] = logAlphas[t][j] + logBeta[j];
+            }
+            normalize(logGamma);
+            posteriors.set(t, hiddenVars.stream().map(var -> (UnivariateDistribution) this.getMarginal(var, logGamma)).collect(Collectors.toList()));
+        }
+        return posteriors;
+    }
+
+    /**
+     * Computes the most probable joint assignment of the hidden variables of a complete sequence with the Viterbi
+     * algorithm.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return a {@code List} with the {@link Assignment} of the hidden variables at each time step.
+     */
+    public List<Assignment> computeMAPSequence(List<DynamicDataInstance> sequence) {
+        StepAssignment[] stepAssignments = this.getStepAssignments(sequence);
+        int nSteps = stepAssignments.length;
+        int[][] backPointers = new int[nSteps][nStates];
+
+        double[] logDelta = this.computeLogEmission(stepAssignments[0], true);
+        for (int t = 1; t < nSteps; t++) {
+            double[][] logTransition = this.computeLogTransition(stepAssignments[t]);
+            double[] logEmission = this.computeLogEmission(stepAssignments[t], false);
+            double[] next = new double[nStates];
+            for (int j = 0; j < nStates; j++) {
+                double max = Double.NEGATIVE_INFINITY;
+                int argMax = 0;
+                for (int i = 0; i < nStates; i++) {
+                    double value = logDelta[i] + logTransition[i][j];
+                    if (value > max) {
+                        max = value;
+                        argMax = i;
+                    }
+                }
+                next[j] = max + logEmission[j];
+                backPointers[t][j] = argMax;
+            }
+            logDelta = next;
+        }
+
+        int state = 0;
+        for (int j = 1; j < nStates; j++) {
+            if (logDelta[j] > logDelta[state])
+                state = j;
+        }
+        if (logDelta[state] == Double.NEGATIVE_INFINITY)
+            throw new IllegalStateException("The evidence has zero probability.");
+
+        Assignment[] mapSequence = new Assignment[nSteps];
+        for (int t = nSteps - 1; t >= 0; t--) {
+            HashMapAssignment mapAssignment = new HashMapAssignment(hiddenVars.size());
+            for (int i = 0; i < hiddenVars.size(); i++) {
+                mapAssignment.setValue(hiddenVars.get(i), states[state][i]);
+            }
+            mapSequence[t] = mapAssignment;
+            state = backPointers[t][state];
+        }
+        return Arrays.asList(mapSequence);
+    }
+
+    /**
+     * Computes the smoothed posteriors of several sequences, in parallel if the parallel mode is set.
+     * @param sequences a {@code List} of sequences.
+     * @return a {@code List} with the result of {@link #computeSmoothedPosteriors(List)} for each sequence.
+     */
+    public List<List<List<UnivariateDistribution>>> computeSmoothedPosteriorsOfSequences(List<List<DynamicDataInstance>> sequences) {
+        return this.mapSequences(sequences, this::computeSmoothedPosteriors);
+    }
+
+    /**
+     * Computes the MAP sequences of several sequences, in parallel if the parallel mode is set.
+     * @param sequences a {@code List} of sequences.
+     * @return a {@code List} with the result of {@link #computeMAPSequence(List)} for each sequence.
+     */
+    public List<List<Assignment>> computeMAPSequences(List<List<DynamicDataInstance>> sequences) {
+        return this.mapSequences(sequences, this::computeMAPSequence);
+    }
+
+    private <T> List<T> mapSequences(List<List<DynamicDataInstance>> sequences, Function<List<DynamicDataInstance>, T> function) {
+        //The hidden variables are taken from the first sequence, as when the sequences are processed sequentially.
+        if (!sequences.isEmpty() && !sequences.get(0).isEmpty())
+            this.compile(sequences.get(0).get(0));
+
+        IntStream indexes = IntStream.range(0, sequences.size());
+        if (parallelMode)
+            indexes = indexes.parallel();
+        return indexes.mapToObj(i -> function.apply(sequences.get(i))).collect(Collectors.toList());
+    }
+}
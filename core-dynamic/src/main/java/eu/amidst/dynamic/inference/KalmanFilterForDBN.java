@@ -0,0 +1,1082 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.distribution.ConditionalDistribution;
+import eu.amidst.core.distribution.ConditionalLinearGaussian;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.Normal_MultinomialNormalParents;
+import eu.amidst.core.distribution.Normal_MultinomialParents;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.variables.DynamicAssignment;
+import eu.amidst.dynamic.variables.HashMapDynamicAssignment;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the interface {@link StatefulInferenceAlgorithmForDBN}.
+ * It handles and implements the Kalman filter and the Rauch-Tung-Striebel smoother on {@link DynamicBayesianNetwork}
+ * models whose non observed normal variables follow linear Gaussian distributions, such as the Kalman filter and the
+ * switching Kalman filter of the latent variable models.
+ *
+ * <p> The distribution of the hidden normal variables at the current and the previous time step is computed in moment
+ * form, adding the hidden normal variables in topological order, and then it is updated with the observed normal
+ * variables one by one. The coefficients of the linear Gaussian distributions are read from the conditional
+ * distributions of the model, so any normal distribution with multinomial and normal parents is supported. </p>
+ *
+ * <p> When there are hidden multinomial variables (switching models), the filtered distribution is a mixture with a
+ * Gaussian component for each joint state of these variables, and the mixture is collapsed at each time step with the
+ * GPB2 or the IMM approximation (see {@link SwitchingApproximation}). Without hidden multinomial variables, the
+ * filtered and smoothed posteriors are exact. </p>
+ */
+public class KalmanFilterForDBN implements StatefulInferenceAlgorithmForDBN, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 3924675198032174529L;
+
+    /**
+     * The approximations to keep one Gaussian component for each joint state of the hidden multinomial variables.
+     */
+    public enum SwitchingApproximation {
+        /** Runs a Kalman step for each pair of previous and current states, and collapses the results for each
+         * current state (generalized pseudo Bayesian of order 2). */
+        GPB2,
+        /** Mixes the previous components for each current state and runs a Kalman step for each current state
+         * (interacting multiple model). The normal variables can not depend on the previous multinomial states. */
+        IMM
+    }
+
+    /** Represents the {@link DynamicBayesianNetwork} model. */
+    private DynamicBayesianNetwork model;
+
+    /** Represents the hidden variables, or null if they are taken from the first evidence. */
+    private List<Variable> hiddenVars;
+
+    /** Represents the approximation used for switching models. */
+    private SwitchingApproximation switchingApproximation = SwitchingApproximation.GPB2;
+
+    /** Indicates if the sequences are processed in parallel. */
+    private boolean parallelMode = true;
+
+    /** Represents an {@link DynamicAssignment} object. */
+    private DynamicAssignment assignment = new HashMapDynamicAssignment(0);
+
+    /** Represents the time ID. */
+    private long timeID = -1;
+
+    /** Represents the sequence ID. */
+    private long sequenceID = -1;
+
+    /** Represents the filtered distribution, with a component for each joint state of the hidden multinomial variables. */
+    private Component[] belief;
+
+    /** Represents the values of the observed variables at the previous time step. */
+    private double[] previousValues;
+
+    /** Represents the log probability of the evidence of the current sequence. */
+    private double logProbabilityOfEvidence = 0;
+
+    /** Represents the hidden multinomial variables. */
+    private transient List<Variable> discreteVars;
+
+    /** Represents the hidden normal variables. */
+    private transient List<Variable> normalVars;
+
+    /** Represents the number of joint states of the hidden multinomial variables. */
+    private transient int nModes;
+
+    /** Represents the state of each hidden multinomial variable in each joint state. */
+    private transient int[][] modes;
+
+    /** Represents the position of each dynamic variable in the list of hidden multinomial variables, or -1. */
+    private transient int[] discreteIndex;
+
+    /** Represents the position of each dynamic variable in the list of hidden normal variables, or -1. */
+    private transient int[] normalIndex;
+
+    /** Indicates, for each dynamic variable, if another variable depends on it at the same or the next time step. */
+    private transient boolean[] hasChildren;
+
+    /** Represents the positions of the hidden normal variables in topological order at time 0. */
+    private transient int[] orderTime0;
+
+    /** Represents the positions of the hidden normal variables in topological order at time T. */
+    private transient int[] orderTimeT;
+
+    /** Represents the distributions of the observed normal variables with hidden normal parents at time 0. */
+    private transient ConditionalDistribution[] observationsTime0;
+
+    /** Represents the distributions of the observed normal variables with hidden normal parents at time T. */
+    private transient ConditionalDistribution[] observationsTimeT;
+
+    /** Represents the rest of the distributions at time 0, which only depend on the hidden multinomial variables. */
+    private transient ConditionalDistribution[] modeFactorsTime0;
+
+    /** Represents the rest of the distributions at time T, which only depend on the hidden multinomial variables. */
+    private transient ConditionalDistribution[] modeFactorsTimeT;
+
+    /**
+     * This class represents a weighted Gaussian distribution of the hidden normal variables.
+     */
+    private static final class Component implements Serializable {
+
+        /** Represents the serial version ID for serializing the object. */
+        private static final long serialVersionUID = 5836154719342271042L;
+
+        /** Represents the log weight. */
+        private double logWeight;
+
+        /** Represents the mean vector. */
+        private double[] mean;
+
+        /** Represents the covariance matrix. */
+        private double[][] covariance;
+
+        Component(double logWeight, double[] mean, double[][] covariance) {
+            this.logWeight = logWeight;
+            this.mean = mean;
+            this.covariance = covariance;
+        }
+    }
+
+    /**
+     * This class represents the filtering state of a sequence.
+     */
+    private static final class FilterState {
+
+        /** Represents the sequence ID. */
+        private final long sequenceID;
+
+        /** Represents the time ID of the belief. */
+        private final long timeID;
+
+        /** Represents the last evidence. */
+        private final DynamicAssignment assignment;
+
+        /** Represents the filtered mixture of Gaussian distributions. */
+        private final Component[] belief;
+
+        /** Represents the values of the observed variables at the time ID of the belief. */
+        private final double[] previousValues;
+
+        /** Represents the log probability of the evidence of the sequence. */
+        private final double logProbabilityOfEvidence;
+
+        FilterState(long sequenceID, long timeID, DynamicAssignment assignment, Component[] belief,
+                    double[] previousValues, double logProbabilityOfEvidence) {
+            this.sequenceID = sequenceID;
+            this.timeID = timeID;
+            this.assignment = assignment;
+            this.belief = belief;
+            this.previousValues = previousValues;
+            this.logProbabilityOfEvidence = logProbabilityOfEvidence;
+        }
+    }
+
+    /**
+     * Tests whether a model is supported, i.e., whether all its normal variables follow linear Gaussian
+     * distributions and no other variable has normal parents.
+     * @param model a {@link DynamicBayesianNetwork} object.
+     * @return true if the model is supported.
+     */
+    public static boolean isLinearGaussian(DynamicBayesianNetwork model) {
+        List<ConditionalDistribution> dists = new ArrayList<>(model.getConditionalDistributionsTime0());
+        dists.addAll(model.getConditionalDistributionsTimeT());
+        for (ConditionalDistribution dist : dists) {
+            if (dist.getVariable().isNormal()) {
+                if (!(dist instanceof Normal || dist instanceof ConditionalLinearGaussian ||
+                        dist instanceof Normal_MultinomialParents || dist instanceof Normal_MultinomialNormalParents))
+                    return false;
+            } else if (dist.getConditioningVariables().stream().anyMatch(Variable::isNormal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the approximation used for switching models. By default, it is {@link SwitchingApproximation#GPB2}.
+     * @param switchingApproximation_ a {@link SwitchingApproximation} value.
+     */
+    public void setSwitchingApproximation(SwitchingApproximation switchingApproximation_) {
+        this.switchingApproximation = switchingApproximation_;
+        this.modes = null;
+        this.reset();
+    }
+
+    /**
+     * Sets the parallel mode for the methods processing several sequences.
+     * @param parallelMode_ true if the sequences are processed in parallel.
+     */
+    public void setParallelMode(boolean parallelMode_) {
+        this.parallelMode = parallelMode_;
+    }
+
+    /**
+     * Sets the hidden variables. By default, they are the normal and multinomial variables which are missing in the
+     * first evidence.
+     * @param hiddenVars_ a {@code List} of normal and multinomial dynamic {@link Variable}s.
+     */
+    public void setHiddenVariables(List<Variable> hiddenVars_) {
+        for (Variable var : hiddenVars_) {
+            if ((!var.isNormal() && !var.isMultinomial()) || var.isInterfaceVariable())
+                throw new IllegalArgumentException("The hidden variables must be normal or multinomial dynamic variables: " + var.getName());
+        }
+        this.hiddenVars = new ArrayList<>(hiddenVars_);
+        this.modes = null;
+        this.reset();
+    }
+
+    /**
+     * Returns the hidden variables.
+     * @return a {@code List} of {@link Variable}s, or null if they have not been set nor taken from an evidence yet.
+     */
+    public List<Variable> getHiddenVariables() {
+        return hiddenVars;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setModel(DynamicBayesianNetwork model_) {
+        if (!isLinearGaussian(model_))
+            throw new UnsupportedOperationException("The normal variables must follow linear Gaussian distributions, " +
+                    "and only normal variables can have normal parents.");
+        this.model = model_;
+        this.hiddenVars = null;
+        this.modes = null;
+        this.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DynamicBayesianNetwork getOriginalModel() {
+        return this.model;
+    }
+
+    /**
+     * Takes the hidden variables from a given evidence if they were not set, and precomputes the joint states of the
+     * hidden multinomial variables and the classification of the conditional distributions.
+     * @param evidence a {@link DynamicAssignment} object.
+     */
+    private synchronized void compile(DynamicAssignment evidence) {
+        if (modes != null)
+            return;
+
+        if (hiddenVars == null) {
+            hiddenVars = model.getDynamicVariables().getListOfDynamicVariables().stream()
+                    .filter(var -> var.isNormal() || var.isMultinomial())
+                    .filter(var -> Utils.isMissingValue(evidence.getValue(var)))
+                    .collect(Collectors.toList());
+        }
+        discreteVars = hiddenVars.stream().filter(Variable::isMultinomial).collect(Collectors.toList());
+        normalVars = hiddenVars.stream().filter(Variable::isNormal).collect(Collectors.toList());
+
+        int nVars = model.getNumberOfDynamicVars();
+        discreteIndex = new int[nVars];
+        normalIndex = new int[nVars];
+        Arrays.fill(discreteIndex, -1);
+        Arrays.fill(normalIndex, -1);
+        for (int i = 0; i < discreteVars.size(); i++) {
+            discreteIndex[discreteVars.get(i).getVarID()] = i;
+        }
+        for (int i = 0; i < normalVars.size(); i++) {
+            normalIndex[normalVars.get(i).getVarID()] = i;
+        }
+
+        int n = 1;
+        for (Variable var : discreteVars) {
+            n *= var.getNumberOfStates();
+        }
+        int nModes_ = n;
+        int[][] modes_ = new int[nModes_][discreteVars.size()];
+        for (int j = 0; j < nModes_; j++) {
+            int index = j;
+            for (int i = discreteVars.size() - 1; i >= 0; i--) {
+                modes_[j][i] = index % discreteVars.get(i).getNumberOfStates();
+                index /= discreteVars.get(i).getNumberOfStates();
+            }
+        }
+
+        hasChildren = new boolean[nVars];
+        List<ConditionalDistribution> all = new ArrayList<>(model.getConditionalDistributionsTime0());
+        all.addAll(model.getConditionalDistributionsTimeT());
+        for (ConditionalDistribution dist : all) {
+            for (Variable parent : dist.getConditioningVariables()) {
+                hasChildren[this.getDynamicVarID(parent)] = true;
+            }
+        }
+
+        orderTime0 = this.getTopologicalOrder(model.getConditionalDistributionsTime0());
+        orderTimeT = this.getTopologicalOrder(model.getConditionalDistributionsTimeT());
+        observationsTime0 = this.getObservations(model.getConditionalDistributionsTime0(), true);
+        observationsTimeT = this.getObservations(model.getConditionalDistributionsTimeT(), true);
+        modeFactorsTime0 = this.getObservations(model.getConditionalDistributionsTime0(), false);
+        modeFactorsTimeT = this.getObservations(model.getConditionalDistributionsTimeT(), false);
+
+        if (switchingApproximation == SwitchingApproximation.IMM) {
+            for (int k : orderTimeT) {
+                ConditionalDistribution dist = model.getConditionalDistributionTimeT(normalVars.get(k));
+                if (dist.getConditioningVariables().stream().anyMatch(var -> var.isInterfaceVariable() && this.isHiddenDiscrete(var)))
+                    throw new UnsupportedOperationException("The IMM approximation requires that the normal " +
+                            "variables do not depend on the previous hidden multinomial variables.");
+            }
+        }
+
+        nModes = nModes_;
+        modes = modes_;
+    }
+
+    private int getDynamicVarID(Variable var) {
+        return var.isInterfaceVariable() ? model.getDynamicVariables().getVariableFromInterface(var).getVarID() : var.getVarID();
+    }
+
+    private boolean isHiddenNormal(Variable var) {
+        return normalIndex[this.getDynamicVarID(var)] >= 0;
+    }
+
+    private boolean isHiddenDiscrete(Variable var) {
+        return discreteIndex[this.getDynamicVarID(var)] >= 0;
+    }
+
+    /**
+     * Returns the positions of the hidden normal variables in an order where the hidden normal parents at the same
+     * time step of each variable come before it.
+     * @param dists the conditional distributions at time 0 or T, indexed by variable ID.
+     * @return an array of positions in the list of hidden normal variables.
+     */
+    private int[] getTopologicalOrder(List<ConditionalDistribution> dists) {
+        int n = normalVars.size();
+        int[] order = new int[n];
+        boolean[] added = new boolean[n];
+        for (int position = 0; position < n; position++) {
+            int next = -1;
+            for (int k = 0; k < n && next < 0; k++) {
+                if (added[k])
+                    continue;
+                boolean ready = true;
+                for (Variable parent : dists.get(normalVars.get(k).getVarID()).getConditioningVariables()) {
+                    if (!parent.isInterfaceVariable() && this.isHiddenNormal(parent) && !added[normalIndex[parent.getVarID()]])
+                        ready = false;
+                }
+                if (ready)
+                    next = k;
+            }
+            added[next] = true;
+            order[position] = next;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the distributions of the observed variables, split in the ones of normal variables with hidden normal
+     * parents, and the rest, which together with the ones of the hidden multinomial variables only depend on the
+     * hidden multinomial variables.
+     * @param dists the conditional distributions at time 0 or T.
+     * @param gaussian true to return the ones with hidden normal parents.
+     * @return an array of {@link ConditionalDistribution}s.
+     */
+    private ConditionalDistribution[] getObservations(List<ConditionalDistribution> dists, boolean gaussian) {
+        return dists.stream()
+                .filter(dist -> !this.isHiddenNormal(dist.getVariable()))
+                .filter(dist -> gaussian == dist.getConditioningVariables().stream().anyMatch(this::isHiddenNormal))
+                .toArray(ConditionalDistribution[]::new);
+    }
+
+    /**
+     * Tests whether the conditional distribution of a variable is part of the likelihood of a time step.
+     * @param var a {@link Variable} object.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @return false if the variable is not hidden and its value is missing.
+     */
+    private boolean isIncluded(Variable var, StepAssignment stepAssignment) {
+        if (this.isHiddenDiscrete(var) || !Utils.isMissingValue(stepAssignment.present[var.getVarID()]))
+            return true;
+        if (hasChildren[var.getVarID()])
+            throw new UnsupportedOperationException("The value of " + var.getName() + " is missing, but only " +
+                    "hidden variables and variables without children can be missing.");
+        return false;
+    }
+
+    /**
+     * Sets the hidden multinomial variables of a time step and of the previous one to given joint states, and the
+     * hidden normal variables to zero.
+     */
+    private void setHiddenValues(StepAssignment stepAssignment, int previousMode, int mode) {
+        for (int i = 0; i < discreteVars.size(); i++) {
+            stepAssignment.past[discreteVars.get(i).getVarID()] = modes[previousMode][i];
+            stepAssignment.present[discreteVars.get(i).getVarID()] = modes[mode][i];
+        }
+        for (Variable var : normalVars) {
+            stepAssignment.past[var.getVarID()] = 0;
+            stepAssignment.present[var.getVarID()] = 0;
+        }
+    }
+
+    /**
+     * Tests whether a joint state of the hidden multinomial variables agrees with their observed values.
+     */
+    private boolean isConsistent(DynamicAssignment evidence, int mode) {
+        if (evidence == null)
+            return true;
+        for (int i = 0; i < discreteVars.size(); i++) {
+            double value = evidence.getValue(discreteVars.get(i));
+            if (!Utils.isMissingValue(value) && value != modes[mode][i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the linear Gaussian distribution of a normal variable given the rest of the values of a step assignment,
+     * where the hidden normal variables are set to zero.
+     * @param dist the {@link ConditionalDistribution} of a normal variable.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @param coefficients the array where the coefficients of the hidden normal variables of the previous and the
+     *                     current time step are stored.
+     * @return an array with the intercept and the variance.
+     */
+    private double[] getLinearGaussian(ConditionalDistribution dist, StepAssignment stepAssignment, double[] coefficients) {
+        int n = normalVars.size();
+        Arrays.fill(coefficients, 0);
+        Normal normal = (Normal) dist.getUnivariateDistribution(stepAssignment);
+        double intercept = normal.getMean();
+        for (Variable parent : dist.getConditioningVariables()) {
+            if (!this.isHiddenNormal(parent))
+                continue;
+            int position = (parent.isInterfaceVariable() ? 0 : n) + normalIndex[this.getDynamicVarID(parent)];
+            stepAssignment.setValue(parent, 1);
+            coefficients[position] = ((Normal) dist.getUnivariateDistribution(stepAssignment)).getMean() - intercept;
+            stepAssignment.setValue(parent, 0);
+        }
+        return new double[]{intercept, normal.getVariance()};
+    }
+
+    /**
+     * Computes the log probability of the distributions of a time step which only depend on the hidden multinomial
+     * variables.
+     */
+    private double getLogModeFactor(StepAssignment stepAssignment, int previousMode, int mode, boolean time0) {
+        this.setHiddenValues(stepAssignment, previousMode, mode);
+        double logProb = 0;
+        for (ConditionalDistribution dist : time0 ? modeFactorsTime0 : modeFactorsTimeT) {
+            if (this.isIncluded(dist.getVariable(), stepAssignment))
+                logProb += dist.getLogConditionalProbability(stepAssignment);
+        }
+        return logProb;
+    }
+
+    /**
+     * Runs a Kalman step: computes the joint distribution of the hidden normal variables at the previous and the
+     * current time step, where the ones at the previous time step come first, given the observed normal variables.
+     * @param prior the distribution of the hidden normal variables at the previous time step, or null at time 0.
+     * @param stepAssignment a {@link StepAssignment} object.
+     * @param previousMode the joint state of the hidden multinomial variables at the previous time step.
+     * @param mode the joint state of the hidden multinomial variables at the current time step.
+     * @return a {@link Component} whose log weight is the log likelihood of the observed normal variables.
+     */
+    private Component kalmanStep(Component prior, StepAssignment stepAssignment, int previousMode, int mode) {
+        boolean time0 = prior == null;
+        int n = normalVars.size();
+        double[] mean = new double[2 * n];
+        double[][] covariance = new double[2 * n][2 * n];
+        if (!time0) {
+            System.arraycopy(prior.mean, 0, mean, 0, n);
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(prior.covariance[i], 0, covariance[i], 0, n);
+            }
+        }
+
+        this.setHiddenValues(stepAssignment, previousMode, mode);
+        double[] coefficients = new double[2 * n];
+
+        //Prediction, adding the hidden normal variables in topological order.
+        for (int k : time0 ? orderTime0 : orderTimeT) {
+            Variable var = normalVars.get(k);
+            ConditionalDistribution dist = time0 ? model.getConditionalDistributionTime0(var) : model.getConditionalDistributionTimeT(var);
+            double[] linearGaussian = this.getLinearGaussian(dist, stepAssignment, coefficients);
+            int row = n + k;
+            mean[row] = linearGaussian[0];
+            for (int l = 0; l < 2 * n; l++) {
+                if (coefficients[l] == 0)
+                    continue;
+                mean[row] += coefficients[l] * mean[l];
+            }
+            for (int m = 0; m < 2 * n; m++) {
+                if (m == row)
+                    continue;
+                double value = 0;
+                for (int l = 0; l < 2 * n; l++) {
+                    if (coefficients[l] != 0)
+                        value += coefficients[l] * covariance[l][m];
+                }
+                covariance[row][m] = value;
+                covariance[m][row] = value;
+            }
+            double variance = linearGaussian[1];
+            for (int l = 0; l < 2 * n; l++) {
+                variance += coefficients[l] * covariance[row][l];
+            }
+            covariance[row][row] = variance;
+        }
+
+        //Update, with the observed normal variables one by one.
+        double logLikelihood = 0;
+        double[] gain = new double[2 * n];
+        for (ConditionalDistribution dist : time0 ? observationsTime0 : observationsTimeT) {
+            if (!this.isIncluded(dist.getVariable(), stepAssignment))
+                continue;
+            double[] linearGaussian = this.getLinearGaussian(dist, stepAssignment, coefficients);
+            double innovation = stepAssignment.present[dist.getVariable().getVarID()] - linearGaussian[0];
+            double innovationVariance = linearGaussian[1];
+            for (int l = 0; l < 2 * n; l++) {
+                innovation -= coefficients[l] * mean[l];
+                double value = 0;
+                for (int m = 0; m < 2 * n; m++) {
+                    value += covariance[l][m] * coefficients[m];
+                }
+                gain[l] = value;
+                innovationVariance += coefficients[l] * value;
+            }
+
+            logLikelihood += -0.5 * (Math.log(2 * Math.PI * innovationVariance) + innovation * innovation / innovationVariance);
+            for (int l = 0; l < 2 * n; l++) {
+                mean[l] += gain[l] * innovation / innovationVariance;
+                for (int m = 0; m < 2 * n; m++) {
+                    covariance[l][m] -= gain[l] * gain[m] / innovationVariance;
+                }
+            }
+        }
+
+        return new Component(logLikelihood, mean, covariance);
+    }
+
+    /**
+     * Returns the distribution of the hidden normal variables at the current time step of a Kalman step.
+     */
+    private Component getCurrent(Component joint, double logWeight) {
+        int n = normalVars.size();
+        double[] mean = Arrays.copyOfRange(joint.mean, n, 2 * n);
+        double[][] covariance = new double[n][];
+        for (int i = 0; i < n; i++) {
+            covariance[i] = Arrays.copyOfRange(joint.covariance[n + i], n, 2 * n);
+        }
+        return new Component(logWeight, mean, covariance);
+    }
+
+    /**
+     * Collapses a mixture of Gaussian distributions into a Gaussian distribution with the same mean and covariance.
+     * @param components the components, whose log weights do not need to be normalized.
+     * @return a {@link Component} whose log weight is the log of the sum of the weights.
+     */
+    private static Component collapse(List<Component> components) {
+        double logTotal = logSumExp(components.stream().mapToDouble(component -> component.logWeight).toArray());
+        int n = components.get(0).mean.length;
+        double[] mean = new double[n];
+        double[][] covariance = new double[n][n];
+        if (logTotal == Double.NEGATIVE_INFINITY)
+            return new Component(logTotal, mean, covariance);
+
+        for (Component component : components) {
+            double weight = Math.exp(component.logWeight - logTotal);
+            for (int i = 0; i < n; i++) {
+                mean[i] += weight * component.mean[i];
+            }
+        }
+        for (Component component : components) {
+            double weight = Math.exp(component.logWeight - logTotal);
+            if (weight == 0)
+                continue;
+            for (int i = 0; i < n; i++) {
+                double di = component.mean[i] - mean[i];
+                for (int j = 0; j < n; j++) {
+                    covariance[i][j] += weight * (component.covariance[i][j] + di * (component.mean[j] - mean[j]));
+                }
+            }
+        }
+        return new Component(logTotal, mean, covariance);
+    }
+
+    private static double logSumExp(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        if (max == Double.NEGATIVE_INFINITY)
+            return max;
+        double sum = 0;
+        for (double value : values) {
+            sum += Math.exp(value - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    /**
+     * Computes the filtered distribution of a time step from the one of the previous time step.
+     * @param previous the filtered distribution of the previous time step, or null at time 0.
+     * @param evidence a {@link DynamicAssignment} object, or null if the time step has no evidence.
+     * @param stepAssignment the {@link StepAssignment} of the time step.
+     * @param joints if not null, the array where the joint distributions of the Kalman steps are stored.
+     * @return the unnormalized filtered distribution.
+     */
+    private Component[] filter(Component[] previous, DynamicAssignment evidence, StepAssignment stepAssignment, Component[] joints) {
+        Component[] next = new Component[nModes];
+        for (int j = 0; j < nModes; j++) {
+            if (!this.isConsistent(evidence, j))
+                continue;
+
+            if (previous == null) {
+                Component joint = this.kalmanStep(null, stepAssignment, 0, j);
+                double logWeight = joint.logWeight + this.getLogModeFactor(stepAssignment, 0, j, true);
+                next[j] = this.getCurrent(joint, logWeight);
+                if (joints != null)
+                    joints[j] = joint;
+            } else if (switchingApproximation == SwitchingApproximation.GPB2 || nModes == 1) {
+                List<Component> components = new ArrayList<>();
+                List<Component> jointComponents = new ArrayList<>();
+                for (int i = 0; i < nModes; i++) {
+                    if (previous[i] == null || previous[i].logWeight == Double.NEGATIVE_INFINITY)
+                        continue;
+                    Component joint = this.kalmanStep(previous[i], stepAssignment, i, j);
+                    double logWeight = previous[i].logWeight + this.getLogModeFactor(stepAssignment, i, j, false) + joint.logWeight;
+                    components.add(this.getCurrent(joint, logWeight));
+                    jointComponents.add(new Component(logWeight, joint.mean, joint.covariance));
+                }
+                if (components.isEmpty())
+                    continue;
+                next[j] = collapse(components);
+                if (joints != null)
+                    joints[j] = collapse(jointComponents);
+            } else {
+                List<Component> mixing = new ArrayList<>();
+                for (int i = 0; i < nModes; i++) {
+                    if (previous[i] == null || previous[i].logWeight == Double.NEGATIVE_INFINITY)
+                        continue;
+                    double logWeight = previous[i].logWeight + this.getLogModeFactor(stepAssignment, i, j, false);
+                    mixing.add(new Component(logWeight, previous[i].mean, previous[i].covariance));
+                }
+                if (mixing.isEmpty())
+                    continue;
+                Component prior = collapse(mixing);
+                Component joint = this.kalmanStep(prior, stepAssignment, 0, j);
+                next[j] = this.getCurrent(joint, prior.logWeight + joint.logWeight);
+                if (joints != null)
+                    joints[j] = joint;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Normalizes the weights of a filtered distribution and returns the log of their sum.
+     * @param components the filtered distribution.
+     * @return the log normalization constant.
+     */
+    private static double normalize(Component[] components) {
+        double[] logWeights = Arrays.stream(components)
+                .mapToDouble(component -> component == null ? Double.NEGATIVE_INFINITY : component.logWeight)
+                .toArray();
+        double logZ = logSumExp(logWeights);
+        if (logZ == Double.NEGATIVE_INFINITY)
+            throw new IllegalStateException("The evidence has zero probability.");
+        for (Component component : components) {
+            if (component != null)
+                component.logWeight -= logZ;
+        }
+        return logZ;
+    }
+
+    /**
+     * Returns the values of the observed variables of a time step, which are used at the next time step.
+     */
+    private double[] getObservedValues(StepAssignment stepAssignment) {
+        double[] values = stepAssignment.present.clone();
+        for (Variable var : hiddenVars) {
+            values[var.getVarID()] = Utils.missingValue();
+        }
+        return values;
+    }
+
+    /**
+     * Moves the filtered distribution one time step ahead.
+     * @param evidence a {@link DynamicAssignment} object, or null if the time step has no evidence.
+     */
+    private void forwardStep(DynamicAssignment evidence) {
+        StepAssignment stepAssignment = StepAssignment.of(model, evidence, previousValues);
+        belief = this.filter(belief, evidence, stepAssignment, null);
+        logProbabilityOfEvidence += normalize(belief);
+        previousValues = this.getObservedValues(stepAssignment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDynamicEvidence(DynamicAssignment assignment_) {
+        if (this.sequenceID != -1 && this.sequenceID != assignment_.getSequenceID())
+            throw new IllegalArgumentException("The sequence ID does not match. If you want to change the sequence, invoke reset method");
+
+        if (this.timeID >= assignment_.getTimeID())
+            throw new IllegalArgumentException("The provided assignment is not posterior to the previous provided assignment.");
+
+        this.assignment = assignment_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runInference() {
+        this.compile(this.assignment);
+        this.sequenceID = this.assignment.getSequenceID();
+
+        //Time steps without evidence
+        for (long t = this.timeID + 1; t < this.assignment.getTimeID(); t++) {
+            this.forwardStep(null);
+        }
+        this.forwardStep(this.assignment);
+        this.timeID = this.assignment.getTimeID();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.timeID = -1;
+        this.sequenceID = -1;
+        this.belief = null;
+        this.previousValues = null;
+        this.logProbabilityOfEvidence = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getFilterState() {
+        return new FilterState(this.sequenceID, this.timeID, this.assignment,
+                (belief == null) ? null : this.belief.clone(),
+                (previousValues == null) ? null : this.previousValues.clone(),
+                this.logProbabilityOfEvidence);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFilterState(Object state) {
+        if (state == null) {
+            this.reset();
+            this.assignment = new HashMapDynamicAssignment(0);
+            return;
+        }
+
+        FilterState filterState = (FilterState) state;
+        this.sequenceID = filterState.sequenceID;
+        this.timeID = filterState.timeID;
+        this.assignment = filterState.assignment;
+        this.belief = filterState.belief;
+        this.previousValues = filterState.previousValues;
+        this.logProbabilityOfEvidence = filterState.logProbabilityOfEvidence;
+        if (this.belief != null)
+            this.compile(this.assignment);
+    }
+
+    /**
+     * Returns the log probability of the evidence provided since the last reset. It is exact for models without
+     * hidden multinomial variables.
+     * @return a {@code double} value.
+     */
+    public double getLogProbabilityOfEvidence() {
+        return logProbabilityOfEvidence;
+    }
+
+    /**
+     * Returns the marginal distribution of a hidden variable given a normalized mixture of Gaussian distributions.
+     * @param var a hidden {@link Variable}.
+     * @param components the mixture, with a component for each joint state of the hidden multinomial variables.
+     * @return a {@link Multinomial} or a {@link Normal} distribution.
+     */
+    private UnivariateDistribution getMarginal(Variable var, Component[] components) {
+        if (modes == null || var.isInterfaceVariable() || !hiddenVars.contains(var))
+            throw new IllegalArgumentException("Only the posteriors of the hidden variables are computed: " + var.getName());
+
+        if (var.isMultinomial()) {
+            int index = discreteIndex[var.getVarID()];
+            double[] probs = new double[var.getNumberOfStates()];
+            for (int j = 0; j < nModes; j++) {
+                if (components[j] != null)
+                    probs[modes[j][index]] += Math.exp(components[j].logWeight);
+            }
+            Multinomial multinomial = new Multinomial(var);
+            multinomial.setProbabilities(Utils.normalize(probs));
+            return multinomial;
+        }
+
+        int index = normalIndex[var.getVarID()];
+        List<Component> marginals = Arrays.stream(components)
+                .filter(component -> component != null)
+                .map(component -> new Component(component.logWeight, new double[]{component.mean[index]},
+                        new double[][]{{component.covariance[index][index]}}))
+                .collect(Collectors.toList());
+        Component marginal = collapse(marginals);
+        Normal normal = new Normal(var);
+        normal.setMean(marginal.mean[0]);
+        normal.setVariance(marginal.covariance[0][0]);
+        return normal;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getFilteredPosterior(Variable var) {
+        if (belief == null)
+            throw new IllegalStateException("The inference has not been run.");
+        return (E) this.getMarginal(var, belief);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getPredictivePosterior(Variable var, int nTimesAhead) {
+        Component[] components = belief;
+        double[] previous = previousValues;
+        int nSteps = nTimesAhead;
+        if (components == null) {
+            this.compile(new HashMapDynamicAssignment(0));
+            components = this.filter(null, null, StepAssignment.of(model, null, null), null);
+            normalize(components);
+            nSteps--;
+        }
+        for (int t = 0; t < nSteps; t++) {
+            components = this.filter(components, null, StepAssignment.of(model, null, previous), null);
+            normalize(components);
+            previous = null;
+        }
+        return (E) this.getMarginal(var, components);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeIDOfLastEvidence() {
+        return this.assignment.getTimeID();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeIDOfPosterior() {
+        return this.timeID;
+    }
+
+    /**
+     * Computes the log probability of the evidence of a complete sequence. It is exact for models without hidden
+     * multinomial variables.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return a {@code double} value.
+     */
+    public double computeLogProbabilityOfSequence(List<DynamicDataInstance> sequence) {
+        if (sequence.isEmpty())
+            throw new IllegalArgumentException("The sequence is empty.");
+        this.compile(sequence.get(0));
+
+        Component[] components = null;
+        double[] previous = null;
+        double logProbability = 0;
+        for (DynamicDataInstance instance : sequence) {
+            StepAssignment stepAssignment = StepAssignment.of(model, instance, previous);
+            components = this.filter(components, instance, stepAssignment, null);
+            logProbability += normalize(components);
+            previous = this.getObservedValues(stepAssignment);
+        }
+        return logProbability;
+    }
+
+    /**
+     * Computes the smoothed posterior distributions of the hidden normal variables at each time step of a complete
+     * sequence with the Rauch-Tung-Striebel smoother. It requires a model without hidden multinomial variables.
+     * @param sequence a {@code List} of {@link DynamicDataInstance}s with consecutive time IDs.
+     * @return a {@code List} with, for each time step, the posteriors of the hidden variables in the order given by
+     * {@link #getHiddenVariables()}.
+     */
+    public List<List<UnivariateDistribution>> computeSmoothedPosteriors(List<DynamicDataInstance> sequence) {
+        if (sequence.isEmpty())
+            throw new IllegalArgumentException("The sequence is empty.");
+        this.compile(sequence.get(0));
+        if (nModes > 1)
+            throw new UnsupportedOperationException("Smoothing requires a model without hidden multinomial variables.");
+
+        int nSteps = sequence.size();
+        int n = normalVars.size();
+        Component[] joints = new Component[nSteps];
+        Component[] components = null;
+        double[] previous = null;
+        for (int t = 0; t < nSteps; t++) {
+            StepAssignment stepAssignment = StepAssignment.of(model, sequence.get(t), previous);
+            Component[] joint = new Component[1];
+            components = this.filter(components, sequence.get(t), stepAssignment, joint);
+            normalize(components);
+            joints[t] = joint[0];
+            previous = this.getObservedValues(stepAssignment);
+        }
+
+        //Backward pass: p(x_{t-1} | x_t, y_{1:T}) = p(x_{t-1} | x_t, y_{1:t}), read from the joint of the Kalman step at t.
+        Component[] smoothed = new Component[nSteps];
+        smoothed[nSteps - 1] = this.getCurrent(joints[nSteps - 1], 0);
+        for (int t = nSteps - 1; t > 0; t--) {
+            double[][] joint = joints[t].covariance;
+            double[][] currentCovariance = new double[n][n];
+            double[][] crossCovariance = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    currentCovariance[i][j] = joint[n + i][n + j];
+                    crossCovariance[i][j] = joint[n + i][j];
+                }
+            }
+
+            //The rows of the gain G = Sigma_{t-1,t} Sigma_{t,t}^-1 are the solutions of Sigma_{t,t} g = Sigma_{t,t-1}.
+            double[][] cholesky = choleskyDecomposition(currentCovariance);
+            double[][] gain = new double[n][];
+            for (int i = 0; i < n; i++) {
+                double[] column = new double[n];
+                for (int j = 0; j < n; j++) {
+                    column[j] = crossCovariance[j][i];
+                }
+                gain[i] = choleskySolve(cholesky, column);
+            }
+
+            double[] mean = new double[n];
+            double[][] covariance = new double[n][n];
+            double[][] difference = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                mean[i] = joints[t].mean[i];
+                for (int j = 0; j < n; j++) {
+                    mean[i] += gain[i][j] * (smoothed[t].mean[j] - joints[t].mean[n + j]);
+                    difference[i][j] = smoothed[t].covariance[i][j] - currentCovariance[i][j];
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    double value = joint[i][j];
+                    for (int k = 0; k < n; k++) {
+                        for (int l = 0; l < n; l++) {
+                            value += gain[i][k] * difference[k][l] * gain[j][l];
+                        }
+                    }
+                    covariance[i][j] = value;
+                }
+            }
+            smoothed[t - 1] = new Component(0, mean, covariance);
+        }
+
+        List<List<UnivariateDistribution>> posteriors = new ArrayList<>(nSteps);
+        for (int t = 0; t < nSteps; t++) {
+            Component[] mixture = new Component[]{smoothed[t]};
+            posteriors.add(hiddenVars.stream().map(var -> this.getMarginal(var, mixture)).collect(Collectors.toList()));
+        }
+        return posteriors;
+    }
+
+    /**
+     * Computes the smoothed posteriors of several sequences, in parallel if the parallel mode is set.
+     * @param sequences a {@code List} of sequences.
+     * @return a {@code List} with the result of {@link #computeSmoothedPosteriors(List)} for each sequence.
+     */
+    public List<List<List<UnivariateDistribution>>> computeSmoothedPosteriorsOfSequences(List<List<DynamicDataInstance>> sequences) {
+        //The hidden variables are taken from the first sequence, as when the sequences are processed sequentially.
+        if (!sequences.isEmpty() && !sequences.get(0).isEmpty())
+            this.compile(sequences.get(0).get(0));
+
+        IntStream indexes = IntStream.range(0, sequences.size());
+        if (parallelMode)
+            indexes = indexes.parallel();
+        return indexes.mapToObj(i -> this.computeSmoothedPosteriors(sequences.get(i))).collect(Collectors.toList());
+    }
+
+    /**
+     * Computes the Cholesky decomposition of a symmetric positive definite matrix.
+     * @param matrix the matrix.
+     * @return the lower triangular matrix L such that L L^T is the matrix.
+     */
+    private static double[][] choleskyDecomposition(double[][] matrix) {
+        int n = matrix.length;
+        double[][] lower = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            double diagonal = matrix[j][j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= lower[j][k] * lower[j][k];
+            }
+            if (!(diagonal > 0))
+                throw new IllegalStateException("The covariance matrix of the hidden normal variables is not positive definite.");
+            lower[j][j] = Math.sqrt(diagonal);
+            for (int i = j + 1; i < n; i++) {
+                double value = matrix[i][j];
+                for (int k = 0; k < j; k++) {
+                    value -= lower[i][k] * lower[j][k];
+                }
+                lower[i][j] = value / lower[j][j];
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Solves the system L L^T x = b.
+     * @param lower the Cholesky decomposition L.
+     * @param b the right-hand side.
+     * @return the solution x.
+     */
+    private static double[] choleskySolve(double[][] lower, double[] b) {
+        int n = b.length;
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            double value = b[i];
+            for (int k = 0; k < i; k++) {
+                value -= lower[i][k] * x[k];
+            }
+            x[i] = value / lower[i][i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double value = x[i];
+            for (int k = i + 1; k < n; k++) {
+                value -= lower[k][i] * x[k];
+            }
+            x[i] = value / lower[i][i];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class filters many sequences of a {@link DynamicBayesianNetwork} at the same time, such as the streams of a
+ * population of devices, where the evidence of the different sequences arrives interleaved.
+ *
+ * <p> A pool of {@link StatefulInferenceAlgorithmForDBN} workers is created, and the model of each worker is compiled
+ * once. For each sequence only its filtering state is kept, which holds the belief over the interface variables.
+ * Each batch of {@link DynamicDataInstance}s is routed by sequence ID: the instances of a sequence are processed in
+ * order by a single worker, which first restores the state of the sequence and then stores its new state, and the
+ * different sequences are processed in parallel. </p>
+ *
+ * <p> To keep the memory bounded, the sequences which have not been updated in a number of batches, and the least
+ * recently updated sequences beyond a maximum number of sequences, are evicted. The evidence of an evicted sequence
+ * starts a new sequence. </p>
+ */
+public class MultiSequenceFilterForDBN {
+
+    /**
+     * This class represents a filtered sequence.
+     */
+    private static final class SequenceEntry {
+
+        /** Represents the filtering state of the sequence. */
+        private volatile Object state;
+
+        /** Represents the time ID of the filtered posteriors. */
+        private volatile long timeID;
+
+        /** Represents the number of the last batch where the sequence was updated. */
+        private volatile long lastBatch;
+    }
+
+    /** Represents the {@link DynamicBayesianNetwork} model. */
+    private final DynamicBayesianNetwork model;
+
+    /** Represents the factory of the inference algorithms. */
+    private final Supplier<? extends StatefulInferenceAlgorithmForDBN> algorithmFactory;
+
+    /** Represents the number of workers. */
+    private int numberOfWorkers = Runtime.getRuntime().availableProcessors();
+
+    /** Represents the maximum number of sequences which are kept. */
+    private int maxNumberOfSequences = Integer.MAX_VALUE;
+
+    /** Represents the number of batches after which a sequence without evidence is evicted. */
+    private long maxIdleBatches = Long.MAX_VALUE;
+
+    /** Represents the inference algorithms of the workers, whose models are already compiled. */
+    private final List<StatefulInferenceAlgorithmForDBN> workers = new ArrayList<>();
+
+    /** Represents the inference algorithm used to answer the queries. */
+    private final StatefulInferenceAlgorithmForDBN queryAlgorithm;
+
+    /** Represents the filtered sequences, by sequence ID. */
+    private final Map<Long, SequenceEntry> sequences = new ConcurrentHashMap<>();
+
+    /** Represents the number of processed batches. */
+    private long numberOfBatches = 0;
+
+    /** Represents the number of evicted sequences. */
+    private long numberOfEvictedSequences = 0;
+
+    /**
+     * Creates a new MultiSequenceFilterForDBN object.
+     * @param model a {@link DynamicBayesianNetwork} model.
+     * @param algorithmFactory a {@code Supplier} creating a new {@link StatefulInferenceAlgorithmForDBN} each time it is
+     *                         invoked, e.g., {@code DynamicVMP::new}.
+     */
+    public MultiSequenceFilterForDBN(DynamicBayesianNetwork model, Supplier<? extends StatefulInferenceAlgorithmForDBN> algorithmFactory) {
+        this.model = model;
+        this.algorithmFactory = algorithmFactory;
+        this.queryAlgorithm = this.newAlgorithm();
+    }
+
+    /**
+     * Sets the number of workers processing the sequences in parallel.
+     * @param numberOfWorkers an {@code int} value.
+     */
+    public void setNumberOfWorkers(int numberOfWorkers) {
+        if (numberOfWorkers < 1)
+            throw new IllegalArgumentException("The number of workers must be positive.");
+        this.numberOfWorkers = numberOfWorkers;
+    }
+
+    /**
+     * Returns the number of workers processing the sequences in parallel.
+     * @return an {@code int} value.
+     */
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    /**
+     * Sets the maximum number of sequences which are kept. When it is exceeded after a batch, the least recently
+     * updated sequences are evicted.
+     * @param maxNumberOfSequences an {@code int} value.
+     */
+    public void setMaxNumberOfSequences(int maxNumberOfSequences) {
+        if (maxNumberOfSequences < 1)
+            throw new IllegalArgumentException("The maximum number of sequences must be positive.");
+        this.maxNumberOfSequences = maxNumberOfSequences;
+    }
+
+    /**
+     * Returns the maximum number of sequences which are kept.
+     * @return an {@code int} value.
+     */
+    public int getMaxNumberOfSequences() {
+        return maxNumberOfSequences;
+    }
+
+    /**
+     * Sets the number of consecutive batches without evidence after which a sequence is evicted.
+     * @param maxIdleBatches a {@code long} value.
+     */
+    public void setMaxIdleBatches(long maxIdleBatches) {
+        if (maxIdleBatches < 1)
+            throw new IllegalArgumentException("The maximum number of idle batches must be positive.");
+        this.maxIdleBatches = maxIdleBatches;
+    }
+
+    /**
+     * Returns the number of consecutive batches without evidence after which a sequence is evicted.
+     * @return a {@code long} value.
+     */
+    public long getMaxIdleBatches() {
+        return maxIdleBatches;
+    }
+
+    /**
+     * Returns the {@link DynamicBayesianNetwork} model.
+     * @return a {@link DynamicBayesianNetwork} object.
+     */
+    public DynamicBayesianNetwork getOriginalModel() {
+        return model;
+    }
+
+    /**
+     * Creates a new inference algorithm for the model.
+     * @return a {@link StatefulInferenceAlgorithmForDBN} object.
+     */
+    private StatefulInferenceAlgorithmForDBN newAlgorithm() {
+        StatefulInferenceAlgorithmForDBN algorithm = this.algorithmFactory.get();
+        algorithm.setModel(this.model);
+        return algorithm;
+    }
+
+    /**
+     * Updates the filtered posteriors with the evidence of a data stream, which is processed in batches.
+     * @param data a {@link DataStream} of {@link DynamicDataInstance}s.
+     * @param batchSize an {@code int} that represents the number of instances of each batch.
+     */
+    public void updateFilter(DataStream<DynamicDataInstance> data, int batchSize) {
+        data.streamOfBatches(batchSize).sequential().forEach(this::updateFilter);
+    }
+
+    /**
+     * Updates the filtered posteriors with the evidence of a batch. The instances of each sequence must be ordered
+     * by time ID, and must be posterior to the evidence of the sequence in the previous batches.
+     * @param batch a {@link DataOnMemory} of {@link DynamicDataInstance}s.
+     */
+    public synchronized void updateFilter(DataOnMemory<DynamicDataInstance> batch) {
+
+        //Route the instances by sequence ID
+        Map<Long, List<DynamicDataInstance>> instancesBySequence = new LinkedHashMap<>();
+        for (DynamicDataInstance instance : batch) {
+            instancesBySequence.computeIfAbsent(instance.getSequenceID(), id -> new ArrayList<>()).add(instance);
+        }
+        ConcurrentLinkedQueue<List<DynamicDataInstance>> queue = new ConcurrentLinkedQueue<>(instancesBySequence.values());
+
+        int nWorkers = Math.min(this.numberOfWorkers, queue.size());
+        while (this.workers.size() < nWorkers) {
+            this.workers.add(this.newAlgorithm());
+        }
+
+        long batchNumber = ++this.numberOfBatches;
+        IntStream.range(0, nWorkers).parallel().forEach(i -> {
+            StatefulInferenceAlgorithmForDBN worker = this.workers.get(i);
+            List<DynamicDataInstance> instances;
+            while ((instances = queue.poll()) != null) {
+                this.updateSequence(worker, instances, batchNumber);
+            }
+        });
+
+        this.evictSequences();
+    }
+
+    /**
+     * Updates the filtering state of a sequence.
+     * @param worker the {@link StatefulInferenceAlgorithmForDBN} of the worker.
+     * @param instances the instances of the sequence in the batch, ordered by time ID.
+     * @param batchNumber the number of the current batch.
+     */
+    private void updateSequence(StatefulInferenceAlgorithmForDBN worker, List<DynamicDataInstance> instances, long batchNumber) {
+        long sequenceID = instances.get(0).getSequenceID();
+        SequenceEntry entry = this.sequences.get(sequenceID);
+        worker.setFilterState((entry == null) ? null : entry.state);
+
+        for (DynamicDataInstance instance : instances) {
+            worker.addDynamicEvidence(instance);
+            worker.runInference();
+        }
+
+        if (entry == null) {
+            entry = new SequenceEntry();
+            this.sequences.put(sequenceID, entry);
+        }
+        entry.state = worker.getFilterState();
+        entry.timeID = worker.getTimeIDOfPosterior();
+        entry.lastBatch = batchNumber;
+    }
+
+    /**
+     * Evicts the idle sequences and, if the maximum number of sequences is exceeded, the least recently updated ones.
+     */
+    private void evictSequences() {
+        int sizeBefore = this.sequences.size();
+        this.sequences.values().removeIf(entry -> this.numberOfBatches - entry.lastBatch >= this.maxIdleBatches);
+
+        int excess = this.sequences.size() - this.maxNumberOfSequences;
+        if (excess > 0) {
+            this.sequences.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastBatch))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList())
+                    .forEach(this.sequences::remove);
+        }
+        this.numberOfEvictedSequences += sizeBefore - this.sequences.size();
+    }
+
+    /**
+     * Returns the filtering state of a sequence.
+     * @param sequenceID the ID of the sequence.
+     * @return an {@code Object} returned by {@link StatefulInferenceAlgorithmForDBN#getFilterState()}.
+     */
+    private Object getState(long sequenceID) {
+        SequenceEntry entry = this.sequences.get(sequenceID);
+        if (entry == null)
+            throw new IllegalArgumentException("There is no filtered sequence with ID " + sequenceID);
+        return entry.state;
+    }
+
+    /**
+     * Returns the filtered posterior distribution of a given {@link Variable} in a sequence.
+     * @param sequenceID the ID of the sequence.
+     * @param var a {@link Variable} object.
+     * @param <E> a class extending {@link UnivariateDistribution}.
+     * @return an {@link UnivariateDistribution} object.
+     */
+    public <E extends UnivariateDistribution> E getFilteredPosterior(long sequenceID, Variable var) {
+        Object state = this.getState(sequenceID);
+        synchronized (this.queryAlgorithm) {
+            this.queryAlgorithm.setFilterState(state);
+            return this.queryAlgorithm.getFilteredPosterior(var);
+        }
+    }
+
+    /**
+     * Returns the predictive posterior distribution of a given {@link Variable} in a sequence for nTimesAhead.
+     * @param sequenceID the ID of the sequence.
+     * @param var a {@link Variable} object.
+     * @param nTimesAhead an {@code int} that represents the number of time steps ahead.
+     * @param <E> a class extending {@link UnivariateDistribution}.
+     * @return an {@link UnivariateDistribution} object.
+     */
+    public <E extends UnivariateDistribution> E getPredictivePosterior(long sequenceID, Variable var, int nTimesAhead) {
+        Object state = this.getState(sequenceID);
+        synchronized (this.queryAlgorithm) {
+            this.queryAlgorithm.setFilterState(state);
+            return this.queryAlgorithm.getPredictivePosterior(var, nTimesAhead);
+        }
+    }
+
+    /**
+     * Returns the time ID of the filtered posteriors of a sequence.
+     * @param sequenceID the ID of the sequence.
+     * @return a {@code long} that represents the time ID.
+     */
+    public long getTimeIDOfPosterior(long sequenceID) {
+        SequenceEntry entry = this.sequences.get(sequenceID);
+        if (entry == null)
+            throw new IllegalArgumentException("There is no filtered sequence with ID " + sequenceID);
+        return entry.timeID;
+    }
+
+    /**
+     * Tests whether a sequence is being filtered, i.e., whether it has evidence and has not been evicted.
+     * @param sequenceID the ID of the sequence.
+     * @return true if the sequence is being filtered.
+     */
+    public boolean containsSequence(long sequenceID) {
+        return this.sequences.containsKey(sequenceID);
+    }
+
+    /**
+     * Returns the IDs of the filtered sequences.
+     * @return a {@code Set} of sequence IDs.
+     */
+    public Set<Long> getSequenceIDs() {
+        return this.sequences.keySet();
+    }
+
+    /**
+     * Returns the number of filtered sequences.
+     * @return an {@code int} value.
+     */
+    public int getNumberOfSequences() {
+        return this.sequences.size();
+    }
+
+    /**
+     * Returns the number of sequences evicted so far.
+     * @return a {@code long} value.
+     */
+    public long getNumberOfEvictedSequences() {
+        return numberOfEvictedSequences;
+    }
+
+    /**
+     * Removes a sequence, e.g., when it is known to be finished.
+     * @param sequenceID the ID of the sequence.
+     */
+    public void removeSequence(long sequenceID) {
+        this.sequences.remove(sequenceID);
+    }
+}
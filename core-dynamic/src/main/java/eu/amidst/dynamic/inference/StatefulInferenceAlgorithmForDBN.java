@@ -0,0 +1,45 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+
+/**
+ * This interface extends {@link InferenceAlgorithmForDBN} with the export and the import of the filtering state, i.e.,
+ * the belief over the interface variables together with the time ID and the last evidence of the sequence being
+ * filtered. This allows a single algorithm, whose {@link DynamicBayesianNetwork} model is compiled once, to filter
+ * many sequences in turns. See {@link MultiSequenceFilterForDBN}.
+ */
+public interface StatefulInferenceAlgorithmForDBN extends InferenceAlgorithmForDBN {
+
+    /**
+     * Returns a snapshot of the filtering state of the current sequence. The snapshot does not share any mutable
+     * state with this algorithm, so it remains valid after further calls to {@link #runInference()}.
+     * @return an {@code Object} representing the filtering state.
+     */
+    Object getFilterState();
+
+    /**
+     * Restores a filtering state previously returned by {@link #getFilterState()} on an algorithm with the same model.
+     * After this call, the filtered and predictive posteriors are those of the restored sequence, and new evidence
+     * of that sequence can be added.
+     * @param state an {@code Object} returned by {@link #getFilterState()}, or null to start a new sequence, as
+     *              {@link #reset()} does.
+     */
+    void setFilterState(Object state);
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.variables.DynamicAssignment;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * This class represents the values of the variables of a {@link DynamicBayesianNetwork} at a time step and at the
+ * previous one, which are respectively read through the dynamic variables and their interface variables. It is
+ * used by the exact inference algorithms to evaluate the conditional distributions at time T on primitive arrays.
+ */
+final class StepAssignment implements Assignment {
+
+    /** Represents the number of dynamic variables, which is the offset of the IDs of the interface variables. */
+    private final int nVars;
+
+    /** Represents the values at the current time step, indexed by variable ID. */
+    final double[] present;
+
+    /** Represents the values at the previous time step, indexed by variable ID. */
+    final double[] past;
+
+    /**
+     * Creates a new StepAssignment object where all the values are missing.
+     * @param nVars the number of dynamic variables.
+     */
+    StepAssignment(int nVars) {
+        this.nVars = nVars;
+        this.present = new double[nVars];
+        this.past = new double[nVars];
+        Arrays.fill(this.present, Utils.missingValue());
+        Arrays.fill(this.past, Utils.missingValue());
+    }
+
+    /**
+     * Returns the assignment of a time step, from its evidence and the values of the previous time step.
+     * @param model a {@link DynamicBayesianNetwork} object.
+     * @param evidence a {@link DynamicAssignment} object, or null if the time step has no evidence.
+     * @param previous the values of the previous time step indexed by variable ID, or null.
+     * @return a {@link StepAssignment} object.
+     */
+    static StepAssignment of(DynamicBayesianNetwork model, DynamicAssignment evidence, double[] previous) {
+        StepAssignment stepAssignment = new StepAssignment(model.getNumberOfDynamicVars());
+        if (evidence != null) {
+            for (Variable var : model.getDynamicVariables()) {
+                stepAssignment.present[var.getVarID()] = evidence.getValue(var);
+            }
+        }
+        if (previous != null)
+            System.arraycopy(previous, 0, stepAssignment.past, 0, previous.length);
+        return stepAssignment;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(Variable var) {
+        return var.isInterfaceVariable() ? past[var.getVarID() - nVars] : present[var.getVarID()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(Variable var, double value) {
+        if (var.isInterfaceVariable())
+            past[var.getVarID() - nVars] = value;
+        else
+            present[var.getVarID()] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Variable> getVariables() {
+        throw new UnsupportedOperationException("The variables of a step assignment are not stored.");
+    }
+}
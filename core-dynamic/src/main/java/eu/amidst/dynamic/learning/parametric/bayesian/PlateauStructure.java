@@ -16,9 +16,12 @@ import eu.amidst.core.exponentialfamily.EF_LearningBayesianNetwork;
 import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
 import eu.amidst.core.inference.messagepassing.VMP;
 import eu.amidst.core.inference.messagepassing.Node;
+import eu.amidst.core.utils.CompoundVector;
+import eu.amidst.core.utils.Vector;
 import eu.amidst.dynamic.models.DynamicDAG;
 import eu.amidst.core.variables.Variable;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -28,7 +31,10 @@ import java.util.stream.Collectors;
 /**
  * This class defines a Plateau Structure.
  */
-public class PlateauStructure {
+public class PlateauStructure implements Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 3195087403921635780L;
 
     /* Represents the list of parameters {@link Node}s at time 0. */
     List<Node> parametersNodeTime0;
@@ -412,4 +418,62 @@ public class PlateauStructure {
         return (E)this.parametersToNodeTime0.get(var).getQDist();
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Returns the parameter variables at time 0 followed by the parameter variables at time T.
+     * @return a {@code List} of {@link Variable} objects.
+     */
+    private List<Variable> getParameterVariables() {
+        List<Variable> parameterVariables = new ArrayList<>();
+        parameterVariables.addAll(this.ef_learningmodelTime0.getListOfParametersVariables());
+        parameterVariables.addAll(this.ef_learningmodelTimeT.getListOfParametersVariables());
+        return parameterVariables;
+    }
+
+    /**
+     * Returns the {@link EF_LearningBayesianNetwork} containing a given parameter variable.
+     * @param var a parameter {@link Variable} object.
+     * @return an {@link EF_LearningBayesianNetwork} object.
+     */
+    private EF_LearningBayesianNetwork getEFLearningBN(Variable var) {
+        return this.parametersToNodeTime0.containsKey(var) ? this.ef_learningmodelTime0 : this.ef_learningmodelTimeT;
+    }
+
+    /**
+     * Returns the natural parameters of the priors of the parameter variables at time 0 and at time T.
+     * @return a {@link CompoundVector} with a copy of the natural parameters of each parameter variable.
+     */
+    public CompoundVector getPlateauNaturalParameterPrior() {
+        List<Vector> naturalParameters = this.getParameterVariables().stream()
+                .map(var -> {
+                    EF_UnivariateDistribution prior = this.getEFLearningBN(var).getDistribution(var);
+                    Vector copy = prior.createZeroNaturalParameters();
+                    copy.copy(prior.getNaturalParameters());
+                    return copy;
+                })
+                .collect(Collectors.toList());
+        return new CompoundVector(naturalParameters);
+    }
+
+    /**
+     * Sets the priors of the parameter variables at time 0 and at time T.
+     * @param parameterVector a {@link CompoundVector} with the natural parameters of each parameter variable, in the
+     *                        order given by {@link #getPlateauNaturalParameterPrior()}.
+     */
+    public void updateNaturalParameterPrior(CompoundVector parameterVector) {
+        List<Variable> parameterVariables = this.getParameterVariables();
+        for (int i = 0; i < parameterVariables.size(); i++) {
+            Variable var = parameterVariables.get(i);
+            EF_UnivariateDistribution prior = this.getEFLearningBN(var).getDistribution(var);
+            EF_UnivariateDistribution uni = prior.deepCopy();
+            uni.getNaturalParameters().copy(parameterVector.getVectorByPosition(i));
+            uni.fixNumericalInstability();
+            uni.updateMomentFromNaturalParameters();
+            this.getEFLearningBN(var).setDistribution(var, uni);
+            if (this.parametersToNodeTime0.containsKey(var))
+                this.getNodeOfVarTime0(var).setPDist(uni);
+            else
+                this.getNodeOfVarTimeT(var, 0).setPDist(uni);
+        }
+    }
+}
@@ -12,19 +12,34 @@ package eu.amidst.dynamic.learning.parametric.bayesian;
 
 import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.learning.parametric.bayesian.SVB.BatchOutput;
+import eu.amidst.core.utils.CompoundVector;
+import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.exponentialfamily.EF_LearningBayesianNetwork;
 import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
 import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DataSequence;
+import eu.amidst.dynamic.datastream.DataSequenceSpliterator;
 import eu.amidst.dynamic.datastream.DynamicDataInstance;
 import eu.amidst.dynamic.models.DynamicBayesianNetwork;
 import eu.amidst.dynamic.models.DynamicDAG;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * This class implements the {@link BayesianLearningAlgorithm } interface.
  * It defines the Dynamic Streaming Variational Bayes (SVB) algorithm.
  *
+ * <p> In parallel mode, the data stream is split into sequences with {@link DataSequenceSpliterator}, and up to
+ * {@code nCores} sequences are processed at a time, each one on its own {@link PlateauStructure}. Every engine
+ * processes its sequence window by window from the same prior, as in the sequential mode, and the changes of the
+ * natural parameters of the engines are then added to the prior, as in
+ * {@link eu.amidst.core.learning.parametric.bayesian.ParallelSVB}. With a single core, both modes give the same
+ * result when every sequence is a whole number of windows. </p>
+ *
  * TODO: By iterating several times over the data we can get better approximations.
  * TODO: Trick. Initialize the Q's of the parameters variables with the final posterios in the previous iterations.
  */
@@ -57,6 +72,12 @@ public class SVB implements BayesianLearningAlgorithm {
     /** Represents the seed, initialized to 0. */
     int seed = 0;
 
+    /** Represents the number of used CPU cores in parallel mode. */
+    int nCores = -1;
+
+    /** Represents the plateau structures of the engines in parallel mode, the first one being {@code plateauStructure}. */
+    PlateauStructure[] plateauEngines;
+
     /**
      * Returns the dynamic plateu structure of this DynamicSVB.
      * @return a {@link PlateauStructure} object.
@@ -96,6 +117,14 @@ public class SVB implements BayesianLearningAlgorithm {
         return elbo;
     }
 
+    /**
+     * Sets the number of CPU cores used in parallel mode. By default, all the available processors are used.
+     * @param nCores the number of CPU cores.
+     */
+    public void setNCores(int nCores) {
+        this.nCores = nCores;
+    }
+
     /**
      * Returns the window size.
      * @return the window size.
@@ -154,12 +183,51 @@ public class SVB implements BayesianLearningAlgorithm {
             //this.elbo = this.dataStream.stream().sequential().mapToDouble(this::updateModel).sumNonStateless();
             this.elbo = this.dataStream.streamOfBatches(this.windowsSize).sequential().mapToDouble(this::updateModel).sum();
         }else {
-            //Create EF_ExtendedBN which returns ParameterVariable object
-            //Paremter variable car
-            //BatchOutput finalout = this.dataStream.streamOfBatches(100).map(this::updateModelOnBatchParallel).reduce(BatchOutput::sumNonStateless).get();
+            this.elbo = 0;
+            Iterator<DataSequence> iterator = DataSequenceSpliterator.toDataSequenceStream(this.dataStream).sequential().iterator();
+            while (iterator.hasNext()) {
+                CompoundVector prior = this.plateauStructure.getPlateauNaturalParameterPrior();
+
+                //Load Data
+                List<DataSequence> sequences = new ArrayList<>();
+                while (iterator.hasNext() && sequences.size() < this.plateauEngines.length) {
+                    sequences.add(iterator.next());
+                }
+
+                //Run Inference
+                BatchOutput out = IntStream.range(0, sequences.size())
+                        .parallel()
+                        .mapToObj(i -> this.updateModelOnSequence(this.plateauEngines[i], prior, sequences.get(i)))
+                        .reduce(BatchOutput::sumNonStateless)
+                        .get();
+
+                //Combine the output
+                this.elbo += out.getElbo();
+                prior.sum(out.getVector());
+                for (PlateauStructure engine : this.plateauEngines) {
+                    engine.updateNaturalParameterPrior(prior);
+                }
+            }
         }
     }
 
+    /**
+     * Updates the priors of a plateau structure with the windows of a sequence.
+     * @param plateau a {@link PlateauStructure} object whose priors are equal to {@code prior}.
+     * @param prior a {@link CompoundVector} with the natural parameters of the priors.
+     * @param sequence a {@link DataSequence} object.
+     * @return a {@link BatchOutput} with the change of the natural parameters and the log probability of the evidence.
+     */
+    private BatchOutput updateModelOnSequence(PlateauStructure plateau, CompoundVector prior, DataSequence sequence) {
+        double logprob = 0;
+        for (DataOnMemory<DynamicDataInstance> batch : sequence.iterableOverBatches(this.windowsSize)) {
+            logprob += this.updateModel(plateau, batch);
+        }
+        CompoundVector change = plateau.getPlateauNaturalParameterPrior();
+        change.substract(prior);
+        return new BatchOutput(change, logprob);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -173,52 +241,64 @@ public class SVB implements BayesianLearningAlgorithm {
      */
     @Override
     public double updateModel(DataOnMemory<DynamicDataInstance> batch) {
+        return this.updateModel(this.plateauStructure, batch);
+    }
+
+    /**
+     * Updates the priors of a given plateau structure using a batch of data.
+     * @param plateau a {@link PlateauStructure} object.
+     * @param batch a {@link DataOnMemory} of {@link DynamicDataInstance}s.
+     * @return a {@code double} value.
+     */
+    private double updateModel(PlateauStructure plateau, DataOnMemory<DynamicDataInstance> batch) {
 
         List<DynamicDataInstance> data = batch.getList();
         double logprob = 0;
         if (batch.getDataInstance(0).getTimeID()==0){
-            logprob+=this.updateModelTime0(batch.getDataInstance(0));
+            logprob+=this.updateModelTime0(plateau, batch.getDataInstance(0));
             data.remove(0);
             if (data.size()==0)
                 return logprob;
 
         }
-        logprob+=this.updateModelTimeT(data);
+        logprob+=this.updateModelTimeT(plateau, data);
         return logprob;
     }
 
     /**
      * Updates the model at time 0 using a given {@link DynamicDataInstance}.
+     * @param plateau a {@link PlateauStructure} object.
      * @param dataInstance a {@link DynamicDataInstance} object.
      * @return a {@code double} value.
      */
-    private double updateModelTime0(DynamicDataInstance dataInstance) {
-        this.plateauStructure.setEvidenceTime0(dataInstance);
-        this.plateauStructure.runInferenceTime0();
-
-        for (Variable var: plateauStructure.getEFLearningBNTime0().getParametersVariables()){
-            EF_UnivariateDistribution uni = plateauStructure.getEFParameterPosteriorTime0(var).deepCopy();
-            plateauStructure.getEFLearningBNTime0().setDistribution(var, uni);
-            this.plateauStructure.getNodeOfVarTime0(var).setPDist(uni);
+    private double updateModelTime0(PlateauStructure plateau, DynamicDataInstance dataInstance) {
+        plateau.setEvidenceTime0(dataInstance);
+        plateau.runInferenceTime0();
+
+        for (Variable var: plateau.getEFLearningBNTime0().getParametersVariables()){
+            EF_UnivariateDistribution uni = plateau.getEFParameterPosteriorTime0(var).deepCopy();
+            plateau.getEFLearningBNTime0().setDistribution(var, uni);
+            plateau.getNodeOfVarTime0(var).setPDist(uni);
         }
-        return this.plateauStructure.getLogProbabilityOfEvidenceTime0();
+        return plateau.getLogProbabilityOfEvidenceTime0();
     }
 
     /**
      * Updates the model at time T using a given list of {@link DynamicDataInstance}s.
+     * @param plateau a {@link PlateauStructure} object.
      * @param batch a {@code List} of {@link DynamicDataInstance}s.
      * @return a {@code double} value.
      */
-    private double updateModelTimeT(List<DynamicDataInstance> batch) {
-        this.plateauStructure.setEvidenceTimeT(batch);
-        this.plateauStructure.runInferenceTimeT();
-
-        for (Variable var: plateauStructure.getEFLearningBNTimeT().getParametersVariables()){
-            EF_UnivariateDistribution uni = plateauStructure.getEFParameterPosteriorTimeT(var).deepCopy();
-            plateauStructure.getEFLearningBNTimeT().setDistribution(var,uni);
-            this.plateauStructure.getNodeOfVarTimeT(var,0).setPDist(uni);
+    private double updateModelTimeT(PlateauStructure plateau, List<DynamicDataInstance> batch) {
+        plateau.setEvidenceTimeT(batch);
+        plateau.runInferenceTimeT();
+
+        for (Variable var: plateau.getEFLearningBNTimeT().getParametersVariables()){
+            EF_UnivariateDistribution uni = plateau.getEFParameterPosteriorTimeT(var).deepCopy();
+            plateau.getEFLearningBNTimeT().setDistribution(var,uni);
+            plateau.getNodeOfVarTimeT(var,0).setPDist(uni);
         }
-        return this.plateauStructure.getLogProbabilityOfEvidenceTimeT();
+        return plateau.getLogProbabilityOfEvidenceTimeT();
     }
 
     /**
@@ -230,9 +310,27 @@ public class SVB implements BayesianLearningAlgorithm {
     }
 
     public void initLearning(){
-        this.plateauStructure.setSeed(seed);
-        this.plateauStructure.setDBNModel(this.dag);
-        this.plateauStructure.resetQs();
+        if (this.parallelMode) {
+            if (this.nCores == -1)
+                this.nCores = Runtime.getRuntime().availableProcessors();
+
+            // The plateau structures are copied before their models are set, so they keep the configuration of the
+            // VMP objects, e.g., the maximum number of iterations.
+            this.plateauEngines = new PlateauStructure[this.nCores];
+            this.plateauEngines[0] = this.plateauStructure;
+            for (int i = 1; i < this.nCores; i++) {
+                this.plateauEngines[i] = Serialization.deepCopy(this.plateauStructure);
+            }
+            for (PlateauStructure engine : this.plateauEngines) {
+                engine.setSeed(seed);
+                engine.setDBNModel(this.dag);
+                engine.resetQs();
+            }
+        } else {
+            this.plateauStructure.setSeed(seed);
+            this.plateauStructure.setDBNModel(this.dag);
+            this.plateauStructure.resetQs();
+        }
         this.ef_extendedBNTime0 = this.plateauStructure.getEFLearningBNTime0();
         this.ef_extendedBNTimeT = this.plateauStructure.getEFLearningBNTimeT();
     }
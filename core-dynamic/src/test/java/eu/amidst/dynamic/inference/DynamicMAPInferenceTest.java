@@ -0,0 +1,226 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.distribution.Multinomial_MultinomialParents;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkGenerator;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkSampler;
+import eu.amidst.dynamic.variables.DynamicAssignment;
+import eu.amidst.dynamic.variables.HashMapDynamicAssignment;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the online mode of {@link DynamicMAPInference}.
+ */
+public class DynamicMAPInferenceTest extends TestCase {
+
+    private static final int N_TIME_STEPS = 4;
+
+    private static DynamicBayesianNetwork getNetwork() {
+        DynamicBayesianNetworkGenerator.setNumberOfContinuousVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfDiscreteVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfStates(2);
+        return DynamicBayesianNetworkGenerator.generateDynamicNaiveBayes(new Random(0), 2, false);
+    }
+
+    private static List<DynamicDataInstance> getSequence(DynamicBayesianNetwork dbn, int length) {
+        DynamicBayesianNetworkSampler sampler = new DynamicBayesianNetworkSampler(dbn);
+        sampler.setSeed(1);
+        sampler.setHiddenVar(dbn.getDynamicVariables().getVariableByName("ClassVar"));
+        DataStream<DynamicDataInstance> data = sampler.sampleToDataBase(1, length);
+        return data.stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the evidence over all the variables but the class of the time steps which are multiple of a period.
+     */
+    private static List<DynamicAssignment> getEvidence(DynamicBayesianNetwork dbn, List<DynamicDataInstance> sequence, int period) {
+        List<DynamicAssignment> evidence = new ArrayList<>();
+        for (DynamicDataInstance instance : sequence) {
+            if (instance.getTimeID() % period != 0)
+                continue;
+            HashMapDynamicAssignment assignment = new HashMapDynamicAssignment(dbn.getNumberOfDynamicVars());
+            assignment.setSequenceID((int) instance.getSequenceID());
+            assignment.setTimeID((int) instance.getTimeID());
+            dbn.getDynamicVariables().getListOfDynamicVariables().stream()
+                    .filter(var -> !var.getName().equals("ClassVar"))
+                    .forEach(var -> assignment.setValue(var, instance.getValue(var)));
+            evidence.add(assignment);
+        }
+        return evidence;
+    }
+
+    private static DynamicMAPInference getOnlineMAPInference(DynamicBayesianNetwork dbn, int lag) {
+        DynamicMAPInference dynMAP = new DynamicMAPInference();
+        dynMAP.setModel(dbn);
+        dynMAP.setNumberOfTimeSteps(N_TIME_STEPS);
+        dynMAP.setMAPvariable(dbn.getDynamicVariables().getVariableByName("ClassVar"));
+        dynMAP.setParallelMode(false);
+        dynMAP.setOnlineLag(lag);
+        return dynMAP;
+    }
+
+    /**
+     * Checks that, when the whole sequence fits into the window, the online decisions are the batch MAP sequence.
+     */
+    public static void testOnlineEqualsBatch() {
+        DynamicBayesianNetwork dbn = getNetwork();
+        List<DynamicDataInstance> sequence = getSequence(dbn, N_TIME_STEPS);
+
+        DynamicMAPInference batch = new DynamicMAPInference();
+        batch.setModel(dbn);
+        batch.setNumberOfTimeSteps(N_TIME_STEPS);
+        batch.setMAPvariable(dbn.getDynamicVariables().getVariableByName("ClassVar"));
+        batch.setParallelMode(false);
+        batch.setEvidence(getEvidence(dbn, sequence, 1));
+        batch.runInference();
+        int[] expected = batch.getMAPsequence();
+
+        DynamicMAPInference online = getOnlineMAPInference(dbn, N_TIME_STEPS - 1);
+        for (DynamicDataInstance instance : sequence) {
+            online.addDynamicEvidence(instance);
+            online.runInference();
+        }
+        SortedMap<Long, Integer> decisions = online.pollOnlineMAPDecisions();
+        assertEquals(1, decisions.size());
+        online.flushOnlineMAPDecisions();
+        decisions.putAll(online.pollOnlineMAPDecisions());
+
+        assertEquals(N_TIME_STEPS, decisions.size());
+        for (int t = 0; t < N_TIME_STEPS; t++) {
+            assertEquals(expected[t], (int) decisions.get((long) t));
+        }
+    }
+
+    /**
+     * Checks that the online decisions are the batch MAP sequence on a sequence longer than the window, with a
+     * persistent class and evidence only every three time steps, so that the windows depend on the earlier evidence.
+     */
+    public static void testOnlineLongSequence() {
+        DynamicBayesianNetworkGenerator.setNumberOfContinuousVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfDiscreteVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfStates(2);
+        DynamicBayesianNetwork dbn = DynamicBayesianNetworkGenerator.generateDynamicNaiveBayes(new Random(4), 2, false);
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        Multinomial_MultinomialParents transition = dbn.getConditionalDistributionTimeT(classVar);
+        transition.getMultinomial(0).setProbabilities(new double[]{0.9, 0.1});
+        transition.getMultinomial(1).setProbabilities(new double[]{0.1, 0.9});
+
+        int length = 4 * N_TIME_STEPS;
+        List<DynamicAssignment> evidence = getEvidence(dbn, getSequence(dbn, length), 3);
+
+        DynamicMAPInference batch = new DynamicMAPInference();
+        batch.setModel(dbn);
+        batch.setNumberOfTimeSteps(length);
+        batch.setMAPvariable(classVar);
+        batch.setParallelMode(false);
+        batch.setEvidence(evidence);
+        batch.runInference();
+        int[] expected = batch.getMAPsequence();
+
+        DynamicMAPInference online = getOnlineMAPInference(dbn, 2);
+        for (DynamicAssignment assignment : evidence) {
+            online.addDynamicEvidence(assignment);
+            online.runInference();
+        }
+        online.flushOnlineMAPDecisions();
+        SortedMap<Long, Integer> decisions = online.pollOnlineMAPDecisions();
+
+        assertEquals(length, decisions.size());
+        for (int t = 0; t < length; t++) {
+            assertEquals(expected[t], (int) decisions.get((long) t));
+        }
+    }
+
+    public static void testInvalidLag() {
+        DynamicMAPInference online = getOnlineMAPInference(getNetwork(), N_TIME_STEPS);
+        try {
+            online.runInference();
+            fail();
+        } catch (IllegalStateException e) {
+            //The lag must be lower than the number of time steps.
+        }
+        try {
+            online.setOnlineLag(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //The lag must not be negative.
+        }
+    }
+
+    /**
+     * Checks that each time step is decided exactly once, as soon as the evidence {@code lag} steps later arrives,
+     * on a sequence much longer than the window, and that the windows reuse the same unfolded models.
+     */
+    public static void testOnlineLag() {
+        DynamicBayesianNetwork dbn = getNetwork();
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        int length = 5 * N_TIME_STEPS;
+        int lag = 1;
+        List<DynamicDataInstance> sequence = getSequence(dbn, length);
+
+        DynamicMAPInference online = getOnlineMAPInference(dbn, lag);
+        int nDecisions = 0;
+        List<BayesianNetwork> laterWindowModels = null;
+        for (DynamicDataInstance instance : sequence) {
+            online.addDynamicEvidence(instance);
+            online.runInference();
+            if (instance.getTimeID() == N_TIME_STEPS) {
+                laterWindowModels = new ArrayList<>(online.getMergedClassVarModels());
+            } else if (instance.getTimeID() > N_TIME_STEPS) {
+                for (int i = 0; i < laterWindowModels.size(); i++) {
+                    assertSame(laterWindowModels.get(i), online.getMergedClassVarModels().get(i));
+                }
+            }
+            SortedMap<Long, Integer> decisions = online.pollOnlineMAPDecisions();
+            long decided = instance.getTimeID() - lag;
+            assertEquals(instance.getTimeID(), online.getTimeIDOfLastEvidence());
+            assertEquals(decided, online.getTimeIDOfPosterior());
+            if (decided >= 0) {
+                assertEquals(1, decisions.size());
+                assertEquals(decided, (long) decisions.firstKey());
+                int state = decisions.get(decided);
+                assertTrue(state >= 0 && state < classVar.getNumberOfStates());
+                nDecisions++;
+            } else {
+                assertTrue(decisions.isEmpty());
+            }
+        }
+
+        online.flushOnlineMAPDecisions();
+        SortedMap<Long, Integer> decisions = online.pollOnlineMAPDecisions();
+        assertEquals(lag, decisions.size());
+        assertEquals(length - lag, (long) decisions.firstKey());
+        assertEquals(length, nDecisions + decisions.size());
+
+        online.addDynamicEvidence(sequence.get(0));
+        online.runInference();
+        assertEquals(0, online.getTimeIDOfLastEvidence());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkGenerator;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkSampler;
+import eu.amidst.dynamic.variables.HashMapDynamicAssignment;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Checks {@link ForwardBackwardForDBN} against the enumeration of all the hidden sequences.
+ */
+public class ForwardBackwardForDBNTest extends TestCase {
+
+    private static DynamicBayesianNetwork getNetwork() {
+        DynamicBayesianNetworkGenerator.setNumberOfContinuousVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfDiscreteVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfStates(3);
+        return DynamicBayesianNetworkGenerator.generateDynamicNaiveBayes(new Random(0), 3, true);
+    }
+
+    private static List<List<DynamicDataInstance>> getSequences(DynamicBayesianNetwork dbn, int nSequences, int length) {
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        DynamicBayesianNetworkSampler sampler = new DynamicBayesianNetworkSampler(dbn);
+        sampler.setSeed(1);
+        sampler.setHiddenVar(classVar);
+        List<DynamicDataInstance> data = sampler.sampleToDataBase(nSequences, length).stream().collect(Collectors.toList());
+
+        List<List<DynamicDataInstance>> sequences = new ArrayList<>();
+        for (int i = 0; i < nSequences; i++) {
+            sequences.add(data.subList(i * length, (i + 1) * length));
+        }
+        return sequences;
+    }
+
+    /**
+     * Computes the log joint probability of a sequence of the class variable and the observed values.
+     */
+    private static double getLogJoint(DynamicBayesianNetwork dbn, List<DynamicDataInstance> sequence, int[] classStates) {
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        double logJoint = 0;
+        for (int t = 0; t < sequence.size(); t++) {
+            HashMapDynamicAssignment assignment = new HashMapDynamicAssignment(2 * dbn.getNumberOfDynamicVars());
+            for (Variable var : dbn.getDynamicVariables()) {
+                assignment.setValue(var, var == classVar ? classStates[t] : sequence.get(t).getValue(var));
+                if (t > 0)
+                    assignment.setValue(var.getInterfaceVariable(), var == classVar ? classStates[t - 1] : sequence.get(t - 1).getValue(var));
+            }
+            logJoint += t == 0 ? dbn.getLogProbabiltyOfFullAssignmentTime0(assignment) : dbn.getLogProbabiltyOfFullAssignmentTimeT(assignment);
+        }
+        return logJoint;
+    }
+
+    public static void testAgainstEnumeration() {
+        DynamicBayesianNetwork dbn = getNetwork();
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        int length = 5;
+        List<DynamicDataInstance> sequence = getSequences(dbn, 1, length).get(0);
+
+        int nConfigs = (int) Math.pow(3, length);
+        double[] logJoints = new double[nConfigs];
+        double max = Double.NEGATIVE_INFINITY;
+        int argMax = 0;
+        for (int c = 0; c < nConfigs; c++) {
+            int[] classStates = new int[length];
+            for (int t = 0, index = c; t < length; t++, index /= 3) {
+                classStates[t] = index % 3;
+            }
+            logJoints[c] = getLogJoint(dbn, sequence, classStates);
+            if (logJoints[c] > max) {
+                max = logJoints[c];
+                argMax = c;
+            }
+        }
+        double sum = 0;
+        double[][] marginals = new double[length][3];
+        for (int c = 0; c < nConfigs; c++) {
+            double weight = Math.exp(logJoints[c] - max);
+            sum += weight;
+            for (int t = 0, index = c; t < length; t++, index /= 3) {
+                marginals[t][index % 3] += weight;
+            }
+        }
+
+        ForwardBackwardForDBN inference = new ForwardBackwardForDBN();
+        inference.setModel(dbn);
+        assertEquals(max + Math.log(sum), inference.computeLogProbabilityOfSequence(sequence), 1e-8);
+
+        List<List<UnivariateDistribution>> smoothed = inference.computeSmoothedPosteriors(sequence);
+        assertEquals(Arrays.asList(classVar), inference.getHiddenVariables());
+        for (int t = 0; t < length; t++) {
+            Multinomial posterior = (Multinomial) smoothed.get(t).get(0);
+            for (int s = 0; s < 3; s++) {
+                assertEquals(marginals[t][s] / sum, posterior.getProbabilityOfState(s), 1e-8);
+            }
+        }
+
+        List<Assignment> mapSequence = inference.computeMAPSequence(sequence);
+        for (int t = 0, index = argMax; t < length; t++, index /= 3) {
+            assertEquals(index % 3, (int) mapSequence.get(t).getValue(classVar));
+        }
+
+        //Online filtering gives the smoothed posterior at the last time step.
+        for (DynamicDataInstance instance : sequence) {
+            inference.addDynamicEvidence(instance);
+            inference.runInference();
+        }
+        Multinomial filtered = inference.getFilteredPosterior(classVar);
+        for (int s = 0; s < 3; s++) {
+            assertEquals(marginals[length - 1][s] / sum, filtered.getProbabilityOfState(s), 1e-8);
+        }
+        assertEquals(max + Math.log(sum), inference.getLogProbabilityOfEvidence(), 1e-8);
+    }
+
+    public static void testParallelSequences() {
+        DynamicBayesianNetwork dbn = getNetwork();
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        List<List<DynamicDataInstance>> sequences = getSequences(dbn, 8, 200);
+
+        ForwardBackwardForDBN inference = new ForwardBackwardForDBN();
+        inference.setModel(dbn);
+        List<List<Assignment>> mapSequences = inference.computeMAPSequences(sequences);
+        List<List<List<UnivariateDistribution>>> smoothed = inference.computeSmoothedPosteriorsOfSequences(sequences);
+
+        ForwardBackwardForDBN sequential = new ForwardBackwardForDBN();
+        sequential.setModel(dbn);
+        sequential.setParallelMode(false);
+        for (int i = 0; i < sequences.size(); i++) {
+            List<Assignment> mapSequence = sequential.computeMAPSequence(sequences.get(i));
+            List<List<UnivariateDistribution>> posteriors = sequential.computeSmoothedPosteriors(sequences.get(i));
+            for (int t = 0; t < 200; t++) {
+                assertEquals(mapSequence.get(t).getValue(classVar), mapSequences.get(i).get(t).getValue(classVar));
+                Multinomial expected = (Multinomial) posteriors.get(t).get(0);
+                Multinomial posterior = (Multinomial) smoothed.get(i).get(t).get(0);
+                for (int s = 0; s < 3; s++) {
+                    assertEquals(expected.getProbabilityOfState(s), posterior.getProbabilityOfState(s), 1e-12);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.inference.JunctionTreeInference;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.models.DynamicDAG;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkSampler;
+import eu.amidst.dynamic.utils.DynamicToStaticBNConverter;
+import eu.amidst.dynamic.variables.DynamicVariables;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Checks {@link KalmanFilterForDBN} against {@link JunctionTreeInference} on the unrolled network.
+ */
+public class KalmanFilterForDBNTest extends TestCase {
+
+    /**
+     * Builds a Kalman filter with two correlated hidden normal variables and three observed normal variables, as
+     * the one of the latent variable models, optionally switched by a hidden multinomial variable.
+     */
+    private static DynamicBayesianNetwork getNetwork(boolean switching) {
+        DynamicVariables variables = new DynamicVariables();
+        Variable hidden1 = variables.newGaussianDynamicVariable("H1");
+        Variable hidden2 = variables.newGaussianDynamicVariable("H2");
+        List<Variable> observed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            observed.add(variables.newGaussianDynamicVariable("Y" + i));
+        }
+        Variable mode = switching ? variables.newMultinomialDynamicVariable("S", 2) : null;
+
+        DynamicDAG dag = new DynamicDAG(variables);
+        for (Variable var : observed) {
+            dag.getParentSetTime0(var).addParent(hidden1);
+            dag.getParentSetTime0(var).addParent(hidden2);
+            dag.getParentSetTimeT(var).addParent(hidden1);
+            dag.getParentSetTimeT(var).addParent(hidden2);
+        }
+        dag.getParentSetTime0(hidden1).addParent(hidden2);
+        dag.getParentSetTimeT(hidden1).addParent(hidden2);
+        dag.getParentSetTimeT(hidden1).addParent(hidden1.getInterfaceVariable());
+        dag.getParentSetTimeT(hidden2).addParent(hidden2.getInterfaceVariable());
+        if (switching) {
+            dag.getParentSetTimeT(mode).addParent(mode.getInterfaceVariable());
+            dag.getParentSetTime0(hidden1).addParent(mode);
+            dag.getParentSetTimeT(hidden1).addParent(mode);
+            dag.getParentSetTime0(observed.get(0)).addParent(mode);
+            dag.getParentSetTimeT(observed.get(0)).addParent(mode);
+        }
+
+        DynamicBayesianNetwork dbn = new DynamicBayesianNetwork(dag);
+        dbn.randomInitialization(new Random(0));
+        return dbn;
+    }
+
+    private static List<DynamicDataInstance> getSequence(DynamicBayesianNetwork dbn, int length, int seed) {
+        DynamicBayesianNetworkSampler sampler = new DynamicBayesianNetworkSampler(dbn);
+        sampler.setSeed(seed);
+        for (Variable var : dbn.getDynamicVariables()) {
+            if (!var.getName().startsWith("Y"))
+                sampler.setHiddenVar(var);
+        }
+        return sampler.sampleToDataBase(1, length).stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the exact inference on the unrolled network given the observed variables of a sequence.
+     */
+    private static JunctionTreeInference getExactInference(DynamicBayesianNetwork dbn, List<DynamicDataInstance> sequence) {
+        BayesianNetwork bn = DynamicToStaticBNConverter.convertDBNtoBN(dbn, sequence.size());
+        HashMapAssignment evidence = new HashMapAssignment(bn.getNumberOfVars());
+        for (int t = 0; t < sequence.size(); t++) {
+            for (Variable var : dbn.getDynamicVariables()) {
+                if (var.getName().startsWith("Y"))
+                    evidence.setValue(bn.getVariables().getVariableByName(var.getName() + "_t" + t), sequence.get(t).getValue(var));
+            }
+        }
+        JunctionTreeInference inference = new JunctionTreeInference();
+        inference.setModel(bn);
+        inference.setEvidence(evidence);
+        inference.runInference();
+        return inference;
+    }
+
+    private static Variable getStaticVariable(JunctionTreeInference inference, Variable var, int t) {
+        return inference.getOriginalModel().getVariables().getVariableByName(var.getName() + "_t" + t);
+    }
+
+    public static void testSmoother() {
+        DynamicBayesianNetwork dbn = getNetwork(false);
+        List<DynamicDataInstance> sequence = getSequence(dbn, 6, 1);
+        JunctionTreeInference exact = getExactInference(dbn, sequence);
+
+        KalmanFilterForDBN kalmanFilter = new KalmanFilterForDBN();
+        kalmanFilter.setModel(dbn);
+        List<List<UnivariateDistribution>> smoothed = kalmanFilter.computeSmoothedPosteriors(sequence);
+        List<Variable> hidden = kalmanFilter.getHiddenVariables();
+        assertEquals(2, hidden.size());
+        for (int t = 0; t < sequence.size(); t++) {
+            for (int i = 0; i < hidden.size(); i++) {
+                Normal expected = exact.getPosterior(getStaticVariable(exact, hidden.get(i), t));
+                Normal posterior = (Normal) smoothed.get(t).get(i);
+                assertEquals(expected.getMean(), posterior.getMean(), 1e-6);
+                assertEquals(expected.getVariance(), posterior.getVariance(), 1e-6);
+            }
+        }
+        assertEquals(exact.getLogProbabilityOfEvidence(), kalmanFilter.computeLogProbabilityOfSequence(sequence), 1e-6);
+
+        //Online filtering gives the smoothed posterior at the last time step.
+        for (DynamicDataInstance instance : sequence) {
+            kalmanFilter.addDynamicEvidence(instance);
+            kalmanFilter.runInference();
+        }
+        for (Variable var : hidden) {
+            Normal expected = exact.getPosterior(getStaticVariable(exact, var, sequence.size() - 1));
+            Normal filtered = kalmanFilter.getFilteredPosterior(var);
+            assertEquals(expected.getMean(), filtered.getMean(), 1e-6);
+            assertEquals(expected.getVariance(), filtered.getVariance(), 1e-6);
+        }
+        assertEquals(exact.getLogProbabilityOfEvidence(), kalmanFilter.getLogProbabilityOfEvidence(), 1e-6);
+    }
+
+    public static void testSwitchingKalmanFilter() {
+        DynamicBayesianNetwork dbn = getNetwork(true);
+        Variable mode = dbn.getDynamicVariables().getVariableByName("S");
+        Variable hidden1 = dbn.getDynamicVariables().getVariableByName("H1");
+        List<DynamicDataInstance> sequence = getSequence(dbn, 2, 6);
+        JunctionTreeInference exact = getExactInference(dbn, sequence);
+
+        //With two time steps, GPB2 only collapses the filtered mixture after the last step, so its moments are exact.
+        KalmanFilterForDBN gpb2 = new KalmanFilterForDBN();
+        gpb2.setModel(dbn);
+        KalmanFilterForDBN imm = new KalmanFilterForDBN();
+        imm.setModel(dbn);
+        imm.setSwitchingApproximation(KalmanFilterForDBN.SwitchingApproximation.IMM);
+        for (DynamicDataInstance instance : sequence) {
+            gpb2.addDynamicEvidence(instance);
+            gpb2.runInference();
+            imm.addDynamicEvidence(instance);
+            imm.runInference();
+        }
+
+        Multinomial expectedMode = exact.getPosterior(getStaticVariable(exact, mode, 1));
+        Normal expectedHidden = exact.getPosterior(getStaticVariable(exact, hidden1, 1));
+        Multinomial posteriorMode = gpb2.getFilteredPosterior(mode);
+        Normal posteriorHidden = gpb2.getFilteredPosterior(hidden1);
+        assertEquals(expectedMode.getProbabilityOfState(0), posteriorMode.getProbabilityOfState(0), 1e-6);
+        assertEquals(expectedHidden.getMean(), posteriorHidden.getMean(), 1e-6);
+        assertEquals(expectedHidden.getVariance(), posteriorHidden.getVariance(), 1e-6);
+        assertEquals(exact.getLogProbabilityOfEvidence(), gpb2.getLogProbabilityOfEvidence(), 1e-6);
+
+        //IMM collapses the mixture before the last step, so it is only close to the exact posteriors.
+        Multinomial immMode = imm.getFilteredPosterior(mode);
+        Normal immHidden = imm.getFilteredPosterior(hidden1);
+        assertEquals(expectedMode.getProbabilityOfState(0), immMode.getProbabilityOfState(0), 0.02);
+        assertEquals(expectedHidden.getMean(), immHidden.getMean(), 0.05);
+    }
+}
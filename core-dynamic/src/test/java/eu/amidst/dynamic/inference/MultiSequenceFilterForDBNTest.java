@@ -0,0 +1,150 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.dynamic.inference;
+
+import eu.amidst.core.datastream.DataOnMemoryListContainer;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.inference.messagepassing.VMP;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.dynamic.datastream.DynamicDataInstance;
+import eu.amidst.dynamic.models.DynamicBayesianNetwork;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkGenerator;
+import eu.amidst.dynamic.utils.DynamicBayesianNetworkSampler;
+import junit.framework.TestCase;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that {@link MultiSequenceFilterForDBN} gives the same posteriors as filtering each sequence on its own.
+ */
+public class MultiSequenceFilterForDBNTest extends TestCase {
+
+    private static final int N_SEQUENCES = 10;
+
+    private static final int LENGTH = 8;
+
+    private static DynamicBayesianNetwork getNetwork() {
+        DynamicBayesianNetworkGenerator.setNumberOfContinuousVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfDiscreteVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfStates(3);
+        return DynamicBayesianNetworkGenerator.generateDynamicNaiveBayes(new Random(0), 3, false);
+    }
+
+    private static DataStream<DynamicDataInstance> getData(DynamicBayesianNetwork dbn) {
+        DynamicBayesianNetworkSampler sampler = new DynamicBayesianNetworkSampler(dbn);
+        sampler.setSeed(1);
+        sampler.setHiddenVar(dbn.getDynamicVariables().getVariableByName("ClassVar"));
+        return sampler.sampleToDataBase(N_SEQUENCES, LENGTH);
+    }
+
+    /**
+     * Filters the sequences with their instances interleaved by time, in batches which contain several instances of
+     * some sequences, and compares the result with a separate algorithm for each sequence.
+     */
+    private static void checkFilter(Supplier<? extends StatefulInferenceAlgorithmForDBN> algorithmFactory, double threshold) {
+        DynamicBayesianNetwork dbn = getNetwork();
+        Variable classVar = dbn.getDynamicVariables().getVariableByName("ClassVar");
+        DataStream<DynamicDataInstance> data = getData(dbn);
+        List<DynamicDataInstance> instances = data.stream().collect(Collectors.toList());
+        List<DynamicDataInstance> interleaved = instances.stream()
+                .sorted(Comparator.comparingLong(DynamicDataInstance::getTimeID).thenComparingLong(DynamicDataInstance::getSequenceID))
+                .collect(Collectors.toList());
+
+        MultiSequenceFilterForDBN filter = new MultiSequenceFilterForDBN(dbn, algorithmFactory);
+        filter.setNumberOfWorkers(3);
+        for (int i = 0; i < interleaved.size(); i += 13) {
+            List<DynamicDataInstance> batch = interleaved.subList(i, Math.min(i + 13, interleaved.size()));
+            filter.updateFilter(new DataOnMemoryListContainer<>(data.getAttributes(), batch));
+        }
+        assertEquals(N_SEQUENCES, filter.getNumberOfSequences());
+
+        for (int s = 0; s < N_SEQUENCES; s++) {
+            StatefulInferenceAlgorithmForDBN algorithm = algorithmFactory.get();
+            algorithm.setModel(dbn);
+            algorithm.setFilterState(null);
+            for (DynamicDataInstance instance : instances.subList(s * LENGTH, (s + 1) * LENGTH)) {
+                algorithm.addDynamicEvidence(instance);
+                algorithm.runInference();
+            }
+
+            long sequenceID = instances.get(s * LENGTH).getSequenceID();
+            assertEquals(LENGTH - 1, filter.getTimeIDOfPosterior(sequenceID));
+            UnivariateDistribution expected = algorithm.getFilteredPosterior(classVar);
+            UnivariateDistribution actual = filter.getFilteredPosterior(sequenceID, classVar);
+            assertTrue(expected.equalDist(actual, threshold));
+
+            expected = algorithm.getPredictivePosterior(classVar, 2);
+            actual = filter.getPredictivePosterior(sequenceID, classVar, 2);
+            assertTrue(expected.equalDist(actual, threshold));
+        }
+    }
+
+    public static void testForwardBackward() {
+        checkFilter(ForwardBackwardForDBN::new, 1e-10);
+    }
+
+    public static void testDynamicVMP() {
+        checkFilter(DynamicVMP::new, 1e-10);
+    }
+
+    public static void testFactoredFrontier() {
+        checkFilter(() -> new FactoredFrontierForDBN(new VMP()), 1e-10);
+    }
+
+    public static void testEviction() {
+        DynamicBayesianNetwork dbn = getNetwork();
+        DataStream<DynamicDataInstance> data = getData(dbn);
+        List<DynamicDataInstance> instances = data.stream().collect(Collectors.toList());
+
+        MultiSequenceFilterForDBN filter = new MultiSequenceFilterForDBN(dbn, ForwardBackwardForDBN::new);
+        filter.setMaxNumberOfSequences(4);
+        filter.setMaxIdleBatches(2);
+
+        //Each batch holds the first two time steps of a sequence
+        for (int s = 0; s < N_SEQUENCES; s++) {
+            filter.updateFilter(new DataOnMemoryListContainer<>(data.getAttributes(), instances.subList(s * LENGTH, s * LENGTH + 2)));
+            assertTrue(filter.getNumberOfSequences() <= 2);
+        }
+        assertEquals(N_SEQUENCES - 2, filter.getNumberOfEvictedSequences());
+
+        long lastSequenceID = instances.get((N_SEQUENCES - 1) * LENGTH).getSequenceID();
+        long firstSequenceID = instances.get(0).getSequenceID();
+        assertTrue(filter.containsSequence(lastSequenceID));
+        assertFalse(filter.containsSequence(firstSequenceID));
+
+        //The evidence of an evicted sequence starts a new sequence
+        filter.updateFilter(new DataOnMemoryListContainer<>(data.getAttributes(), instances.subList(2, 5)));
+        assertEquals(4, filter.getTimeIDOfPosterior(firstSequenceID));
+
+        //The sequences beyond the maximum number are evicted
+        filter.setMaxIdleBatches(Long.MAX_VALUE);
+        List<DynamicDataInstance> lastTimeSteps = instances.stream()
+                .filter(instance -> instance.getTimeID() >= 5)
+                .collect(Collectors.toList());
+        filter.updateFilter(new DataOnMemoryListContainer<>(data.getAttributes(), lastTimeSteps));
+        assertEquals(4, filter.getNumberOfSequences());
+
+        filter.removeSequence(lastSequenceID);
+        assertFalse(filter.containsSequence(lastSequenceID));
+    }
+}
@@ -1159,4 +1159,48 @@ public class SVBTest extends TestCase {
 
         }
     }
-}
\ No newline at end of file
+
+    private static DynamicBayesianNetwork learnWithSVB(DynamicDAG dag, DataStream<DynamicDataInstance> dataStream, boolean parallelMode, int nCores) {
+        SVB svb = new SVB();
+        svb.setWindowsSize(10);
+        svb.setSeed(5);
+        svb.setParallelMode(parallelMode);
+        svb.setNCores(nCores);
+        svb.setMaxIter(1000);
+        svb.setThreshold(0.0001);
+        svb.setOutput(false);
+        svb.setDynamicDAG(dag);
+        svb.setDataStream(dataStream);
+        svb.runLearning();
+        return svb.getLearntDBN();
+    }
+
+    public static void testParallelMode(){
+
+        DynamicBayesianNetworkGenerator.setNumberOfContinuousVars(0);
+        DynamicBayesianNetworkGenerator.setNumberOfDiscreteVars(2);
+        DynamicBayesianNetworkGenerator.setNumberOfStates(2);
+
+        DynamicBayesianNetwork dbn = DynamicBayesianNetworkGenerator.generateDynamicNaiveBayes(new Random(0), 2, true);
+
+        DynamicBayesianNetworkSampler sampler = new DynamicBayesianNetworkSampler(dbn);
+        sampler.setSeed(0);
+        DataStream<DynamicDataInstance> dataStream = sampler.sampleToDataBase(20,100);
+
+        //With a single core and sequences made of whole windows, the parallel mode reproduces the sequential one
+        DynamicBayesianNetwork sequentialDBN = learnWithSVB(dbn.getDynamicDAG(), dataStream, false, 1);
+        DynamicBayesianNetwork singleCoreDBN = learnWithSVB(dbn.getDynamicDAG(), dataStream, true, 1);
+        for (ConditionalDistribution dist : singleCoreDBN.getConditionalDistributionsTimeT()) {
+            assertTrue(dist.equalDist(sequentialDBN.getConditionalDistributionTimeT(dist.getVariable()), 1e-10));
+        }
+        for (ConditionalDistribution dist : singleCoreDBN.getConditionalDistributionsTime0()) {
+            assertTrue(dist.equalDist(sequentialDBN.getConditionalDistributionTime0(dist.getVariable()), 1e-10));
+        }
+
+        DynamicBayesianNetwork parallelDBN = learnWithSVB(dbn.getDynamicDAG(), dataStream, true, 4);
+        for (ConditionalDistribution dist : parallelDBN.getConditionalDistributionsTimeT()) {
+            assertTrue(dist.equalDist(dbn.getConditionalDistributionTimeT(dist.getVariable()), 0.05));
+            assertTrue(dist.equalDist(sequentialDBN.getConditionalDistributionTimeT(dist.getVariable()), 0.02));
+        }
+    }
+}
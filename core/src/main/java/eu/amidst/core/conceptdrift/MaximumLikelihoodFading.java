@@ -22,7 +22,6 @@ import com.google.common.util.concurrent.AtomicDouble;
 import eu.amidst.core.datastream.DataInstance;
 import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
-import eu.amidst.core.exponentialfamily.SufficientStatistics;
 import eu.amidst.core.learning.parametric.ParallelMaximumLikelihood;
 
 /**
@@ -60,12 +59,10 @@ public class MaximumLikelihoodFading extends ParallelMaximumLikelihood implement
     @Override
     public double updateModel(DataOnMemory<DataInstance> batch) {
 
-        SufficientStatistics batchSS = batch.stream()
-                .map(efBayesianNetwork::getSufficientStatistics)
-                .reduce(SufficientStatistics::sumVectorNonStateless).get();
-
         sumSS.multiplyBy(fadingFactor);
-        sumSS.sum(batchSS);
+        for (DataInstance dataInstance : batch.getList()) {
+            efBayesianNetwork.accumulateSufficientStatistics(dataInstance, sumSS);
+        }
 
         dataInstanceCount.set(dataInstanceCount.get() * fadingFactor + batch.getNumberOfDataInstances());
 
@@ -83,12 +80,10 @@ public class MaximumLikelihoodFading extends ParallelMaximumLikelihood implement
         dataInstanceCount = new AtomicDouble(0);
         sumSS = efBayesianNetwork.createZeroSufficientStatistics();
         for (DataOnMemory<DataInstance> batch : dataStream.iterableOverBatches(windowsSize)){
-            SufficientStatistics batchSS = batch.stream()
-                    .map(efBayesianNetwork::getSufficientStatistics)
-                    .reduce(SufficientStatistics::sumVectorNonStateless).get();
-
             sumSS.multiplyBy(fadingFactor);
-            sumSS.sum(batchSS);
+            for (DataInstance dataInstance : batch.getList()) {
+                efBayesianNetwork.accumulateSufficientStatistics(dataInstance, sumSS);
+            }
 
             dataInstanceCount.set(dataInstanceCount.get()*fadingFactor + windowsSize);
         }
@@ -55,6 +55,14 @@ public class DataStreamFromFile implements DataStream<DataInstance> {
         return this.reader.stream().map( dataRow -> new DataInstanceFromDataRow(dataRow));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataInstance> parallelStream(int batchSize) {
+        return this.reader.parallelStream(batchSize).map( dataRow -> new DataInstanceFromDataRow(dataRow));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,563 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.datastream.filereaders.arffFileReader;
+
+import eu.amidst.core.datastream.Attribute;
+import eu.amidst.core.datastream.Attributes;
+import eu.amidst.core.datastream.filereaders.DataFileReader;
+import eu.amidst.core.datastream.filereaders.DataRow;
+import eu.amidst.core.variables.StateSpaceTypeEnum;
+import eu.amidst.core.variables.stateSpaceTypes.FiniteStateSpace;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class implements the interface {@link DataFileReader} and defines an ARFF data reader based on memory-mapped files.
+ * The header is parsed with {@link ARFFDataReader}, while the data region is mapped into memory and tokenized directly
+ * from bytes into the values of each {@link DataRow}, without creating intermediate {@code String} objects.
+ * The data region is split at line boundaries, so {@link #parallelStream(int)} parses the file in parallel.
+ */
+public class ARFFMappedDataReader implements DataFileReader {
+
+    /** Represents the maximum number of bytes mapped by a single segment. */
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** Represents the minimum number of bytes of a split of the data region. */
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    /** Represents the powers of ten which are exactly representable as a double. */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /** Represents the list of {@link Attributes}. */
+    private Attributes attributes;
+
+    /** Represents an array of {@link StateSpaceTypeEnum} for the corresponding list of {@link Attributes}. */
+    private StateSpaceTypeEnum[] stateSpace;
+
+    /** Represents the UTF-8 encoded state names of each finite attribute, or null for the rest of attributes. */
+    private byte[][][] statesNames;
+
+    /** Represents the mapped segments of the data region, each one ending at a line boundary. */
+    private MappedByteBuffer[] segments;
+
+    /** Represents the estimated number of bytes per data row. */
+    private int bytesPerRow;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadFromFile(String pathString) {
+        ARFFDataReader headerReader = new ARFFDataReader();
+        headerReader.loadFromFile(pathString);
+        this.attributes = headerReader.getAttributes();
+
+        int nAtts = this.attributes.getNumberOfAttributes();
+        this.stateSpace = new StateSpaceTypeEnum[nAtts];
+        this.statesNames = new byte[nAtts][][];
+        for (Attribute att : this.attributes.getFullListOfAttributes()) {
+            this.stateSpace[att.getIndex()] = att.getStateSpaceType().getStateSpaceTypeEnum();
+            if (this.stateSpace[att.getIndex()] == StateSpaceTypeEnum.FINITE_SET) {
+                FiniteStateSpace finiteStateSpace = att.getStateSpaceType();
+                byte[][] names = new byte[finiteStateSpace.getNumberOfStates()][];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = finiteStateSpace.getStatesName(i).getBytes(StandardCharsets.UTF_8);
+                }
+                this.statesNames[att.getIndex()] = names;
+            }
+        }
+
+        Path pathFile = Paths.get(pathString);
+        try (FileChannel channel = FileChannel.open(pathFile, StandardOpenOption.READ)) {
+            long start = findDataOffset(pathFile);
+            long size = channel.size();
+            List<MappedByteBuffer> list = new ArrayList<>();
+            while (start < size) {
+                int length = (int) Math.min(MAX_SEGMENT_SIZE, size - start);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                if (start + length < size) {
+                    int end = length - 1;
+                    while (end >= 0 && buffer.get(end) != '\n')
+                        end--;
+                    if (end < 0)
+                        throw new IllegalStateException("ARFF data line longer than " + MAX_SEGMENT_SIZE + " bytes.");
+                    length = end + 1;
+                    buffer.limit(length);
+                }
+                list.add(buffer);
+                start += length;
+            }
+            this.segments = list.toArray(new MappedByteBuffer[list.size()]);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        this.bytesPerRow = this.estimateBytesPerRow();
+    }
+
+    /**
+     * Returns the offset of the first byte after the "@data" line of a given ARFF file.
+     * @param pathFile the path of the ARFF file.
+     * @return the offset at which the data region starts.
+     * @throws IOException in case of an error while reading the file.
+     */
+    private static long findDataOffset(Path pathFile) throws IOException {
+        byte[] tag = "@data".getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pathFile))) {
+            long offset = 0;
+            int matched = 0;
+            boolean lineStart = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    if (matched == tag.length)
+                        return offset;
+                    lineStart = true;
+                    matched = 0;
+                } else if (lineStart && matched == 0 && isWhitespace(b)) {
+                    continue;
+                } else if (lineStart && matched < tag.length && b == tag[matched]) {
+                    matched++;
+                } else if (matched < tag.length) {
+                    lineStart = false;
+                    matched = 0;
+                }
+            }
+            if (matched == tag.length)
+                return offset;
+        }
+        throw new IllegalArgumentException("ARFF file does not contain @data line.");
+    }
+
+    /**
+     * Returns the length of the first data line, used to estimate the number of rows of a split.
+     * @return a positive number of bytes.
+     */
+    private int estimateBytesPerRow() {
+        if (this.segments.length == 0)
+            return 1;
+        MappedByteBuffer buffer = this.segments[0];
+        int end = 0;
+        while (end < buffer.limit() && buffer.get(end) != '\n')
+            end++;
+        return Math.max(1, end + 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Attributes getAttributes() {
+        return this.attributes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean doesItReadThisFile(String fileName) {
+        if (new File(fileName).isDirectory())
+            return false;
+        String[] parts = fileName.split("\\.");
+        return parts[parts.length-1].equals("arff");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataRow> stream() {
+        return StreamSupport.stream(new DataRowSpliterator(0, 0, this.segments.length - 1, this.segmentLimit(this.segments.length - 1), MIN_SPLIT_SIZE), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataRow> parallelStream(int batchSize) {
+        int minSplitSize = (int) Math.min(MAX_SEGMENT_SIZE, Math.max(MIN_SPLIT_SIZE, (long) batchSize * this.bytesPerRow));
+        return StreamSupport.stream(new DataRowSpliterator(0, 0, this.segments.length - 1, this.segmentLimit(this.segments.length - 1), minSplitSize), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataRow> parallelStream() {
+        return this.stream().parallel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        this.segments = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Returns the number of usable bytes of a given segment.
+     * @param segment the index of the segment.
+     * @return the number of bytes, or 0 if the segment does not exist.
+     */
+    private int segmentLimit(int segment) {
+        return (segment < 0) ? 0 : this.segments[segment].limit();
+    }
+
+    /**
+     * Tests whether a byte is a blank character inside a data line.
+     * @param b the byte.
+     * @return true if it is a space, a tab or a carriage return.
+     */
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Parses a data line into a new array of values.
+     * @param buffer the segment containing the line.
+     * @param from the first byte of the line.
+     * @param to the byte after the last one of the line, excluding the end-of-line character.
+     * @return the values of the line, in the order of the attributes.
+     */
+    private double[] parseLine(MappedByteBuffer buffer, int from, int to) {
+        double[] data = new double[this.stateSpace.length];
+        int column = 0;
+        int cellStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buffer.get(i) == ',') {
+                if (column == data.length)
+                    throw new IllegalStateException("The number of columns does not match the number of attributes.");
+                data[column] = this.parseCell(buffer, cellStart, i, column);
+                column++;
+                cellStart = i + 1;
+            }
+        }
+        if (column != data.length)
+            throw new IllegalStateException("The number of columns does not match the number of attributes.");
+        return data;
+    }
+
+    /**
+     * Parses the value of a cell.
+     * @param buffer the segment containing the cell.
+     * @param from the first byte of the cell.
+     * @param to the byte after the last one of the cell.
+     * @param column the index of the attribute of the cell.
+     * @return the parsed value, or Double.NaN for a missing value.
+     */
+    private double parseCell(MappedByteBuffer buffer, int from, int to, int column) {
+        while (from < to && isWhitespace(buffer.get(from)))
+            from++;
+        while (to > from && isWhitespace(buffer.get(to - 1)))
+            to--;
+
+        if (to - from == 1 && buffer.get(from) == '?')
+            return Double.NaN;
+
+        switch (this.stateSpace[column]) {
+            case REAL:
+                return parseDouble(buffer, from, to);
+            case FINITE_SET:
+                byte[][] names = this.statesNames[column];
+                for (int state = 0; state < names.length; state++) {
+                    if (equalBytes(buffer, from, to, names[state]))
+                        return state;
+                }
+                throw new IllegalArgumentException("Error reading ARFF: value " + toString(buffer, from, to)
+                        + " is not a state of attribute " + this.attributes.getFullListOfAttributes().get(column).getName());
+            case SPARSE_FINITE_SET:
+                return parseInt(buffer, from, to);
+            default:
+                throw new IllegalStateException("Unknown state space type: " + this.stateSpace[column]);
+        }
+    }
+
+    /**
+     * Tests whether a range of bytes is equal to a given array of bytes.
+     * @param buffer the segment containing the range.
+     * @param from the first byte of the range.
+     * @param to the byte after the last one of the range.
+     * @param bytes the array to compare with.
+     * @return true if both contain the same bytes.
+     */
+    private static boolean equalBytes(MappedByteBuffer buffer, int from, int to, byte[] bytes) {
+        if (to - from != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(from + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a range of bytes as a {@code String}. Only used for slow paths and error messages.
+     * @param buffer the segment containing the range.
+     * @param from the first byte of the range.
+     * @param to the byte after the last one of the range.
+     * @return the decoded {@code String}.
+     */
+    private static String toString(MappedByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a range of bytes as an integer.
+     * @param buffer the segment containing the range.
+     * @param from the first byte of the range.
+     * @param to the byte after the last one of the range.
+     * @return the parsed value.
+     */
+    private static int parseInt(MappedByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == to || to - i > 9)
+            return Integer.parseInt(toString(buffer, from, to));
+        int value = 0;
+        for (; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                return Integer.parseInt(toString(buffer, from, to));
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a range of bytes as a double.
+     * Values with at most 15 significant digits and a decimal exponent in [-22, 22] are computed exactly
+     * from the decimal mantissa, the rest of values are delegated to {@link Double#parseDouble(String)}.
+     * @param buffer the segment containing the range.
+     * @param from the first byte of the range.
+     * @param to the byte after the last one of the range.
+     * @return the parsed value.
+     */
+    private static double parseDouble(MappedByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        for (; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            anyDigit = true;
+            if (mantissa != 0 || digit != 0)
+                significantDigits++;
+            if (significantDigits <= 18)
+                mantissa = mantissa * 10 + digit;
+            else
+                exponent++;
+        }
+
+        if (i < to && buffer.get(i) == '.') {
+            i++;
+            for (; i < to; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                anyDigit = true;
+                if (mantissa != 0 || digit != 0)
+                    significantDigits++;
+                if (significantDigits <= 18) {
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+                }
+            }
+        }
+
+        if (anyDigit && i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int exp = 0;
+            boolean anyExpDigit = false;
+            for (; i < to; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9 || exp > 100000)
+                    break;
+                anyExpDigit = true;
+                exp = exp * 10 + digit;
+            }
+            if (!anyExpDigit)
+                anyDigit = false;
+            exponent += negativeExponent ? -exp : exp;
+        }
+
+        if (!anyDigit || i != to || significantDigits > 15 || exponent < -22 || exponent > 22)
+            return Double.parseDouble(toString(buffer, from, to));
+
+        double value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * This class defines a {@link Spliterator} over the data lines of a contiguous range of segments.
+     * It splits at segment boundaries first and then at line boundaries inside a segment.
+     */
+    private final class DataRowSpliterator implements Spliterator<DataRow> {
+
+        /** Represents the index of the current segment. */
+        private int segment;
+
+        /** Represents the current position inside the current segment. */
+        private int position;
+
+        /** Represents the index of the last segment of this spliterator. */
+        private final int lastSegment;
+
+        /** Represents the end position inside the last segment. */
+        private int end;
+
+        /** Represents the minimum number of bytes of a split. */
+        private final int minSplitSize;
+
+        /**
+         * Creates a new DataRowSpliterator.
+         * @param segment the index of the first segment.
+         * @param position the start position inside the first segment.
+         * @param lastSegment the index of the last segment.
+         * @param end the end position inside the last segment.
+         * @param minSplitSize the minimum number of bytes of a split.
+         */
+        DataRowSpliterator(int segment, int position, int lastSegment, int end, int minSplitSize) {
+            this.segment = segment;
+            this.position = position;
+            this.lastSegment = lastSegment;
+            this.end = end;
+            this.minSplitSize = minSplitSize;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super DataRow> action) {
+            while (this.segment <= this.lastSegment) {
+                MappedByteBuffer buffer = segments[this.segment];
+                int limit = (this.segment == this.lastSegment) ? this.end : buffer.limit();
+                while (this.position < limit) {
+                    int lineStart = this.position;
+                    int lineEnd = lineStart;
+                    while (lineEnd < limit && buffer.get(lineEnd) != '\n')
+                        lineEnd++;
+                    this.position = lineEnd + 1;
+
+                    while (lineStart < lineEnd && isWhitespace(buffer.get(lineStart)))
+                        lineStart++;
+                    if (lineStart == lineEnd || buffer.get(lineStart) == '%')
+                        continue;
+
+                    action.accept(new DataRowWeka(attributes, parseLine(buffer, lineStart, lineEnd)));
+                    return true;
+                }
+                this.segment++;
+                this.position = 0;
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Spliterator<DataRow> trySplit() {
+            if (this.segment < this.lastSegment) {
+                int mid = this.segment + (this.lastSegment - this.segment + 1) / 2;
+                DataRowSpliterator prefix = new DataRowSpliterator(this.segment, this.position, mid - 1, segmentLimit(mid - 1), this.minSplitSize);
+                this.segment = mid;
+                this.position = 0;
+                return prefix;
+            }
+
+            if (this.segment > this.lastSegment || this.end - this.position < 2 * this.minSplitSize)
+                return null;
+
+            MappedByteBuffer buffer = segments[this.segment];
+            int mid = this.position + (this.end - this.position) / 2;
+            while (mid < this.end && buffer.get(mid) != '\n')
+                mid++;
+            if (mid >= this.end - 1)
+                return null;
+
+            DataRowSpliterator prefix = new DataRowSpliterator(this.segment, this.position, this.segment, mid + 1, this.minSplitSize);
+            this.position = mid + 1;
+            return prefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long estimateSize() {
+            long bytes = 0;
+            for (int s = this.segment; s <= this.lastSegment; s++) {
+                bytes += (s == this.lastSegment) ? this.end : segments[s].limit();
+            }
+            bytes -= this.position;
+            return Math.max(0, bytes / bytesPerRow);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
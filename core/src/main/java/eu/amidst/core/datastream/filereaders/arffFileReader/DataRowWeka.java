@@ -92,6 +92,16 @@ public class DataRowWeka implements DataRow{
         }
     }
 
+    /**
+     * Creates a new DataRowWeka from a given array of already parsed values and list of attributes.
+     * @param atts_ an input list of the list of {@link Attributes}.
+     * @param data_ an {@code array} of double with the values of the corresponding input attributes.
+     */
+    DataRowWeka(Attributes atts_, double[] data_){
+        atts = atts_;
+        data = data_;
+    }
+
     /**
      * {@inheritDoc}
      */
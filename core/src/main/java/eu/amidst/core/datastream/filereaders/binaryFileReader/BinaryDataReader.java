@@ -0,0 +1,462 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.datastream.filereaders.binaryFileReader;
+
+import eu.amidst.core.datastream.Attribute;
+import eu.amidst.core.datastream.Attributes;
+import eu.amidst.core.datastream.filereaders.DataFileReader;
+import eu.amidst.core.datastream.filereaders.DataRow;
+import eu.amidst.core.variables.StateSpaceType;
+import eu.amidst.core.variables.stateSpaceTypes.FiniteStateSpace;
+import eu.amidst.core.variables.stateSpaceTypes.RealStateSpace;
+import eu.amidst.core.variables.stateSpaceTypes.SparseFiniteStateSpace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class implements the interface {@link DataFileReader} and defines a reader for the AMIDST binary columnar
+ * format written by {@link BinaryDataWriter}.
+ *
+ * <p> The blocks of the file are memory-mapped, so the data can be scanned again after a {@link #restart()} without
+ * parsing it. Parallel streams are split into batches of the requested number of rows, or at block boundaries if no
+ * batch size is given. A projection over a subset of the attributes can be
+ * set with {@link #setProjection(String...)}, in which case only the columns of those attributes are read. </p>
+ */
+public class BinaryDataReader implements DataFileReader {
+
+    /** Represents the maximum number of bytes mapped by a single segment. */
+    private static final long MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** Represents the list of {@link Attributes} stored in the file. */
+    private Attributes fileAttributes;
+
+    /** Represents the list of {@link Attributes} of the rows returned by this reader. */
+    private Attributes attributes;
+
+    /** Represents, for each returned attribute, the index of its column in the file. */
+    private int[] projectedColumns;
+
+    /** Represents whether each column of the file is stored as a double. */
+    private boolean[] isReal;
+
+    /** Represents the offset of each column inside a row, in bytes. */
+    private int[] columnOffsetPerRow;
+
+    /** Represents the mapped segments of the file. */
+    private MappedByteBuffer[] segments;
+
+    /** Represents the segment holding each block. */
+    private int[] blockSegment;
+
+    /** Represents the offset of each block inside its segment. */
+    private int[] blockOffset;
+
+    /** Represents the number of rows of each block. */
+    private int[] blockRows;
+
+    /** Represents the number of rows before each block, with an additional final entry for the total. */
+    private long[] rowsBeforeBlock;
+
+    /** Represents the number of rows of every block but the last one. */
+    private int blockSize = BinaryDataWriter.DEFAULT_BLOCK_SIZE;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadFromFile(String pathString) {
+        Path pathFile = Paths.get(pathString);
+        try (FileChannel channel = FileChannel.open(pathFile, StandardOpenOption.READ)) {
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (in.readInt() != BinaryDataWriter.MAGIC)
+                throw new IllegalArgumentException("The file is not an AMIDST binary data file: " + pathString);
+            int version = in.readInt();
+            if (version != BinaryDataWriter.VERSION)
+                throw new IllegalArgumentException("Unsupported version of the AMIDST binary data format: " + version);
+            this.blockSize = in.readInt();
+
+            int nAtts = in.readInt();
+            List<Attribute> atts = new ArrayList<>(nAtts);
+            this.isReal = new boolean[nAtts];
+            this.columnOffsetPerRow = new int[nAtts];
+            int bytesPerRow = 0;
+            for (int i = 0; i < nAtts; i++) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                StateSpaceType stateSpaceType;
+                if (type == BinaryDataWriter.REAL) {
+                    stateSpaceType = new RealStateSpace(in.readDouble(), in.readDouble());
+                } else if (type == BinaryDataWriter.FINITE_SET) {
+                    int nStates = in.readInt();
+                    List<String> states = new ArrayList<>(nStates);
+                    for (int s = 0; s < nStates; s++) {
+                        states.add(in.readUTF());
+                    }
+                    stateSpaceType = new FiniteStateSpace(states);
+                } else if (type == BinaryDataWriter.SPARSE_FINITE_SET) {
+                    stateSpaceType = new SparseFiniteStateSpace(in.readInt());
+                } else {
+                    throw new IllegalArgumentException("Unknown attribute type in binary data file: " + type);
+                }
+                atts.add(new Attribute(i, name, stateSpaceType));
+                this.isReal[i] = type == BinaryDataWriter.REAL;
+                this.columnOffsetPerRow[i] = bytesPerRow;
+                bytesPerRow += this.isReal[i] ? Double.BYTES : Integer.BYTES;
+            }
+            this.fileAttributes = new Attributes(atts);
+
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            readFully(channel, buffer, channel.size() - Long.BYTES);
+            long footerOffset = buffer.getLong(0);
+
+            buffer = ByteBuffer.allocate((int) (channel.size() - Long.BYTES - footerOffset));
+            readFully(channel, buffer, footerOffset);
+            int nBlocks = buffer.getInt(0);
+            this.blockSegment = new int[nBlocks];
+            this.blockOffset = new int[nBlocks];
+            this.blockRows = new int[nBlocks];
+            this.rowsBeforeBlock = new long[nBlocks + 1];
+
+            long[] offsets = new long[nBlocks];
+            long[] ends = new long[nBlocks];
+            for (int b = 0; b < nBlocks; b++) {
+                int entry = Integer.BYTES + b * (Long.BYTES + Integer.BYTES);
+                offsets[b] = buffer.getLong(entry);
+                this.blockRows[b] = buffer.getInt(entry + Long.BYTES);
+                ends[b] = offsets[b] + (long) this.blockRows[b] * bytesPerRow;
+                this.rowsBeforeBlock[b + 1] = this.rowsBeforeBlock[b] + this.blockRows[b];
+            }
+
+            List<MappedByteBuffer> list = new ArrayList<>();
+            int first = 0;
+            while (first < nBlocks) {
+                int last = first;
+                while (last + 1 < nBlocks && ends[last + 1] - offsets[first] <= MAX_SEGMENT_SIZE)
+                    last++;
+                if (ends[last] - offsets[first] > MAX_SEGMENT_SIZE)
+                    throw new IllegalStateException("Block larger than " + MAX_SEGMENT_SIZE + " bytes.");
+                list.add(channel.map(FileChannel.MapMode.READ_ONLY, offsets[first], ends[last] - offsets[first]));
+                for (int b = first; b <= last; b++) {
+                    this.blockSegment[b] = list.size() - 1;
+                    this.blockOffset[b] = (int) (offsets[b] - offsets[first]);
+                }
+                first = last + 1;
+            }
+            this.segments = list.toArray(new MappedByteBuffer[list.size()]);
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        this.setProjection();
+    }
+
+    /**
+     * Reads bytes from a given position of a channel until the buffer is full.
+     * @param channel the channel of the input file.
+     * @param buffer the buffer to be filled.
+     * @param position the position of the first byte.
+     * @throws IOException in case of an error when reading the file.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of binary data file.");
+        }
+    }
+
+    /**
+     * Sets the attributes of the rows returned by this reader. Only the columns of these attributes are read.
+     * If no name is given, all the attributes of the file are returned.
+     * @param attributeNames the names of the attributes to be returned, in the desired order.
+     */
+    public void setProjection(String... attributeNames) {
+        if (attributeNames.length == 0) {
+            this.attributes = this.fileAttributes;
+            this.projectedColumns = new int[this.fileAttributes.getNumberOfAttributes()];
+            for (int i = 0; i < this.projectedColumns.length; i++) {
+                this.projectedColumns[i] = i;
+            }
+            return;
+        }
+
+        List<Attribute> atts = new ArrayList<>(attributeNames.length);
+        this.projectedColumns = new int[attributeNames.length];
+        for (int i = 0; i < attributeNames.length; i++) {
+            Attribute att = this.fileAttributes.getAttributeByName(attributeNames[i]);
+            atts.add(new Attribute(i, att.getName(), att.getStateSpaceType()));
+            this.projectedColumns[i] = att.getIndex();
+        }
+        this.attributes = new Attributes(atts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Attributes getAttributes() {
+        return this.attributes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean doesItReadThisFile(String fileName) {
+        if (new File(fileName).isDirectory())
+            return false;
+        String[] parts = fileName.split("\\.");
+        return parts[parts.length-1].equals("amdb");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataRow> stream() {
+        return StreamSupport.stream(this.spliterator(this.blockSize), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<DataRow> parallelStream(int batchSize) {
+        return StreamSupport.stream(this.spliterator(Math.max(1, batchSize)), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The stream is split at block boundaries.
+     */
+    @Override
+    public Stream<DataRow> parallelStream() {
+        return StreamSupport.stream(this.spliterator(this.blockSize), true);
+    }
+
+    /**
+     * Returns a spliterator over all the rows of the file.
+     * @param batchSize the number of rows of the batches into which it is split.
+     * @return a {@link BlockSpliterator} object.
+     */
+    private BlockSpliterator spliterator(long batchSize) {
+        return new BlockSpliterator(this.attributes, this.projectedColumns, 0, this.rowsBeforeBlock[this.blockRows.length], batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        this.segments = new MappedByteBuffer[0];
+        this.blockRows = new int[0];
+        this.rowsBeforeBlock = new long[1];
+    }
+
+    /**
+     * This class implements the interface {@link DataRow} for the rows of a binary data file.
+     */
+    private static final class BinaryDataRow implements DataRow {
+
+        /** Represents the values of this row. */
+        private final double[] data;
+
+        /** Represents the list of {@link Attributes}. */
+        private final Attributes atts;
+
+        /**
+         * Creates a new BinaryDataRow.
+         * @param atts the list of {@link Attributes}.
+         * @param data the values of the attributes.
+         */
+        BinaryDataRow(Attributes atts, double[] data) {
+            this.atts = atts;
+            this.data = data;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double getValue(Attribute att) {
+            return this.data[att.getIndex()];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setValue(Attribute att, double value) {
+            this.data[att.getIndex()] = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Attributes getAttributes() {
+            return this.atts;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double[] toArray() {
+            return this.data;
+        }
+    }
+
+    /**
+     * This class defines a {@link Spliterator} over a contiguous range of rows, which may span several blocks.
+     */
+    private final class BlockSpliterator implements Spliterator<DataRow> {
+
+        /** Represents the list of {@link Attributes} of the returned rows. */
+        private final Attributes atts;
+
+        /** Represents, for each returned attribute, the index of its column in the file. */
+        private final int[] columns;
+
+        /** Represents the index of the block holding the next row. */
+        private int block;
+
+        /** Represents the index of the next row inside its block. */
+        private int row;
+
+        /** Represents the index of the next row in the file. */
+        private long position;
+
+        /** Represents the index in the file of the row after the last one of this spliterator. */
+        private final long end;
+
+        /** Represents the number of rows of the batches into which this spliterator is split. */
+        private final long batchSize;
+
+        /**
+         * Creates a new BlockSpliterator.
+         * @param atts the list of {@link Attributes} of the returned rows.
+         * @param columns the index in the file of each returned attribute.
+         * @param start the index in the file of the first row.
+         * @param end the index in the file of the row after the last one.
+         * @param batchSize the number of rows of the batches into which it is split.
+         */
+        BlockSpliterator(Attributes atts, int[] columns, long start, long end, long batchSize) {
+            this.atts = atts;
+            this.columns = columns;
+            this.end = end;
+            this.batchSize = batchSize;
+            this.moveTo(start);
+        }
+
+        /**
+         * Moves this spliterator to a given row.
+         * @param position the index in the file of the row.
+         */
+        private void moveTo(long position) {
+            int b = Arrays.binarySearch(rowsBeforeBlock, position);
+            if (b < 0)
+                b = -b - 2;
+            this.block = Math.min(b, blockRows.length - 1);
+            this.row = (int) (position - rowsBeforeBlock[Math.max(this.block, 0)]);
+            this.position = position;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super DataRow> action) {
+            if (this.position >= this.end)
+                return false;
+            while (this.row == blockRows[this.block]) {
+                this.block++;
+                this.row = 0;
+            }
+
+            MappedByteBuffer buffer = segments[blockSegment[this.block]];
+            int rows = blockRows[this.block];
+            int base = blockOffset[this.block];
+            double[] data = new double[this.columns.length];
+            for (int i = 0; i < this.columns.length; i++) {
+                int column = this.columns[i];
+                int columnStart = base + columnOffsetPerRow[column] * rows;
+                if (isReal[column]) {
+                    data[i] = buffer.getDouble(columnStart + this.row * Double.BYTES);
+                } else {
+                    int value = buffer.getInt(columnStart + this.row * Integer.BYTES);
+                    data[i] = (value == BinaryDataWriter.MISSING_INT) ? Double.NaN : value;
+                }
+            }
+            this.row++;
+            this.position++;
+            action.accept(new BinaryDataRow(this.atts, data));
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Spliterator<DataRow> trySplit() {
+            long nBatches = (this.end - this.position + this.batchSize - 1) / this.batchSize;
+            if (nBatches < 2)
+                return null;
+            long mid = this.position + (nBatches / 2) * this.batchSize;
+            BlockSpliterator prefix = new BlockSpliterator(this.atts, this.columns, this.position, mid, this.batchSize);
+            this.moveTo(mid);
+            return prefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long estimateSize() {
+            return Math.max(0, this.end - this.position);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        }
+    }
+}
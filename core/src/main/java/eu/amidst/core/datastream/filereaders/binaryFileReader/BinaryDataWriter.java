@@ -0,0 +1,258 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.datastream.filereaders.binaryFileReader;
+
+import eu.amidst.core.datastream.Attribute;
+import eu.amidst.core.datastream.Attributes;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.datastream.filereaders.DataFileWriter;
+import eu.amidst.core.variables.StateSpaceTypeEnum;
+import eu.amidst.core.variables.stateSpaceTypes.FiniteStateSpace;
+import eu.amidst.core.variables.stateSpaceTypes.RealStateSpace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements the interface {@link DataFileWriter} and defines a writer for the AMIDST binary columnar format.
+ *
+ * <p> A binary data file is made of a header, a sequence of blocks and a footer. The header contains the list of
+ * {@link Attributes} and the maximum number of rows of a block. Each block stores its rows column by column, using
+ * a fixed-width double for real attributes and a fixed-width int for finite and sparse finite attributes.
+ * The footer contains the offset and number of rows of each block, and the last eight bytes of the file contain the
+ * offset of the footer. </p>
+ *
+ * <p> The file is meant to be written once, e.g. from an ARFF file, and then scanned many times with
+ * {@link BinaryDataReader}. </p>
+ */
+public class BinaryDataWriter implements DataFileWriter {
+
+    /** Represents the first four bytes of a binary data file ("AMDB"). */
+    static final int MAGIC = 0x414D4442;
+
+    /** Represents the version of the binary format. */
+    static final int VERSION = 1;
+
+    /** Represents the code of a real attribute. */
+    static final byte REAL = 0;
+
+    /** Represents the code of a finite attribute. */
+    static final byte FINITE_SET = 1;
+
+    /** Represents the code of a sparse finite attribute. */
+    static final byte SPARSE_FINITE_SET = 2;
+
+    /** Represents the value stored in an int column for a missing value. */
+    static final int MISSING_INT = Integer.MIN_VALUE;
+
+    /** Represents the default number of rows of a block. */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    /** Represents the number of rows of a block. */
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * Creates a new BinaryDataWriter with the default block size.
+     */
+    public BinaryDataWriter() {
+    }
+
+    /**
+     * Creates a new BinaryDataWriter with a given block size.
+     * @param blockSize the number of rows of a block.
+     */
+    public BinaryDataWriter(int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("The block size must be positive.");
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFileExtension() {
+        return "amdb";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeToFile(DataStream<? extends DataInstance> dataStream, String path) throws IOException {
+        BinaryDataWriter.writeToBinaryFile(dataStream, path, this.blockSize);
+    }
+
+    /**
+     * Saves a given data stream to a binary file with the default block size.
+     * @param dataStream an input {@link DataStream}.
+     * @param path the path of the binary file where the data stream will be saved.
+     * @throws IOException in case of an error when writing to file
+     */
+    public static void writeToBinaryFile(DataStream<? extends DataInstance> dataStream, String path) throws IOException {
+        writeToBinaryFile(dataStream, path, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Saves a given data stream to a binary file.
+     * @param dataStream an input {@link DataStream}.
+     * @param path the path of the binary file where the data stream will be saved.
+     * @param blockSize the number of rows of a block.
+     * @throws IOException in case of an error when writing to file
+     */
+    public static void writeToBinaryFile(DataStream<? extends DataInstance> dataStream, String path, int blockSize) throws IOException {
+        List<Attribute> atts = dataStream.getAttributes().getFullListOfAttributes();
+        int nAtts = atts.size();
+        boolean[] isReal = new boolean[nAtts];
+        int bytesPerRow = 0;
+        for (int i = 0; i < nAtts; i++) {
+            isReal[i] = atts.get(i).getStateSpaceType().getStateSpaceTypeEnum() == StateSpaceTypeEnum.REAL;
+            bytesPerRow += isReal[i] ? Double.BYTES : Integer.BYTES;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            writeFully(channel, ByteBuffer.wrap(headerToBytes(dataStream.getAttributes(), blockSize)));
+
+            List<Long> blockOffsets = new ArrayList<>();
+            List<Integer> blockRows = new ArrayList<>();
+            double[][] columns = new double[nAtts][blockSize];
+            ByteBuffer buffer = ByteBuffer.allocate(blockSize * bytesPerRow);
+            int rows = 0;
+
+            for (DataInstance instance : dataStream) {
+                for (int i = 0; i < nAtts; i++) {
+                    columns[i][rows] = instance.getValue(atts.get(i));
+                }
+                rows++;
+                if (rows == blockSize) {
+                    blockOffsets.add(channel.position());
+                    blockRows.add(rows);
+                    writeBlock(channel, buffer, columns, isReal, rows);
+                    rows = 0;
+                }
+            }
+            if (rows > 0) {
+                blockOffsets.add(channel.position());
+                blockRows.add(rows);
+                writeBlock(channel, buffer, columns, isReal, rows);
+            }
+
+            long footerOffset = channel.position();
+            ByteBuffer footer = ByteBuffer.allocate(Integer.BYTES + blockOffsets.size() * (Long.BYTES + Integer.BYTES) + Long.BYTES);
+            footer.putInt(blockOffsets.size());
+            for (int b = 0; b < blockOffsets.size(); b++) {
+                footer.putLong(blockOffsets.get(b));
+                footer.putInt(blockRows.get(b));
+            }
+            footer.putLong(footerOffset);
+            footer.flip();
+            writeFully(channel, footer);
+        }
+    }
+
+    /**
+     * Writes a block of rows column by column.
+     * @param channel the channel of the output file.
+     * @param buffer a buffer large enough to hold a full block.
+     * @param columns the values of the block, indexed by column and row.
+     * @param isReal whether each column is stored as a double.
+     * @param rows the number of rows of the block.
+     * @throws IOException in case of an error when writing to file
+     */
+    private static void writeBlock(FileChannel channel, ByteBuffer buffer, double[][] columns, boolean[] isReal, int rows) throws IOException {
+        buffer.clear();
+        for (int i = 0; i < columns.length; i++) {
+            double[] column = columns[i];
+            if (isReal[i]) {
+                for (int r = 0; r < rows; r++) {
+                    buffer.putDouble(column[r]);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    buffer.putInt(Double.isNaN(column[r]) ? MISSING_INT : (int) column[r]);
+                }
+            }
+        }
+        buffer.flip();
+        writeFully(channel, buffer);
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer.
+     * @param channel the channel of the output file.
+     * @param buffer the buffer to be written.
+     * @throws IOException in case of an error when writing to file
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Encodes the header of a binary data file.
+     * @param attributes the list of {@link Attributes} of the data.
+     * @param blockSize the maximum number of rows of a block.
+     * @return the encoded header.
+     * @throws IOException in case of an error when encoding the header.
+     */
+    private static byte[] headerToBytes(Attributes attributes, int blockSize) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(blockSize);
+        out.writeInt(attributes.getNumberOfAttributes());
+        for (Attribute att : attributes) {
+            out.writeUTF(att.getName());
+            switch (att.getStateSpaceType().getStateSpaceTypeEnum()) {
+                case REAL:
+                    RealStateSpace realStateSpace = att.getStateSpaceType();
+                    out.writeByte(REAL);
+                    out.writeDouble(realStateSpace.getMinInterval());
+                    out.writeDouble(realStateSpace.getMaxInterval());
+                    break;
+                case FINITE_SET:
+                    FiniteStateSpace finiteStateSpace = att.getStateSpaceType();
+                    out.writeByte(FINITE_SET);
+                    out.writeInt(finiteStateSpace.getNumberOfStates());
+                    for (String state : finiteStateSpace.getStatesNames()) {
+                        out.writeUTF(state);
+                    }
+                    break;
+                case SPARSE_FINITE_SET:
+                    out.writeByte(SPARSE_FINITE_SET);
+                    out.writeInt(att.getNumberOfStates());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Illegal State Space Type: " + att.getStateSpaceType().getStateSpaceTypeEnum());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
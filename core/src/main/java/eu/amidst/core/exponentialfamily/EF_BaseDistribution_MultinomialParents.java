@@ -34,10 +34,10 @@
 
 package eu.amidst.core.exponentialfamily;
 
-import com.google.common.util.concurrent.AtomicDouble;
 import eu.amidst.core.distribution.BaseDistribution_MultinomialParents;
 import eu.amidst.core.distribution.ConditionalDistribution;
 import eu.amidst.core.distribution.Distribution;
+import eu.amidst.core.utils.ArrayVector;
 import eu.amidst.core.utils.MultinomialIndex;
 import eu.amidst.core.utils.Vector;
 import eu.amidst.core.variables.Assignment;
@@ -46,11 +46,10 @@ import eu.amidst.core.variables.Variable;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * This class defines conditional distributions with a set of multinomial parents. It aims to exploit some underlying
@@ -123,7 +122,7 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
         this.momentParameters = null;
 
         if (initializeMomentNaturalParameters) {
-            CompoundVector vectorNatural = this.createCompoundVector();
+            CompoundVector vectorNatural = this.createCompoundVector(true);
 
             for (int i = 0; i < numberOfConfigurations(); i++) {
                 vectorNatural.setBaseConf(i, -this.getBaseEFDistribution(i).computeLogNormalizer());
@@ -225,6 +224,20 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accumulateSufficientStatistics(Assignment instance, SufficientStatistics accumulator) {
+        CompoundVector vector = (CompoundVector) accumulator;
+
+        int position = MultinomialIndex.getIndexFromVariableAssignment(this.multinomialParents, instance);
+
+        vector.setBaseConf(position, vector.getBaseConf(position) + 1.0);
+
+        this.getBaseEFDistribution(position).accumulateSufficientStatistics(instance, vector.getBaseAccumulator(position));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -247,7 +260,7 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
             this.getBaseEFDistribution(i).setMomentParameters(moment);
         }
 
-        CompoundVector vectorNatural = this.createCompoundVector();
+        CompoundVector vectorNatural = this.createCompoundVector(true);
 
 
         for (int i = 0; i < numberOfConfigurations(); i++) {
@@ -552,7 +565,17 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
     }
 
     private CompoundVector createCompoundVector() {
-        return new CompoundVector(this.getBaseEFDistribution(0), this.numberOfConfigurations());
+        return this.createCompoundVector(false);
+    }
+
+    /**
+     * Creates a zero compound vector.
+     * @param byReference whether the base vectors are set by reference, as happens with the natural parameters,
+     *                    which are views of the natural parameters of the base distributions.
+     * @return a {@link CompoundVector} object.
+     */
+    private CompoundVector createCompoundVector(boolean byReference) {
+        return new CompoundVector(this.getBaseEFDistribution(0), this.numberOfConfigurations(), byReference);
     }
 
     /**
@@ -577,32 +600,195 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
     }
 
     //TODO: Replace this CompoundVector by the compoundvector of indicator
+    /**
+     * This class implements the vector of an {@link EF_BaseDistribution_MultinomialParents}, i.e., the concatenation
+     * of one value for each configuration of the multinomial parents with the vectors of the base distributions.
+     *
+     * <p> The base vectors are stored in one of the following layouts: </p>
+     * <ul>
+     *     <li> Flat and sparse: the values of the stored configurations are packed in a {@code double[]}, one block
+     *     of {@code baseSSLength} values per slot, as happens with the sufficient statistics of a single instance. </li>
+     *     <li> Flat and dense: all the configurations are stored and the slot of each configuration is the
+     *     configuration itself, so sum, dotProduct and divideBy are plain loops over a contiguous array. A sparse
+     *     vector switches to this layout once it stores half of the configurations. </li>
+     *     <li> By reference: the base vectors are kept as {@link Vector} objects. This is the layout of the natural
+     *     parameters, which are views of the natural parameters of the base distributions, and of base distributions
+     *     whose vectors are not plain arrays of values (e.g., sparse vectors, which are too large to be stored
+     *     densely, or vectors defining their own arithmetic). </li>
+     * </ul>
+     */
     private static class CompoundVector implements SufficientStatistics, MomentParameters, NaturalParameters, Serializable {
         /** Represents the serial version ID for serializing the object. */
-        private static final long serialVersionUID = -3436599636425587512L;
+        private static final long serialVersionUID = 1940785413219584627L;
 
+        /** Represents the number of configurations of the multinomial parents. */
         int nConf;
+
+        /** Represents the size of the base vectors. */
         int baseSSLength;
+
+        /** Represents the value associated to each configuration of the multinomial parents. */
         double[] baseConf;
+
+        /** Represents the base distribution used for creating the base vectors. */
         EF_Distribution baseDist;
 
-        SparseVector baseVectors;
+        /** Represents the base vectors indexed by configuration, or {@code null} if the layout is flat. */
+        Vector[] baseVectors;
+
+        /** Represents the packed values of the base vectors of the stored configurations, if the layout is flat. */
+        double[] values;
+
+        /** Represents the slot plus one of each configuration, or 0 if the configuration is not stored. */
+        int[] slotOfConf;
+
+        /** Represents the configuration stored in each slot. */
+        int[] confOfSlot;
 
-        public CompoundVector(EF_Distribution baseDist1, int nConf1) {
+        /** Represents the number of used slots. */
+        int nSlots;
+
+        /** Indicates whether all the configurations are stored and the slot of each one is the configuration itself. */
+        boolean dense;
+
+        /**
+         * Creates a new CompoundVector.
+         * @param baseDist1 the base distribution used for creating the base vectors.
+         * @param nConf1 the number of configurations of the multinomial parents.
+         * @param byReference whether the base vectors are kept as {@link Vector} objects set by reference.
+         */
+        public CompoundVector(EF_Distribution baseDist1, int nConf1, boolean byReference) {
             nConf = nConf1;
             this.baseConf = new double[nConf];
             baseDist = baseDist1;
-            baseVectors = new SparseVector(baseDist1,nConf);
-            baseSSLength = baseDist.sizeOfSufficientStatistics();
+            Vector zeroVector = baseDist.createZeroVector();
+            baseSSLength = zeroVector.size();
+
+            if (byReference || !(zeroVector instanceof ArrayVector || zeroVector instanceof EF_Normal_NormalParents.CompoundVector)) {
+                this.baseVectors = new Vector[nConf];
+            } else {
+                this.values = new double[baseSSLength];
+                this.slotOfConf = new int[nConf];
+                this.confOfSlot = new int[1];
+            }
+        }
 
+        /**
+         * Tests whether the base vectors are stored in the flat array.
+         * @return {@code true} if the layout is flat.
+         */
+        private boolean isFlat() {
+            return this.baseVectors == null;
+        }
+
+        /**
+         * Returns the slot of a configuration in the flat layout.
+         * @param conf a configuration of the multinomial parents.
+         * @return the slot, or -1 if the configuration is not stored.
+         */
+        private int slot(int conf) {
+            return this.slotOfConf[conf] - 1;
+        }
+
+        /**
+         * Returns the slot of a configuration in the flat layout, adding a zeroed slot if it is not stored.
+         * @param conf a configuration of the multinomial parents.
+         * @return the slot.
+         */
+        private int slotOrCreate(int conf) {
+            int slot = this.slotOfConf[conf] - 1;
+            if (slot >= 0)
+                return slot;
+
+            if (2 * (this.nSlots + 1) > this.nConf) {
+                this.densify();
+                return conf;
+            }
+
+            if (this.nSlots == this.confOfSlot.length) {
+                this.confOfSlot = Arrays.copyOf(this.confOfSlot, 2 * this.nSlots);
+                this.values = Arrays.copyOf(this.values, 2 * this.nSlots * this.baseSSLength);
+            }
+            slot = this.nSlots++;
+            this.confOfSlot[slot] = conf;
+            this.slotOfConf[conf] = slot + 1;
+            return slot;
+        }
+
+        /**
+         * Switches the flat layout to dense, where every configuration is stored in its own slot.
+         */
+        private void densify() {
+            if (this.dense)
+                return;
+
+            double[] denseValues = new double[this.nConf * this.baseSSLength];
+            for (int slot = 0; slot < this.nSlots; slot++) {
+                System.arraycopy(this.values, slot * this.baseSSLength, denseValues, this.confOfSlot[slot] * this.baseSSLength, this.baseSSLength);
+            }
+
+            this.values = denseValues;
+            this.confOfSlot = new int[this.nConf];
+            for (int conf = 0; conf < this.nConf; conf++) {
+                this.confOfSlot[conf] = conf;
+                this.slotOfConf[conf] = conf + 1;
+            }
+            this.nSlots = this.nConf;
+            this.dense = true;
+        }
+
+        /**
+         * Returns the number of configurations whose base vector is stored.
+         * @return the number of stored configurations.
+         */
+        private int getNumberOfStoredConfigurations() {
+            if (this.isFlat())
+                return this.nSlots;
+
+            int count = 0;
+            for (Vector vector : this.baseVectors) {
+                if (vector != null)
+                    count++;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the stored base vector of a configuration.
+         * @param conf a configuration of the multinomial parents.
+         * @return a {@link Vector} object, or {@code null} if the configuration is not stored. In the flat layout the
+         * returned vector is a copy.
+         */
+        private Vector getStoredVector(int conf) {
+            if (!this.isFlat())
+                return this.baseVectors[conf];
+
+            int slot = this.slot(conf);
+            if (slot < 0)
+                return null;
+
+            Vector vector = this.baseDist.createZeroVector();
+            int offset = slot * this.baseSSLength;
+            for (int k = 0; k < this.baseSSLength; k++) {
+                vector.set(k, this.values[offset + k]);
+            }
+            return vector;
         }
 
         public void setVectorByPosition(int position, Vector vec) {
-            baseVectors.setVectorByPosition(position, vec);
+            if (!this.isFlat()) {
+                this.baseVectors[position] = vec;
+                return;
+            }
+
+            int offset = this.slotOrCreate(position) * this.baseSSLength;
+            for (int k = 0; k < this.baseSSLength; k++) {
+                this.values[offset + k] = vec.get(k);
+            }
         }
 
         public Vector getVectorByPosition(int position) {
-            Vector vector =  this.baseVectors.getVectorByPosition(position);
+            Vector vector = this.getStoredVector(position);
             if (vector==null){
                 return this.baseDist.createZeroVector();
             }else {
@@ -610,6 +796,24 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
             }
         }
 
+        /**
+         * Returns the base vector of a configuration as an accumulator whose updates are stored in this vector.
+         * In the flat layout it is a view of the block of the configuration, which must be used before any other
+         * configuration is added to this vector.
+         * @param position a configuration of the multinomial parents.
+         * @return a {@link SufficientStatistics} object.
+         */
+        public SufficientStatistics getBaseAccumulator(int position) {
+            if (this.isFlat()) {
+                int offset = this.slotOrCreate(position) * this.baseSSLength;
+                return new BlockVector(this.values, offset, this.baseSSLength);
+            }
+
+            if (this.baseVectors[position] == null)
+                this.baseVectors[position] = this.baseDist.createZeroVector();
+            return (SufficientStatistics) this.baseVectors[position];
+        }
+
         public double getBaseConf(int i) {
             return this.baseConf[i];
         }
@@ -622,9 +826,16 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
         public double get(int i) {
             if (i < nConf) {
                 return this.baseConf[i];
+            }
+
+            i -= nConf;
+            int conf = i / this.baseSSLength;
+            if (this.isFlat()) {
+                int slot = this.slot(conf);
+                return (slot < 0) ? 0 : this.values[slot * this.baseSSLength + i % this.baseSSLength];
             } else {
-                i -= nConf;
-                return baseVectors.get(i);
+                Vector vector = this.baseVectors[conf];
+                return (vector == null) ? 0 : vector.get(i % this.baseSSLength);
             }
         }
 
@@ -632,9 +843,17 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
         public void set(int i, double val) {
             if (i < nConf) {
                 baseConf[i] = val;
+                return;
+            }
+
+            i -= nConf;
+            int conf = i / this.baseSSLength;
+            if (this.isFlat()) {
+                this.values[this.slotOrCreate(conf) * this.baseSSLength + i % this.baseSSLength] = val;
             } else {
-                i -= nConf;
-                baseVectors.set(i,val);
+                if (this.baseVectors[conf] == null)
+                    this.baseVectors[conf] = this.baseDist.createZeroVector();
+                this.baseVectors[conf].set(i % this.baseSSLength, val);
             }
         }
 
@@ -648,10 +867,6 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
             this.sum((CompoundVector) vector);
         }
 
-        public SparseVector getBaseVectors() {
-            return baseVectors;
-        }
-
         public void sum(CompoundVector vector) {
             if (vector.size() != this.size())
                 throw new IllegalArgumentException("Error in variable Vector. Method copy. The parameter vec has a different size.");
@@ -660,7 +875,43 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
                 baseConf[i] += vector.getBaseConf(i);
             }
 
-            this.baseVectors.sum(vector.getBaseVectors());
+            if (this.isFlat() && vector.isFlat()) {
+                if (vector.dense)
+                    this.densify();
+
+                if (this.dense && vector.dense) {
+                    for (int i = 0; i < this.values.length; i++) {
+                        this.values[i] += vector.values[i];
+                    }
+                } else {
+                    for (int slot = 0; slot < vector.nSlots; slot++) {
+                        int offset = this.slotOrCreate(vector.confOfSlot[slot]) * this.baseSSLength;
+                        int otherOffset = slot * this.baseSSLength;
+                        for (int k = 0; k < this.baseSSLength; k++) {
+                            this.values[offset + k] += vector.values[otherOffset + k];
+                        }
+                    }
+                }
+            } else if (this.isFlat()) {
+                for (int conf = 0; conf < this.nConf; conf++) {
+                    Vector outerVector = vector.baseVectors[conf];
+                    if (outerVector == null)
+                        continue;
+                    int offset = this.slotOrCreate(conf) * this.baseSSLength;
+                    for (int k = 0; k < this.baseSSLength; k++) {
+                        this.values[offset + k] += outerVector.get(k);
+                    }
+                }
+            } else {
+                for (int conf = 0; conf < this.nConf; conf++) {
+                    Vector outerVector = vector.getStoredVector(conf);
+                    if (outerVector == null)
+                        continue;
+                    if (this.baseVectors[conf] == null)
+                        this.baseVectors[conf] = this.baseDist.createZeroVector();
+                    this.baseVectors[conf].sum(outerVector);
+                }
+            }
         }
 
         @Override
@@ -673,7 +924,53 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
                 throw new IllegalArgumentException("Error in variable Vector. Method copy. The parameter vec has a different size.");
 
             System.arraycopy(vector.baseConf, 0, this.baseConf, 0, this.nConf);
-            this.baseVectors.copy(vector.getBaseVectors());
+
+            if (this.isFlat() && vector.isFlat()) {
+                this.values = vector.values.clone();
+                this.slotOfConf = vector.slotOfConf.clone();
+                this.confOfSlot = vector.confOfSlot.clone();
+                this.nSlots = vector.nSlots;
+                this.dense = vector.dense;
+            } else if (this.isFlat()) {
+                this.values = new double[this.baseSSLength];
+                this.slotOfConf = new int[this.nConf];
+                this.confOfSlot = new int[1];
+                this.nSlots = 0;
+                this.dense = false;
+                for (int conf = 0; conf < this.nConf; conf++) {
+                    if (vector.baseVectors[conf] != null)
+                        this.setVectorByPosition(conf, vector.baseVectors[conf]);
+                }
+            } else {
+                this.baseVectors = new Vector[this.nConf];
+                for (int conf = 0; conf < this.nConf; conf++) {
+                    Vector outerVector = vector.getStoredVector(conf);
+                    if (outerVector == null)
+                        continue;
+                    Vector newVector = this.baseDist.createZeroVector();
+                    newVector.copy(outerVector);
+                    this.baseVectors[conf] = newVector;
+                }
+            }
+        }
+
+        @Override
+        public CompoundVector deepCopy() {
+            CompoundVector copy = new CompoundVector(this.baseDist, this.nConf, !this.isFlat());
+            System.arraycopy(this.baseConf, 0, copy.baseConf, 0, this.nConf);
+            if (this.isFlat()) {
+                copy.values = this.values.clone();
+                copy.slotOfConf = this.slotOfConf.clone();
+                copy.confOfSlot = this.confOfSlot.clone();
+                copy.nSlots = this.nSlots;
+                copy.dense = this.dense;
+            } else {
+                for (int conf = 0; conf < this.nConf; conf++) {
+                    if (this.baseVectors[conf] != null)
+                        copy.baseVectors[conf] = this.baseVectors[conf].deepCopy();
+                }
+            }
+            return copy;
         }
 
         @Override
@@ -681,7 +978,39 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
             for (int i = 0; i < this.baseConf.length; i++) {
                 this.baseConf[i] /= val;
             }
-            this.baseVectors.divideBy(val);
+
+            if (this.isFlat()) {
+                for (int i = 0; i < this.nSlots * this.baseSSLength; i++) {
+                    this.values[i] /= val;
+                }
+            } else {
+                for (Vector vector : this.baseVectors) {
+                    if (vector != null)
+                        vector.divideBy(val);
+                }
+            }
+        }
+
+        @Override
+        public void multiplyBy(double val) {
+            for (int i = 0; i < this.baseConf.length; i++) {
+                this.baseConf[i] *= val;
+            }
+
+            if (this.isFlat()) {
+                for (int i = 0; i < this.nSlots * this.baseSSLength; i++) {
+                    this.values[i] *= val;
+                }
+            } else {
+                // Entry by entry, as some base vectors (e.g., the natural parameters of EF_Normal) redefine multiplyBy.
+                for (Vector vector : this.baseVectors) {
+                    if (vector == null)
+                        continue;
+                    for (int k = 0; k < vector.size(); k++) {
+                        vector.set(k, vector.get(k) * val);
+                    }
+                }
+            }
         }
 
         @Override
@@ -699,153 +1028,96 @@ public class EF_BaseDistribution_MultinomialParents<E extends EF_ConditionalDist
                 sum += baseConf[i] * vector.getBaseConf(i);
             }
 
-            sum += this.baseVectors.dotProduct(vector.getBaseVectors());
+            if (this.isFlat() && vector.isFlat() && this.dense && vector.dense) {
+                for (int i = 0; i < this.values.length; i++) {
+                    sum += this.values[i] * vector.values[i];
+                }
+                return sum;
+            }
+
+            if (this.isFlat() && vector.isFlat()) {
+                // The configurations of the vector storing fewer ones are looked up in the other vector.
+                CompoundVector small = (this.nSlots <= vector.nSlots) ? this : vector;
+                CompoundVector large = (small == this) ? vector : this;
+                for (int slot = 0; slot < small.nSlots; slot++) {
+                    int largeSlot = large.slot(small.confOfSlot[slot]);
+                    if (largeSlot < 0)
+                        continue;
+                    int offset = slot * this.baseSSLength;
+                    int largeOffset = largeSlot * this.baseSSLength;
+                    for (int k = 0; k < this.baseSSLength; k++) {
+                        sum += small.values[offset + k] * large.values[largeOffset + k];
+                    }
+                }
+            } else if (this.isFlat() || vector.isFlat()) {
+                CompoundVector flat = this.isFlat() ? this : vector;
+                CompoundVector byReference = (flat == this) ? vector : this;
+                for (int slot = 0; slot < flat.nSlots; slot++) {
+                    int conf = flat.confOfSlot[slot];
+                    Vector referenceVector = byReference.baseVectors[conf];
+                    if (referenceVector == null)
+                        continue;
+                    if (referenceVector instanceof ArrayVector) {
+                        int offset = slot * this.baseSSLength;
+                        for (int k = 0; k < this.baseSSLength; k++) {
+                            sum += referenceVector.get(k) * flat.values[offset + k];
+                        }
+                    } else {
+                        // Base vectors such as the natural parameters of EF_Normal define their own dot product.
+                        sum += referenceVector.dotProduct(flat.getStoredVector(conf));
+                    }
+                }
+            } else {
+                if (this.getNumberOfStoredConfigurations() < vector.getNumberOfStoredConfigurations()) {
+                    for (int conf = 0; conf < this.nConf; conf++) {
+                        if (this.baseVectors[conf] != null && vector.baseVectors[conf] != null)
+                            sum += vector.baseVectors[conf].dotProduct(this.baseVectors[conf]);
+                    }
+                } else {
+                    for (int conf = 0; conf < this.nConf; conf++) {
+                        if (this.baseVectors[conf] != null && vector.baseVectors[conf] != null)
+                            sum += this.baseVectors[conf].dotProduct(vector.baseVectors[conf]);
+                    }
+                }
+            }
 
             return sum;
         }
-
-
     }
 
-    private static class SparseVector implements Vector, Serializable {
-
-        /** Represents the serial version ID for serializing the object. */
-        private static final long serialVersionUID = -3436599636425587512L;
-
-        EF_Distribution vectorBuilder;
-
-        Map<Integer, Vector> vectorMap;
+    /**
+     * This class implements a view of a block of a flat array of values as a vector.
+     */
+    private static final class BlockVector implements SufficientStatistics {
 
-        int numVectors;
+        /** Represents the flat array of values. */
+        private final double[] values;
 
-        int baseSize;
+        /** Represents the offset of the block in the array. */
+        private final int offset;
 
-        int nonZeroEntries;
+        /** Represents the size of the block. */
+        private final int size;
 
-        public SparseVector(EF_Distribution vectorBuilder1, int numVectors1) {
-            this.vectorBuilder = vectorBuilder1;
-            Vector baseVector = this.vectorBuilder.createZeroVector();
-            this.baseSize = baseVector.size();
-            this.numVectors = numVectors1;
-            nonZeroEntries=0;
-            vectorMap = new ConcurrentHashMap<Integer,Vector>();
-        }
-
-        public void setVectorByPosition(int position, Vector vec) {
-            if (vectorMap.containsKey(position)){
-                vectorMap.put(position,vec);
-            }else{
-                vectorMap.put(position,vec);
-                this.nonZeroEntries++;
-            }
-        }
-
-        public Vector getVectorByPosition(int position) {
-            return this.vectorMap.get(position);
-        }
-
-        public int getNumberNonZeroEntries() {
-            return nonZeroEntries;
+        BlockVector(double[] values, int offset, int size) {
+            this.values = values;
+            this.offset = offset;
+            this.size = size;
         }
 
         @Override
         public double get(int i) {
-            int baseIndex = Math.floorDiv(i, this.baseSize);
-            if (vectorMap.containsKey(baseIndex))
-                return vectorMap.get(baseIndex).get(i % baseSize);
-            else
-                return 0;
+            return this.values[this.offset + i];
         }
 
         @Override
         public void set(int i, double val) {
-            int baseIndex = Math.floorDiv(i, this.baseSize);
-            if (vectorMap.containsKey(baseIndex)) {
-                vectorMap.get(baseIndex).set(i % baseSize, val);
-            } else {
-                Vector baseVector = this.vectorBuilder.createZeroVector();
-                baseVector.set(i % baseSize, val);
-                vectorMap.put(baseIndex, baseVector);
-                nonZeroEntries++;
-            }
+            this.values[this.offset + i] = val;
         }
 
         @Override
         public int size() {
-            return baseSize * numVectors;
-        }
-
-        @Override
-        public void sum(Vector vector) {
-            this.sum((SparseVector)vector);
-        }
-
-        public void sum(SparseVector vector) {
-            if (vector.size() != this.size())
-                throw new IllegalArgumentException("Error in variable Vector. Method copy. The parameter vec has a different size.");
-
-            vector.nonZeroEntries().forEach(entry -> {
-                    Vector localVector = this.getVectorByPosition(entry.getKey());
-                    Vector outerVector = entry.getValue();
-                    if (localVector != null) {
-                        localVector.sum(outerVector);
-                    }else{
-                        Vector newVector = this.vectorBuilder.createZeroVector();
-                        newVector.sum(outerVector);
-                        this.setVectorByPosition(entry.getKey(),newVector);
-                    }
-                });
-        }
-
-        @Override
-        public void copy(Vector vector) {
-            this.copy((SparseVector)vector);
-        }
-
-        public void copy(SparseVector vector) {
-            if (vector.size() != this.size())
-                throw new IllegalArgumentException("Error in variable Vector. Method copy. The parameter vec has a different size. ");
-
-            vectorMap = new ConcurrentHashMap<Integer,Vector>();
-
-            vector.nonZeroEntries().forEach(entry -> {
-                Vector newVector = this.vectorBuilder.createZeroVector();
-                newVector.copy(entry.getValue());
-                this.setVectorByPosition(entry.getKey(),newVector);
-            });
-        }
-
-        @Override
-        public void divideBy(double val) {
-            this.nonZeroEntries().forEach( entry -> entry.getValue().divideBy(val));
-        }
-
-        @Override
-        public double dotProduct(Vector vec) {
-            return dotProduct((SparseVector)vec);
-        }
-
-        public double dotProduct(SparseVector vec) {
-            AtomicDouble sum= new AtomicDouble(0);
-
-            if (this.getNumberNonZeroEntries()<vec.getNumberNonZeroEntries()){
-                this.nonZeroEntries().forEach(entry ->{
-                    Vector outerVector = vec.getVectorByPosition(entry.getKey());
-                    if (outerVector!=null)
-                        sum.addAndGet(outerVector.dotProduct(entry.getValue()));
-                });
-            }else{
-                vec.nonZeroEntries().forEach(entry ->{
-                    Vector localVector = this.getVectorByPosition(entry.getKey());
-                    if (localVector!=null)
-                        sum.addAndGet(localVector.dotProduct(entry.getValue()));
-                });
-            }
-            return sum.doubleValue();
-        }
-
-        public Stream<Map.Entry<Integer,Vector>> nonZeroEntries(){
-            return this.vectorMap.entrySet().stream();
+            return this.size;
         }
     }
 
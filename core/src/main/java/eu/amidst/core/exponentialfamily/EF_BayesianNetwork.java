@@ -211,6 +211,17 @@ public class EF_BayesianNetwork extends EF_Distribution {
         return vectorSS;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accumulateSufficientStatistics(Assignment data, SufficientStatistics accumulator) {
+        CompoundVector vectorSS = (CompoundVector) accumulator;
+        for (EF_ConditionalDistribution dist : this.distributionList) {
+            dist.accumulateSufficientStatistics(data, (SufficientStatistics) vectorSS.getVectorByPosition(dist.getVariable().getVarID()));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -111,6 +111,17 @@ public abstract class EF_Distribution implements Serializable {
      */
     public abstract SufficientStatistics getSufficientStatistics(Assignment assignment);
 
+    /**
+     * Adds the vector of sufficient statistics for a given {@link Assignment} object to an accumulator, in place.
+     * The default implementation sums the vector returned by {@link #getSufficientStatistics(Assignment)}; subclasses
+     * override it to increment the accumulator without allocating this vector.
+     * @param assignment an {@link Assignment} object.
+     * @param accumulator a {@link SufficientStatistics} object created by this EF_Distribution, which is updated.
+     */
+    public void accumulateSufficientStatistics(Assignment assignment, SufficientStatistics accumulator) {
+        accumulator.sum(this.getSufficientStatistics(assignment));
+    }
+
     /**
      * Returns the size of the sufficient statistics vector of this EF_Distribution.
      * @return an {@code int} that represents the size of the sufficient statistics vector.
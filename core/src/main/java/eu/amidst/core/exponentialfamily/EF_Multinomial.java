@@ -102,6 +102,14 @@ public class EF_Multinomial extends EF_UnivariateDistribution {
         return vec;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accumulateSufficientStatistics(double val, SufficientStatistics accumulator) {
+        accumulator.set((int) val, accumulator.get((int) val) + 1);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -162,6 +162,15 @@ public class EF_Normal extends EF_UnivariateDistribution {
         return vec;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accumulateSufficientStatistics(double val, SufficientStatistics accumulator) {
+        accumulator.set(EXPECTED_MEAN, accumulator.get(EXPECTED_MEAN) + val);
+        accumulator.set(EXPECTED_SQUARE, accumulator.get(EXPECTED_SQUARE) + val * val);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -410,6 +419,14 @@ public class EF_Normal extends EF_UnivariateDistribution {
             System.arraycopy(vector.toArray(),0,this.array,0,vector.toArray().length);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ArrayVectorParameter deepCopy(){
+            return new ArrayVectorParameter(this.array.clone());
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -377,6 +377,14 @@ public class EF_NormalParameter extends EF_UnivariateDistribution {
             System.arraycopy(vector.toArray(),0,this.array,0,vector.toArray().length);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ArrayVectorParameter deepCopy(){
+            return new ArrayVectorParameter(this.array.clone());
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -475,6 +475,14 @@ public class EF_Normal_NormalParents extends EF_ConditionalDistribution  {
             return covbaseVector;
         }
 
+        @Override
+        public CompoundVector deepCopy() {
+            CompoundVector copy = new CompoundVector(this.nOfParents);
+            copy.setXYbaseVector(this.XYbaseVector.copy());
+            copy.setcovbaseVector(this.covbaseVector.copy());
+            return copy;
+        }
+
         public RealMatrix getMatrixByPosition(int position) {
             switch (position){
                 case 0: return new Array2DRowRealMatrix(XYbaseVector.getData());//column RealMatrix
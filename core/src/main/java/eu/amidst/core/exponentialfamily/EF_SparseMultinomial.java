@@ -80,8 +80,8 @@ public class EF_SparseMultinomial extends EF_UnivariateDistribution {
 
         SparseVectorDefaultValue naturalSparse = this.getSparseNaturalParameters();
 
-        for (Integer index : naturalSparse.getNonZeroEntries()) {
-            sum+=Math.exp(this.naturalParameters.get(index));
+        for (int k = 0; k < naturalSparse.getNumberOfNonZeroEntries(); k++) {
+            sum+=Math.exp(naturalSparse.getNonZeroValue(k));
         }
 
         sum += naturalSparse.getNDefaultValues()*Math.exp(naturalSparse.getDefaultValue());
@@ -131,8 +131,9 @@ public class EF_SparseMultinomial extends EF_UnivariateDistribution {
     public void updateNaturalFromMomentParameters() {
         this.getSparseNaturalParameters().reset();
 
-        for (Integer index : this.getSparseMomentParameters().getNonZeroEntries()) {
-            this.naturalParameters.set(index, Math.log(this.momentParameters.get(index)));
+        SparseVectorDefaultValue moments = this.getSparseMomentParameters();
+        for (int k = 0; k < moments.getNumberOfNonZeroEntries(); k++) {
+            this.naturalParameters.set(moments.getNonZeroIndex(k), Math.log(moments.getNonZeroValue(k)));
         }
 
         this.getSparseNaturalParameters().setDefaultValue(Math.log(this.getSparseMomentParameters().getDefaultValue()));
@@ -154,8 +155,9 @@ public class EF_SparseMultinomial extends EF_UnivariateDistribution {
     public void updateMomentFromNaturalParameters() {
 
         this.getSparseMomentParameters().reset();
-        for (Integer index : this.getSparseNaturalParameters().getNonZeroEntries()) {
-            this.momentParameters.set(index, Math.exp(this.naturalParameters.get(index)));
+        SparseVectorDefaultValue naturals = this.getSparseNaturalParameters();
+        for (int k = 0; k < naturals.getNumberOfNonZeroEntries(); k++) {
+            this.momentParameters.set(naturals.getNonZeroIndex(k), Math.exp(naturals.getNonZeroValue(k)));
         }
         this.getSparseMomentParameters().setDefaultValue(Math.exp(this.getSparseNaturalParameters().getDefaultValue()));
 
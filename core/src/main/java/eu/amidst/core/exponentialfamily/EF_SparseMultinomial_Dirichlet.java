@@ -80,10 +80,10 @@ public class EF_SparseMultinomial_Dirichlet extends EF_ConditionalDistribution{
         MomentParameters momentParametersDir = momentChildCoParents.get(this.dirichletVariable);
         SparseVectorDefaultValue momentParametersWord = (SparseVectorDefaultValue)momentChildCoParents.get(this.getVariable());
 
-        if (momentParametersWord.getDefaultValue()==0 && momentParametersWord.getNonZeroEntries().size()==1) {
-            Integer integer = momentParametersWord.getNonZeroEntries().iterator().next();
+        if (momentParametersWord.getDefaultValue()==0 && momentParametersWord.getNumberOfNonZeroEntries()==1) {
+            int index = momentParametersWord.getNonZeroIndex(0);
 
-            return momentParametersDir.get(integer)*momentParametersWord.get(integer);
+            return momentParametersDir.get(index)*momentParametersWord.getNonZeroValue(0);
 
         }else {
             return this.getExpectedNaturalFromParents(momentChildCoParents).dotProduct(momentChildCoParents.get(this.getVariable())) - this.getExpectedLogNormalizer(momentChildCoParents);
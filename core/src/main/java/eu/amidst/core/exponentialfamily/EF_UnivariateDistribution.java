@@ -52,6 +52,15 @@ public abstract class EF_UnivariateDistribution extends EF_ConditionalDistributi
      */
     public abstract SufficientStatistics getSufficientStatistics(double val);
 
+    /**
+     * Adds the vector of sufficient statistics for a given value to an accumulator, in place.
+     * @param val a {@code double} value.
+     * @param accumulator a {@link SufficientStatistics} object created by this EF_UnivariateDistribution, which is updated.
+     */
+    public void accumulateSufficientStatistics(double val, SufficientStatistics accumulator) {
+        accumulator.sum(this.getSufficientStatistics(val));
+    }
+
     /**
      * Returns the vector of expected parameters of this EF_UnivariateDistribution.
      * @return a {@code Vector} object.
@@ -137,6 +146,14 @@ public abstract class EF_UnivariateDistribution extends EF_ConditionalDistributi
         return this.getSufficientStatistics(data.getValue(this.var));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void accumulateSufficientStatistics(Assignment data, SufficientStatistics accumulator) {
+        this.accumulateSufficientStatistics(data.getValue(this.var), accumulator);
+    }
+
     /**
      * {@inheritDoc}
      */
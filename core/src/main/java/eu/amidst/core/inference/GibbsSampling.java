@@ -0,0 +1,759 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.distribution.ConditionalDistribution;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.models.DAG;
+import eu.amidst.core.utils.LocalRandomGenerator;
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.ArrayAssignment;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the interfaces {@link InferenceAlgorithm} and {@link Sampler} and defines a Gibbs sampler
+ * for Bayesian networks with multinomial, multinomial logistic and normal variables.
+ *
+ * <p> Each sweep updates every non observed variable given its Markov blanket, computed once when the model is set.
+ * A multinomial variable is sampled from the product of its conditional distribution and the ones of its children.
+ * Normal variables are sampled jointly in blocks: since the conditional distributions of the normal variables are
+ * linear Gaussians, the normal variables of a block are jointly Gaussian given the rest of the variables, and they
+ * are sampled exactly from this Gaussian. By default, a block is a connected set of non observed normal variables
+ * (see {@link #setBlockedGaussianUpdates(boolean)}). A normal variable with non Gaussian children (e.g., a multinomial
+ * logistic child) is sampled alone, with a Metropolis-Hastings step whose proposal is its Gaussian full conditional
+ * without these children. </p>
+ *
+ * <p> Several independent chains are run, in parallel if the parallel mode is set, each one with its own
+ * {@link ArrayAssignment} and its own random stream, so the results only depend on the seed. After the burn-in, the
+ * chains are stopped every {@code checkInterval} sweeps to compute the potential scale reduction factor (R-hat) of
+ * Gelman and Rubin for the sufficient statistics of each non observed variable, and the sampling ends when it is
+ * below a threshold or when the maximum number of sweeps is reached. </p>
+ */
+public class GibbsSampling implements InferenceAlgorithm, Sampler, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 2178375436421849562L;
+
+    /** Represents the {@link BayesianNetwork} model. */
+    private BayesianNetwork model;
+
+    /** Represents the evidence. */
+    private Assignment evidence = new HashMapAssignment(0);
+
+    /** Represents the seed. */
+    private int seed = 0;
+
+    /** Represents the number of chains. */
+    private int nChains = 4;
+
+    /** Represents the number of sweeps of each chain discarded as burn-in. */
+    private int burnIn = 200;
+
+    /** Represents the maximum number of sweeps of each chain after the burn-in. */
+    private int maxIterations = 5000;
+
+    /** Represents the number of sweeps between two convergence tests. */
+    private int checkInterval = 100;
+
+    /** Represents the R-hat below which the sampling is stopped. */
+    private double rHatThreshold = 1.01;
+
+    /** Indicates if connected normal variables are sampled jointly. */
+    private boolean blockedGaussianUpdates = true;
+
+    /** Indicates if the chains are run in parallel. */
+    private boolean parallelMode = true;
+
+    /** Represents the conditional distribution of each variable, indexed by variable ID. */
+    private transient ConditionalDistribution[] distributions;
+
+    /** Represents the children of each variable, indexed by variable ID. */
+    private transient int[][] children;
+
+    /** Represents the normal parents of each variable, indexed by variable ID. */
+    private transient int[][] normalParents;
+
+    /** Represents the non observed multinomial variables, in topological order. */
+    private transient int[] multinomialVars;
+
+    /** Represents the blocks of non observed normal variables. */
+    private transient int[][] blocks;
+
+    /** Represents, for each block, the normal variables whose conditional distribution involves the block. */
+    private transient int[][] blockFactors;
+
+    /** Represents, for each block, the non Gaussian children of its variable, or an empty array. */
+    private transient int[][] blockNonGaussianChildren;
+
+    /** Represents the position of each variable in its block, or -1, indexed by variable ID. */
+    private transient int[] blockPosition;
+
+    /** Represents the block of each variable, or -1, indexed by variable ID. */
+    private transient int[] blockOf;
+
+    /** Represents the non observed variables. */
+    private transient int[] hiddenVars;
+
+    /** Represents the chains of the last run. */
+    private transient Chain[] chains;
+
+    /** Represents the number of sweeps of each chain after the burn-in in the last run. */
+    private int nIterations = 0;
+
+    /** Represents the largest R-hat of the last convergence test. */
+    private double maxRHat = Double.NaN;
+
+    /**
+     * This class represents a Markov chain, with its current state and the statistics of its samples.
+     */
+    private final class Chain {
+
+        /** Represents the current state of the chain. */
+        private final ArrayAssignment assignment;
+
+        /** Represents the random number generator of the chain. */
+        private final Random random;
+
+        /** Represents the number of recorded samples. */
+        private int nSamples = 0;
+
+        /** Represents the running means of the sufficient statistics, indexed by variable ID. */
+        private final double[][] means;
+
+        /** Represents the running sums of squared deviations of the sufficient statistics, indexed by variable ID. */
+        private final double[][] m2;
+
+        Chain(Random random) {
+            this.random = random;
+            this.assignment = new ArrayAssignment(model.getNumberOfVars());
+            this.means = new double[model.getNumberOfVars()][];
+            this.m2 = new double[model.getNumberOfVars()][];
+            for (int var : hiddenVars) {
+                int size = sizeOfSufficientStatistics(model.getVariables().getVariableById(var));
+                this.means[var] = new double[size];
+                this.m2[var] = new double[size];
+            }
+
+            //Forward sampling with the evidence clamped
+            for (Variable var : Utils.getTopologicalOrder(model.getDAG())) {
+                double value = evidence.getValue(var);
+                if (Utils.isMissingValue(value))
+                    value = distributions[var.getVarID()].getUnivariateDistribution(this.assignment).sample(this.random);
+                this.assignment.setValue(var, value);
+            }
+        }
+
+        void run(int nSweeps, boolean record) {
+            for (int i = 0; i < nSweeps; i++) {
+                for (int var : multinomialVars) {
+                    this.sampleMultinomial(var);
+                }
+                for (int b = 0; b < blocks.length; b++) {
+                    this.sampleBlock(b);
+                }
+                if (record)
+                    this.record();
+            }
+        }
+
+        private void record() {
+            nSamples++;
+            for (int var : hiddenVars) {
+                Variable variable = model.getVariables().getVariableById(var);
+                double[] ss = getSufficientStatistics(variable, assignment.getValue(variable));
+                for (int k = 0; k < ss.length; k++) {
+                    double delta = ss[k] - means[var][k];
+                    means[var][k] += delta / nSamples;
+                    m2[var][k] += delta * (ss[k] - means[var][k]);
+                }
+            }
+        }
+
+        private double logLikelihood(int[] factors) {
+            double logProb = 0;
+            for (int factor : factors) {
+                logProb += distributions[factor].getLogConditionalProbability(assignment);
+            }
+            return logProb;
+        }
+
+        private void sampleMultinomial(int varID) {
+            Variable var = model.getVariables().getVariableById(varID);
+            double[] logProbs = new double[var.getNumberOfStates()];
+            double max = Double.NEGATIVE_INFINITY;
+            for (int s = 0; s < logProbs.length; s++) {
+                assignment.setValue(var, s);
+                logProbs[s] = distributions[varID].getLogConditionalProbability(assignment) + this.logLikelihood(children[varID]);
+                max = Math.max(max, logProbs[s]);
+            }
+
+            if (max == Double.NEGATIVE_INFINITY) {
+                assignment.setValue(var, random.nextInt(logProbs.length));
+                return;
+            }
+
+            double sum = 0;
+            for (int s = 0; s < logProbs.length; s++) {
+                logProbs[s] = Math.exp(logProbs[s] - max);
+                sum += logProbs[s];
+            }
+            double u = random.nextDouble() * sum;
+            int state = 0;
+            while (state < logProbs.length - 1 && (u -= logProbs[state]) > 0) {
+                state++;
+            }
+            assignment.setValue(var, state);
+        }
+
+        private void sampleBlock(int b) {
+            int[] block = blocks[b];
+            int k = block.length;
+            Variable[] vars = new Variable[k];
+            double[] previous = new double[k];
+            for (int i = 0; i < k; i++) {
+                vars[i] = model.getVariables().getVariableById(block[i]);
+                previous[i] = assignment.getValue(vars[i]);
+            }
+
+            int[] nonGaussianChildren = blockNonGaussianChildren[b];
+            double previousLogLikelihood = (nonGaussianChildren.length > 0) ? this.logLikelihood(nonGaussianChildren) : 0;
+
+            //The conditional of each factor Y is N(c + sum_j b_j x_j, variance), where x are the variables of the
+            //block. It adds (g.x - d)^2/variance to the exponent, where g and d also account for Y if it is in the block.
+            double[][] precision = new double[k][k];
+            double[] linear = new double[k];
+            for (int i = 0; i < k; i++) {
+                assignment.setValue(vars[i], 0);
+            }
+            double[] g = new double[k];
+            for (int factor : blockFactors[b]) {
+                Arrays.fill(g, 0);
+                Normal normal = (Normal) distributions[factor].getUnivariateDistribution(assignment);
+                double c = normal.getMean();
+                double variance = normal.getVariance();
+
+                for (int parent : normalParents[factor]) {
+                    if (blockOf[parent] != b)
+                        continue;
+                    int pos = blockPosition[parent];
+                    assignment.setValue(vars[pos], 1);
+                    g[pos] = c - ((Normal) distributions[factor].getUnivariateDistribution(assignment)).getMean();
+                    assignment.setValue(vars[pos], 0);
+                }
+
+                double d = c;
+                if (blockOf[factor] == b)
+                    g[blockPosition[factor]] += 1;
+                else
+                    d = c - assignment.getValue(model.getVariables().getVariableById(factor));
+
+                for (int i = 0; i < k; i++) {
+                    if (g[i] == 0)
+                        continue;
+                    linear[i] += g[i] * d / variance;
+                    for (int j = 0; j < k; j++) {
+                        precision[i][j] += g[i] * g[j] / variance;
+                    }
+                }
+            }
+
+            double[] sample = sampleGaussian(precision, linear, random);
+            for (int i = 0; i < k; i++) {
+                assignment.setValue(vars[i], sample[i]);
+            }
+
+            if (nonGaussianChildren.length > 0) {
+                double logRatio = this.logLikelihood(nonGaussianChildren) - previousLogLikelihood;
+                if (!(Math.log(random.nextDouble()) < logRatio)) {
+                    for (int i = 0; i < k; i++) {
+                        assignment.setValue(vars[i], previous[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Samples from the Gaussian with a given precision matrix J and linear term h, i.e., with mean J^-1 h and
+     * covariance J^-1, using the Cholesky decomposition of the precision matrix.
+     * @param precision the precision matrix, which is overwritten.
+     * @param linear the linear term, which is overwritten.
+     * @param random the random number generator.
+     * @return the sample.
+     */
+    private static double[] sampleGaussian(double[][] precision, double[] linear, Random random) {
+        int k = linear.length;
+
+        //Cholesky decomposition J = L L^T, stored in the lower triangle.
+        for (int j = 0; j < k; j++) {
+            double diagonal = precision[j][j];
+            for (int p = 0; p < j; p++) {
+                diagonal -= precision[j][p] * precision[j][p];
+            }
+            if (!(diagonal > 0))
+                throw new IllegalStateException("The precision matrix of a block of normal variables is not positive definite.");
+            precision[j][j] = Math.sqrt(diagonal);
+            for (int i = j + 1; i < k; i++) {
+                double value = precision[i][j];
+                for (int p = 0; p < j; p++) {
+                    value -= precision[i][p] * precision[j][p];
+                }
+                precision[i][j] = value / precision[j][j];
+            }
+        }
+
+        //Solve L w = h, then L^T x = w + z, so that x = J^-1 h + L^-T z.
+        double[] x = new double[k];
+        for (int i = 0; i < k; i++) {
+            double value = linear[i];
+            for (int p = 0; p < i; p++) {
+                value -= precision[i][p] * x[p];
+            }
+            x[i] = value / precision[i][i];
+        }
+        for (int i = 0; i < k; i++) {
+            x[i] += random.nextGaussian();
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            double value = x[i];
+            for (int p = i + 1; p < k; p++) {
+                value -= precision[p][i] * x[p];
+            }
+            x[i] = value / precision[i][i];
+        }
+        return x;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setParallelMode(boolean parallelMode_) {
+        this.parallelMode = parallelMode_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of independent chains. At least two chains are needed to compute the R-hat.
+     * @param nChains an {@code int} value.
+     */
+    public void setNumberOfChains(int nChains) {
+        if (nChains < 1)
+            throw new IllegalArgumentException("The number of chains must be at least 1.");
+        this.nChains = nChains;
+    }
+
+    /**
+     * Sets the number of sweeps of each chain discarded as burn-in.
+     * @param burnIn an {@code int} value.
+     */
+    public void setBurnIn(int burnIn) {
+        this.burnIn = burnIn;
+    }
+
+    /**
+     * Sets the maximum number of sweeps of each chain after the burn-in.
+     * @param maxIterations an {@code int} value.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Sets the number of sweeps between two convergence tests.
+     * @param checkInterval an {@code int} value.
+     */
+    public void setCheckInterval(int checkInterval) {
+        if (checkInterval < 1)
+            throw new IllegalArgumentException("The check interval must be at least 1.");
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Sets the R-hat below which the sampling is stopped. A threshold of 0 disables the early stopping.
+     * @param rHatThreshold a {@code double} value.
+     */
+    public void setRHatThreshold(double rHatThreshold) {
+        this.rHatThreshold = rHatThreshold;
+    }
+
+    /**
+     * Sets whether connected non observed normal variables are sampled jointly or one by one.
+     * @param blockedGaussianUpdates {@code true} to sample them jointly.
+     */
+    public void setBlockedGaussianUpdates(boolean blockedGaussianUpdates) {
+        this.blockedGaussianUpdates = blockedGaussianUpdates;
+    }
+
+    /**
+     * Returns the number of sweeps of each chain after the burn-in in the last run.
+     * @return an {@code int} value.
+     */
+    public int getNumberOfIterations() {
+        return nIterations;
+    }
+
+    /**
+     * Returns the largest R-hat of the sufficient statistics of the non observed variables in the last run, or NaN
+     * if there is a single chain.
+     * @return a {@code double} value.
+     */
+    public double getMaxRHat() {
+        return maxRHat;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setModel(BayesianNetwork model_) {
+        this.model = model_;
+        this.evidence = new HashMapAssignment(0);
+        this.chains = null;
+        this.compileModel();
+    }
+
+    /**
+     * Computes the Markov blankets of the variables.
+     */
+    private void compileModel() {
+        int nVars = model.getNumberOfVars();
+        distributions = new ConditionalDistribution[nVars];
+        normalParents = new int[nVars][];
+        List<List<Integer>> childrenLists = new ArrayList<>();
+        for (int i = 0; i < nVars; i++) {
+            childrenLists.add(new ArrayList<>());
+        }
+
+        for (Variable var : model.getVariables()) {
+            if (!isDiscrete(var) && !var.isNormal())
+                throw new UnsupportedOperationException("Gibbs sampling only supports multinomial and normal variables: " + var.getName());
+
+            int id = var.getVarID();
+            distributions[id] = model.getConditionalDistribution(var);
+            List<Variable> parents = distributions[id].getConditioningVariables();
+            normalParents[id] = parents.stream().filter(Variable::isNormal).mapToInt(Variable::getVarID).toArray();
+            parents.forEach(parent -> childrenLists.get(parent.getVarID()).add(id));
+        }
+
+        children = new int[nVars][];
+        for (int i = 0; i < nVars; i++) {
+            children[i] = childrenLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Computes the variables to be sampled and the blocks of normal variables for the current evidence.
+     */
+    private void compileEvidence() {
+        if (distributions == null)
+            this.compileModel();
+
+        int nVars = model.getNumberOfVars();
+        List<Variable> order = Utils.getTopologicalOrder(model.getDAG());
+        List<Variable> hidden = order.stream()
+                .filter(var -> Utils.isMissingValue(evidence.getValue(var)))
+                .collect(Collectors.toList());
+
+        hiddenVars = hidden.stream().mapToInt(Variable::getVarID).toArray();
+        multinomialVars = hidden.stream().filter(GibbsSampling::isDiscrete).mapToInt(Variable::getVarID).toArray();
+
+        //Normal variables with non Gaussian children are sampled alone with a Metropolis-Hastings step.
+        boolean[] gaussianOnly = new boolean[nVars];
+        int[] component = new int[nVars];
+        for (int i = 0; i < nVars; i++) {
+            component[i] = i;
+        }
+        for (Variable var : hidden) {
+            if (var.isNormal()) {
+                int id = var.getVarID();
+                gaussianOnly[id] = Arrays.stream(children[id]).allMatch(child -> model.getVariables().getVariableById(child).isNormal());
+            }
+        }
+
+        if (blockedGaussianUpdates) {
+            for (Variable var : model.getVariables()) {
+                if (!var.isNormal())
+                    continue;
+                int id = var.getVarID();
+                List<Integer> involved = new ArrayList<>();
+                if (gaussianOnly[id])
+                    involved.add(id);
+                for (int parent : normalParents[id]) {
+                    if (gaussianOnly[parent])
+                        involved.add(parent);
+                }
+                for (int i = 1; i < involved.size(); i++) {
+                    union(component, involved.get(0), involved.get(i));
+                }
+            }
+        }
+
+        List<List<Integer>> blockLists = new ArrayList<>();
+        int[] blockOfRoot = new int[nVars];
+        Arrays.fill(blockOfRoot, -1);
+        for (Variable var : hidden) {
+            if (!var.isNormal())
+                continue;
+            int id = var.getVarID();
+            if (!gaussianOnly[id]) {
+                blockLists.add(new ArrayList<>(Arrays.asList(id)));
+                continue;
+            }
+            int root = find(component, id);
+            if (blockOfRoot[root] < 0) {
+                blockOfRoot[root] = blockLists.size();
+                blockLists.add(new ArrayList<>());
+            }
+            blockLists.get(blockOfRoot[root]).add(id);
+        }
+
+        blocks = new int[blockLists.size()][];
+        blockFactors = new int[blocks.length][];
+        blockNonGaussianChildren = new int[blocks.length][];
+        blockPosition = new int[nVars];
+        Arrays.fill(blockPosition, -1);
+        blockOf = new int[nVars];
+        Arrays.fill(blockOf, -1);
+        for (int b = 0; b < blocks.length; b++) {
+            blocks[b] = blockLists.get(b).stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < blocks[b].length; i++) {
+                blockPosition[blocks[b][i]] = i;
+                blockOf[blocks[b][i]] = b;
+            }
+
+            int[] block = blocks[b];
+            blockFactors[b] = IntStream.range(0, nVars)
+                    .filter(y -> model.getVariables().getVariableById(y).isNormal())
+                    .filter(y -> Arrays.stream(block).anyMatch(x -> x == y) ||
+                            Arrays.stream(normalParents[y]).anyMatch(p -> Arrays.stream(block).anyMatch(x -> x == p)))
+                    .toArray();
+            blockNonGaussianChildren[b] = (block.length == 1 && !gaussianOnly[block[0]]) ?
+                    Arrays.stream(children[block[0]]).filter(child -> !model.getVariables().getVariableById(child).isNormal()).toArray() :
+                    new int[0];
+        }
+    }
+
+    private static int sizeOfSufficientStatistics(Variable var) {
+        return isDiscrete(var) ? var.getNumberOfStates() : 2;
+    }
+
+    /**
+     * Returns the sufficient statistics of a value: the indicator vector of a state for a discrete variable, or
+     * the value and its square for a normal variable.
+     * @param var a {@link Variable} object.
+     * @param value the value of the variable.
+     * @return the sufficient statistics.
+     */
+    private static double[] getSufficientStatistics(Variable var, double value) {
+        double[] ss = new double[sizeOfSufficientStatistics(var)];
+        if (isDiscrete(var)) {
+            ss[(int) value] = 1;
+        } else {
+            ss[0] = value;
+            ss[1] = value * value;
+        }
+        return ss;
+    }
+
+    private static boolean isDiscrete(Variable var) {
+        return var.isMultinomial() || var.isMultinomialLogistic();
+    }
+
+    private static int find(int[] component, int i) {
+        while (component[i] != i) {
+            component[i] = component[component[i]];
+            i = component[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] component, int i, int j) {
+        int rootI = find(component, i);
+        int rootJ = find(component, j);
+        if (rootI != rootJ)
+            component[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BayesianNetwork getOriginalModel() {
+        return this.model;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEvidence(Assignment assignment) {
+        this.evidence = (assignment == null) ? new HashMapAssignment(0) : assignment;
+        this.chains = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runInference() {
+        this.compileEvidence();
+
+        LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
+        chains = IntStream.range(0, nChains)
+                .mapToObj(i -> new Chain(randomGenerator.getStream(i)))
+                .toArray(Chain[]::new);
+
+        this.runChains(burnIn, false);
+
+        nIterations = 0;
+        maxRHat = Double.NaN;
+        while (nIterations < maxIterations) {
+            int nSweeps = Math.min(checkInterval, maxIterations - nIterations);
+            this.runChains(nSweeps, true);
+            nIterations += nSweeps;
+
+            if (nChains > 1) {
+                maxRHat = this.computeMaxRHat();
+                if (maxRHat < rHatThreshold)
+                    break;
+            }
+        }
+    }
+
+    private void runChains(int nSweeps, boolean record) {
+        IntStream indexes = IntStream.range(0, chains.length);
+        if (parallelMode)
+            indexes = indexes.parallel();
+        indexes.forEach(i -> chains[i].run(nSweeps, record));
+    }
+
+    /**
+     * Computes the largest potential scale reduction factor of the sufficient statistics of the non observed
+     * variables, as in A. Gelman and D.B. Rubin, Inference from iterative simulation using multiple sequences, 1992.
+     * @return the largest R-hat.
+     */
+    private double computeMaxRHat() {
+        int n = chains[0].nSamples;
+        if (n < 2)
+            return Double.POSITIVE_INFINITY;
+
+        double max = 0;
+        for (int var : hiddenVars) {
+            for (int k = 0; k < chains[0].means[var].length; k++) {
+                double meanOfMeans = 0;
+                double within = 0;
+                for (Chain chain : chains) {
+                    meanOfMeans += chain.means[var][k];
+                    within += chain.m2[var][k] / (n - 1);
+                }
+                meanOfMeans /= chains.length;
+                within /= chains.length;
+
+                double between = 0;
+                for (Chain chain : chains) {
+                    between += (chain.means[var][k] - meanOfMeans) * (chain.means[var][k] - meanOfMeans);
+                }
+                between *= (double) n / (chains.length - 1);
+
+                double rHat;
+                if (within > 0)
+                    rHat = Math.sqrt(((n - 1.0) / n * within + between / n) / within);
+                else
+                    rHat = (between > 0) ? Double.POSITIVE_INFINITY : 1.0;
+                max = Math.max(max, rHat);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getPosterior(Variable var) {
+        int id = var.getVarID();
+
+        double[] moments;
+        if (chains == null || chains[0].means[id] == null) {
+            moments = getSufficientStatistics(var, evidence.getValue(var));
+        } else {
+            moments = new double[chains[0].means[id].length];
+            for (Chain chain : chains) {
+                for (int k = 0; k < moments.length; k++) {
+                    moments[k] += chain.means[id][k] / chains.length;
+                }
+            }
+        }
+
+        if (isDiscrete(var)) {
+            Multinomial multinomial = new Multinomial(var);
+            multinomial.setProbabilities(Utils.normalize(moments));
+            return (E) multinomial;
+        } else {
+            Normal normal = new Normal(var);
+            normal.setMean(moments[0]);
+            normal.setVariance(Math.max(moments[1] - moments[0] * moments[0], 0));
+            return (E) normal;
+        }
+    }
+
+    /**
+     * Gibbs sampling does not estimate the probability of the evidence.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public double getLogProbabilityOfEvidence() {
+        throw new UnsupportedOperationException("Gibbs sampling does not estimate the probability of the evidence.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BayesianNetwork getSamplingModel() {
+        DAG dag = new DAG(this.model.getVariables());
+
+        List<ConditionalDistribution> distributionList =
+                this.model.getVariables().getListOfVariables().stream()
+                        .map(var -> (ConditionalDistribution) this.getPosterior(var))
+                        .collect(Collectors.toList());
+
+        return new BayesianNetwork(dag, distributionList);
+    }
+}
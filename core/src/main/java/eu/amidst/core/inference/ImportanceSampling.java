@@ -17,10 +17,13 @@
 
 package eu.amidst.core.inference;
 
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.distribution.ConditionalDistribution;
 import eu.amidst.core.distribution.Distribution;
 import eu.amidst.core.distribution.Multinomial;
 import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
 import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
 import eu.amidst.core.exponentialfamily.SufficientStatistics;
 import eu.amidst.core.inference.messagepassing.VMP;
@@ -29,6 +32,7 @@ import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.utils.LocalRandomGenerator;
 import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.ArrayAssignment;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.HashMapAssignment;
 import eu.amidst.core.variables.Variable;
@@ -70,12 +74,25 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
     private Assignment evidence;
     private boolean parallelMode = true;
 
+    private List<Variable> variablesAPosteriori = new ArrayList<>();
+    private transient List<Variable> functionVariables = new ArrayList<>();
+    private transient List<Function<Double,Double>> functions = new ArrayList<>();
+    private transient QueryAccumulator accumulator;
+
+    private boolean adaptiveMode = false;
+    private double targetEffectiveSampleSize = 1000;
+    private double targetStandardError = 0.01;
+    private int maxRounds = 10;
+    private int nRounds = 0;
+    private transient EF_BayesianNetwork efSamplingModel;
+    private BayesianNetwork adaptedSamplingModel;
+
 
     private class WeightedAssignment {
-        private HashMapAssignment assignment;
+        private Assignment assignment;
         private double weight;
 
-        public WeightedAssignment(HashMapAssignment assignment_, double weight_){
+        public WeightedAssignment(Assignment assignment_, double weight_){
             this.assignment = assignment_;
             this.weight = weight_;
         }
@@ -84,8 +101,8 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
             StringBuilder str = new StringBuilder();
             str.append("[ ");
 
-            for (Map.Entry<Variable, Double> entry : this.assignment.entrySet()) {
-                str.append(entry.getKey().getName() + " = " + entry.getValue());
+            for (Variable var : this.assignment.getVariables()) {
+                str.append(var.getName() + " = " + this.assignment.getValue(var));
                 str.append(", ");
             }
             str.append("Weight = " + weight + " ]");
@@ -93,6 +110,207 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
         }
     }
 
+    /**
+     * This class accumulates, for the registered queries, the weighted sums over the samples drawn by a thread.
+     * The sums are scaled by the exponential of minus the largest log weight seen so far, so large or small weights
+     * do not overflow. In adaptive mode, it also accumulates the sums of squared weights used by the effective
+     * sample size and the standard errors, and the weighted sufficient statistics used to refit the proposal.
+     */
+    private final class QueryAccumulator {
+        private final EF_UnivariateDistribution[] distributions;
+        private final SufficientStatistics[] sumSS;
+        private final double[] sumFunctionWeights;
+        private final double[] sumFunctions;
+        private final double[][] sumSquaredWeightSS;
+        private final double[][] sumSquaredWeightSS2;
+        private final SufficientStatistics sumNetworkSS;
+        private double maxLogWeight = Double.NEGATIVE_INFINITY;
+        private double sumWeights = 0;
+        private double sumSquaredWeights = 0;
+        private int nSamples = 0;
+
+        public QueryAccumulator() {
+            this.distributions = new EF_UnivariateDistribution[variablesAPosteriori.size()];
+            this.sumSS = new SufficientStatistics[variablesAPosteriori.size()];
+            for (int i = 0; i < variablesAPosteriori.size(); i++) {
+                Variable samplingVar = samplingModel.getVariables().getVariableByName(variablesAPosteriori.get(i).getName());
+                this.distributions[i] = samplingVar.newUnivariateDistribution().toEFUnivariateDistribution();
+                this.sumSS[i] = this.distributions[i].createZeroSufficientStatistics();
+            }
+            this.sumFunctionWeights = new double[functions.size()];
+            this.sumFunctions = new double[functions.size()];
+
+            if (adaptiveMode) {
+                this.sumSquaredWeightSS = new double[sumSS.length][];
+                this.sumSquaredWeightSS2 = new double[sumSS.length][];
+                for (int i = 0; i < sumSS.length; i++) {
+                    this.sumSquaredWeightSS[i] = new double[sumSS[i].size()];
+                    this.sumSquaredWeightSS2[i] = new double[sumSS[i].size()];
+                }
+                this.sumNetworkSS = efSamplingModel.createZeroSufficientStatistics();
+            } else {
+                this.sumSquaredWeightSS = null;
+                this.sumSquaredWeightSS2 = null;
+                this.sumNetworkSS = null;
+            }
+        }
+
+        public void add(WeightedAssignment weightedAssignment) {
+            double logWeight = weightedAssignment.weight;
+            if (Double.isNaN(logWeight) || logWeight == Double.POSITIVE_INFINITY)
+                return;
+
+            nSamples++;
+            if (logWeight == Double.NEGATIVE_INFINITY)
+                return;
+
+            if (logWeight > maxLogWeight) {
+                this.scale(Math.exp(maxLogWeight - logWeight));
+                maxLogWeight = logWeight;
+            }
+            double weight = Math.exp(logWeight - maxLogWeight);
+
+            sumWeights += weight;
+            sumSquaredWeights += weight * weight;
+            for (int i = 0; i < sumSS.length; i++) {
+                SufficientStatistics ss = distributions[i].getSufficientStatistics(weightedAssignment.assignment);
+                for (int k = 0; k < ss.size(); k++) {
+                    sumSS[i].set(k, sumSS[i].get(k) + weight * ss.get(k));
+                    if (sumSquaredWeightSS != null) {
+                        sumSquaredWeightSS[i][k] += weight * weight * ss.get(k);
+                        sumSquaredWeightSS2[i][k] += weight * weight * ss.get(k) * ss.get(k);
+                    }
+                }
+            }
+            if (sumNetworkSS != null) {
+                SufficientStatistics ss = efSamplingModel.getSufficientStatistics(weightedAssignment.assignment);
+                ss.multiplyBy(weight);
+                sumNetworkSS.sum(ss);
+            }
+            for (int j = 0; j < sumFunctions.length; j++) {
+                double value = functions.get(j).apply(weightedAssignment.assignment.getValue(functionVariables.get(j)));
+                if (Double.isFinite(value)) {
+                    sumFunctionWeights[j] += weight;
+                    sumFunctions[j] += weight * value;
+                }
+            }
+        }
+
+        public void merge(QueryAccumulator other) {
+            nSamples += other.nSamples;
+            if (other.maxLogWeight == Double.NEGATIVE_INFINITY)
+                return;
+
+            if (other.maxLogWeight > maxLogWeight) {
+                this.scale(Math.exp(maxLogWeight - other.maxLogWeight));
+                maxLogWeight = other.maxLogWeight;
+            }
+            double factor = Math.exp(other.maxLogWeight - maxLogWeight);
+
+            sumWeights += factor * other.sumWeights;
+            sumSquaredWeights += factor * factor * other.sumSquaredWeights;
+            for (int i = 0; i < sumSS.length; i++) {
+                for (int k = 0; k < sumSS[i].size(); k++) {
+                    sumSS[i].set(k, sumSS[i].get(k) + factor * other.sumSS[i].get(k));
+                    if (sumSquaredWeightSS != null) {
+                        sumSquaredWeightSS[i][k] += factor * factor * other.sumSquaredWeightSS[i][k];
+                        sumSquaredWeightSS2[i][k] += factor * factor * other.sumSquaredWeightSS2[i][k];
+                    }
+                }
+            }
+            if (sumNetworkSS != null) {
+                SufficientStatistics ss = (SufficientStatistics) other.sumNetworkSS.deepCopy();
+                ss.multiplyBy(factor);
+                sumNetworkSS.sum(ss);
+            }
+            for (int j = 0; j < sumFunctions.length; j++) {
+                sumFunctionWeights[j] += factor * other.sumFunctionWeights[j];
+                sumFunctions[j] += factor * other.sumFunctions[j];
+            }
+        }
+
+        private void scale(double factor) {
+            sumWeights *= factor;
+            sumSquaredWeights *= factor * factor;
+            for (SufficientStatistics ss : sumSS) {
+                ss.multiplyBy(factor);
+            }
+            if (sumSquaredWeightSS != null) {
+                for (int i = 0; i < sumSS.length; i++) {
+                    for (int k = 0; k < sumSS[i].size(); k++) {
+                        sumSquaredWeightSS[i][k] *= factor * factor;
+                        sumSquaredWeightSS2[i][k] *= factor * factor;
+                    }
+                }
+                sumNetworkSS.multiplyBy(factor);
+            }
+            for (int j = 0; j < sumFunctions.length; j++) {
+                sumFunctionWeights[j] *= factor;
+                sumFunctions[j] *= factor;
+            }
+        }
+
+        public double getLogProbabilityOfEvidence() {
+            return maxLogWeight + Math.log(sumWeights / nSamples);
+        }
+
+        public Distribution getPosterior(int index) {
+            SufficientStatistics moments = (SufficientStatistics) sumSS[index].deepCopy();
+            moments.divideBy(sumWeights);
+
+            EF_UnivariateDistribution ef_univariateDistribution = distributions[index].deepCopy();
+            ef_univariateDistribution.setMomentParameters(moments);
+            return ef_univariateDistribution.toUnivariateDistribution();
+        }
+
+        public double getExpectedValue(int index) {
+            return sumFunctions[index] / sumFunctionWeights[index];
+        }
+
+        public double getEffectiveSampleSize() {
+            return (sumSquaredWeights > 0) ? sumWeights * sumWeights / sumSquaredWeights : 0;
+        }
+
+        /**
+         * Returns the largest standard error of the estimated moment parameters of the query variables, computed with
+         * the delta method for self-normalized importance sampling. Only available in adaptive mode.
+         */
+        public double getMaxStandardError() {
+            if (sumWeights == 0)
+                return Double.POSITIVE_INFINITY;
+
+            double max = 0;
+            for (int i = 0; i < sumSS.length; i++) {
+                for (int k = 0; k < sumSS[i].size(); k++) {
+                    double mean = sumSS[i].get(k) / sumWeights;
+                    double variance = (sumSquaredWeightSS2[i][k] - 2 * mean * sumSquaredWeightSS[i][k]
+                            + mean * mean * sumSquaredWeights) / (sumWeights * sumWeights);
+                    max = Math.max(max, Math.sqrt(Math.max(variance, 0)));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the proposal fitted to the weighted samples, i.e., the maximum likelihood estimate where the samples
+         * count as many as the effective sample size, smoothed with the initial counts used by the Laplace correction.
+         * Only available in adaptive mode.
+         */
+        public BayesianNetwork fitProposal() {
+            double ess = this.getEffectiveSampleSize();
+
+            SufficientStatistics mean = (SufficientStatistics) sumNetworkSS.deepCopy();
+            mean.multiplyBy(ess / sumWeights);
+
+            SufficientStatistics normalizedSS = efSamplingModel.createInitSufficientStatistics();
+            normalizedSS.sum(mean);
+            normalizedSS.divideBy(1 + ess);
+
+            efSamplingModel.setMomentParameters(normalizedSS);
+            return efSamplingModel.toBayesianNetwork(samplingModel.getDAG());
+        }
+    }
+
 
     /**
      * {@inheritDoc}
@@ -124,6 +342,7 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
         evidence=null;
         weightedSampleList=null;
         weightedSampleStream=null;
+        accumulator=null;
     }
 
     /**
@@ -134,6 +353,7 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
         this.evidence = evidence_;
         weightedSampleList=null;
         weightedSampleStream=null;
+        accumulator=null;
     }
 
     /**
@@ -165,6 +385,126 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
         this.keepDataOnMemory = keepDataOnMemory;
     }
 
+    /**
+     * Sets the variables whose posteriors are queried after running the inference. When some queries are
+     * registered, {@link #runInference()} draws each sample once and accumulates, in constant memory, the weighted
+     * sufficient statistics of these variables, the weighted values of the registered functions and the weights
+     * used by {@link #getLogProbabilityOfEvidence()}. The samples are then not kept, whatever the value of
+     * {@code keepDataOnMemory}, and queries which were not registered draw the samples again.
+     * @param variablesAPosteriori a {@code List} of {@link Variable} objects.
+     */
+    public void setVariablesAPosteriori(List<Variable> variablesAPosteriori) {
+        this.variablesAPosteriori = new ArrayList<>(variablesAPosteriori);
+        this.accumulator = null;
+    }
+
+    /**
+     * Registers a query for the expected value of a function of a variable, which is then computed in the same pass
+     * as the other registered queries (see {@link #setVariablesAPosteriori(List)}). It is returned by
+     * {@link #getExpectedValue(Variable, Function)} when called with the same function object. The registered
+     * functions are not serialized.
+     * @param var a {@link Variable} object.
+     * @param function a {@code Function} object.
+     */
+    public void addExpectedValueQuery(Variable var, Function<Double,Double> function) {
+        this.getFunctions().add(function);
+        this.functionVariables.add(var);
+        this.accumulator = null;
+    }
+
+    /**
+     * Removes all the registered queries, so the inference is run again as if none had been registered.
+     */
+    public void clearQueries() {
+        this.variablesAPosteriori = new ArrayList<>();
+        this.getFunctions().clear();
+        this.functionVariables.clear();
+        this.accumulator = null;
+    }
+
+    private List<Function<Double,Double>> getFunctions() {
+        if (this.functions == null) {
+            this.functions = new ArrayList<>();
+            this.functionVariables = new ArrayList<>();
+        }
+        return this.functions;
+    }
+
+    private boolean hasQueries() {
+        return !this.variablesAPosteriori.isEmpty() || !this.getFunctions().isEmpty();
+    }
+
+    /**
+     * Sets the adaptive mode. In adaptive mode, {@link #runInference()} draws the samples in rounds of
+     * {@code sampleSize} samples, which are accumulated as for the registered queries (see
+     * {@link #setVariablesAPosteriori(List)}). After each round, it stops if the effective sample size reaches
+     * {@link #setTargetEffectiveSampleSize(double)} and the standard errors of the estimated moment parameters of the
+     * registered variables are below {@link #setTargetStandardError(double)}, or if {@link #setMaxRounds(int)}
+     * rounds have been drawn. Otherwise, the sampling model of the next round is refitted from all the weighted
+     * samples drawn so far, in the spirit of AIS-BN (J. Cheng and M.J. Druzdzel, 2000), so it gets closer to the
+     * posterior given the evidence. The sampling model set by the user is used again for the first round of the
+     * next run.
+     * @param adaptiveMode {@code true} to run in adaptive mode.
+     */
+    public void setAdaptiveMode(boolean adaptiveMode) {
+        this.adaptiveMode = adaptiveMode;
+        this.accumulator = null;
+    }
+
+    /**
+     * Sets the effective sample size, (sum of weights)^2 / (sum of squared weights), required to stop the adaptive mode.
+     * @param targetEffectiveSampleSize a {@code double} value.
+     */
+    public void setTargetEffectiveSampleSize(double targetEffectiveSampleSize) {
+        this.targetEffectiveSampleSize = targetEffectiveSampleSize;
+    }
+
+    /**
+     * Sets the largest standard error of the estimated moment parameters of the registered variables allowed to stop
+     * the adaptive mode.
+     * @param targetStandardError a {@code double} value.
+     */
+    public void setTargetStandardError(double targetStandardError) {
+        this.targetStandardError = targetStandardError;
+    }
+
+    /**
+     * Sets the maximum number of rounds of the adaptive mode.
+     * @param maxRounds an {@code int} value.
+     */
+    public void setMaxRounds(int maxRounds) {
+        if (maxRounds < 1)
+            throw new IllegalArgumentException("The maximum number of rounds must be at least 1.");
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Returns the number of rounds drawn by the last run in adaptive mode.
+     * @return an {@code int} value.
+     */
+    public int getNumberOfRounds() {
+        return nRounds;
+    }
+
+    /**
+     * Returns the effective sample size of the samples drawn by the last run with registered queries or in adaptive
+     * mode.
+     * @return a {@code double} value.
+     */
+    public double getEffectiveSampleSize() {
+        if (accumulator == null)
+            throw new IllegalStateException("The inference must be run with registered queries or in adaptive mode.");
+        return accumulator.getEffectiveSampleSize();
+    }
+
+    /**
+     * Returns the sampling model used by the last round of the last run in adaptive mode.
+     * @return a {@link BayesianNetwork} object.
+     */
+    public BayesianNetwork getAdaptedSamplingModel() {
+        return adaptedSamplingModel;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -184,36 +524,28 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
     @Override
     public double getLogProbabilityOfEvidence() {
 
-        if(keepDataOnMemory) {
-            weightedSampleStream = weightedSampleList.stream().sequential();
-        } else {
-            computeWeightedSampleStream(false);
-        }
-        if(parallelMode) {
-            weightedSampleStream.parallel();
+        if (accumulator != null) {
+            return accumulator.getLogProbabilityOfEvidence();
         }
 
+        this.loadWeightedSampleStream();
+
         return Math.log(weightedSampleStream.mapToDouble(ws -> Math.exp(ws.weight)).filter(Double::isFinite).average().getAsDouble());
     }
 
     /**
      * Returns a {@link Stream} containing the drawn samples after running the inference.
-     * @return a {@link Stream} of {@link HashMapAssignment} objects.
+     * @return a {@link Stream} of {@link Assignment} objects.
      */
     public Stream<Assignment> getSamples() {
 
-        if(keepDataOnMemory) {
-            weightedSampleStream = weightedSampleList.stream().sequential();
-        }
-        if(parallelMode) {
-            weightedSampleStream.parallel();
-        }
+        this.loadWeightedSampleStream();
         return weightedSampleStream.map(wsl -> wsl.assignment);
     }
 
     private WeightedAssignment getWeightedAssignmentSameModel(Random random) {
 
-        HashMapAssignment sample = new HashMapAssignment(this.model.getNumberOfVars());;
+        ArrayAssignment sample = new ArrayAssignment(this.model.getNumberOfVars());
 
         double logWeight = 0.0;
 
@@ -243,8 +575,8 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
             return getWeightedAssignmentSameModel(random);
         }
 
-        HashMapAssignment samplingAssignment = new HashMapAssignment(1);
-        HashMapAssignment modelAssignment = new HashMapAssignment(1);
+        ArrayAssignment samplingAssignment = new ArrayAssignment(this.samplingModel.getNumberOfVars());
+        ArrayAssignment modelAssignment = new ArrayAssignment(this.model.getNumberOfVars());
         double numerator = 0.0;
         double denominator = 0.0;
 
@@ -284,15 +616,14 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
     @Override
     public double getExpectedValue(Variable var, Function<Double,Double> function) {
 
-        if(keepDataOnMemory) {
-            weightedSampleStream = weightedSampleList.stream().sequential();
-        }else{
-            computeWeightedSampleStream(false);
+        if (accumulator != null) {
+            for (int j = 0; j < functions.size(); j++) {
+                if (functions.get(j) == function && functionVariables.get(j).equals(var))
+                    return accumulator.getExpectedValue(j);
+            }
         }
 
-        if(parallelMode) {
-            weightedSampleStream.parallel();
-        }
+        this.loadWeightedSampleStream();
         List<Double> sum = weightedSampleStream
                 .map(ws -> Arrays.asList(Math.exp(ws.weight), Math.exp(ws.weight) * function.apply(ws.assignment.getValue(var))))
                 .filter(array -> (Double.isFinite(array.get(0)) && Double.isFinite(array.get(1)) ))
@@ -308,24 +639,25 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
     //TODO For continuous variables, instead of returning a Gaussian distributions, we should return a Mixture of Gaussians!!
     public <E extends UnivariateDistribution> E getPosterior(Variable var) {
 
+        int index = variablesAPosteriori.indexOf(var);
+        if (accumulator != null && index >= 0) {
+            return (E) normalize(var, accumulator.getPosterior(index));
+        }
+
         Variable samplingVar = this.samplingModel.getVariables().getVariableByName(var.getName());
         // TODO Could we build this object in a general way for Multinomial and Normal?
         EF_UnivariateDistribution ef_univariateDistribution = samplingVar.newUnivariateDistribution().toEFUnivariateDistribution();
 
         AtomicInteger dataInstanceCount = new AtomicInteger(0);
 
-        if(keepDataOnMemory) {
-            weightedSampleStream = weightedSampleList.stream().sequential();
-        } else {
-            computeWeightedSampleStream(false);
-        }
-
-        if(parallelMode) {
-            weightedSampleStream.parallel();
-        }
+        this.loadWeightedSampleStream();
 
-        if (!keepDataOnMemory) {
+        if (!keepDataOnMemory || weightedSampleList == null) {
             weightedSampleList = weightedSampleStream.collect(Collectors.toList());
+            weightedSampleStream = weightedSampleList.stream().sequential();
+            if(parallelMode) {
+                weightedSampleStream.parallel();
+            }
         }
 
         double maxLogWeight;
@@ -355,7 +687,10 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
 
         ef_univariateDistribution.setMomentParameters(sumSS);
 
-        Distribution posteriorDistribution = ef_univariateDistribution.toUnivariateDistribution();
+        return (E) normalize(var, ef_univariateDistribution.toUnivariateDistribution());
+    }
+
+    private static Distribution normalize(Variable var, Distribution posteriorDistribution) {
 
         //Normalize Multinomial distributions
         if(var.isMultinomial()) {
@@ -369,19 +704,124 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
 //                    setProbabilities(Utils.normalize(((Multinomial) posteriorDistribution).getProbabilities()));
         }
 
-        return (E)posteriorDistribution;
+        return posteriorDistribution;
     }
 
-    private void computeWeightedSampleStream(boolean saveDataOnMemory_) {
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The instances are processed in parallel. Each thread gets its own engine, which shares the model and the
+     * sampling model of this object, and the instances are split among the threads by work-stealing. Each engine
+     * draws its samples sequentially from the seed of this object, so the posteriors of an instance do not depend on
+     * the thread or on the other instances. The query variables are registered in the engines, so each sample is
+     * drawn once for all of them and no sample is kept in memory. The evidence of this object is not changed. </p>
+     */
+    @Override
+    public List<List<UnivariateDistribution>> computePosteriors(DataOnMemory<DataInstance> batch, List<Variable> queryVariables) {
+        ThreadLocal<ImportanceSampling> engines = ThreadLocal.withInitial(() -> {
+            ImportanceSampling engine = this.newBatchEngine();
+            engine.setVariablesAPosteriori(queryVariables);
+            return engine;
+        });
+        List<DataInstance> instances = batch.getList();
+
+        return IntStream.range(0, instances.size())
+                .parallel()
+                .mapToObj(i -> {
+                    ImportanceSampling engine = engines.get();
+                    engine.setEvidence(instances.get(i));
+                    engine.runInference();
+                    return queryVariables.stream()
+                            .map(var -> (UnivariateDistribution) engine.getPosterior(var))
+                            .collect(Collectors.toList());
+                })
+                .collect(Collectors.toList());
+    }
 
-        LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
-        if (parallelMode) {
-            weightedSampleStream = IntStream.range(0, sampleSize).parallel()
-                    .mapToObj(i -> getWeightedAssignment(randomGenerator.current()));
+    /**
+     * Creates a new engine with the same models and settings as this object, used by a thread of
+     * {@link #computePosteriors(DataOnMemory, List)}. The models are only read during the sampling, so they are
+     * shared instead of copied.
+     * @return a new {@link ImportanceSampling} object.
+     */
+    private ImportanceSampling newBatchEngine() {
+        ImportanceSampling engine = new ImportanceSampling();
+        engine.model = this.model;
+        engine.samplingModel = this.samplingModel;
+        engine.sameSamplingModel = this.sameSamplingModel;
+        engine.causalOrder = this.causalOrder;
+        engine.seed = this.seed;
+        engine.sampleSize = this.sampleSize;
+        engine.parallelMode = false;
+        engine.adaptiveMode = this.adaptiveMode;
+        engine.targetEffectiveSampleSize = this.targetEffectiveSampleSize;
+        engine.targetStandardError = this.targetStandardError;
+        engine.maxRounds = this.maxRounds;
+        return engine;
+    }
+
+    private void loadWeightedSampleStream() {
+        if (keepDataOnMemory && weightedSampleList != null) {
+            weightedSampleStream = weightedSampleList.stream().sequential();
         } else {
-            weightedSampleStream = IntStream.range(0, sampleSize).sequential()
-                    .mapToObj(i -> getWeightedAssignment(randomGenerator.current()));
+            computeWeightedSampleStream(false);
+        }
+
+        if(parallelMode) {
+            weightedSampleStream.parallel();
         }
+    }
+
+    private void computeQueryAccumulator() {
+
+        LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
+        int nChunksPerRound = (sampleSize + LocalRandomGenerator.CHUNK_SIZE - 1) / LocalRandomGenerator.CHUNK_SIZE;
+
+        BayesianNetwork initialSamplingModel = samplingModel;
+        boolean initialSameSamplingModel = sameSamplingModel;
+        if (adaptiveMode)
+            efSamplingModel = new EF_BayesianNetwork(samplingModel.getDAG());
+
+        QueryAccumulator sum = new QueryAccumulator();
+        int rounds = (adaptiveMode) ? maxRounds : 1;
+        try {
+            nRounds = 0;
+            while (nRounds < rounds) {
+                randomGenerator.generateChunks(sampleSize, (long) nRounds * nChunksPerRound, parallelMode, (random, chunkSize) -> {
+                            QueryAccumulator chunkAccumulator = new QueryAccumulator();
+                            for (int i = 0; i < chunkSize; i++) {
+                                chunkAccumulator.add(getWeightedAssignment(random));
+                            }
+                            return chunkAccumulator;
+                        })
+                        .forEachOrdered(sum::merge);
+                nRounds++;
+
+                if (!adaptiveMode || nRounds == rounds)
+                    break;
+                if (sum.getEffectiveSampleSize() >= targetEffectiveSampleSize && sum.getMaxStandardError() <= targetStandardError)
+                    break;
+
+                //The samples of all the rounds are valid importance samples, each one with the weight given by the
+                //sampling model it was drawn from, so they are all used to fit the next sampling model.
+                if (sum.sumWeights > 0) {
+                    samplingModel = sum.fitProposal();
+                    sameSamplingModel = false;
+                }
+            }
+        } finally {
+            if (adaptiveMode)
+                adaptedSamplingModel = samplingModel;
+            samplingModel = initialSamplingModel;
+            sameSamplingModel = initialSameSamplingModel;
+        }
+        accumulator = sum;
+    }
+
+    private void computeWeightedSampleStream(boolean saveDataOnMemory_) {
+
+        LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
+        weightedSampleStream = randomGenerator.generate(sampleSize, parallelMode, this::getWeightedAssignment);
 
         if(saveDataOnMemory_) {
             weightedSampleList = weightedSampleStream.collect(Collectors.toList());
@@ -393,6 +833,12 @@ public class ImportanceSampling implements InferenceAlgorithm, Serializable {
      */
     @Override
     public void runInference() {
+        if (this.hasQueries() || adaptiveMode) {
+            weightedSampleList = null;
+            computeQueryAccumulator();
+            return;
+        }
+        accumulator = null;
         if(keepDataOnMemory) computeWeightedSampleStream(true);
         //computeWeightedSampleStream(keepDataOnMemory);
     }
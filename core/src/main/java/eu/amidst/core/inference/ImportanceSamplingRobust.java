@@ -26,6 +26,7 @@ import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
 import eu.amidst.core.exponentialfamily.SufficientStatistics;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.utils.*;
+import eu.amidst.core.variables.ArrayAssignment;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.HashMapAssignment;
 import eu.amidst.core.variables.Variable;
@@ -72,10 +73,10 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
 
 
     private class WeightedAssignment {
-        private HashMapAssignment assignment;
+        private Assignment assignment;
         private double logWeight;
 
-        public WeightedAssignment(HashMapAssignment assignment_, double weight_){
+        public WeightedAssignment(Assignment assignment_, double weight_){
             this.assignment = assignment_;
             this.logWeight = weight_;
         }
@@ -84,8 +85,8 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
             StringBuilder str = new StringBuilder();
             str.append("[ ");
 
-            for (Map.Entry<Variable, Double> entry : this.assignment.entrySet()) {
-                str.append(entry.getKey().getName() + " = " + entry.getValue());
+            for (Variable var : this.assignment.getVariables()) {
+                str.append(var.getName() + " = " + this.assignment.getValue(var));
                 str.append(", ");
             }
             str.append("Weight = " + logWeight + " ]");
@@ -314,7 +315,7 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
 
     private WeightedAssignment generateSampleSameModel(Random random) {
 
-        HashMapAssignment sample = new HashMapAssignment(this.model.getNumberOfVars());;
+        ArrayAssignment sample = new ArrayAssignment(this.model.getNumberOfVars());
 
         double logWeight = 0.0;
 
@@ -349,8 +350,8 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
             return generateSampleSameModel(random);
         }
 
-        HashMapAssignment samplingAssignment = new HashMapAssignment(1);
-        HashMapAssignment modelAssignment = new HashMapAssignment(1);
+        ArrayAssignment samplingAssignment = new ArrayAssignment(this.samplingModel.getNumberOfVars());
+        ArrayAssignment modelAssignment = new ArrayAssignment(this.model.getNumberOfVars());
         double numerator = 0.0;
         double denominator = 0.0;
 
@@ -637,11 +638,6 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
 
         LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
 
-        IntStream weightedSampleStream = IntStream.range(0, sampleSize).parallel();
-
-        if (!parallelMode) {
-            weightedSampleStream = weightedSampleStream.sequential();
-        }
 
 //            weightedSampleStream = IntStream.range(0, sampleSize).parallel()
 //                    .mapToObj(i -> generateSample(randomGenerator.current()));
@@ -650,8 +646,7 @@ public class ImportanceSamplingRobust implements InferenceAlgorithm, Serializabl
 //                    .mapToObj(i -> generateSample(randomGenerator.current()));
 //        }
 
-        double logSumWeights = weightedSampleStream.mapToDouble(i -> {
-            WeightedAssignment weightedSample = generateSample(randomGenerator.current());
+        double logSumWeights = randomGenerator.generate(sampleSize, parallelMode, this::generateSample).mapToDouble(weightedSample -> {
             updatePosteriorDistributions(weightedSample.assignment,weightedSample.logWeight);
             //updateLogProbabilityOfEvidence(weightedSample.logWeight);
 
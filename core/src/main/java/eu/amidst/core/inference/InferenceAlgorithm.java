@@ -17,11 +17,15 @@
 
 package eu.amidst.core.inference;
 
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.distribution.UnivariateDistribution;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.Variable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.IntStream;
@@ -100,6 +104,29 @@ public interface InferenceAlgorithm {
         return this.getPosterior(this.getOriginalModel().getVariables().getVariableById(varID));
     }
 
+    /**
+     * Computes the posteriors of some query variables for each instance of a batch, using each instance as evidence.
+     * The default implementation sets the evidence and runs the inference for one instance after another, so it
+     * changes the evidence of this InferenceAlgorithm. Algorithms which can process several instances at the same
+     * time override this method.
+     * @param batch the data instances used as evidence, with missing values for the query variables.
+     * @param queryVariables the {@code List} of query {@link Variable}s.
+     * @return the posteriors of the query variables, in the same order as the instances and the query variables.
+     */
+    default List<List<UnivariateDistribution>> computePosteriors(DataOnMemory<DataInstance> batch, List<Variable> queryVariables) {
+        List<List<UnivariateDistribution>> posteriors = new ArrayList<>(batch.getNumberOfDataInstances());
+        for (DataInstance instance : batch.getList()) {
+            this.setEvidence(instance);
+            this.runInference();
+            List<UnivariateDistribution> instancePosteriors = new ArrayList<>(queryVariables.size());
+            for (Variable var : queryVariables) {
+                instancePosteriors.add(this.getPosterior(var));
+            }
+            posteriors.add(instancePosteriors);
+        }
+        return posteriors;
+    }
+
     /**
      * Returns the log probability of the evidence.
      * @return the log probability of the evidence.
@@ -0,0 +1,365 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.StateSpaceTypeEnum;
+import eu.amidst.core.variables.Variable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines the junction tree of a {@link BayesianNetwork}, i.e., a tree of cliques of its moral graph
+ * satisfying the running intersection property.
+ *
+ * <p> The tree is obtained by eliminating the variables of the moral graph, choosing at each step the variable
+ * with the minimum fill-in. All the normal variables are eliminated before the multinomial ones, so the resulting
+ * tree is a strong junction tree: when a message is sent to the parent of a clique, either only normal variables
+ * are integrated out or the separator only contains multinomial variables. </p>
+ *
+ * <p> The cliques are ordered so that each clique comes before its parent, and the cliques without parent are the
+ * roots of the (possibly disconnected) tree. The structure only depends on the {@link eu.amidst.core.models.DAG}
+ * of the network, so it is computed once and reused across evidence. </p>
+ */
+public class JunctionTree implements Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = -2087164934180744379L;
+
+    /** Represents the list of cliques, where each clique comes before its parent. */
+    private List<List<Variable>> cliques;
+
+    /** Represents the separators between each clique and its parent (empty for roots). */
+    private List<List<Variable>> separators;
+
+    /** Represents the index of the parent of each clique, or -1 for roots. */
+    private int[] parents;
+
+    /** Represents the index of the clique where the distribution of each variable is assigned, indexed by variable ID. */
+    private int[] cliqueOfDistribution;
+
+    /** Represents the index of the smallest clique containing each variable, indexed by variable ID. */
+    private int[] cliqueOfVariable;
+
+    /**
+     * Creates a new JunctionTree for a given {@link BayesianNetwork}.
+     * @param model a {@link BayesianNetwork} object.
+     */
+    public JunctionTree(BayesianNetwork model) {
+        int n = model.getNumberOfVars();
+        List<Variable> variables = model.getVariables().getListOfVariables();
+
+        boolean[][] adjacent = new boolean[n][n];
+        for (Variable var : variables) {
+            List<Variable> family = this.getFamily(model, var);
+            for (Variable a : family) {
+                for (Variable b : family) {
+                    if (a != b)
+                        adjacent[a.getVarID()][b.getVarID()] = true;
+                }
+            }
+        }
+
+        // Elimination cliques, indexed by elimination step.
+        int[] step = new int[n];
+        List<List<Variable>> eliminationCliques = new ArrayList<>(n);
+        boolean[] eliminated = new boolean[n];
+        for (int s = 0; s < n; s++) {
+            Variable next = this.selectNextVariable(variables, adjacent, eliminated);
+            int id = next.getVarID();
+
+            List<Variable> clique = new ArrayList<>();
+            clique.add(next);
+            for (Variable var : variables) {
+                if (!eliminated[var.getVarID()] && adjacent[id][var.getVarID()])
+                    clique.add(var);
+            }
+            for (Variable a : clique) {
+                for (Variable b : clique) {
+                    if (a != b)
+                        adjacent[a.getVarID()][b.getVarID()] = true;
+                }
+            }
+            eliminated[id] = true;
+            step[id] = s;
+            eliminationCliques.add(clique);
+        }
+
+        // Elimination tree: the parent of a clique is the one of the first eliminated variable of its separator.
+        int[] parentStep = new int[n];
+        for (int s = 0; s < n; s++) {
+            parentStep[s] = -1;
+            List<Variable> clique = eliminationCliques.get(s);
+            for (int i = 1; i < clique.size(); i++) {
+                int other = step[clique.get(i).getVarID()];
+                if (parentStep[s] == -1 || other < parentStep[s])
+                    parentStep[s] = other;
+            }
+        }
+
+        // A parent clique included in one of its children is absorbed by this child.
+        int[] representative = new int[n];
+        for (int s = 0; s < n; s++) {
+            representative[s] = s;
+        }
+        for (int s = 0; s < n; s++) {
+            if (representative[s] != s)
+                continue;
+            while (parentStep[s] != -1) {
+                int p = find(representative, parentStep[s]);
+                if (!eliminationCliques.get(s).containsAll(eliminationCliques.get(p)))
+                    break;
+                representative[p] = s;
+                parentStep[s] = parentStep[p];
+            }
+        }
+
+        // Post-order traversal from the roots, so that children come before their parents.
+        List<List<Integer>> children = new ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            children.add(new ArrayList<>());
+        }
+        List<Integer> roots = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            if (representative[s] != s)
+                continue;
+            if (parentStep[s] == -1)
+                roots.add(s);
+            else
+                children.get(find(representative, parentStep[s])).add(s);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int root : roots) {
+            this.postOrder(root, children, order);
+        }
+
+        int[] position = new int[n];
+        this.cliques = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            position[order.get(i)] = i;
+            this.cliques.add(sortVariables(eliminationCliques.get(order.get(i))));
+        }
+        this.parents = new int[order.size()];
+        this.separators = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            int s = order.get(i);
+            this.parents[i] = (parentStep[s] == -1) ? -1 : position[find(representative, parentStep[s])];
+            List<Variable> separator = new ArrayList<>();
+            if (this.parents[i] != -1) {
+                for (Variable var : this.cliques.get(i)) {
+                    if (this.cliques.get(this.parents[i]).contains(var))
+                        separator.add(var);
+                }
+            }
+            this.separators.add(separator);
+        }
+
+        this.cliqueOfDistribution = new int[n];
+        this.cliqueOfVariable = new int[n];
+        for (Variable var : variables) {
+            int first = n;
+            for (Variable member : this.getFamily(model, var)) {
+                first = Math.min(first, step[member.getVarID()]);
+            }
+            this.cliqueOfDistribution[var.getVarID()] = position[find(representative, first)];
+
+            int best = -1;
+            for (int i = 0; i < this.cliques.size(); i++) {
+                if (this.cliques.get(i).contains(var) && (best == -1 || this.cliques.get(i).size() < this.cliques.get(best).size()))
+                    best = i;
+            }
+            this.cliqueOfVariable[var.getVarID()] = best;
+        }
+    }
+
+    /**
+     * Returns the number of cliques of this JunctionTree.
+     * @return the number of cliques.
+     */
+    public int getNumberOfCliques() {
+        return this.cliques.size();
+    }
+
+    /**
+     * Returns the variables of a given clique, where the multinomial variables come first.
+     * @param clique the index of the clique.
+     * @return the list of variables of the clique.
+     */
+    public List<Variable> getClique(int clique) {
+        return this.cliques.get(clique);
+    }
+
+    /**
+     * Returns the variables shared by a given clique and its parent.
+     * @param clique the index of the clique.
+     * @return the list of variables of the separator, empty if the clique is a root.
+     */
+    public List<Variable> getSeparator(int clique) {
+        return this.separators.get(clique);
+    }
+
+    /**
+     * Returns the parent of a given clique.
+     * @param clique the index of the clique.
+     * @return the index of the parent clique, or -1 if the clique is a root.
+     */
+    public int getParent(int clique) {
+        return this.parents[clique];
+    }
+
+    /**
+     * Returns the clique where the conditional distribution of a given variable is assigned.
+     * @param var a {@link Variable} object.
+     * @return the index of the clique containing the variable and all its parents.
+     */
+    public int getCliqueOfDistribution(Variable var) {
+        return this.cliqueOfDistribution[var.getVarID()];
+    }
+
+    /**
+     * Returns the smallest clique containing a given variable.
+     * @param var a {@link Variable} object.
+     * @return the index of the clique.
+     */
+    public int getCliqueOfVariable(Variable var) {
+        return this.cliqueOfVariable[var.getVarID()];
+    }
+
+    /**
+     * Returns the size of the largest clique of this JunctionTree.
+     * @return the number of variables of the largest clique.
+     */
+    public int getMaximumCliqueSize() {
+        int max = 0;
+        for (List<Variable> clique : this.cliques) {
+            max = Math.max(max, clique.size());
+        }
+        return max;
+    }
+
+    /**
+     * Returns the family of a variable, i.e., the variable and its parents.
+     * @param model a {@link BayesianNetwork} object.
+     * @param var a {@link Variable} object.
+     * @return the list of variables of the family.
+     */
+    private List<Variable> getFamily(BayesianNetwork model, Variable var) {
+        List<Variable> family = new ArrayList<>();
+        family.add(var);
+        family.addAll(model.getDAG().getParentSet(var).getParents());
+        return family;
+    }
+
+    /**
+     * Selects the next variable to be eliminated, i.e., the normal or, if there are none left, the multinomial
+     * variable with the minimum fill-in, breaking ties by the minimum number of neighbours.
+     * @param variables the list of variables.
+     * @param adjacent the adjacency matrix of the current graph.
+     * @param eliminated the variables already eliminated.
+     * @return the next variable to be eliminated.
+     */
+    private Variable selectNextVariable(List<Variable> variables, boolean[][] adjacent, boolean[] eliminated) {
+        boolean continuousLeft = false;
+        for (Variable var : variables) {
+            if (!eliminated[var.getVarID()] && !isDiscrete(var))
+                continuousLeft = true;
+        }
+
+        Variable best = null;
+        long bestFill = Long.MAX_VALUE;
+        int bestSize = Integer.MAX_VALUE;
+        int[] neighbours = new int[variables.size()];
+        for (Variable var : variables) {
+            int id = var.getVarID();
+            if (eliminated[id] || (continuousLeft && isDiscrete(var)))
+                continue;
+            int size = 0;
+            for (int other = 0; other < adjacent.length; other++) {
+                if (!eliminated[other] && adjacent[id][other])
+                    neighbours[size++] = other;
+            }
+            long fill = 0;
+            for (int a = 0; a < size; a++) {
+                for (int b = a + 1; b < size; b++) {
+                    if (!adjacent[neighbours[a]][neighbours[b]])
+                        fill++;
+                }
+            }
+            if (fill < bestFill || (fill == bestFill && size < bestSize)) {
+                best = var;
+                bestFill = fill;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the cliques of a subtree to a list in post-order.
+     * @param node the root of the subtree.
+     * @param children the children of each clique.
+     * @param order the list where the cliques are added.
+     */
+    private void postOrder(int node, List<List<Integer>> children, List<Integer> order) {
+        for (int child : children.get(node)) {
+            this.postOrder(child, children, order);
+        }
+        order.add(node);
+    }
+
+    /**
+     * Returns the representative of an elimination clique.
+     * @param representative the representative of each elimination clique.
+     * @param s the index of an elimination clique.
+     * @return the index of the clique which absorbed it.
+     */
+    private static int find(int[] representative, int s) {
+        while (representative[s] != s)
+            s = representative[s];
+        return s;
+    }
+
+    /**
+     * Returns a copy of a list of variables with the multinomial variables first.
+     * @param variables a list of variables.
+     * @return the sorted list.
+     */
+    private static List<Variable> sortVariables(List<Variable> variables) {
+        List<Variable> sorted = new ArrayList<>(variables.size());
+        for (Variable var : variables) {
+            if (isDiscrete(var))
+                sorted.add(var);
+        }
+        for (Variable var : variables) {
+            if (!isDiscrete(var))
+                sorted.add(var);
+        }
+        return sorted;
+    }
+
+    /**
+     * Tests whether a variable is multinomial.
+     * @param var a {@link Variable} object.
+     * @return true if the variable has a finite state space.
+     */
+    private static boolean isDiscrete(Variable var) {
+        return var.getStateSpaceTypeEnum() == StateSpaceTypeEnum.FINITE_SET;
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.distribution.ConditionalDistribution;
+import eu.amidst.core.distribution.ConditionalLinearGaussian;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Multinomial_MultinomialParents;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.Normal_MultinomialNormalParents;
+import eu.amidst.core.distribution.Normal_MultinomialParents;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.potential.CGPotential;
+import eu.amidst.core.utils.MultinomialIndex;
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.StateSpaceTypeEnum;
+import eu.amidst.core.variables.Variable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the interface {@link InferenceAlgorithm} and defines the exact junction tree inference
+ * algorithm for Bayesian networks with multinomial and normal variables.
+ *
+ * <p> The {@link JunctionTree} of the model and all the index mappings between cliques, separators and conditional
+ * distributions are computed once in {@link #setModel(BayesianNetwork)}. Each call to {@link #runInference()} then
+ * initializes the clique potentials ({@link CGPotential}) with the current evidence and performs a collect and a
+ * distribute pass over the tree. </p>
+ *
+ * <p> For discrete networks the posteriors are exact. For conditional linear Gaussian networks the algorithm
+ * follows the Lauritzen scheme on a strong junction tree: the posteriors of the multinomial variables are exact,
+ * and the posterior of each normal variable is the Gaussian with the exact mean and variance of its marginal,
+ * which is a mixture of Gaussians. Normal variables with multinomial children are not supported. </p>
+ *
+ * <p> The parameters of the conditional distributions are read when the model is set, so
+ * {@link #setModel(BayesianNetwork)} must be called again if they are modified. </p>
+ */
+public class JunctionTreeInference implements InferenceAlgorithm, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = -6471398286105739126L;
+
+    /** Represents the {@link BayesianNetwork} model. */
+    private BayesianNetwork model;
+
+    /** Represents the {@link JunctionTree} of the model. */
+    private JunctionTree junctionTree;
+
+    /** Represents the evidence. */
+    private Assignment evidence;
+
+    /** Represents the observed value of each variable, indexed by variable ID, or NaN if not observed. */
+    private double[] evidenceValues;
+
+    /** Represents the potentials of the cliques. */
+    private CGPotential[] cliquePotentials;
+
+    /** Represents the potentials of the separators between each clique and its parent. */
+    private CGPotential[] separatorPotentials;
+
+    /** Represents the messages sent from each parent clique to its child. */
+    private CGPotential[] messagePotentials;
+
+    /** Represents the separator configuration of each configuration of a clique. */
+    private int[][] cliqueToSeparator;
+
+    /** Represents the separator configuration of each configuration of the parent of a clique. */
+    private int[][] parentToSeparator;
+
+    /** Represents the positions in each clique of the normal variables of its separator. */
+    private int[][] separatorDimsInClique;
+
+    /** Represents the positions in the parent of each clique of the normal variables of its separator. */
+    private int[][] separatorDimsInParent;
+
+    /** Represents the positions of the non-observed normal variables of each clique. */
+    private int[][] activeDims;
+
+    /** Represents, for each clique, the positions of the non-observed normal variables not in its separator. */
+    private int[][] integrateInClique;
+
+    /** Represents, for each clique, the positions in its parent of the non-observed normal variables not in the separator. */
+    private int[][] integrateInParent;
+
+    /** Represents, for each clique, the positions in the clique of the non-observed normal variables of its separator. */
+    private int[][] keepInClique;
+
+    /** Represents, for each clique, the positions in its parent of the non-observed normal variables of its separator. */
+    private int[][] keepInParent;
+
+    /** Represents, for each clique, the positions in its separator of the non-observed normal variables. */
+    private int[][] keepInSeparator;
+
+    /** Represents the family configuration of each configuration of its clique, indexed by variable ID. */
+    private int[][] familyConfigurations;
+
+    /** Represents the positions in its clique of the normal variables of each family, indexed by variable ID. */
+    private int[][] familyDims;
+
+    /** Represents the normal variables of each family (the variable itself first), indexed by variable ID. */
+    private Variable[][] familyContinuous;
+
+    /** Represents the log-probabilities of each multinomial variable given its parents, indexed by variable ID. */
+    private double[][] logProbabilities;
+
+    /** Represents the intercepts of each normal variable given its multinomial parents, indexed by variable ID. */
+    private double[][] intercepts;
+
+    /** Represents the variances of each normal variable given its multinomial parents, indexed by variable ID. */
+    private double[][] variances;
+
+    /** Represents the coefficients of the normal parents of each normal variable, indexed by variable ID. */
+    private double[][][] coefficients;
+
+    /** Represents the log-probability of the evidence. */
+    private double logProbOfEvidence;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setModel(BayesianNetwork model_) {
+        this.model = model_;
+        this.junctionTree = new JunctionTree(model_);
+
+        int nCliques = this.junctionTree.getNumberOfCliques();
+        this.cliquePotentials = new CGPotential[nCliques];
+        this.separatorPotentials = new CGPotential[nCliques];
+        this.messagePotentials = new CGPotential[nCliques];
+        this.cliqueToSeparator = new int[nCliques][];
+        this.parentToSeparator = new int[nCliques][];
+        this.separatorDimsInClique = new int[nCliques][];
+        this.separatorDimsInParent = new int[nCliques][];
+
+        for (int i = 0; i < nCliques; i++) {
+            this.cliquePotentials[i] = new CGPotential(this.junctionTree.getClique(i));
+        }
+        for (int i = 0; i < nCliques; i++) {
+            int parent = this.junctionTree.getParent(i);
+            if (parent == -1)
+                continue;
+            CGPotential clique = this.cliquePotentials[i];
+            CGPotential parentClique = this.cliquePotentials[parent];
+            CGPotential separator = new CGPotential(this.junctionTree.getSeparator(i));
+            this.separatorPotentials[i] = separator;
+            this.messagePotentials[i] = new CGPotential(this.junctionTree.getSeparator(i));
+            this.cliqueToSeparator[i] = CGPotential.getConfigurationMap(clique.getDiscreteVariables(), separator.getDiscreteVariables());
+            this.parentToSeparator[i] = CGPotential.getConfigurationMap(parentClique.getDiscreteVariables(), separator.getDiscreteVariables());
+            this.separatorDimsInClique[i] = CGPotential.getPositions(clique.getContinuousVariables(), separator.getContinuousVariables());
+            this.separatorDimsInParent[i] = CGPotential.getPositions(parentClique.getContinuousVariables(), separator.getContinuousVariables());
+        }
+
+        int nVars = model_.getNumberOfVars();
+        this.familyConfigurations = new int[nVars][];
+        this.familyDims = new int[nVars][];
+        this.familyContinuous = new Variable[nVars][];
+        this.logProbabilities = new double[nVars][];
+        this.intercepts = new double[nVars][];
+        this.variances = new double[nVars][];
+        this.coefficients = new double[nVars][][];
+        for (Variable var : model_.getVariables()) {
+            this.compileDistribution(var);
+        }
+
+        this.setEvidence(null);
+    }
+
+    /**
+     * Reads the parameters of the conditional distribution of a variable and maps its family onto its clique.
+     * @param var a {@link Variable} object.
+     */
+    private void compileDistribution(Variable var) {
+        int id = var.getVarID();
+        ConditionalDistribution dist = this.model.getConditionalDistribution(var);
+        List<Variable> discreteFamily = new ArrayList<>();
+        List<Variable> continuousFamily = new ArrayList<>();
+
+        if (isDiscrete(var)) {
+            discreteFamily.add(var);
+            discreteFamily.addAll(dist.getConditioningVariables());
+            int nParentConfigs = MultinomialIndex.getNumberOfPossibleAssignments(dist.getConditioningVariables());
+            double[] logProbs = new double[var.getNumberOfStates() * nParentConfigs];
+            for (int p = 0; p < nParentConfigs; p++) {
+                Multinomial multinomial;
+                if (dist instanceof Multinomial)
+                    multinomial = (Multinomial) dist;
+                else if (dist instanceof Multinomial_MultinomialParents)
+                    multinomial = ((Multinomial_MultinomialParents) dist).getMultinomial(p);
+                else
+                    throw new UnsupportedOperationException("Junction tree inference does not support the distribution of " + var.getName());
+                for (int s = 0; s < var.getNumberOfStates(); s++) {
+                    logProbs[p * var.getNumberOfStates() + s] = Math.log(multinomial.getProbabilityOfState(s));
+                }
+            }
+            this.logProbabilities[id] = logProbs;
+        } else if (var.isNormal()) {
+            continuousFamily.add(var);
+            List<ConditionalLinearGaussian> clgs = new ArrayList<>();
+            List<Normal> normals = new ArrayList<>();
+            if (dist instanceof Normal) {
+                normals.add((Normal) dist);
+            } else if (dist instanceof Normal_MultinomialParents) {
+                discreteFamily.addAll(dist.getConditioningVariables());
+                normals.addAll(((Normal_MultinomialParents) dist).getNormalDistributions());
+            } else if (dist instanceof ConditionalLinearGaussian) {
+                continuousFamily.addAll(dist.getConditioningVariables());
+                clgs.add((ConditionalLinearGaussian) dist);
+            } else if (dist instanceof Normal_MultinomialNormalParents) {
+                discreteFamily.addAll(((Normal_MultinomialNormalParents) dist).getMultinomialParents());
+                continuousFamily.addAll(((Normal_MultinomialNormalParents) dist).getNormalParents());
+                clgs.addAll(((Normal_MultinomialNormalParents) dist).getDistribution());
+            } else {
+                throw new UnsupportedOperationException("Junction tree inference does not support the distribution of " + var.getName());
+            }
+
+            int nParentConfigs = normals.size() + clgs.size();
+            this.intercepts[id] = new double[nParentConfigs];
+            this.variances[id] = new double[nParentConfigs];
+            this.coefficients[id] = new double[nParentConfigs][continuousFamily.size()];
+            for (int p = 0; p < nParentConfigs; p++) {
+                // The weights of the linear term w'x = var - sum_j b_j parent_j.
+                this.coefficients[id][p][0] = 1;
+                if (normals.isEmpty()) {
+                    ConditionalLinearGaussian clg = clgs.get(p);
+                    this.intercepts[id][p] = clg.getIntercept();
+                    this.variances[id][p] = clg.getVariance();
+                    for (int j = 1; j < continuousFamily.size(); j++) {
+                        this.coefficients[id][p][j] = -clg.getCoeffForParent(continuousFamily.get(j));
+                    }
+                } else {
+                    this.intercepts[id][p] = normals.get(p).getMean();
+                    this.variances[id][p] = normals.get(p).getVariance();
+                }
+            }
+        } else {
+            throw new UnsupportedOperationException("Junction tree inference does not support the variable " + var.getName());
+        }
+
+        for (Variable member : continuousFamily) {
+            if (!member.isNormal())
+                throw new UnsupportedOperationException("Junction tree inference does not support the parents of " + var.getName());
+        }
+
+        CGPotential clique = this.cliquePotentials[this.junctionTree.getCliqueOfDistribution(var)];
+        this.familyConfigurations[id] = CGPotential.getConfigurationMap(clique.getDiscreteVariables(), discreteFamily);
+        this.familyDims[id] = CGPotential.getPositions(clique.getContinuousVariables(), continuousFamily);
+        this.familyContinuous[id] = continuousFamily.toArray(new Variable[continuousFamily.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BayesianNetwork getOriginalModel() {
+        return this.model;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEvidence(Assignment evidence_) {
+        this.evidence = evidence_;
+        this.evidenceValues = new double[this.model.getNumberOfVars()];
+        Arrays.fill(this.evidenceValues, Utils.missingValue());
+        if (evidence_ != null) {
+            for (Variable var : this.model.getVariables()) {
+                this.evidenceValues[var.getVarID()] = evidence_.getValue(var);
+            }
+        }
+
+        int nCliques = this.junctionTree.getNumberOfCliques();
+        this.activeDims = new int[nCliques][];
+        this.integrateInClique = new int[nCliques][];
+        this.integrateInParent = new int[nCliques][];
+        this.keepInClique = new int[nCliques][];
+        this.keepInParent = new int[nCliques][];
+        this.keepInSeparator = new int[nCliques][];
+        for (int i = 0; i < nCliques; i++) {
+            List<Variable> continuous = this.cliquePotentials[i].getContinuousVariables();
+            this.activeDims[i] = this.getActivePositions(continuous, continuous);
+        }
+        for (int i = 0; i < nCliques; i++) {
+            int parent = this.junctionTree.getParent(i);
+            if (parent == -1)
+                continue;
+            List<Variable> separator = this.separatorPotentials[i].getContinuousVariables();
+            List<Variable> clique = this.cliquePotentials[i].getContinuousVariables();
+            List<Variable> parentClique = this.cliquePotentials[parent].getContinuousVariables();
+            this.keepInSeparator[i] = this.getActivePositions(separator, separator);
+            this.keepInClique[i] = this.getActivePositions(clique, separator);
+            this.keepInParent[i] = this.getActivePositions(parentClique, separator);
+
+            List<Variable> cliqueRest = new ArrayList<>(clique);
+            cliqueRest.removeAll(separator);
+            this.integrateInClique[i] = this.getActivePositions(clique, cliqueRest);
+            List<Variable> parentRest = new ArrayList<>(parentClique);
+            parentRest.removeAll(separator);
+            this.integrateInParent[i] = this.getActivePositions(parentClique, parentRest);
+        }
+    }
+
+    /**
+     * Returns the positions in a list of the non-observed variables of a sublist.
+     * @param list a list of normal variables.
+     * @param variables a sublist of {@code list}.
+     * @return the positions of the non-observed variables of {@code variables}.
+     */
+    private int[] getActivePositions(List<Variable> list, List<Variable> variables) {
+        return variables.stream()
+                .filter(var -> Utils.isMissingValue(this.evidenceValues[var.getVarID()]))
+                .mapToInt(list::indexOf)
+                .toArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runInference() {
+        this.initializePotentials();
+
+        int nCliques = this.junctionTree.getNumberOfCliques();
+        for (int i = 0; i < nCliques; i++) {
+            int parent = this.junctionTree.getParent(i);
+            if (parent == -1)
+                continue;
+            this.cliquePotentials[i].marginalize(this.separatorPotentials[i], this.cliqueToSeparator[i],
+                    this.integrateInClique[i], this.keepInClique[i], this.keepInSeparator[i]);
+            this.cliquePotentials[parent].multiply(this.separatorPotentials[i], this.parentToSeparator[i], this.separatorDimsInParent[i]);
+        }
+
+        this.logProbOfEvidence = 0;
+        for (int i = 0; i < nCliques; i++) {
+            if (this.junctionTree.getParent(i) != -1)
+                continue;
+            double logMass = Double.NEGATIVE_INFINITY;
+            CGPotential root = this.cliquePotentials[i];
+            for (int c = 0; c < root.getNumberOfConfigurations(); c++) {
+                logMass = CGPotential.logSum(logMass, root.getLogMass(c, this.activeDims[i]));
+            }
+            this.logProbOfEvidence += logMass;
+        }
+
+        for (int i = nCliques - 1; i >= 0; i--) {
+            int parent = this.junctionTree.getParent(i);
+            if (parent == -1)
+                continue;
+            CGPotential message = this.messagePotentials[i];
+            this.cliquePotentials[parent].marginalize(message, this.parentToSeparator[i],
+                    this.integrateInParent[i], this.keepInParent[i], this.keepInSeparator[i]);
+            message.divide(this.separatorPotentials[i]);
+            this.cliquePotentials[i].multiply(message, this.cliqueToSeparator[i], this.separatorDimsInClique[i]);
+        }
+    }
+
+    /**
+     * Initializes the clique potentials with the conditional distributions and the evidence.
+     */
+    private void initializePotentials() {
+        for (CGPotential potential : this.cliquePotentials) {
+            potential.setUnity();
+        }
+
+        int maxFamily = 0;
+        for (Variable[] family : this.familyContinuous) {
+            maxFamily = Math.max(maxFamily, family.length);
+        }
+        int[] positions = new int[maxFamily];
+        double[] weights = new double[maxFamily];
+
+        for (Variable var : this.model.getVariables()) {
+            int id = var.getVarID();
+            CGPotential potential = this.cliquePotentials[this.junctionTree.getCliqueOfDistribution(var)];
+            int[] configs = this.familyConfigurations[id];
+
+            if (isDiscrete(var)) {
+                double[] logProbs = this.logProbabilities[id];
+                double value = this.evidenceValues[id];
+                int nStates = var.getNumberOfStates();
+                for (int c = 0; c < configs.length; c++) {
+                    int config = configs[c];
+                    if (!Utils.isMissingValue(value) && config % nStates != (int) value)
+                        potential.addToLogG(c, Double.NEGATIVE_INFINITY);
+                    else
+                        potential.addToLogG(c, logProbs[config]);
+                }
+            } else {
+                Variable[] family = this.familyContinuous[id];
+                int[] dims = this.familyDims[id];
+                for (int c = 0; c < configs.length; c++) {
+                    int p = configs[c];
+                    double[] w = this.coefficients[id][p];
+                    double offset = this.intercepts[id][p];
+                    int n = 0;
+                    for (int j = 0; j < family.length; j++) {
+                        double value = this.evidenceValues[family[j].getVarID()];
+                        if (Utils.isMissingValue(value)) {
+                            positions[n] = dims[j];
+                            weights[n++] = w[j];
+                        } else {
+                            offset -= w[j] * value;
+                        }
+                    }
+                    potential.addLinearGaussian(c, positions, weights, n, offset, this.variances[id][p]);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends UnivariateDistribution> E getPosterior(Variable var) {
+        int clique = this.junctionTree.getCliqueOfVariable(var);
+        CGPotential potential = this.cliquePotentials[clique];
+        int[] active = this.activeDims[clique];
+
+        if (isDiscrete(var)) {
+            int stride = 1;
+            for (Variable other : potential.getDiscreteVariables()) {
+                if (other.equals(var))
+                    break;
+                stride *= other.getNumberOfStates();
+            }
+            double[] logProbs = new double[var.getNumberOfStates()];
+            Arrays.fill(logProbs, Double.NEGATIVE_INFINITY);
+            for (int c = 0; c < potential.getNumberOfConfigurations(); c++) {
+                int state = (c / stride) % var.getNumberOfStates();
+                logProbs[state] = CGPotential.logSum(logProbs[state], potential.getLogMass(c, active));
+            }
+            double max = logProbs[Utils.maxIndex(logProbs)];
+            double[] probs = new double[logProbs.length];
+            for (int s = 0; s < probs.length; s++) {
+                probs[s] = Math.exp(logProbs[s] - max);
+            }
+            Multinomial multinomial = new Multinomial(var);
+            multinomial.setProbabilities(Utils.normalize(probs));
+            return (E) multinomial;
+        } else {
+            Normal normal = new Normal(var);
+            double value = this.evidenceValues[var.getVarID()];
+            if (!Utils.isMissingValue(value)) {
+                normal.setMean(value);
+                normal.setVariance(0);
+                return (E) normal;
+            }
+
+            int index = 0;
+            while (potential.getContinuousVariables().get(active[index]) != var)
+                index++;
+            int n = active.length;
+            double[] mean = new double[n];
+            double[] covariance = new double[n * n];
+            double[] logMass = new double[potential.getNumberOfConfigurations()];
+            double[] means = new double[logMass.length];
+            double[] secondMoments = new double[logMass.length];
+            double max = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < logMass.length; c++) {
+                logMass[c] = potential.getMoments(c, active, mean, covariance);
+                means[c] = mean[index];
+                secondMoments[c] = covariance[index * n + index] + mean[index] * mean[index];
+                max = Math.max(max, logMass[c]);
+            }
+            double total = 0;
+            double first = 0;
+            double second = 0;
+            for (int c = 0; c < logMass.length; c++) {
+                if (logMass[c] == Double.NEGATIVE_INFINITY)
+                    continue;
+                double w = Math.exp(logMass[c] - max);
+                total += w;
+                first += w * means[c];
+                second += w * secondMoments[c];
+            }
+            normal.setMean(first / total);
+            normal.setVariance(second / total - (first / total) * (first / total));
+            return (E) normal;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getLogProbabilityOfEvidence() {
+        return this.logProbOfEvidence;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(int seed) {
+
+    }
+
+    /**
+     * Returns the {@link JunctionTree} compiled for the model.
+     * @return the {@link JunctionTree} object.
+     */
+    public JunctionTree getJunctionTree() {
+        return junctionTree;
+    }
+
+    /**
+     * Tests whether a variable is multinomial.
+     * @param var a {@link Variable} object.
+     * @return true if the variable has a finite state space.
+     */
+    private static boolean isDiscrete(Variable var) {
+        return var.getStateSpaceTypeEnum() == StateSpaceTypeEnum.FINITE_SET;
+    }
+
+    public static void main(String[] arguments) throws IOException, ClassNotFoundException {
+
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("./networks/dataWeka/asia.bn");
+
+        JunctionTreeInference inference = new JunctionTreeInference();
+        inference.setModel(bn);
+        System.out.println("Number of cliques: " + inference.getJunctionTree().getNumberOfCliques());
+
+        Variable varX = bn.getVariables().getVariableByName("X");
+        HashMapAssignment assignment = new HashMapAssignment(1);
+        assignment.setValue(varX, 1.0);
+        inference.setEvidence(assignment);
+        inference.runInference();
+
+        for (Variable var : bn.getVariables()) {
+            System.out.println("Posterior of " + var.getName() + ": " + inference.getPosterior(var));
+        }
+        System.out.println("Prob. of Evidence: " + Math.exp(inference.getLogProbabilityOfEvidence()));
+    }
+}
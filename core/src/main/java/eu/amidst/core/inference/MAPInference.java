@@ -25,9 +25,13 @@ import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
 import eu.amidst.core.models.ParentSet;
 import eu.amidst.core.utils.BayesianNetworkSampler;
+import eu.amidst.core.utils.LocalRandomGenerator;
+import eu.amidst.core.utils.SplitMixRandom;
 import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.ArrayAssignment;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.SparseAssignment;
 import eu.amidst.core.variables.Variable;
 
 import java.io.IOException;
@@ -89,7 +93,7 @@ public class MAPInference implements PointEstimator {
 
     public MAPInference() {
 
-        this.evidence = new HashMapAssignment(0);
+        this.evidence = new SparseAssignment(0);
         this.sampleSize = 10;
         MAPrandom = new Random();
     }
@@ -240,7 +244,7 @@ public class MAPInference implements PointEstimator {
 
     private String getMAPVariablesFromAssignment(Assignment assignment) {
         if (this.MAPvariables!=null) {
-            Assignment MAPVarsValues = new HashMapAssignment(MAPvariables.size());
+            Assignment MAPVarsValues = new SparseAssignment(MAPvariables.size());
             for(Variable var : MAPvariables) {
                 MAPVarsValues.setValue(var,assignment.getValue(var));
             }
@@ -252,7 +256,7 @@ public class MAPInference implements PointEstimator {
     }
 
     private Assignment fullAssignmentToMAPassignment(Assignment fullAssignment) {
-        Assignment MAPassignment = new HashMapAssignment(MAPvariables.size());
+        Assignment MAPassignment = new SparseAssignment(MAPvariables.size());
         MAPvariables.stream().forEach(MAPvar -> MAPassignment.setValue(MAPvar, fullAssignment.getValue(MAPvar)));
         return MAPassignment;
     }
@@ -300,7 +304,15 @@ public class MAPInference implements PointEstimator {
                 break;
 
             default:   // HILL CLIMBING OR SIMULATED ANNEALING METHODS WITH DIFFERENT STARTING POINTS
-                weightedAssignment = samples.map(sample -> this.runOptimizationAlgorithm(sample, searchAlgorithm))
+                // Each starting point has its own random stream, so the result does not depend on the parallel mode.
+                List<Assignment> startingPoints = samples.collect(Collectors.toList());
+                LocalRandomGenerator randomGenerator = new LocalRandomGenerator(seed);
+                IntStream indexes = IntStream.range(0, startingPoints.size());
+                if (parallelMode)
+                    indexes = indexes.parallel();
+
+                weightedAssignment = indexes
+                        .mapToObj(i -> this.runOptimizationAlgorithm(startingPoints.get(i), searchAlgorithm, randomGenerator.getStream(i)))
                         .filter(partialResult -> Double.isFinite(partialResult.weight))
                         .reduce((wa1, wa2) -> (wa1.weight > wa2.weight ? wa1 : wa2)).get();
                 MAPestimate = fullAssignmentToMAPassignment(weightedAssignment.assignment);
@@ -314,7 +326,7 @@ public class MAPInference implements PointEstimator {
     private Assignment obtainValues(Assignment initialGuess, Assignment evidence, Random random) {
 
         int numberOfVariables = this.model.getNumberOfVars();
-        Assignment result = new HashMapAssignment(initialGuess);
+        Assignment result = new ArrayAssignment(initialGuess);
         List<Variable> contVarEvidence = new ArrayList<>();
 
         Variable selectedVariable;
@@ -334,7 +346,7 @@ public class MAPInference implements PointEstimator {
 
 
                 try {
-                    Assignment parentsConfiguration = new HashMapAssignment(1);
+                    Assignment parentsConfiguration = new SparseAssignment(1);
                     conDist.getConditioningVariables().forEach(parent -> parentsConfiguration.setValue(parent, result.getValue(parent)));
                     UnivariateDistribution uniDist = conDist.getUnivariateDistribution(parentsConfiguration);
                     selectedVariableNewValue = uniDist.sample(random);
@@ -408,7 +420,7 @@ public class MAPInference implements PointEstimator {
         for(Variable current : contVarEvidence) {
 
             if(Double.isNaN(evidence.getValue(current))) {
-                Assignment parentsConfiguration = new HashMapAssignment(1);
+                Assignment parentsConfiguration = new SparseAssignment(1);
                 model.getConditionalDistribution(current).getConditioningVariables().forEach(parent -> parentsConfiguration.setValue(parent, result.getValue(parent)));
                 UnivariateDistribution univariateDistribution = model.getConditionalDistribution(current).getUnivariateDistribution(parentsConfiguration);
                 double newValue = univariateDistribution.sample(random);
@@ -429,7 +441,7 @@ public class MAPInference implements PointEstimator {
             selectedVariable = causalOrder.get(i);
 
             if ( selectedVariable.isNormal() && Double.isNaN(result.getValue(selectedVariable))) {
-                Assignment parentsConfiguration = new HashMapAssignment(1);
+                Assignment parentsConfiguration = new SparseAssignment(1);
                 model.getConditionalDistribution(selectedVariable).getConditioningVariables().forEach(parent -> parentsConfiguration.setValue(parent, result.getValue(parent)));
                 UnivariateDistribution univariateDistribution = model.getConditionalDistribution(selectedVariable).getUnivariateDistribution(parentsConfiguration);
                 double newValue = univariateDistribution.getParameters()[0];
@@ -449,7 +461,7 @@ public class MAPInference implements PointEstimator {
     private Assignment obtainValuesRandomly(Assignment initialGuess, Assignment evidence, Random random) {
 
         int numberOfVariables = this.model.getNumberOfVars();
-        Assignment result = new HashMapAssignment(initialGuess);
+        Assignment result = new ArrayAssignment(initialGuess);
         List<Variable> contVarEvidence = new ArrayList<>();
 
         Variable selectedVariable;
@@ -560,27 +572,27 @@ public class MAPInference implements PointEstimator {
     }
 
     protected double estimateProbabilityOfPartialAssignment(Assignment MAPassignment) {
-        return estimateProbabilityOfPartialAssignment(MAPassignment,true);
+        return estimateProbabilityOfPartialAssignment(MAPassignment,true,new SplitMixRandom(MAPrandom.nextLong()));
     }
 
-    private double estimateProbabilityOfPartialAssignment(Assignment MAPassignment, boolean useConditionalDistributions) {
+    private double estimateProbabilityOfPartialAssignment(Assignment MAPassignment, boolean useConditionalDistributions, Random random) {
 
         double probabilityEstimate;
         final int numSamplesAverage = 150;
 
-        Assignment evidenceAugmented=new HashMapAssignment(evidence);
+        Assignment evidenceAugmented=new ArrayAssignment(evidence);
         MAPvariables.forEach(voi -> evidenceAugmented.setValue(voi, MAPassignment.getValue(voi)));
 
-        final Assignment finalAssignment=new HashMapAssignment(MAPassignment);
+        final Assignment finalAssignment=new ArrayAssignment(MAPassignment);
 
         IntStream auxIntStream = IntStream.range(0, numSamplesAverage);
         //probabilityEstimate = auxIntStream.mapToObj(i -> obtainValuesRandomly(finalAssignment,evidenceAugmented,new Random())).mapToDouble(as -> Math.exp(this.model.getLogProbabiltyOf(as))).average().getAsDouble();
         try {
             probabilityEstimate = auxIntStream.mapToObj(i -> {
                 if (useConditionalDistributions)
-                    return obtainValues(finalAssignment, evidenceAugmented, new Random(MAPrandom.nextInt()));
+                    return obtainValues(finalAssignment, evidenceAugmented, random);
                 else
-                    return obtainValuesRandomly(finalAssignment, evidenceAugmented, new Random(MAPrandom.nextInt()));
+                    return obtainValuesRandomly(finalAssignment, evidenceAugmented, random);
                 })
                 .mapToDouble(as -> Math.exp(this.model.getLogProbabiltyOf(as)))
                 .filter(Double::isFinite).average().getAsDouble();
@@ -594,7 +606,7 @@ public class MAPInference implements PointEstimator {
 
 
 
-    private WeightedAssignment runOptimizationAlgorithm(Assignment initialGuess, SearchAlgorithm optAlgorithm) {
+    private WeightedAssignment runOptimizationAlgorithm(Assignment initialGuess, SearchAlgorithm optAlgorithm, Random random) {
 
         final int movingVariablesLocalSearch = 3;
         int optAlg;
@@ -627,25 +639,23 @@ public class MAPInference implements PointEstimator {
         }
 
 
-        Assignment currentAssignment=new HashMapAssignment(initialGuess);
-        double currentProbability=estimateProbabilityOfPartialAssignment(currentAssignment, false);
+        Assignment currentAssignment=new ArrayAssignment(initialGuess);
+        double currentProbability=estimateProbabilityOfPartialAssignment(currentAssignment, false, random);
 
         Assignment nextAssignment;
         double nextProbability;
 
-        Random random = new Random(MAPrandom.nextInt());
-
         while (R>eps) {
 
             if (optAlg%2==0) { // GLOBAL SEARCH
                 nextAssignment = obtainValues(currentAssignment, evidence, random);
             }
             else { // LOCAL SEARCH
-                nextAssignment = moveDiscreteVariables(currentAssignment, movingVariablesLocalSearch);
-                nextAssignment = assignContinuousVariables(nextAssignment);
+                nextAssignment = moveDiscreteVariables(currentAssignment, movingVariablesLocalSearch, random);
+                nextAssignment = assignContinuousVariables(nextAssignment, random);
             }
 
-            nextProbability=estimateProbabilityOfPartialAssignment(nextAssignment, false);
+            nextProbability=estimateProbabilityOfPartialAssignment(nextAssignment, false, random);
 
             if (nextProbability > currentProbability) {
                 currentAssignment = nextAssignment;
@@ -674,10 +684,9 @@ public class MAPInference implements PointEstimator {
 
 
 
-    private Assignment moveDiscreteVariables(Assignment initialGuess, int numberOfMovements) {
+    private Assignment moveDiscreteVariables(Assignment initialGuess, int numberOfMovements, Random random) {
 
-        Assignment result = new HashMapAssignment(initialGuess);
-        Random random = new Random(MAPrandom.nextInt());
+        Assignment result = new ArrayAssignment(initialGuess);
         ArrayList<Integer> indicesVariablesMoved = new ArrayList<>();
 
         if(numberOfMovements > numberOfDiscreteVariables - numberOfDiscreteVariablesInEvidence) { // this.model.getNumberOfVars()-this.evidence.getVariables().size()) {
@@ -704,11 +713,10 @@ public class MAPInference implements PointEstimator {
         return result;
     }
 
-    private Assignment assignContinuousVariables(Assignment initialGuess) {
+    private Assignment assignContinuousVariables(Assignment initialGuess, Random random) {
 
-        Assignment result = new HashMapAssignment(initialGuess);
+        Assignment result = new ArrayAssignment(initialGuess);
         int numberOfVariables = this.model.getNumberOfVars();
-        Random random = new Random(MAPrandom.nextInt());
         Variable selectedVariable;
         List<Variable> contVarEvidence = new ArrayList<>();
 
@@ -0,0 +1,154 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference.messagepassing;
+
+import eu.amidst.core.exponentialfamily.MomentParameters;
+import eu.amidst.core.variables.Variable;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class defines the moment parameters of the main variable and the parents of a {@link Node} as a fixed array
+ * of slots. The slots are computed once from the structure of the node, so refreshing the moment parameters before
+ * each message does not allocate any object. It is exposed as a read-only {@code Map}, where a variable is looked up
+ * by a linear scan over the slots, as the number of parents of a node is usually small.
+ */
+public class IndexedMomentParents extends AbstractMap<Variable, MomentParameters> {
+
+    /** Represents the variable of each slot, where the main variable is the first one. */
+    private final Variable[] variables;
+
+    /** Represents the hash code of the variable of each slot. */
+    private final int[] hashCodes;
+
+    /** Represents the node providing the moment parameters of each slot. */
+    private final Node[] nodes;
+
+    /** Represents the moment parameters of each slot. */
+    private final MomentParameters[] moments;
+
+    /**
+     * Creates a new IndexedMomentParents for a given {@link Node}.
+     * @param node a {@link Node} object.
+     */
+    IndexedMomentParents(Node node) {
+        List<Variable> parents = node.getPDist().getConditioningVariables();
+        this.variables = new Variable[parents.size() + 1];
+        this.hashCodes = new int[this.variables.length];
+        this.nodes = new Node[this.variables.length];
+        this.moments = new MomentParameters[this.variables.length];
+
+        this.variables[0] = node.getMainVariable();
+        this.nodes[0] = node;
+        for (int i = 0; i < parents.size(); i++) {
+            this.variables[i + 1] = parents.get(i);
+            this.nodes[i + 1] = node.variableToNodeParent(parents.get(i));
+        }
+        for (int i = 0; i < this.variables.length; i++) {
+            this.hashCodes[i] = this.variables[i].hashCode();
+        }
+    }
+
+    /**
+     * Reads the current moment parameters of the nodes of all the slots.
+     */
+    void refresh() {
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.moments[i] = this.nodes[i].getQMomentParameters();
+        }
+    }
+
+    /**
+     * Returns the slot of a given variable.
+     * @param var a {@link Variable} object.
+     * @return the index of the slot, or -1 if the variable is not the main variable or a parent of the node.
+     */
+    public int getIndexOf(Object var) {
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.variables[i] == var)
+                return i;
+        }
+        if (var == null)
+            return -1;
+        int hashCode = var.hashCode();
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.hashCodes[i] == hashCode && this.variables[i].equals(var))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the variable of a given slot.
+     * @param index the index of the slot.
+     * @return a {@link Variable} object.
+     */
+    public Variable getVariable(int index) {
+        return this.variables[index];
+    }
+
+    /**
+     * Returns the moment parameters of a given slot.
+     * @param index the index of the slot.
+     * @return a {@link MomentParameters} object.
+     */
+    public MomentParameters getMomentParameters(int index) {
+        return this.moments[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MomentParameters get(Object key) {
+        int index = this.getIndexOf(key);
+        return (index == -1) ? null : this.moments[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return this.getIndexOf(key) != -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.variables.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<Variable, MomentParameters>> entrySet() {
+        Set<Entry<Variable, MomentParameters>> entries = new LinkedHashSet<>();
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.getIndexOf(this.variables[i]) == i)
+                entries.add(new SimpleImmutableEntry<>(this.variables[i], this.moments[i]));
+        }
+        return entries;
+    }
+}
@@ -17,7 +17,6 @@
 
 package eu.amidst.core.inference.messagepassing;
 
-import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.utils.Vector;
 
 /**
@@ -132,7 +131,7 @@ public class Message<E extends Vector> {
             throw new IllegalArgumentException();
         }
         Message<E> newmessage = new Message<>(m1.getNode());
-        newmessage.setVector(Serialization.deepCopy(m1.getVector()));
+        newmessage.setVector((E) m1.getVector().deepCopy());
         newmessage.getVector().sum(m2.vector);
         newmessage.setDone(m2.isDone() && m1.isDone());
         return newmessage;
@@ -17,11 +17,14 @@
 
 package eu.amidst.core.inference.messagepassing;
 
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.distribution.UnivariateDistribution;
 import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
 import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
 import eu.amidst.core.inference.InferenceAlgorithm;
 import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.utils.Vector;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.HashMapAssignment;
@@ -29,12 +32,16 @@ import eu.amidst.core.variables.Variable;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class implements the interface {@link InferenceAlgorithm} and defines the Message Passing algorithm.
@@ -88,6 +95,87 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
     /** Represents the number of local iterations. */
     protected int local_iter = 0;
 
+    /** Represents the number of iterations between two convergence tests, initialized to 1. */
+    protected int convergenceCheckInterval = 1;
+
+    /** Indicates if the nodes are updated in parallel by color classes, initialized to {@code false}. */
+    protected boolean parallelMode = false;
+
+    /** Represents the color classes of the nodes, where no two nodes of a class are in the Markov blanket of each other. */
+    transient protected List<List<Node>> colorClasses;
+
+    /** Indicates if the nodes are updated in order of their pending residuals, initialized to {@code false}. */
+    protected boolean residualScheduling = false;
+
+    /** Represents the minimum change of the natural parameters of a node which is propagated to its Markov blanket. */
+    protected double residualThreshold = 0.0001;
+
+    /** Represents the number of node updates performed in the last run. */
+    protected int nUpdates = 0;
+
+    /**
+     * Sets the parallel mode for this MessagePassingAlgorithm. When it is activated, the nodes are grouped in color
+     * classes of the Markov blanket graph and the nodes of each class are updated concurrently. As no two nodes of a
+     * class depend on each other, the result does not depend on the number of threads.
+     * @param parallelMode a {@code boolean} that represents the parallel mode value to be set.
+     */
+    public void setParallelMode(boolean parallelMode) {
+        this.parallelMode = parallelMode;
+    }
+
+    /**
+     * Tests whether the parallel mode is activated for this MessagePassingAlgorithm or not.
+     * @return {@code true} if the parallel mode is activated, {@code false} otherwise.
+     */
+    public boolean isParallelMode() {
+        return parallelMode;
+    }
+
+    /**
+     * Sets the residual scheduling for this MessagePassingAlgorithm. When it is activated, instead of sweeping all the
+     * nodes at each iteration, the node with the largest pending residual is updated next, and only the nodes whose
+     * Markov blanket changed by more than the residual threshold are scheduled again. The inference stops when no
+     * node is pending or after {@code maxIter} times the number of nodes updates. It takes precedence over the
+     * parallel mode.
+     * @param residualScheduling a {@code boolean} that represents the residual scheduling value to be set.
+     */
+    public void setResidualScheduling(boolean residualScheduling) {
+        this.residualScheduling = residualScheduling;
+    }
+
+    /**
+     * Tests whether the residual scheduling is activated for this MessagePassingAlgorithm or not.
+     * @return {@code true} if the residual scheduling is activated, {@code false} otherwise.
+     */
+    public boolean isResidualScheduling() {
+        return residualScheduling;
+    }
+
+    /**
+     * Sets the residual threshold for this MessagePassingAlgorithm, i.e., the maximum absolute change of the natural
+     * parameters of a node below which its Markov blanket is not scheduled again.
+     * @param residualThreshold a {@code double} that represents the residual threshold value to be set.
+     */
+    public void setResidualThreshold(double residualThreshold) {
+        this.residualThreshold = residualThreshold;
+    }
+
+    /**
+     * Returns the residual threshold of this MessagePassingAlgorithm.
+     * @return the residual threshold of this MessagePassingAlgorithm.
+     */
+    public double getResidualThreshold() {
+        return residualThreshold;
+    }
+
+    /**
+     * Returns the number of node updates performed in the last run of this MessagePassingAlgorithm.
+     * @return the number of node updates.
+     */
+    public int getNumberOfUpdates() {
+        return nUpdates;
+    }
+
     /**
      * Sets the output for this MessagePassingAlgorithm.
      * @param output a {@code boolean} that represents the output value to be set.
@@ -136,6 +224,26 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
         return maxIter;
     }
 
+    /**
+     * Sets the number of iterations between two convergence tests for this MessagePassingAlgorithm. The convergence
+     * is also tested at the last iteration and when all the nodes are done, so the returned log probability of the
+     * evidence always corresponds to the final posteriors.
+     * @param convergenceCheckInterval a positive {@code int} that represents the number of iterations to be set.
+     */
+    public void setConvergenceCheckInterval(int convergenceCheckInterval) {
+        if (convergenceCheckInterval < 1)
+            throw new IllegalArgumentException("The convergence check interval must be positive");
+        this.convergenceCheckInterval = convergenceCheckInterval;
+    }
+
+    /**
+     * Returns the number of iterations between two convergence tests of this MessagePassingAlgorithm.
+     * @return the number of iterations between two convergence tests.
+     */
+    public int getConvergenceCheckInterval() {
+        return convergenceCheckInterval;
+    }
+
     /**
      * Resets the exponential family distributions of all nodes.
      */
@@ -158,7 +266,14 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
     @Override
     public void runInference() {
 
+        if (residualScheduling) {
+            this.runResidualInference();
+            return;
+        }
+
         nIter = 0;
+        nUpdates = 0;
+        int nUpdatable = (int) nodes.stream().filter(node -> node.isActive() && !node.isObserved()).count();
 
         boolean convergence = false;
         local_elbo = Double.NEGATIVE_INFINITY;
@@ -166,49 +281,195 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
         while (!convergence && (local_iter++)<maxIter) {
 
             boolean done = true;
-            for (Node node : nodes) {
+            nUpdates += nUpdatable;
+            if (parallelMode) {
+                for (List<Node> colorClass : this.getColorClasses()) {
+                    if (colorClass.size() == 1) {
+                        done &= this.updateNode(colorClass.get(0), true);
+                    } else {
+                        done &= colorClass.parallelStream()
+                                .map(node -> this.updateNode(node, false))
+                                .reduce(true, Boolean::logicalAnd);
+                    }
+                }
+            } else {
+                for (Node node : nodes) {
+                    done &= this.updateNode(node, true);
+                }
+            }
 
+            if (done || local_iter % convergenceCheckInterval == 0 || local_iter >= maxIter)
+                convergence = this.testConvergence();
 
-                if (!node.isActive() || node.isObserved())
-                    continue;
+            if (done) {
+                convergence = true;
+            }
+
+
+        }
+
+        probOfEvidence = local_elbo;
+        if (output){
+            System.out.println("N Iter: "+local_iter +", elbo:"+local_elbo);
+            logger.info("N Iter: {}, elbo: {}",local_iter, local_elbo);
+        }
+        nIter=local_iter;
+    }
 
-                Message<E> selfMessage = newSelfMessage(node);
+    /**
+     * Updates the posterior of a given {@link Node} by combining its self message with the messages of its active
+     * children. Inactive and observed nodes are left unchanged.
+     * @param node a {@link Node} object.
+     * @param parallelChildren indicates if the messages of the children are computed in parallel.
+     * @return {@code true} if the node is done, {@code false} otherwise.
+     */
+    protected boolean updateNode(Node node, boolean parallelChildren) {
+        if (!node.isActive() || node.isObserved())
+            return true;
 
-                Optional<Message<E>> message = node.getChildren()
-                                .parallelStream()
-                                .filter(children -> children.isActive())
-                                .map(children -> newMessageToParent(children, node))
-                                .reduce(Message::combineNonStateless);
+        Message<E> selfMessage = newSelfMessage(node);
 
-                if (message.isPresent())
-                    selfMessage.combine(message.get());
+        Optional<Message<E>> message = (parallelChildren ? node.getChildren().parallelStream() : node.getChildren().stream())
+                        .filter(children -> children.isActive())
+                        .map(children -> newMessageToParent(children, node))
+                        .reduce(Message::combineNonStateless);
 
-                //for (Node child: node.getChildren()){
-                //    selfMessage = Message.combine(newMessageToParent(child, node), selfMessage);
-                //}
+        if (message.isPresent())
+            selfMessage.combine(message.get());
 
-                updateCombinedMessage(node, selfMessage);
-                done &= node.isDone();
+        updateCombinedMessage(node, selfMessage);
+        return node.isDone();
+    }
 
-            }
+    /**
+     * Runs the inference updating the nodes in order of their pending residuals. Initially all the nodes are pending
+     * with an infinite residual, so they are updated once in the order of the list of nodes. Afterwards, each update
+     * which changes the natural parameters of a node by more than the residual threshold adds this change to the
+     * residual of the nodes of its Markov blanket. Ties are broken by the position in the list of nodes, so the
+     * schedule is deterministic.
+     */
+    protected void runResidualInference() {
 
-              convergence = this.testConvergence();
+        nUpdates = 0;
+        Map<Node, Integer> indices = new IdentityHashMap<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), i);
+        }
 
-            if (done) {
-                convergence = true;
+        double[] residuals = new double[nodes.size()];
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> (a[0] != b[0]) ? Double.compare(b[0], a[0]) : Double.compare(a[1], b[1]));
+        int nUpdatable = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!nodes.get(i).isActive() || nodes.get(i).isObserved())
+                continue;
+            residuals[i] = Double.POSITIVE_INFINITY;
+            queue.add(new double[]{residuals[i], i});
+            nUpdatable++;
+        }
+
+        long maxUpdates = (long) maxIter * nUpdatable;
+        while (!queue.isEmpty() && nUpdates < maxUpdates) {
+            double[] entry = queue.poll();
+            int index = (int) entry[1];
+            if (entry[0] != residuals[index])
+                continue;
+            residuals[index] = 0;
+
+            Node node = nodes.get(index);
+            Vector previous = node.getQDist().getNaturalParameters();
+            double[] previousValues = new double[previous.size()];
+            for (int i = 0; i < previousValues.length; i++) {
+                previousValues[i] = previous.get(i);
             }
 
+            this.updateNode(node, true);
+            nUpdates++;
 
+            Vector current = node.getQDist().getNaturalParameters();
+            double change = 0;
+            for (int i = 0; i < previousValues.length; i++) {
+                change = Math.max(change, Math.abs(current.get(i) - previousValues[i]));
+            }
+            if (change <= residualThreshold)
+                continue;
+
+            for (Node neighbour : getMarkovBlanket(node)) {
+                int neighbourIndex = indices.get(neighbour);
+                if (neighbour == node || !neighbour.isActive() || neighbour.isObserved() || residuals[neighbourIndex] == Double.POSITIVE_INFINITY)
+                    continue;
+                residuals[neighbourIndex] += change;
+                queue.add(new double[]{residuals[neighbourIndex], neighbourIndex});
+            }
         }
 
+        local_iter = (nUpdatable == 0) ? 0 : (nUpdates + nUpdatable - 1) / nUpdatable;
+        local_elbo = this.computeLogProbabilityOfEvidence();
         probOfEvidence = local_elbo;
         if (output){
-            System.out.println("N Iter: "+local_iter +", elbo:"+local_elbo);
-            logger.info("N Iter: {}, elbo: {}",local_iter, local_elbo);
+            System.out.println("N Iter: "+local_iter +", N Updates: "+nUpdates+", elbo:"+local_elbo);
+            logger.info("N Iter: {}, N Updates: {}, elbo: {}",local_iter, nUpdates, local_elbo);
         }
         nIter=local_iter;
     }
 
+    /**
+     * Returns the nodes in the Markov blanket of a given node, i.e., its parents, children and co-parents. The list
+     * may contain repeated nodes and the node itself.
+     * @param node a {@link Node} object.
+     * @return a {@code List} of {@link Node}s.
+     */
+    private static List<Node> getMarkovBlanket(Node node) {
+        List<Node> blanket = new ArrayList<>(node.getParents());
+        for (Node child : node.getChildren()) {
+            blanket.add(child);
+            blanket.addAll(child.getParents());
+        }
+        return blanket;
+    }
+
+    /**
+     * Returns the color classes of the nodes of this MessagePassingAlgorithm. They are computed by greedily coloring
+     * the Markov blanket graph (parents, children and co-parents) in the order of the list of nodes, so they are the
+     * same across runs. Observed and inactive nodes are also colored, as the evidence may change between runs.
+     * @return a {@code List} of color classes, in the order in which they are updated.
+     */
+    public List<List<Node>> getColorClasses() {
+        if (colorClasses == null)
+            colorClasses = computeColorClasses(this.nodes);
+        return colorClasses;
+    }
+
+    /**
+     * Computes a greedy coloring of the Markov blanket graph of a given list of nodes.
+     * @param nodes a {@code List} of {@link Node}s.
+     * @return a {@code List} of color classes.
+     */
+    private static List<List<Node>> computeColorClasses(List<Node> nodes) {
+        Map<Node, Integer> colors = new IdentityHashMap<>(nodes.size());
+        List<List<Node>> classes = new ArrayList<>();
+        for (Node node : nodes) {
+            List<Integer> neighbourColors = new ArrayList<>();
+            for (Node neighbour : getMarkovBlanket(node)) {
+                neighbourColors.add(colors.get(neighbour));
+            }
+
+            boolean[] used = new boolean[neighbourColors.size() + 1];
+            for (Integer neighbourColor : neighbourColors) {
+                if (neighbourColor != null && neighbourColor < used.length)
+                    used[neighbourColor] = true;
+            }
+            int color = 0;
+            while (used[color])
+                color++;
+
+            if (color == classes.size())
+                classes.add(new ArrayList<>());
+            classes.get(color).add(node);
+            colors.put(node, color);
+        }
+        return classes;
+    }
+
     /**
      * Returns the number of iterations of this MessagePassingAlgorithm.
      * @return the number of iterations of this MessagePassingAlgorithm.
@@ -232,6 +493,7 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
      */
     public void setEFModel(EF_BayesianNetwork model){
         ef_model = model;
+        colorClasses = null;
 
         variablesToNode = new ConcurrentHashMap<>();
         nodes = ef_model.getDistributionList()
@@ -280,6 +542,7 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
      */
     public void setNodes(List<Node> nodes) {
         this.nodes = nodes;
+        colorClasses = null;
         variablesToNode = new ConcurrentHashMap();
         nodes.stream().forEach( node -> variablesToNode.put(node.getMainVariable(),node));
     }
@@ -288,6 +551,7 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
      * Updates the set of children and parents for each node.
      */
     public void updateChildrenAndParents(){
+        colorClasses = null;
         for (Node node : nodes){
             node.setParents(
                     node.getPDist()
@@ -327,6 +591,61 @@ public abstract class MessagePassingAlgorithm<E extends Vector> implements Infer
         return this.getNodeOfVar(var).getQDist().toUnivariateDistribution();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The instances are processed in parallel. Each thread gets its own engine, created by
+     * {@link #newBatchEngine()}, and the instances are split among the threads by work-stealing. The posteriors of
+     * each instance are computed starting from the initial distributions of the nodes, so they do not depend on the
+     * thread or on the other instances. The evidence of this object is not changed. </p>
+     */
+    @Override
+    public List<List<UnivariateDistribution>> computePosteriors(DataOnMemory<DataInstance> batch, List<Variable> queryVariables) {
+        ThreadLocal<MessagePassingAlgorithm<E>> engines = ThreadLocal.withInitial(this::newBatchEngine);
+        List<DataInstance> instances = batch.getList();
+
+        return IntStream.range(0, instances.size())
+                .parallel()
+                .mapToObj(i -> {
+                    MessagePassingAlgorithm<E> engine = engines.get();
+                    for (Node node : engine.nodes) {
+                        node.setQDist(node.getMainVariable().getDistributionType().newEFUnivariateDistribution());
+                    }
+                    engine.setEvidence(instances.get(i));
+                    engine.runInference();
+                    return queryVariables.stream()
+                            .map(var -> engine.<UnivariateDistribution>getPosterior(var))
+                            .collect(Collectors.toList());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a new engine with the same model and settings as this object, used by a thread of
+     * {@link #computePosteriors(DataOnMemory, List)}. The model is copied, so the engines do not share any state.
+     * The new engine runs in sequential mode, since the parallelism is already given by the instances.
+     * Subclasses with additional settings must override this method and copy them.
+     * @return a new {@link MessagePassingAlgorithm} object.
+     */
+    protected MessagePassingAlgorithm<E> newBatchEngine() {
+        MessagePassingAlgorithm<E> engine;
+        try {
+            engine = this.getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("The batch engines of " + this.getClass().getName() + " can not be created", ex);
+        }
+        engine.model = this.model;
+        engine.setEFModel(Serialization.deepCopy(this.ef_model));
+        engine.setSeed(this.seed);
+        engine.maxIter = this.maxIter;
+        engine.threshold = this.threshold;
+        engine.convergenceCheckInterval = this.convergenceCheckInterval;
+        engine.residualScheduling = this.residualScheduling;
+        engine.residualThreshold = this.residualThreshold;
+        engine.parallelMode = false;
+        return engine;
+    }
+
     /**
      * {@inheritDoc}
      */
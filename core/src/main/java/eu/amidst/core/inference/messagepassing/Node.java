@@ -82,6 +82,9 @@ public class Node implements Serializable{
     /** Represents the name of this Node. */
     String name;
 
+    /** Represents the moment parameters of this Node and its parents, reused across messages. */
+    transient IndexedMomentParents momentParents;
+
     /**
      * Creates a new Node given an input {@link EF_ConditionalDistribution}.
      * @param PDist an input {@link EF_ConditionalDistribution}.
@@ -192,6 +195,7 @@ public class Node implements Serializable{
      */
     public void setParents(List<Node> parents) {
         this.parents = parents;
+        this.momentParents = null;
         variableToParentsNodeMap = new ConcurrentHashMap();
         nodeParentsToVariableMap = new ConcurrentHashMap();
 
@@ -225,6 +229,17 @@ public class Node implements Serializable{
         }
     }
 
+    /**
+     * Sets this Node as observed with some given sufficient statistics, or as non observed if they are {@code null}.
+     * Unlike {@link #setAssignment(Assignment)}, the sufficient statistics are not computed from an assignment, so the
+     * same node can be loaded with the state of different replications of a plateau without creating new objects.
+     * @param sufficientStatistics a {@link SufficientStatistics} object, or {@code null}.
+     */
+    public void setObservedSufficientStatistics(SufficientStatistics sufficientStatistics) {
+        this.sufficientStatistics = sufficientStatistics;
+        this.observed = sufficientStatistics != null;
+    }
+
     /**
      * Tests whether this Node is observed or not.
      * @return {@code true} if this Node is observed, {@code false} otherwise.
@@ -255,6 +270,7 @@ public class Node implements Serializable{
      */
     public void setPDist(EF_ConditionalDistribution PDist) {
         this.PDist = PDist;
+        this.momentParents = null;
     }
 
     /**
@@ -283,16 +299,17 @@ public class Node implements Serializable{
 
     /**
      * Returns the {@link MomentParameters} of the exponential family distributions of the parents of this Node.
+     * The returned map is owned by this Node and is refreshed by each call, so it should not be kept across calls.
      * @return a {@code Map} object that maps parent variables to their corresponding {@link MomentParameters}.
      */
     public Map<Variable, MomentParameters> getMomentParents(){
-        Map<Variable, MomentParameters> momentParents = new ConcurrentHashMap<>();
-
-        this.getPDist().getConditioningVariables().stream().forEach(var -> momentParents.put(var,this.variableToNodeParent(var).getQMomentParameters()));
-
-        momentParents.put(this.getMainVariable(), this.getQMomentParameters());
-
-        return momentParents;
+        IndexedMomentParents moments = this.momentParents;
+        if (moments == null) {
+            moments = new IndexedMomentParents(this);
+            this.momentParents = moments;
+        }
+        moments.refresh();
+        return moments;
     }
 
     /**
@@ -321,6 +338,7 @@ public class Node implements Serializable{
     public void setVariableToNodeParent(Variable var, Node parent){
         this.variableToParentsNodeMap.put(var, parent);
         this.nodeParentsToVariableMap.put(parent, var);
+        this.momentParents = null;
     }
 
     /**
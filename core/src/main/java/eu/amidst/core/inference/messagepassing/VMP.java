@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -51,6 +53,15 @@ public class VMP extends MessagePassingAlgorithm<NaturalParameters> implements I
     /** Represents a test of the evidence lower bound (ELBO). */
     boolean testELBO=false;
 
+    /** Represents the cached ELBO contribution of each active node in the current run. */
+    transient Map<Node, Double> nodeELBOs = new ConcurrentHashMap<>();
+
+    /** Represents the nodes whose cached ELBO contribution is out of date. */
+    transient Set<Node> staleNodes = ConcurrentHashMap.newKeySet();
+
+    /** Represents the sum of the cached ELBO contributions. */
+    double cachedELBO = 0;
+
 
     /**
      * Gets the random number generator.
@@ -70,6 +81,16 @@ public class VMP extends MessagePassingAlgorithm<NaturalParameters> implements I
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected MessagePassingAlgorithm<NaturalParameters> newBatchEngine() {
+        VMP engine = (VMP) super.newBatchEngine();
+        engine.testELBO = this.testELBO;
+        return engine;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -104,6 +125,12 @@ public class VMP extends MessagePassingAlgorithm<NaturalParameters> implements I
     public void updateCombinedMessage(Node node, Message<NaturalParameters> message) {
         node.getQDist().setNaturalParameters(message.getVector());
         node.setIsDone(message.isDone());
+
+        //The ELBO terms depending on the moments of this node are out of date.
+        if (this.staleNodes != null) {
+            this.staleNodes.add(node);
+            this.staleNodes.addAll(node.getChildren());
+        }
     }
 
     /**
@@ -115,7 +142,7 @@ public class VMP extends MessagePassingAlgorithm<NaturalParameters> implements I
         boolean convergence = false;
 
         //Compute lower-bound
-        double newelbo = this.computeLogProbabilityOfEvidence();
+        double newelbo = (local_elbo == Double.NEGATIVE_INFINITY) ? this.computeLogProbabilityOfEvidence() : this.updateLogProbabilityOfEvidence();
 
 
         double percentage = 100*Math.abs(newelbo - local_elbo)/Math.abs(local_elbo);
@@ -142,7 +169,44 @@ public class VMP extends MessagePassingAlgorithm<NaturalParameters> implements I
      */
     @Override
     public double computeLogProbabilityOfEvidence(){
-        return this.nodes.stream().filter(node-> node.isActive()).mapToDouble(node -> this.computeELBO(node)).sum();
+        if (this.nodeELBOs == null) {
+            this.nodeELBOs = new ConcurrentHashMap<>();
+            this.staleNodes = ConcurrentHashMap.newKeySet();
+        }
+
+        this.nodeELBOs.clear();
+        this.staleNodes.clear();
+        this.cachedELBO = 0;
+        for (Node node : this.nodes) {
+            if (!node.isActive())
+                continue;
+            double elbo = this.computeELBO(node);
+            this.nodeELBOs.put(node, elbo);
+            this.cachedELBO += elbo;
+        }
+        return this.cachedELBO;
+    }
+
+    /**
+     * Returns the log probability of the evidence by only recomputing the ELBO contributions of the nodes updated
+     * since the last call, or whose parents were updated. The remaining contributions are taken from the cache filled
+     * by {@link #computeLogProbabilityOfEvidence()}, which is used instead in the first convergence test of each run,
+     * as the posteriors, the evidence or the active nodes may have changed between runs.
+     * @return the log probability of the evidence.
+     */
+    public double updateLogProbabilityOfEvidence(){
+        if (this.nodeELBOs == null)
+            return this.computeLogProbabilityOfEvidence();
+
+        for (Node node : this.nodes) {
+            if (!node.isActive() || !this.staleNodes.contains(node))
+                continue;
+            double elbo = this.computeELBO(node);
+            Double previous = this.nodeELBOs.put(node, elbo);
+            this.cachedELBO += elbo - ((previous == null) ? 0 : previous);
+        }
+        this.staleNodes.clear();
+        return this.cachedELBO;
     }
 
     /**
@@ -37,8 +37,9 @@ import java.lang.reflect.UndeclaredThrowableException;
 public final class DataStreamLoader {
 
     /** Represents the class name of the different loaders available in the toolbox*/
-    private static String[] loaders = {"eu.amidst.core.datastream.filereaders.arffFileReader.ARFFDataReader",
-                                        "eu.amidst.core.datastream.filereaders.arffFileReader.ARFFDataFolderReader"};
+    private static String[] loaders = {"eu.amidst.core.datastream.filereaders.arffFileReader.ARFFMappedDataReader",
+                                        "eu.amidst.core.datastream.filereaders.arffFileReader.ARFFDataFolderReader",
+                                        "eu.amidst.core.datastream.filereaders.binaryFileReader.BinaryDataReader"};
 
     /** Represents the data file reader. */
     private static DataFileReader dataFileReader = new ARFFDataReader();
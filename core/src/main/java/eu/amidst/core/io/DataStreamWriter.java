@@ -21,6 +21,7 @@ import eu.amidst.core.datastream.DataInstance;
 import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.datastream.filereaders.DataFileWriter;
 import eu.amidst.core.datastream.filereaders.arffFileReader.ARFFDataWriter;
+import eu.amidst.core.datastream.filereaders.binaryFileReader.BinaryDataWriter;
 
 import java.io.IOException;
 
@@ -36,6 +37,9 @@ public final class DataStreamWriter {
     /** Represents the data file writer. */
     private static DataFileWriter dataFileWriter = new ARFFDataWriter();
 
+    /** Represents the data file writers selected by the extension of the file, before falling back to the data file writer. */
+    private static DataFileWriter[] writersByExtension = {new BinaryDataWriter()};
+
     /**
      * Sets the data file writer.
      * @param dataFileWriter_ an {@link DataFileWriter} object.
@@ -51,7 +55,19 @@ public final class DataStreamWriter {
      * @throws IOException in case of an error while writing to file.
      */
     public static void writeDataToFile(DataStream<? extends DataInstance> data, String path) throws IOException {
-        dataFileWriter.writeToFile(data, path);
+        selectRightWriter(path).writeToFile(data, path);
     }
 
+    /**
+     * Gets the suitable DataFileWriter according the extension of the file.
+     * @param fileName, the name of the file
+     * @return A valid {@link DataFileWriter}.
+     */
+    private static DataFileWriter selectRightWriter(String fileName){
+        for (DataFileWriter writer : writersByExtension) {
+            if (fileName.endsWith("." + writer.getFileExtension()))
+                return writer;
+        }
+        return dataFileWriter;
+    }
 }
@@ -23,6 +23,7 @@ import eu.amidst.core.datastream.DataInstance;
 import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
+import eu.amidst.core.exponentialfamily.EF_ConditionalDistribution;
 import eu.amidst.core.exponentialfamily.SufficientStatistics;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
@@ -124,9 +125,9 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
     @Override
     public double updateModel(DataOnMemory<DataInstance> batch) {
 
-        this.sumSS.sum(batch.stream()
-                    .map(dataInstance -> computeCountSufficientStatistics(this.efBayesianNetwork, dataInstance))
-                    .reduce(PartialSufficientSatistics::sumNonStateless).get());
+        for (DataInstance dataInstance : batch.getList()) {
+            this.sumSS.accumulate(this.efBayesianNetwork, dataInstance);
+        }
 
         dataInstanceCount.addAndGet(batch.getNumberOfDataInstances());
 
@@ -153,12 +154,13 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
                     dataInstanceCount.getAndAdd(batch.getNumberOfDataInstances());
                     if (debug) System.out.println("Parallel ML procesando "+(int)dataInstanceCount.get() +" instances");
                 })
-                .map(batch -> {
-                    return batch.stream()
-                            .map(dataInstance -> computeCountSufficientStatistics(this.efBayesianNetwork, dataInstance))
-                            .reduce(PartialSufficientSatistics::sumNonStateless).get();
-                })
-                .reduce(PartialSufficientSatistics::sumNonStateless).get();
+                .collect(() -> PartialSufficientSatistics.createEmptyPartialSufficientStatistics(this.efBayesianNetwork),
+                        (partialSufficientStatistics, batch) -> {
+                            for (DataInstance dataInstance : batch.getList()) {
+                                partialSufficientStatistics.accumulate(this.efBayesianNetwork, dataInstance);
+                            }
+                        },
+                        PartialSufficientSatistics::sum);
 
         if (laplace) {
             PartialSufficientSatistics initSS = PartialSufficientSatistics.createInitPartialSufficientStatistics(efBayesianNetwork);
@@ -207,12 +209,13 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
                     dataInstanceCount.getAndAdd(batch.getNumberOfDataInstances());
                     if (debug) System.out.println("Parallel ML procesando "+(int)dataInstanceCount.get() +" instances");
                 })
-                .map(batch -> {
-                    return batch.stream()
-                            .map(dataInstance -> computeCountSufficientStatistics(this.efBayesianNetwork, dataInstance))
-                            .reduce(PartialSufficientSatistics::sumNonStateless).get();
-                })
-                .reduce(PartialSufficientSatistics::sumNonStateless).get();
+                .collect(() -> PartialSufficientSatistics.createEmptyPartialSufficientStatistics(this.efBayesianNetwork),
+                        (partialSufficientStatistics, batch) -> {
+                            for (DataInstance dataInstance : batch.getList()) {
+                                partialSufficientStatistics.accumulate(this.efBayesianNetwork, dataInstance);
+                            }
+                        },
+                        PartialSufficientSatistics::sum);
 
         if (laplace) {
             PartialSufficientSatistics initSS = PartialSufficientSatistics.createInitPartialSufficientStatistics(efBayesianNetwork);
@@ -224,19 +227,32 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
 
     public static PartialSufficientSatistics computeCountSufficientStatistics(EF_BayesianNetwork bn, DataInstance dataInstance){
         List<CountVector> list = bn.getDistributionList().stream().map(dist -> {
-            if (Utils.isMissingValue(dataInstance.getValue(dist.getVariable())))
+            if (isMissing(dist, dataInstance))
                 return new CountVector();
 
-            for (Variable var : dist.getConditioningVariables())
-                if (Utils.isMissingValue(dataInstance.getValue(var)))
-                    return new CountVector();
-
             return new CountVector(dist.getSufficientStatistics(dataInstance));
         }).collect(Collectors.toList());
 
         return new PartialSufficientSatistics(list);
     }
 
+    /**
+     * Tests whether the main variable or any of the parents of a distribution is missing in a data instance.
+     * @param dist an {@link EF_ConditionalDistribution} object.
+     * @param dataInstance a {@link DataInstance} object.
+     * @return {@code true} if some of the variables of the distribution is missing.
+     */
+    private static boolean isMissing(EF_ConditionalDistribution dist, DataInstance dataInstance){
+        if (Utils.isMissingValue(dataInstance.getValue(dist.getVariable())))
+            return true;
+
+        for (Variable var : dist.getConditioningVariables())
+            if (Utils.isMissingValue(dataInstance.getValue(var)))
+                return true;
+
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -302,6 +318,33 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
             return new PartialSufficientSatistics(ef_bayesianNetwork.getDistributionList().stream().map(w -> new CountVector(w.createZeroSufficientStatistics())).collect(Collectors.toList()));
         }
 
+        /**
+         * Creates a PartialSufficientSatistics object with no counts, where the sufficient statistics of each
+         * distribution are allocated when its first non-missing instance is accumulated.
+         * @param ef_bayesianNetwork an {@link EF_BayesianNetwork} object.
+         * @return a {@link PartialSufficientSatistics} object.
+         */
+        public static PartialSufficientSatistics createEmptyPartialSufficientStatistics(EF_BayesianNetwork ef_bayesianNetwork){
+            return new PartialSufficientSatistics(ef_bayesianNetwork.getDistributionList().stream().map(w -> new CountVector()).collect(Collectors.toList()));
+        }
+
+        /**
+         * Adds, in place, the sufficient statistics of a data instance for the distributions where neither the main
+         * variable nor its parents are missing. It is equivalent to summing
+         * {@link #computeCountSufficientStatistics(EF_BayesianNetwork, DataInstance)} without allocating it.
+         * @param bn an {@link EF_BayesianNetwork} object.
+         * @param dataInstance a {@link DataInstance} object.
+         */
+        public void accumulate(EF_BayesianNetwork bn, DataInstance dataInstance){
+            List<EF_ConditionalDistribution> distributions = bn.getDistributionList();
+            for (int i = 0; i < distributions.size(); i++) {
+                EF_ConditionalDistribution dist = distributions.get(i);
+                if (isMissing(dist, dataInstance))
+                    continue;
+                this.list.get(i).accumulate(dist, dataInstance);
+            }
+        }
+
         public void normalize(){
             list.stream().forEach(a -> a.normalize());
         }
@@ -350,6 +393,13 @@ public class ParallelMLMissingData implements ParameterLearningAlgorithm{
             this.sufficientStatistics.divideBy(count);
         }
 
+        public void accumulate(EF_ConditionalDistribution dist, DataInstance dataInstance){
+            this.count++;
+            if (this.sufficientStatistics==null)
+                this.sufficientStatistics = dist.createZeroSufficientStatistics();
+            dist.accumulateSufficientStatistics(dataInstance, this.sufficientStatistics);
+        }
+
         public void copy(CountVector a){
             this.count = a.count;
             if (a.sufficientStatistics==null)
@@ -118,14 +118,13 @@ public class ParallelMaximumLikelihood implements ParameterLearningAlgorithm{
     @Override
     public double updateModel(DataOnMemory<DataInstance> batch) {
 
-        this.sumSS.sum(batch.stream()
-                    .map(efBayesianNetwork::getSufficientStatistics)
-                    .reduce(SufficientStatistics::sumVectorNonStateless).get());
+        for (DataInstance dataInstance : batch.getList()) {
+            efBayesianNetwork.accumulateSufficientStatistics(dataInstance, this.sumSS);
+        }
 
         dataInstanceCount.addAndGet(batch.getNumberOfDataInstances());
 
-
-        System.out.println(this.sumSS.output());
+        if (debug) System.out.println(this.sumSS.output());
         return Double.NaN;
     }
 
@@ -157,16 +156,11 @@ public class ParallelMaximumLikelihood implements ParameterLearningAlgorithm{
         }else{
             stream = dataStream.streamOfBatches(windowsSize);
         }
-        sumSS.sum(stream
+        sumSS.sum(this.accumulateSufficientStatistics(stream
                 .peek(batch -> {
                     dataInstanceCount.getAndAdd(batch.getNumberOfDataInstances());
                     if (debug) System.out.println("Parallel ML procesando "+(int)dataInstanceCount.get() +" instances");
-                })
-                .map(batch ->  batch.stream()
-                        .map(efBayesianNetwork::getSufficientStatistics)
-                        .reduce(SufficientStatistics::sumVectorNonStateless)
-                        .get())
-                .reduce(SufficientStatistics::sumVectorNonStateless).get());
+                })));
 
         return Double.NaN;
     }
@@ -185,16 +179,28 @@ public class ParallelMaximumLikelihood implements ParameterLearningAlgorithm{
         }else{
             stream = dataStream.streamOfBatches(windowsSize);
         }
-        sumSS.sum(stream
+        sumSS.sum(this.accumulateSufficientStatistics(stream
                 .peek(batch -> {
                     dataInstanceCount.getAndAdd(batch.getNumberOfDataInstances());
                     if (debug) System.out.println("Parallel ML procesando "+(int)dataInstanceCount.get() +" instances");
-                })
-                .map(batch ->  batch.stream()
-                                    .map(efBayesianNetwork::getSufficientStatistics)
-                                    .reduce(SufficientStatistics::sumVectorNonStateless)
-                                    .get())
-                .reduce(SufficientStatistics::sumVectorNonStateless).get());
+                })));
+    }
+
+    /**
+     * Computes the sum of the sufficient statistics of a stream of batches. Each worker of the stream holds a single
+     * buffer where the sufficient statistics of its instances are accumulated in place, and the buffers of the
+     * different workers are summed once at the end.
+     * @param stream a {@code Stream} of {@link DataOnMemory} objects.
+     * @return a {@link SufficientStatistics} object.
+     */
+    protected SufficientStatistics accumulateSufficientStatistics(Stream<DataOnMemory<DataInstance>> stream) {
+        return stream.collect(efBayesianNetwork::createZeroSufficientStatistics,
+                (sufficientStatistics, batch) -> {
+                    for (DataInstance dataInstance : batch.getList()) {
+                        efBayesianNetwork.accumulateSufficientStatistics(dataInstance, sufficientStatistics);
+                    }
+                },
+                SufficientStatistics::sum);
     }
 
     /**
@@ -20,7 +20,6 @@ import eu.amidst.core.io.BayesianNetworkLoader;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.utils.BayesianNetworkSampler;
 import eu.amidst.core.utils.CompoundVector;
-import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.variables.Variable;
 import eu.amidst.core.variables.Variables;
 
@@ -121,11 +120,11 @@ public class DriftSVB extends SVB{
 
 
 
-            CompoundVector newPrior = Serialization.deepCopy(prior);
+            CompoundVector newPrior = prior.deepCopy();
             newPrior.multiplyBy(1 - lambda);
 
 
-            CompoundVector newPosterior = Serialization.deepCopy(posteriorT_1);
+            CompoundVector newPosterior = posteriorT_1.deepCopy();
             newPosterior.multiplyBy(lambda);
 
 
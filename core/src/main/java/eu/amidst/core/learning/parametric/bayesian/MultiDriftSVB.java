@@ -21,7 +21,6 @@ import eu.amidst.core.io.BayesianNetworkLoader;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.utils.BayesianNetworkSampler;
 import eu.amidst.core.utils.CompoundVector;
-import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.variables.Variable;
 import eu.amidst.core.variables.Variables;
 
@@ -139,11 +138,11 @@ public class MultiDriftSVB extends SVB{
             for (int i = 0; i < lambda.length; i++) {
                 lambda[i] = this.ef_TExpQ[i].getMomentParameters().get(0);
             }
-            CompoundVector newPrior = Serialization.deepCopy(prior);
+            CompoundVector newPrior = prior.deepCopy();
             for (int i = 0; i < lambda.length; i++) {
                 newPrior.getVectorByPosition(i).multiplyBy(1 - lambda[i]);
             }
-            CompoundVector newPosterior = Serialization.deepCopy(posteriorT_1);
+            CompoundVector newPosterior = posteriorT_1.deepCopy();
             for (int i = 0; i < lambda.length; i++) {
                 newPosterior.getVectorByPosition(i).multiplyBy(lambda[i]);
             }
@@ -109,10 +109,11 @@ public class ParallelSVB implements BayesianParameterLearningAlgorithm{
 
         this.SVBEngine.setDAG(this.dag);
         this.SVBEngine.setSeed(this.seed);
-        this.SVBEngine.initLearning();
 
         svbEngines = new SVB[nCores];
 
+        // The engines are copied before being initialized, so only their configuration (and not the compiled
+        // plateau model, which initLearning rebuilds anyway) goes through the serialization round-trip.
         for (int i = 0; i < nCores; i++) {
             svbEngines[i] = Serialization.deepCopy(this.SVBEngine);
             svbEngines[i].initLearning();
@@ -29,7 +29,6 @@ import eu.amidst.core.learning.parametric.bayesian.utils.*;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
 import eu.amidst.core.utils.CompoundVector;
-import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.variables.Assignment;
 import eu.amidst.core.variables.HashMapAssignment;
 import eu.amidst.core.variables.Variable;
@@ -492,7 +491,8 @@ public class SVB implements BayesianParameterLearningAlgorithm, Serializable {
 
         this.initLearning();
 
-        vmp.init();
+        //The plateu may replace the given VMP by an equivalent one (e.g., PlateuVectorizedIIDReplication).
+        ((VMPLocalUpdates) this.getPlateuStructure().getVMP()).init();
 
         CompoundVector posterior = this.getPlateuStructure().getPlateauNaturalParameterPosterior();
 
@@ -516,7 +516,8 @@ public class SVB implements BayesianParameterLearningAlgorithm, Serializable {
 
         this.getPlateuStructure().setEvidence(data.getList());
 
-        vmp.init();
+        //The plateu may replace the given VMP by an equivalent one (e.g., PlateuVectorizedIIDReplication).
+        ((VMPLocalUpdates) this.getPlateuStructure().getVMP()).init();
 
         CompoundVector posterior = this.getPlateuStructure().getPlateauNaturalParameterPosterior();
 
@@ -626,7 +627,7 @@ public class SVB implements BayesianParameterLearningAlgorithm, Serializable {
         }
 
         public static BatchOutput sumStateless(BatchOutput batchOutput1, BatchOutput batchOutput2){
-            BatchOutput sum = Serialization.deepCopy(batchOutput2);
+            BatchOutput sum = new BatchOutput(batchOutput2.getVector().deepCopy(), batchOutput2.getElbo());
             sum.getVector().sum(batchOutput1.getVector());
             sum.setElbo(batchOutput2.getElbo()+batchOutput1.getElbo());
             return sum;
@@ -23,7 +23,6 @@ import eu.amidst.core.learning.parametric.bayesian.utils.VMPLocalUpdates;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
 import eu.amidst.core.utils.CompoundVector;
-import eu.amidst.core.utils.Serialization;
 import eu.amidst.core.variables.Variable;
 
 import java.io.Serializable;
@@ -151,7 +150,7 @@ public class StochasticVI implements BayesianParameterLearningAlgorithm, Seriali
 
         prior = svb.getNaturalParameterPrior();
 
-        initialPosterior = Serialization.deepCopy(this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior());
+        initialPosterior = this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior().deepCopy();
         initialPosterior.sum(prior);
 
         this.svb.updateNaturalParameterPosteriors(initialPosterior);
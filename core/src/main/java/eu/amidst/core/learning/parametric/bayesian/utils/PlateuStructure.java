@@ -167,6 +167,16 @@ public abstract class PlateuStructure implements Serializable {
         this.vmp.setSeed(seed);
     }
 
+    /**
+     * Sets the parallel mode for the {@link VMP} object of this PlateuStructure, so that the replicated nodes are
+     * updated concurrently at each iteration.
+     *
+     * @param parallelMode a {@code boolean} that represents the parallel mode value to be set.
+     */
+    public void setParallelMode(boolean parallelMode) {
+        this.vmp.setParallelMode(parallelMode);
+    }
+
     /**
      * Returns the {@link EF_LearningBayesianNetwork} of this PlateuStructure.
      *
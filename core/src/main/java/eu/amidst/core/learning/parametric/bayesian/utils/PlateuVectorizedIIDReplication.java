@@ -0,0 +1,652 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+
+package eu.amidst.core.learning.parametric.bayesian.utils;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.exponentialfamily.EF_ConditionalDistribution;
+import eu.amidst.core.exponentialfamily.EF_UnivariateDistribution;
+import eu.amidst.core.exponentialfamily.MomentParameters;
+import eu.amidst.core.exponentialfamily.NaturalParameters;
+import eu.amidst.core.exponentialfamily.SufficientStatistics;
+import eu.amidst.core.inference.messagepassing.Message;
+import eu.amidst.core.inference.messagepassing.Node;
+import eu.amidst.core.inference.messagepassing.VMP;
+import eu.amidst.core.utils.CompoundVector;
+import eu.amidst.core.utils.Utils;
+import eu.amidst.core.variables.Variable;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This class extends the abstract class {@link PlateuStructure} and defines a Plateu IID Replication where the
+ * replicated variables are not stored as {@link Node}s. The natural and moment parameters of the posteriors of all the
+ * replications of a replicated variable are stored in two contiguous arrays of {@code double}, and only the
+ * non-replicated variables (i.e., the parameters) are kept as nodes of the {@link VMP} object.
+ *
+ * <p> The messages of a replication are computed by loading its state in a set of template nodes, one per replicated
+ * variable. The replications are split in blocks, each one with its own template nodes, which are processed
+ * concurrently. Each iteration performs the same updates as {@link PlateuIIDReplication}: first the replicated
+ * variables of every replication, and then the non-replicated variables. </p>
+ *
+ * <p> The updates are always driven by the blocks of replications: any {@link VMP} given to {@link #setVmp(VMP)} is
+ * replaced by an equivalent one with the same settings, which performs the local updates of {@link VMPLocalUpdates}
+ * when the given one is an instance of that class. </p>
+ *
+ * <p> The replicated variables cannot be accessed through {@link #getNodeOfVar(Variable, int)} or
+ * {@link #getReplicatedNodes()}, their posteriors are given by {@link #getEFVariablePosterior(Variable, int)}. Hence,
+ * this plateau cannot be used by algorithms setting a different prior for the replicated variables of each
+ * replication. </p>
+ */
+public class PlateuVectorizedIIDReplication extends PlateuStructure {
+
+    static org.slf4j.Logger logger = LoggerFactory.getLogger(PlateuVectorizedIIDReplication.class);
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = -2329837403519520731L;
+
+    /** Represents the number of used CPU cores, initialized to -1 (i.e., all the available ones). */
+    protected int nCores = -1;
+
+    /** Represents the replicated variables, in the order of the distribution list. */
+    transient protected List<Variable> replicatedVariablesList;
+
+    /** Represents the size of the parameter vectors of the posterior of each replicated variable. */
+    transient protected int[] sizes;
+
+    /** Represents the natural parameters of the posterior of each replicated variable, stored by replication. */
+    transient protected double[][] naturalParameters;
+
+    /** Represents the moment parameters of the posterior of each replicated variable, or the sufficient statistics of its value when observed. */
+    transient protected double[][] momentParameters;
+
+    /** Indicates, for each replicated variable, whether it is observed in each replication or not. */
+    transient protected boolean[][] observed;
+
+    /** Represents the number of replications with evidence. */
+    transient protected int nActiveReplications = 0;
+
+    /** Represents the template nodes of each block, indexed by the position of the replicated variable. */
+    transient protected Node[][] templates;
+
+    /** Represents the sufficient statistics used by each template node when it is observed. */
+    transient protected SufficientStatistics[][] templateStatistics;
+
+    /** Represents, for each replicated variable, its position and the positions of its replicated parents. */
+    transient protected int[][] families;
+
+    /** Represents, for each non-replicated node, the positions of its replicated children. */
+    transient protected int[][] replicatedChildren;
+
+    /**
+     * Empty builder.
+     */
+    public PlateuVectorizedIIDReplication() {
+        super();
+        this.vmp = new VectorizedVMP(this);
+    }
+
+    /**
+     * Builder which initially specify a list of non-replicated variables.
+     *
+     * @param initialNonReplicatedVariablesList list of variables
+     */
+    public PlateuVectorizedIIDReplication(List<Variable> initialNonReplicatedVariablesList) {
+        super(initialNonReplicatedVariablesList);
+        this.vmp = new VectorizedVMP(this);
+    }
+
+    /**
+     * Sets the number of CPU cores, i.e., the number of blocks in which the replications are split.
+     *
+     * @param nCores the number of CPU cores.
+     */
+    public void setNCores(int nCores) {
+        this.nCores = nCores;
+    }
+
+    /**
+     * Sets the {@link VMP} object of this plateau. Unless it is a {@link VectorizedVMP} of this plateau, the given
+     * {@link VMP} is replaced by a {@link VectorizedVMP} with its settings.
+     *
+     * @param vmp a {@link VMP} object.
+     */
+    @Override
+    public void setVmp(VMP vmp) {
+        if (vmp instanceof VectorizedVMP && ((VectorizedVMP) vmp).plateu == this) {
+            this.vmp = vmp;
+        } else {
+            this.vmp = new VectorizedVMP(this, vmp);
+        }
+
+        if (this.templates != null)
+            this.vmp.setNodes(new ArrayList<>(nonReplictedNodes));
+    }
+
+    /**
+     * Replicates this model.
+     */
+    @Override
+    public void replicateModel() {
+
+        nonReplictedNodes = ef_learningmodel.getDistributionList().stream()
+                .filter(dist -> isNonReplicatedVar(dist.getVariable()))
+                .map(dist -> {
+                    Node node = new Node(dist);
+                    nonReplicatedVarsToNode.put(dist.getVariable(), node);
+                    return node;
+                })
+                .collect(Collectors.toList());
+
+        List<EF_ConditionalDistribution> replicatedDists = ef_learningmodel.getDistributionList().stream()
+                .filter(dist -> isReplicatedVar(dist.getVariable()))
+                .collect(Collectors.toList());
+
+        this.replicatedVariablesList = replicatedDists.stream().map(dist -> dist.getVariable()).collect(Collectors.toList());
+        Map<Variable, Integer> positions = new HashMap<>();
+        for (int i = 0; i < this.replicatedVariablesList.size(); i++) {
+            positions.put(this.replicatedVariablesList.get(i), i);
+        }
+
+        int nBlocks = Math.max(1, Math.min((this.nCores == -1) ? Runtime.getRuntime().availableProcessors() : this.nCores, nReplications));
+        int nVars = replicatedDists.size();
+        this.templates = new Node[nBlocks][nVars];
+        this.templateStatistics = new SufficientStatistics[nBlocks][nVars];
+        for (int b = 0; b < nBlocks; b++) {
+            for (int i = 0; i < nVars; i++) {
+                this.templates[b][i] = new Node(replicatedDists.get(i));
+            }
+            for (int i = 0; i < nVars; i++) {
+                Node template = this.templates[b][i];
+                final int block = b;
+                template.setParents(template.getPDist().getConditioningVariables().stream()
+                        .map(var -> isNonReplicatedVar(var) ? this.nonReplicatedVarsToNode.get(var) : this.templates[block][positions.get(var)])
+                        .collect(Collectors.toList()));
+                template.getPDist().getConditioningVariables().stream()
+                        .filter(var -> isReplicatedVar(var))
+                        .forEach(var -> this.templates[block][positions.get(var)].getChildren().add(template));
+                this.templateStatistics[b][i] = template.getQDist().createZeroSufficientStatistics();
+            }
+        }
+
+        this.sizes = new int[nVars];
+        this.naturalParameters = new double[nVars][];
+        this.momentParameters = new double[nVars][];
+        this.observed = new boolean[nVars][];
+        this.families = new int[nVars][];
+        for (int i = 0; i < nVars; i++) {
+            this.sizes[i] = this.templates[0][i].getQDist().sizeOfSufficientStatistics();
+            this.naturalParameters[i] = new double[nReplications * this.sizes[i]];
+            this.momentParameters[i] = new double[nReplications * this.sizes[i]];
+            this.observed[i] = new boolean[nReplications];
+
+            List<Integer> family = new ArrayList<>();
+            family.add(i);
+            replicatedDists.get(i).getConditioningVariables().stream()
+                    .filter(var -> isReplicatedVar(var))
+                    .forEach(var -> family.add(positions.get(var)));
+            this.families[i] = family.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.replicatedChildren = new int[nonReplictedNodes.size()][];
+        for (int k = 0; k < nonReplictedNodes.size(); k++) {
+            Variable var = nonReplictedNodes.get(k).getMainVariable();
+            this.replicatedChildren[k] = IntStream.range(0, nVars)
+                    .filter(i -> replicatedDists.get(i).getConditioningVariables().contains(var))
+                    .toArray();
+        }
+
+        //As the replicated nodes of PlateuIIDReplication, all the replications are active until the evidence is set.
+        this.nActiveReplications = nReplications;
+        this.vmp.setNodes(new ArrayList<>(nonReplictedNodes));
+    }
+
+    /**
+     * Resets the posteriors of all the replications and of the non-replicated nodes, drawing them in the same order as
+     * {@link PlateuIIDReplication}.
+     */
+    @Override
+    public void resetQs() {
+        Random random = this.vmp.getRandom();
+        for (int r = 0; r < nReplications; r++) {
+            for (int i = 0; i < this.replicatedVariablesList.size(); i++) {
+                Node template = this.templates[0][i];
+                template.setObservedSufficientStatistics(null);
+                template.resetQDist(random);
+                this.store(template.getQDist(), i, r, !this.observed[i][r]);
+            }
+        }
+
+        for (Node node : nonReplictedNodes) {
+            node.resetQDist(random);
+        }
+    }
+
+    /**
+     * Sets the evidence for this PlateuStructure.
+     *
+     * @param data a {@code List} of {@link DataInstance}.
+     */
+    @Override
+    public void setEvidence(List<? extends DataInstance> data) {
+        if (data.size() > nReplications)
+            throw new IllegalArgumentException("The size of the data is bigger than the number of repetitions");
+
+        for (int i = 0; i < this.replicatedVariablesList.size(); i++) {
+            Variable var = this.replicatedVariablesList.get(i);
+            EF_UnivariateDistribution qDist = var.getDistributionType().newEFUnivariateDistribution();
+            int size = this.sizes[i];
+            for (int r = 0; r < nReplications; r++) {
+                double value = (r < data.size()) ? data.get(r).getValue(var) : Utils.missingValue();
+                if (!Utils.isMissingValue(value)) {
+                    SufficientStatistics statistics = qDist.getSufficientStatistics(value);
+                    for (int k = 0; k < size; k++) {
+                        this.momentParameters[i][r * size + k] = statistics.get(k);
+                    }
+                    this.observed[i][r] = true;
+                } else if (this.observed[i][r]) {
+                    //The posterior is recovered from its natural parameters, which are kept while observed.
+                    NaturalParameters natural = qDist.getNaturalParameters();
+                    for (int k = 0; k < size; k++) {
+                        natural.set(k, this.naturalParameters[i][r * size + k]);
+                    }
+                    qDist.updateMomentFromNaturalParameters();
+                    this.store(qDist, i, r, true);
+                    this.observed[i][r] = false;
+                }
+            }
+        }
+        this.nActiveReplications = data.size();
+
+        //Non-replicated nodes can have evidende, which is taken from the first data sample in the list
+        for (Node nonReplictedNode : this.nonReplictedNodes) {
+            nonReplictedNode.setAssignment(data.get(0));
+        }
+    }
+
+    /**
+     * Returns the {@link Node} for a given non-replicated variable.
+     *
+     * @param variable a {@link Variable} object.
+     * @param slice    an {@code int} that represents the slice value.
+     * @return a {@link Node} object.
+     * @throws UnsupportedOperationException if the variable is replicated.
+     */
+    @Override
+    public Node getNodeOfVar(Variable variable, int slice) {
+        if (isNonReplicatedVar(variable))
+            return this.nonReplicatedVarsToNode.get(variable);
+        else
+            throw new UnsupportedOperationException("Replicated variables are not stored as nodes. Use getEFVariablePosterior instead.");
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws UnsupportedOperationException as replicated variables are not stored as nodes.
+     */
+    @Override
+    public Stream<Node> getReplicatedNodes() {
+        throw new UnsupportedOperationException("Replicated variables are not stored as nodes. Use getEFVariablePosterior instead.");
+    }
+
+    /**
+     * Returns a copy of the exponential family posterior of a given replicated variable in a given slice.
+     *
+     * @param var   a given {@link Variable} object.
+     * @param slice an {@code int} that represents the slice value.
+     * @param <E>   a subtype distribution of {@link EF_UnivariateDistribution}.
+     * @return an {@link EF_UnivariateDistribution} object, or {@code null} if the variable is observed in the slice.
+     */
+    @Override
+    public <E extends EF_UnivariateDistribution> E getEFVariablePosterior(Variable var, int slice) {
+        if (this.nonReplicatedVariablesList.contains(var) || var.isParameterVariable())
+            throw new IllegalArgumentException("Only replicated variables can be queried");
+
+        int i = this.replicatedVariablesList.indexOf(var);
+        if (this.observed[i][slice])
+            return null;
+
+        EF_UnivariateDistribution qDist = var.getDistributionType().newEFUnivariateDistribution();
+        this.load(qDist, i, slice);
+        return (E) qDist;
+    }
+
+    /**
+     * Updates the posteriors of the non-observed replicated variables of all the replications with evidence.
+     *
+     * @return {@code true} if all the updated nodes are done, {@code false} otherwise.
+     */
+    boolean updateReplications() {
+        boolean[] blockDone = new boolean[this.templates.length];
+        IntStream.range(0, this.templates.length).parallel().forEach(b -> {
+            Node[] blockTemplates = this.templates[b];
+            blockDone[b] = true;
+            for (int r = this.getFirstReplication(b); r < this.getFirstReplication(b + 1); r++) {
+                for (int i = 0; i < blockTemplates.length; i++) {
+                    this.load(b, i, r);
+                }
+                for (int i = 0; i < blockTemplates.length; i++) {
+                    if (this.observed[i][r])
+                        continue;
+
+                    Node node = blockTemplates[i];
+                    Message<NaturalParameters> selfMessage = this.vmp.newSelfMessage(node);
+                    for (Node child : node.getChildren()) {
+                        selfMessage.combine(this.vmp.newMessageToParent(child, node));
+                    }
+                    this.vmp.updateCombinedMessage(node, selfMessage);
+                    this.store(node.getQDist(), i, r, true);
+                    blockDone[b] &= node.isDone();
+                }
+            }
+        });
+
+        boolean done = true;
+        for (boolean d : blockDone) {
+            done &= d;
+        }
+        return done;
+    }
+
+    /**
+     * Updates the posteriors of the active and non-observed non-replicated nodes, in the order of the distribution list.
+     */
+    void updateNonReplicatedNodes() {
+        this.updateNonReplicatedNodes(null);
+    }
+
+    /**
+     * Updates the posteriors of the active and non-observed non-replicated nodes, in the order of the distribution list.
+     * If a posterior is given, the nodes are updated as in {@link VMPLocalUpdates}: each one from the current
+     * posteriors of the other ones, so its new natural parameters are stored in the given posterior and it keeps the
+     * current ones.
+     *
+     * @param posterior a {@link CompoundVector} with the natural parameters of the non-replicated nodes, or {@code null}.
+     */
+    void updateNonReplicatedNodes(CompoundVector posterior) {
+        for (int k = 0; k < nonReplictedNodes.size(); k++) {
+            Node node = nonReplictedNodes.get(k);
+            if (!node.isActive() || node.isObserved())
+                continue;
+
+            Message<NaturalParameters> selfMessage = this.vmp.newSelfMessage(node);
+
+            int[] children = this.replicatedChildren[k];
+            Message<NaturalParameters>[] blockMessages = new Message[this.templates.length];
+            IntStream.range(0, this.templates.length).parallel().forEach(b -> {
+                for (int r = this.getFirstReplication(b); r < this.getFirstReplication(b + 1); r++) {
+                    for (int i : children) {
+                        for (int member : this.families[i]) {
+                            this.load(b, member, r);
+                        }
+                        Message<NaturalParameters> message = this.vmp.newMessageToParent(this.templates[b][i], node);
+                        blockMessages[b] = (blockMessages[b] == null) ? message : Message.combineNonStateless(blockMessages[b], message);
+                    }
+                }
+            });
+
+            for (Message<NaturalParameters> message : blockMessages) {
+                if (message != null)
+                    selfMessage.combine(message);
+            }
+
+            if (posterior == null) {
+                this.vmp.updateCombinedMessage(node, selfMessage);
+            } else {
+                NaturalParameters current = node.getQDist().getNaturalParameters();
+                this.vmp.updateCombinedMessage(node, selfMessage);
+                posterior.setVectorByPosition(k, node.getQDist().getNaturalParameters());
+                node.getQDist().setNaturalParameters(current);
+            }
+        }
+    }
+
+    /**
+     * Computes the evidence lower bound of the replications with evidence and the active non-replicated nodes.
+     *
+     * @return the log probability of the evidence.
+     */
+    double computeLogProbabilityOfEvidence() {
+        double[] blockELBOs = new double[this.templates.length];
+        IntStream.range(0, this.templates.length).parallel().forEach(b -> {
+            Node[] blockTemplates = this.templates[b];
+            for (int r = this.getFirstReplication(b); r < this.getFirstReplication(b + 1); r++) {
+                for (int i = 0; i < blockTemplates.length; i++) {
+                    this.load(b, i, r);
+                }
+                for (Node node : blockTemplates) {
+                    blockELBOs[b] += this.vmp.computeELBO(node);
+                }
+            }
+        });
+
+        double elbo = 0;
+        for (double blockELBO : blockELBOs) {
+            elbo += blockELBO;
+        }
+        for (Node node : nonReplictedNodes) {
+            if (node.isActive())
+                elbo += this.vmp.computeELBO(node);
+        }
+        return elbo;
+    }
+
+    /**
+     * Returns the first replication with evidence processed by a given block.
+     *
+     * @param block the index of the block.
+     * @return the index of the replication.
+     */
+    private int getFirstReplication(int block) {
+        return (int) ((long) block * this.nActiveReplications / this.templates.length);
+    }
+
+    /**
+     * Loads the state of a replicated variable in a given replication into the corresponding template node of a block.
+     *
+     * @param block       the index of the block.
+     * @param variable    the position of the replicated variable.
+     * @param replication the index of the replication.
+     */
+    private void load(int block, int variable, int replication) {
+        Node template = this.templates[block][variable];
+        if (this.observed[variable][replication]) {
+            SufficientStatistics statistics = this.templateStatistics[block][variable];
+            int size = this.sizes[variable];
+            for (int k = 0; k < size; k++) {
+                statistics.set(k, this.momentParameters[variable][replication * size + k]);
+            }
+            template.setObservedSufficientStatistics(statistics);
+        } else {
+            template.setObservedSufficientStatistics(null);
+            this.load(template.getQDist(), variable, replication);
+        }
+    }
+
+    /**
+     * Copies the posterior of a replicated variable in a given replication into a given distribution.
+     *
+     * @param qDist       an {@link EF_UnivariateDistribution} object.
+     * @param variable    the position of the replicated variable.
+     * @param replication the index of the replication.
+     */
+    private void load(EF_UnivariateDistribution qDist, int variable, int replication) {
+        NaturalParameters natural = qDist.getNaturalParameters();
+        MomentParameters moments = qDist.getMomentParameters();
+        int size = this.sizes[variable];
+        for (int k = 0; k < size; k++) {
+            natural.set(k, this.naturalParameters[variable][replication * size + k]);
+            moments.set(k, this.momentParameters[variable][replication * size + k]);
+        }
+    }
+
+    /**
+     * Copies a given distribution into the posterior of a replicated variable in a given replication.
+     *
+     * @param qDist       an {@link EF_UnivariateDistribution} object.
+     * @param variable    the position of the replicated variable.
+     * @param replication the index of the replication.
+     * @param moments     indicates if the moment parameters are also copied.
+     */
+    private void store(EF_UnivariateDistribution qDist, int variable, int replication, boolean moments) {
+        NaturalParameters natural = qDist.getNaturalParameters();
+        int size = this.sizes[variable];
+        for (int k = 0; k < size; k++) {
+            this.naturalParameters[variable][replication * size + k] = natural.get(k);
+        }
+        if (moments) {
+            MomentParameters momentParameters = qDist.getMomentParameters();
+            for (int k = 0; k < size; k++) {
+                this.momentParameters[variable][replication * size + k] = momentParameters.get(k);
+            }
+        }
+    }
+
+    /**
+     * This class extends {@link VMPLocalUpdates} to iterate over the arrays of a {@link PlateuVectorizedIIDReplication}
+     * instead of a list of nodes. It either performs the global updates of {@link VMP} or the local ones of
+     * {@link VMPLocalUpdates}.
+     */
+    static class VectorizedVMP extends VMPLocalUpdates {
+
+        /** Represents the serial version ID for serializing the object. */
+        private static final long serialVersionUID = 5817348907614201836L;
+
+        /** Represents the plateau whose replications are updated. */
+        PlateuVectorizedIIDReplication plateu;
+
+        /** Indicates whether the local updates of {@link VMPLocalUpdates} are performed or not. */
+        boolean localUpdates = false;
+
+        /**
+         * Creates a new VectorizedVMP for a given plateau.
+         *
+         * @param plateu a {@link PlateuVectorizedIIDReplication} object.
+         */
+        VectorizedVMP(PlateuVectorizedIIDReplication plateu) {
+            super(plateu);
+            this.plateu = plateu;
+        }
+
+        /**
+         * Creates a new VectorizedVMP for a given plateau with the settings of a given {@link VMP}.
+         *
+         * @param plateu a {@link PlateuVectorizedIIDReplication} object.
+         * @param vmp    a {@link VMP} object whose settings are copied.
+         */
+        VectorizedVMP(PlateuVectorizedIIDReplication plateu, VMP vmp) {
+            this(plateu);
+            this.localUpdates = (vmp instanceof VectorizedVMP) ? ((VectorizedVMP) vmp).localUpdates : vmp instanceof VMPLocalUpdates;
+            this.random = vmp.getRandom();
+            this.setMaxIter(vmp.getMaxIter());
+            this.setThreshold(vmp.getThreshold());
+            this.setOutput(vmp.isOutput());
+            this.setParallelMode(vmp.isParallelMode());
+            this.setConvergenceCheckInterval(vmp.getConvergenceCheckInterval());
+        }
+
+        /**
+         * Updates the non-replicated nodes with the messages of the current posteriors of the replications.
+         */
+        @Override
+        public void init() {
+            CompoundVector posterior = this.plateu.getPlateauNaturalParameterPosterior();
+            this.plateu.updateNonReplicatedNodes(posterior);
+            this.plateu.updateNaturalParameterPosteriors(posterior);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void runInference() {
+
+            if (this.localUpdates) {
+                this.runLocalInference();
+                return;
+            }
+
+            nIter = 0;
+
+            boolean convergence = false;
+            local_elbo = Double.NEGATIVE_INFINITY;
+            local_iter = 0;
+            while (!convergence && (local_iter++) < maxIter) {
+
+                this.plateu.updateReplications();
+                this.plateu.updateNonReplicatedNodes();
+
+                if (local_iter % convergenceCheckInterval == 0 || local_iter >= maxIter)
+                    convergence = this.testConvergence();
+            }
+
+            probOfEvidence = local_elbo;
+            if (output) {
+                System.out.println("N Iter: " + local_iter + ", elbo:" + local_elbo);
+                PlateuVectorizedIIDReplication.logger.info("N Iter: {}, elbo: {}", local_iter, local_elbo);
+            }
+            nIter = local_iter;
+        }
+
+        /**
+         * Updates the replications until convergence, and then the non-replicated nodes once, as
+         * {@link VMPLocalUpdates#runInference()}.
+         */
+        private void runLocalInference() {
+
+            nIter = 0;
+
+            boolean convergence = false;
+            local_elbo = Double.NEGATIVE_INFINITY;
+            local_iter = 0;
+
+            this.testConvergence();
+
+            while (!convergence && (local_iter++) < maxIter) {
+                boolean done = this.plateu.updateReplications();
+                convergence = this.testConvergence() || done;
+            }
+
+            this.init();
+
+            probOfEvidence = local_elbo;
+            if (output) {
+                System.out.println("N Iter: " + local_iter + ", elbo:" + local_elbo);
+                PlateuVectorizedIIDReplication.logger.info("N Iter: {}, elbo: {}", local_iter, local_elbo);
+            }
+            nIter = local_iter;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double computeLogProbabilityOfEvidence() {
+            return this.plateu.computeLogProbabilityOfEvidence();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public double updateLogProbabilityOfEvidence() {
+            return this.plateu.computeLogProbabilityOfEvidence();
+        }
+    }
+}
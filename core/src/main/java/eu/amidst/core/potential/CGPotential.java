@@ -0,0 +1,709 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.potential;
+
+import eu.amidst.core.utils.MultinomialIndex;
+import eu.amidst.core.variables.StateSpaceTypeEnum;
+import eu.amidst.core.variables.Variable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the interface {@link Potential} and defines a conditional Gaussian potential in canonical
+ * form over a set of multinomial and normal variables.
+ *
+ * <p> For each configuration of the multinomial variables, the potential is {@code exp(g + h'x - x'Kx/2)}, where
+ * {@code x} is the vector of normal variables. The values of {@code g}, {@code h} and {@code K} of all the
+ * configurations are stored in flat {@code double} arrays, and the configurations are indexed following the
+ * criteria implemented in {@link MultinomialIndex}. A potential with no normal variables is a plain discrete table
+ * stored in log-scale, so that a configuration with zero probability has {@code g = -Infinity}. </p>
+ *
+ * <p> Besides the generic operations of the interface {@link Potential}, this class provides the index-based
+ * operations used by {@link eu.amidst.core.inference.JunctionTreeInference}, where the mappings between
+ * configurations and positions are computed once and reused across evidence. </p>
+ */
+public class CGPotential implements Potential, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 4230811386237125614L;
+
+    /** Represents the value of log(2*PI). */
+    private static final double LOG_2PI = Math.log(2 * Math.PI);
+
+    /** Represents the list of multinomial variables of this potential. */
+    private List<Variable> discreteVariables;
+
+    /** Represents the list of normal variables of this potential. */
+    private List<Variable> continuousVariables;
+
+    /** Represents the number of configurations of the multinomial variables. */
+    private int nConfigurations;
+
+    /** Represents the number of normal variables. */
+    private int dimension;
+
+    /** Represents the log-scale constant {@code g} of each configuration. */
+    private double[] logG;
+
+    /** Represents the linear term {@code h} of each configuration, stored row by row. */
+    private double[] h;
+
+    /** Represents the precision term {@code K} of each configuration, stored row by row. */
+    private double[] k;
+
+    /**
+     * Creates a new CGPotential equal to one for a given list of variables.
+     * @param variables a list of multinomial and normal variables.
+     */
+    public CGPotential(List<Variable> variables) {
+        this.setVariables(variables);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setVariables(List variables) {
+        this.discreteVariables = new ArrayList<>();
+        this.continuousVariables = new ArrayList<>();
+        for (Object object : variables) {
+            Variable var = (Variable) object;
+            if (var.getStateSpaceTypeEnum() == StateSpaceTypeEnum.FINITE_SET)
+                this.discreteVariables.add(var);
+            else if (var.isNormal())
+                this.continuousVariables.add(var);
+            else
+                throw new IllegalArgumentException("Variable " + var.getName() + " is neither multinomial nor normal.");
+        }
+        this.nConfigurations = MultinomialIndex.getNumberOfPossibleAssignments(this.discreteVariables);
+        this.dimension = this.continuousVariables.size();
+        this.logG = new double[this.nConfigurations];
+        this.h = new double[this.nConfigurations * this.dimension];
+        this.k = new double[this.nConfigurations * this.dimension * this.dimension];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Variable> getVariables() {
+        List<Variable> variables = new ArrayList<>(this.discreteVariables);
+        variables.addAll(this.continuousVariables);
+        return variables;
+    }
+
+    /**
+     * Returns the list of multinomial variables of this CGPotential.
+     * @return the list of multinomial variables.
+     */
+    public List<Variable> getDiscreteVariables() {
+        return discreteVariables;
+    }
+
+    /**
+     * Returns the list of normal variables of this CGPotential.
+     * @return the list of normal variables.
+     */
+    public List<Variable> getContinuousVariables() {
+        return continuousVariables;
+    }
+
+    /**
+     * Returns the number of configurations of the multinomial variables of this CGPotential.
+     * @return the number of configurations.
+     */
+    public int getNumberOfConfigurations() {
+        return nConfigurations;
+    }
+
+    /**
+     * Returns the number of normal variables of this CGPotential.
+     * @return the number of normal variables.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the log-scale constant of a given configuration.
+     * @param config the index of a configuration of the multinomial variables.
+     * @return the log-scale constant {@code g}.
+     */
+    public double getLogG(int config) {
+        return this.logG[config];
+    }
+
+    /**
+     * Sets this CGPotential equal to one.
+     */
+    public void setUnity() {
+        Arrays.fill(this.logG, 0);
+        Arrays.fill(this.h, 0);
+        Arrays.fill(this.k, 0);
+    }
+
+    /**
+     * Copies the values of a CGPotential defined over the same variables.
+     * @param other a {@link CGPotential} object.
+     */
+    public void copyFrom(CGPotential other) {
+        System.arraycopy(other.logG, 0, this.logG, 0, this.logG.length);
+        System.arraycopy(other.h, 0, this.h, 0, this.h.length);
+        System.arraycopy(other.k, 0, this.k, 0, this.k.length);
+    }
+
+    /**
+     * Adds a value to the log-scale constant of a given configuration.
+     * @param config the index of a configuration of the multinomial variables.
+     * @param value the value to be added, which may be {@code -Infinity}.
+     */
+    public void addToLogG(int config, double value) {
+        this.logG[config] += value;
+    }
+
+    /**
+     * Multiplies a given configuration by the density of a linear Gaussian term, i.e., by
+     * {@code N(w'x; offset, variance)}, where {@code x} are the normal variables at the given positions.
+     * @param config the index of a configuration of the multinomial variables.
+     * @param positions the positions of the normal variables involved in the term.
+     * @param weights the weights of these normal variables.
+     * @param nPositions the number of positions to be used.
+     * @param offset the mean of the term.
+     * @param variance the variance of the term.
+     */
+    public void addLinearGaussian(int config, int[] positions, double[] weights, int nPositions, double offset, double variance) {
+        int d = this.dimension;
+        this.logG[config] += -0.5 * (LOG_2PI + Math.log(variance)) - 0.5 * offset * offset / variance;
+        for (int i = 0; i < nPositions; i++) {
+            int pi = positions[i];
+            this.h[config * d + pi] += offset * weights[i] / variance;
+            for (int j = 0; j < nPositions; j++) {
+                this.k[(config * d + pi) * d + positions[j]] += weights[i] * weights[j] / variance;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The given potential must be a {@link CGPotential} whose variables are included in this one.
+     */
+    @Override
+    public void combine(Potential pot) {
+        CGPotential other = (CGPotential) pot;
+        if (!this.getVariables().containsAll(other.getVariables()))
+            throw new IllegalArgumentException("The variables of the combined potential must be included in this potential.");
+        this.multiply(other, getConfigurationMap(this.discreteVariables, other.discreteVariables),
+                getPositions(this.continuousVariables, other.continuousVariables));
+    }
+
+    /**
+     * {@inheritDoc}
+     * This CGPotential is marginalized onto the given variables. When multinomial variables are summed out from a
+     * potential with remaining normal variables, the result is the weak marginal, i.e., the mixture of Gaussians of
+     * each configuration is collapsed into a single Gaussian with the same first and second moments.
+     */
+    @Override
+    public void marginalize(List variables) {
+        List<Variable> kept = new ArrayList<>();
+        for (Object object : variables) {
+            if (this.discreteVariables.contains(object) || this.continuousVariables.contains(object))
+                kept.add((Variable) object);
+        }
+        CGPotential target = new CGPotential(kept);
+
+        int[] keepSource = getPositions(this.continuousVariables, target.continuousVariables);
+        int[] keepTarget = new int[target.dimension];
+        for (int i = 0; i < keepTarget.length; i++) {
+            keepTarget[i] = i;
+        }
+        int[] integrate = new int[this.dimension - target.dimension];
+        int n = 0;
+        for (int i = 0; i < this.dimension; i++) {
+            if (!target.continuousVariables.contains(this.continuousVariables.get(i)))
+                integrate[n++] = i;
+        }
+
+        this.marginalize(target, getConfigurationMap(this.discreteVariables, target.discreteVariables),
+                integrate, keepSource, keepTarget);
+
+        this.discreteVariables = target.discreteVariables;
+        this.continuousVariables = target.continuousVariables;
+        this.nConfigurations = target.nConfigurations;
+        this.dimension = target.dimension;
+        this.logG = target.logG;
+        this.h = target.h;
+        this.k = target.k;
+    }
+
+    /**
+     * Multiplies this CGPotential by another one defined over a subset of its variables.
+     * @param other a {@link CGPotential} object.
+     * @param configMap the configuration of {@code other} for each configuration of this potential.
+     * @param dimMap the position in this potential of each normal variable of {@code other}.
+     */
+    public void multiply(CGPotential other, int[] configMap, int[] dimMap) {
+        int d = this.dimension;
+        int od = other.dimension;
+        for (int c = 0; c < this.nConfigurations; c++) {
+            int oc = configMap[c];
+            this.logG[c] += other.logG[oc];
+            for (int i = 0; i < od; i++) {
+                int row = c * d + dimMap[i];
+                this.h[row] += other.h[oc * od + i];
+                for (int j = 0; j < od; j++) {
+                    this.k[row * d + dimMap[j]] += other.k[(oc * od + i) * od + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Divides this CGPotential by another one defined over the same variables. A configuration that is zero in
+     * {@code other} is set to zero in this potential.
+     * @param other a {@link CGPotential} object.
+     */
+    public void divide(CGPotential other) {
+        for (int c = 0; c < this.nConfigurations; c++) {
+            if (other.logG[c] == Double.NEGATIVE_INFINITY)
+                this.logG[c] = Double.NEGATIVE_INFINITY;
+            else
+                this.logG[c] -= other.logG[c];
+        }
+        for (int i = 0; i < this.h.length; i++) {
+            this.h[i] -= other.h[i];
+        }
+        for (int i = 0; i < this.k.length; i++) {
+            this.k[i] -= other.k[i];
+        }
+    }
+
+    /**
+     * Marginalizes this CGPotential onto a target potential, which is overwritten. The normal variables that are
+     * neither integrated nor kept must not appear in any term of this potential (e.g., observed variables).
+     * @param target the {@link CGPotential} where the result is stored.
+     * @param configMap the configuration of {@code target} for each configuration of this potential.
+     * @param integrate the positions of the normal variables to be integrated out.
+     * @param keepSource the positions in this potential of the normal variables to be kept.
+     * @param keepTarget the positions in {@code target} of the normal variables to be kept.
+     */
+    public void marginalize(CGPotential target, int[] configMap, int[] integrate, int[] keepSource, int[] keepTarget) {
+        int ni = integrate.length;
+        int nk = keepSource.length;
+        int td = target.dimension;
+
+        Arrays.fill(target.logG, Double.NEGATIVE_INFINITY);
+        Arrays.fill(target.h, 0);
+        Arrays.fill(target.k, 0);
+
+        double[] hk = new double[nk];
+        double[] kk = new double[nk * nk];
+        double[] workI = new double[ni * ni + ni * (nk + 1)];
+
+        if (nk == 0 || this.nConfigurations == target.nConfigurations) {
+            for (int c = 0; c < this.nConfigurations; c++) {
+                if (this.logG[c] == Double.NEGATIVE_INFINITY)
+                    continue;
+                double g = this.integrate(c, integrate, keepSource, hk, kk, workI);
+                int t = configMap[c];
+                if (nk == 0) {
+                    target.logG[t] = logSum(target.logG[t], g);
+                } else {
+                    target.logG[t] = g;
+                    for (int i = 0; i < nk; i++) {
+                        int row = t * td + keepTarget[i];
+                        target.h[row] = hk[i];
+                        for (int j = 0; j < nk; j++) {
+                            target.k[row * td + keepTarget[j]] = kk[i * nk + j];
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        // Weak marginalization: the moments of each configuration are collapsed by target configuration.
+        double[] logMass = new double[this.nConfigurations];
+        double[] means = new double[this.nConfigurations * nk];
+        double[] covs = new double[this.nConfigurations * nk * nk];
+        double[] workK = new double[nk * nk];
+        double[] maxLogMass = target.logG;
+        for (int c = 0; c < this.nConfigurations; c++) {
+            logMass[c] = Double.NEGATIVE_INFINITY;
+            if (this.logG[c] == Double.NEGATIVE_INFINITY)
+                continue;
+            double g = this.integrate(c, integrate, keepSource, hk, kk, workI);
+            logMass[c] = toMoments(g, hk, kk, nk, means, c * nk, covs, c * nk * nk, workK);
+            maxLogMass[configMap[c]] = Math.max(maxLogMass[configMap[c]], logMass[c]);
+        }
+
+        double[] weights = new double[target.nConfigurations];
+        double[] mean = new double[target.nConfigurations * nk];
+        double[] second = new double[target.nConfigurations * nk * nk];
+        for (int c = 0; c < this.nConfigurations; c++) {
+            if (logMass[c] == Double.NEGATIVE_INFINITY)
+                continue;
+            int t = configMap[c];
+            double w = Math.exp(logMass[c] - maxLogMass[t]);
+            weights[t] += w;
+            for (int i = 0; i < nk; i++) {
+                double mi = means[c * nk + i];
+                mean[t * nk + i] += w * mi;
+                for (int j = 0; j < nk; j++) {
+                    second[(t * nk + i) * nk + j] += w * (covs[(c * nk + i) * nk + j] + mi * means[c * nk + j]);
+                }
+            }
+        }
+
+        double[] cov = new double[nk * nk];
+        double[] mu = new double[nk];
+        for (int t = 0; t < target.nConfigurations; t++) {
+            if (weights[t] == 0)
+                continue;
+            for (int i = 0; i < nk; i++) {
+                mu[i] = mean[t * nk + i] / weights[t];
+            }
+            for (int i = 0; i < nk; i++) {
+                for (int j = 0; j < nk; j++) {
+                    cov[i * nk + j] = second[(t * nk + i) * nk + j] / weights[t] - mu[i] * mu[j];
+                }
+            }
+            double logTotal = maxLogMass[t] + Math.log(weights[t]);
+            target.logG[t] = fromMoments(logTotal, mu, cov, nk, hk, kk, workK);
+            for (int i = 0; i < nk; i++) {
+                int row = t * td + keepTarget[i];
+                target.h[row] = hk[i];
+                for (int j = 0; j < nk; j++) {
+                    target.k[row * td + keepTarget[j]] = kk[i * nk + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the log of the integral of a given configuration over the given normal variables.
+     * @param config the index of a configuration of the multinomial variables.
+     * @param active the positions of the normal variables to be integrated out.
+     * @return the log-mass of the configuration.
+     */
+    public double getLogMass(int config, int[] active) {
+        if (this.logG[config] == Double.NEGATIVE_INFINITY)
+            return Double.NEGATIVE_INFINITY;
+        double[] work = new double[active.length * active.length + active.length];
+        return this.integrate(config, active, new int[0], new double[0], new double[0], work);
+    }
+
+    /**
+     * Computes the mean vector and covariance matrix of a given configuration over the given normal variables.
+     * @param config the index of a configuration of the multinomial variables.
+     * @param active the positions of the normal variables.
+     * @param mean an array where the mean vector is stored.
+     * @param covariance an array where the covariance matrix is stored row by row.
+     * @return the log-mass of the configuration.
+     */
+    public double getMoments(int config, int[] active, double[] mean, double[] covariance) {
+        int n = active.length;
+        if (this.logG[config] == Double.NEGATIVE_INFINITY)
+            return Double.NEGATIVE_INFINITY;
+        double[] hk = new double[n];
+        double[] kk = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            hk[i] = this.h[config * this.dimension + active[i]];
+            for (int j = 0; j < n; j++) {
+                kk[i * n + j] = this.k[(config * this.dimension + active[i]) * this.dimension + active[j]];
+            }
+        }
+        return toMoments(this.logG[config], hk, kk, n, mean, 0, covariance, 0, new double[n * n]);
+    }
+
+    /**
+     * Integrates a configuration of this potential over some normal variables.
+     * @param config the index of a configuration of the multinomial variables.
+     * @param integrate the positions of the normal variables to be integrated out.
+     * @param keep the positions of the normal variables to be kept.
+     * @param hk an array where the linear term over the kept variables is stored.
+     * @param kk an array where the precision term over the kept variables is stored.
+     * @param work a working array of size at least {@code ni*ni + ni*(nk+1)}.
+     * @return the resulting log-scale constant.
+     */
+    private double integrate(int config, int[] integrate, int[] keep, double[] hk, double[] kk, double[] work) {
+        int d = this.dimension;
+        int ni = integrate.length;
+        int nk = keep.length;
+        int base = config * d;
+
+        for (int i = 0; i < nk; i++) {
+            hk[i] = this.h[base + keep[i]];
+            for (int j = 0; j < nk; j++) {
+                kk[i * nk + j] = this.k[(base + keep[i]) * d + keep[j]];
+            }
+        }
+        if (ni == 0)
+            return this.logG[config];
+
+        // work = [L (ni x ni) | K_IK columns followed by h_I, each of length ni]
+        int rhs = ni * ni;
+        for (int i = 0; i < ni; i++) {
+            for (int j = 0; j < ni; j++) {
+                work[i * ni + j] = this.k[(base + integrate[i]) * d + integrate[j]];
+            }
+            for (int j = 0; j < nk; j++) {
+                work[rhs + j * ni + i] = this.k[(base + integrate[i]) * d + keep[j]];
+            }
+            work[rhs + nk * ni + i] = this.h[base + integrate[i]];
+        }
+        if (!cholesky(work, ni))
+            throw new IllegalStateException("The potential is not integrable over the given variables.");
+
+        double logDet = 0;
+        for (int i = 0; i < ni; i++) {
+            logDet += 2 * Math.log(work[i * ni + i]);
+        }
+
+        // After forward substitution, the columns hold L^-1 K_IK and L^-1 h_I.
+        for (int col = 0; col <= nk; col++) {
+            forwardSubstitution(work, ni, work, rhs + col * ni);
+        }
+        double quad = 0;
+        for (int i = 0; i < ni; i++) {
+            quad += work[rhs + nk * ni + i] * work[rhs + nk * ni + i];
+        }
+        for (int a = 0; a < nk; a++) {
+            for (int i = 0; i < ni; i++) {
+                hk[a] -= work[rhs + a * ni + i] * work[rhs + nk * ni + i];
+            }
+            for (int b = 0; b < nk; b++) {
+                double s = 0;
+                for (int i = 0; i < ni; i++) {
+                    s += work[rhs + a * ni + i] * work[rhs + b * ni + i];
+                }
+                kk[a * nk + b] -= s;
+            }
+        }
+        return this.logG[config] + 0.5 * (ni * LOG_2PI - logDet + quad);
+    }
+
+    /**
+     * Converts a Gaussian in canonical form into its moments.
+     * @param g the log-scale constant.
+     * @param hk the linear term.
+     * @param kk the precision term, which is overwritten.
+     * @param n the dimension.
+     * @param mean the array where the mean is stored.
+     * @param meanOffset the offset of the mean in its array.
+     * @param cov the array where the covariance is stored.
+     * @param covOffset the offset of the covariance in its array.
+     * @param work a working array of size at least {@code n*n}.
+     * @return the log-mass of the Gaussian.
+     */
+    private static double toMoments(double g, double[] hk, double[] kk, int n, double[] mean, int meanOffset,
+                                    double[] cov, int covOffset, double[] work) {
+        if (n == 0)
+            return g;
+        System.arraycopy(kk, 0, work, 0, n * n);
+        if (!cholesky(work, n))
+            throw new IllegalStateException("The potential does not define a proper Gaussian density.");
+        double logDet = 0;
+        for (int i = 0; i < n; i++) {
+            logDet += 2 * Math.log(work[i * n + i]);
+        }
+        double[] column = new double[n];
+        for (int j = 0; j < n; j++) {
+            Arrays.fill(column, 0);
+            column[j] = 1;
+            forwardSubstitution(work, n, column, 0);
+            backwardSubstitution(work, n, column, 0);
+            for (int i = 0; i < n; i++) {
+                cov[covOffset + i * n + j] = column[i];
+            }
+        }
+        double quad = 0;
+        for (int i = 0; i < n; i++) {
+            double m = 0;
+            for (int j = 0; j < n; j++) {
+                m += cov[covOffset + i * n + j] * hk[j];
+            }
+            mean[meanOffset + i] = m;
+            quad += m * hk[i];
+        }
+        return g + 0.5 * (n * LOG_2PI - logDet + quad);
+    }
+
+    /**
+     * Converts the moments of a Gaussian with a given log-mass into canonical form.
+     * @param logMass the log-mass of the Gaussian.
+     * @param mu the mean.
+     * @param cov the covariance.
+     * @param n the dimension.
+     * @param hk the array where the linear term is stored.
+     * @param kk the array where the precision term is stored.
+     * @param work a working array of size at least {@code n*n}.
+     * @return the log-scale constant.
+     */
+    private static double fromMoments(double logMass, double[] mu, double[] cov, int n, double[] hk, double[] kk, double[] work) {
+        System.arraycopy(cov, 0, work, 0, n * n);
+        if (!cholesky(work, n))
+            throw new IllegalStateException("The moments do not define a proper Gaussian density.");
+        double logDet = 0;
+        for (int i = 0; i < n; i++) {
+            logDet += 2 * Math.log(work[i * n + i]);
+        }
+        double[] column = new double[n];
+        for (int j = 0; j < n; j++) {
+            Arrays.fill(column, 0);
+            column[j] = 1;
+            forwardSubstitution(work, n, column, 0);
+            backwardSubstitution(work, n, column, 0);
+            for (int i = 0; i < n; i++) {
+                kk[i * n + j] = column[i];
+            }
+        }
+        double quad = 0;
+        for (int i = 0; i < n; i++) {
+            double s = 0;
+            for (int j = 0; j < n; j++) {
+                s += kk[i * n + j] * mu[j];
+            }
+            hk[i] = s;
+            quad += s * mu[i];
+        }
+        return logMass - 0.5 * (n * LOG_2PI + logDet) - 0.5 * quad;
+    }
+
+    /**
+     * Computes in place the Cholesky factor of a symmetric matrix, stored in the lower triangle.
+     * @param a the matrix, stored row by row.
+     * @param n the dimension.
+     * @return true if the matrix is positive definite, false otherwise.
+     */
+    private static boolean cholesky(double[] a, int n) {
+        for (int j = 0; j < n; j++) {
+            double s = a[j * n + j];
+            for (int p = 0; p < j; p++) {
+                s -= a[j * n + p] * a[j * n + p];
+            }
+            if (!(s > 0))
+                return false;
+            double ljj = Math.sqrt(s);
+            a[j * n + j] = ljj;
+            for (int i = j + 1; i < n; i++) {
+                double t = a[i * n + j];
+                for (int p = 0; p < j; p++) {
+                    t -= a[i * n + p] * a[j * n + p];
+                }
+                a[i * n + j] = t / ljj;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves in place {@code L y = b}, where {@code L} is a lower triangular factor.
+     * @param l the factor, stored row by row.
+     * @param n the dimension.
+     * @param b the array holding the right hand side.
+     * @param offset the offset of the right hand side in its array.
+     */
+    private static void forwardSubstitution(double[] l, int n, double[] b, int offset) {
+        for (int i = 0; i < n; i++) {
+            double s = b[offset + i];
+            for (int p = 0; p < i; p++) {
+                s -= l[i * n + p] * b[offset + p];
+            }
+            b[offset + i] = s / l[i * n + i];
+        }
+    }
+
+    /**
+     * Solves in place {@code L' x = y}, where {@code L} is a lower triangular factor.
+     * @param l the factor, stored row by row.
+     * @param n the dimension.
+     * @param b the array holding the right hand side.
+     * @param offset the offset of the right hand side in its array.
+     */
+    private static void backwardSubstitution(double[] l, int n, double[] b, int offset) {
+        for (int i = n - 1; i >= 0; i--) {
+            double s = b[offset + i];
+            for (int p = i + 1; p < n; p++) {
+                s -= l[p * n + i] * b[offset + p];
+            }
+            b[offset + i] = s / l[i * n + i];
+        }
+    }
+
+    /**
+     * Returns the log of the sum of two values given in log-scale.
+     * @param a a value in log-scale.
+     * @param b a value in log-scale.
+     * @return the log of {@code exp(a) + exp(b)}.
+     */
+    public static double logSum(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY)
+            return b;
+        if (b == Double.NEGATIVE_INFINITY)
+            return a;
+        return Math.max(a, b) + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+
+    /**
+     * Returns, for each configuration of a list of multinomial variables, the index of its projection onto a
+     * sublist of these variables.
+     * @param source a list of multinomial variables.
+     * @param target a list of multinomial variables included in {@code source}.
+     * @return an array with the configuration of {@code target} for each configuration of {@code source}.
+     */
+    public static int[] getConfigurationMap(List<Variable> source, List<Variable> target) {
+        int[] sourceStrides = new int[source.size()];
+        int stride = 1;
+        for (int i = 0; i < source.size(); i++) {
+            sourceStrides[i] = stride;
+            stride *= source.get(i).getNumberOfStates();
+        }
+        int[] map = new int[stride];
+        int targetStride = 1;
+        for (Variable var : target) {
+            int pos = source.indexOf(var);
+            if (pos < 0)
+                throw new IllegalArgumentException("Variable " + var.getName() + " is not included in the source list.");
+            int nStates = var.getNumberOfStates();
+            for (int c = 0; c < map.length; c++) {
+                map[c] += ((c / sourceStrides[pos]) % nStates) * targetStride;
+            }
+            targetStride *= nStates;
+        }
+        return map;
+    }
+
+    /**
+     * Returns the positions of some variables in a list.
+     * @param list a list of variables.
+     * @param variables a list of variables included in {@code list}.
+     * @return an array with the position of each variable in {@code list}.
+     */
+    public static int[] getPositions(List<Variable> list, List<Variable> variables) {
+        int[] positions = new int[variables.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = list.indexOf(variables.get(i));
+            if (positions[i] < 0)
+                throw new IllegalArgumentException("Variable " + variables.get(i).getName() + " is not included in the list.");
+        }
+        return positions;
+    }
+}
@@ -70,6 +70,14 @@ public class ArrayVector implements MomentParameters, NaturalParameters, Suffici
         System.arraycopy(vector.toArray(),0,this.array,0,vector.toArray().length);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayVector deepCopy(){
+        return new ArrayVector(this.array.clone());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -115,8 +123,8 @@ public class ArrayVector implements MomentParameters, NaturalParameters, Suffici
         if (vector.getDefaultValue()!=0)
             throw new UnsupportedOperationException("Non supported operation");
 
-        for (Integer i : vector.getNonZeroEntries()) {
-            this.array[i]+=vector.get(i);
+        for (int k = 0; k < vector.getNumberOfNonZeroEntries(); k++) {
+            this.array[vector.getNonZeroIndex(k)]+=vector.getNonZeroValue(k);
         }
 
     }
@@ -199,8 +207,8 @@ public class ArrayVector implements MomentParameters, NaturalParameters, Suffici
             throw new UnsupportedOperationException("Non supported operation");
 
         double sum=0;
-        for (Integer i : vector.getNonZeroEntries()) {
-            sum+=this.array[i]*vector.get(i);
+        for (int k = 0; k < vector.getNumberOfNonZeroEntries(); k++) {
+            sum+=this.array[vector.getNonZeroIndex(k)]*vector.getNonZeroValue(k);
         }
 
         return sum;
@@ -26,8 +26,8 @@ import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.io.BayesianNetworkLoader;
 import eu.amidst.core.io.DataStreamWriter;
 import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.ArrayAssignment;
 import eu.amidst.core.variables.Assignment;
-import eu.amidst.core.variables.HashMapAssignment;
 import eu.amidst.core.variables.Variable;
 
 import javax.sql.rowset.Predicate;
@@ -287,7 +287,7 @@ public class BayesianNetworkSampler implements AmidstOptionsHandler, Serializabl
      */
     private Assignment sample(BayesianNetwork network, List<Variable> causalOrder, Random random) {
 
-        HashMapAssignment assignment = new HashMapAssignment(network.getNumberOfVars() - this.latentVars.size());
+        ArrayAssignment assignment = new ArrayAssignment(network.getNumberOfVars());
         for (Variable var : causalOrder) {
             if(!this.latentVars.containsKey(var)) {
                 double sampledValue = network.getConditionalDistribution(var).getUnivariateDistribution(assignment).sample(random);
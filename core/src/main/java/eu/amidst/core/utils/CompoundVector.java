@@ -213,6 +213,19 @@ public class CompoundVector implements MomentParameters, NaturalParameters, Suff
         this.baseVectors.stream().forEach(w -> w.getVector().copy(vector.getVectorByPosition(w.getIndex())));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompoundVector deepCopy() {
+        CompoundVector copy = new CompoundVector(this.baseVectors.size(), this.size);
+        for (int i = 0; i < this.baseVectors.size(); i++) {
+            Vector vector = this.baseVectors.get(i).getVector();
+            copy.setVectorByPosition(i, (vector == null) ? null : vector.deepCopy());
+        }
+        return copy;
+    }
+
     /**
      * Updates the values of this CompoundVector as a sumNonStateless of its initial values and the input CompoundVector values.
      * @param vector an input CompoundVector.
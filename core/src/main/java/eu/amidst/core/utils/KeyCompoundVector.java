@@ -169,6 +169,16 @@ public class KeyCompoundVector<E> implements MomentParameters, NaturalParameters
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KeyCompoundVector<E> deepCopy() {
+        KeyCompoundVector<E> copy = new KeyCompoundVector<>();
+        this.baseVectors.values().stream().forEach(w -> copy.addVector(w.getIndex(), w.getVector().deepCopy()));
+        return copy;
+    }
+
     /**
      * Updates the values of this KeyCompoundVector as a sumNonStateless of its initial values and the input KeyCompoundVector values.
      * @param vector an input KeyCompoundVector.
@@ -18,28 +18,110 @@
 package eu.amidst.core.utils;
 
 import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * This class defines a local random generator.
+ *
+ * <p> Besides {@link #current()}, which draws the seed of each new generator from a shared {@link java.util.Random},
+ * it gives independent streams of random numbers identified by an index, see {@link #getStream(long)}. The values of
+ * a stream only depend on the seed and on the index, so a parallel computation where each worker or chunk of work
+ * uses the stream of its index gives the same results as the sequential one. </p>
  */
 public class LocalRandomGenerator {
 
+    /** Represents the number of consecutive samples drawn with the same stream by {@link #generate}. */
+    public static final int CHUNK_SIZE = 64;
+
     /** Represents a object of type {@link java.util.Random}. */
     final Random random;
 
+    /** Represents the seed of the streams. */
+    final long streamSeed;
+
     /**
      * Creates a new random number generator using a single {@code int} seed.
      * @param seed the initial seed.
      */
     public LocalRandomGenerator(int seed){
         random = new Random(seed);
+        streamSeed = SplitMixRandom.mix64(seed);
     }
 
     /**
      * Returns a new random number generator using the next pseudorandom integer.
+     * Since the integers are drawn from a shared generator, the values obtained by each caller depend on the order
+     * of the calls. Parallel code should use {@link #getStream(long)} or {@link #generate} instead.
      * @return a new random number generator.
      */
     public Random current(){
         return new Random(random.nextInt());
     }
+
+    /**
+     * Returns the stream of random numbers of a given index. Streams of different indexes are independent, and the
+     * same index always gives the same stream. The returned object must not be shared by several threads.
+     * @param index a {@code long} that identifies the stream.
+     * @return a {@link SplitMixRandom} object.
+     */
+    public Random getStream(long index){
+        return new SplitMixRandom(SplitMixRandom.mix64(streamSeed + (index + 1) * SplitMixRandom.GOLDEN_GAMMA));
+    }
+
+    /**
+     * Returns a stream of objects generated by a sampler. The samples are split in chunks of {@link #CHUNK_SIZE}
+     * consecutive samples, and the samples of a chunk are generated one after the other with the stream of the
+     * index of the chunk. Hence, a single generator is created per chunk, and the generated objects are the same,
+     * and in the same order, whether the chunks are processed in parallel or not.
+     * @param nSamples the number of samples.
+     * @param parallel {@code true} if the chunks are processed in parallel.
+     * @param sampler the function generating a sample from a random number generator.
+     * @param <T> the type of the samples.
+     * @return a {@code Stream} of samples.
+     */
+    public <T> Stream<T> generate(int nSamples, boolean parallel, Function<Random, T> sampler){
+        return this.generateChunks(nSamples, parallel,
+                (stream, chunkSize) -> IntStream.range(0, chunkSize).mapToObj(i -> sampler.apply(stream)))
+                .flatMap(samples -> samples);
+    }
+
+    /**
+     * Returns a stream with an object per chunk of {@link #CHUNK_SIZE} consecutive samples, e.g., the sufficient
+     * statistics of the samples of the chunk. The chunk function is given the stream of the index of the chunk and
+     * the number of samples of the chunk, which is only smaller than {@link #CHUNK_SIZE} for the last one. The
+     * returned stream is ordered, so combining its elements in encounter order (for instance, with
+     * {@code forEachOrdered}) gives the same result whether the chunks are processed in parallel or not.
+     * @param nSamples the number of samples.
+     * @param parallel {@code true} if the chunks are processed in parallel.
+     * @param chunkSampler the function processing a chunk.
+     * @param <T> the type of the objects computed per chunk.
+     * @return a {@code Stream} with an object per chunk.
+     */
+    public <T> Stream<T> generateChunks(int nSamples, boolean parallel, BiFunction<Random, Integer, T> chunkSampler){
+        return this.generateChunks(nSamples, 0, parallel, chunkSampler);
+    }
+
+    /**
+     * Returns a stream with an object per chunk of {@link #CHUNK_SIZE} consecutive samples, as
+     * {@link #generateChunks(int, boolean, BiFunction)}, but using the streams from a given index on. It allows
+     * drawing several batches of samples, e.g., in successive rounds, with independent streams.
+     * @param nSamples the number of samples.
+     * @param firstStream the index of the stream of the first chunk.
+     * @param parallel {@code true} if the chunks are processed in parallel.
+     * @param chunkSampler the function processing a chunk.
+     * @param <T> the type of the objects computed per chunk.
+     * @return a {@code Stream} with an object per chunk.
+     */
+    public <T> Stream<T> generateChunks(int nSamples, long firstStream, boolean parallel, BiFunction<Random, Integer, T> chunkSampler){
+        int nChunks = (nSamples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream chunks = IntStream.range(0, nChunks);
+        if (parallel)
+            chunks = chunks.parallel();
+
+        return chunks.mapToObj(chunk -> chunkSampler.apply(this.getStream(firstStream + chunk),
+                Math.min(nSamples, (chunk + 1) * CHUNK_SIZE) - chunk * CHUNK_SIZE));
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.core.utils;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * This class stores the explicit entries of a sparse vector as parallel arrays of indices and values, sorted by
+ * index. It is the storage shared by {@link SparseVector} and {@link SparseVectorDefaultValue}.
+ *
+ * <p> Look-ups are done with a binary search and the entries can be traversed by position, so neither the indices
+ * nor the values are boxed, and two sparse vectors can be combined by merging their sorted entries. </p>
+ */
+final class SparseEntries implements Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 6307312404226590743L;
+
+    /** Represents the sorted indices of the entries. */
+    private int[] indices;
+
+    /** Represents the values of the entries, in the same order as the indices. */
+    private double[] values;
+
+    /** Represents the number of entries. */
+    private int size;
+
+    /**
+     * Creates a new SparseEntries object given an initial capacity.
+     * @param capacity the initial number of entries which can be stored without resizing the arrays.
+     */
+    SparseEntries(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.indices = new int[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Creates a new SparseEntries object holding a copy of the entries of another one.
+     * @param entries a {@link SparseEntries} object.
+     */
+    SparseEntries(SparseEntries entries) {
+        this.indices = Arrays.copyOf(entries.indices, Math.max(entries.size, 1));
+        this.values = Arrays.copyOf(entries.values, Math.max(entries.size, 1));
+        this.size = entries.size;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the index of the entry at a given position.
+     * @param position a position between 0 and {@link #size()}-1.
+     * @return the index of the entry.
+     */
+    int getIndex(int position) {
+        return this.indices[position];
+    }
+
+    /**
+     * Returns the value of the entry at a given position.
+     * @param position a position between 0 and {@link #size()}-1.
+     * @return the value of the entry.
+     */
+    double getValue(int position) {
+        return this.values[position];
+    }
+
+    /**
+     * Sets the value of the entry at a given position.
+     * @param position a position between 0 and {@link #size()}-1.
+     * @param value the new value of the entry.
+     */
+    void setValue(int position, double value) {
+        this.values[position] = value;
+    }
+
+    /**
+     * Returns the position of the entry with a given index.
+     * @param index an index.
+     * @return the position of the entry if there is one, or a negative value otherwise.
+     */
+    int find(int index) {
+        return Arrays.binarySearch(this.indices, 0, this.size, index);
+    }
+
+    /**
+     * Sets the value of the entry with a given index, adding the entry if it does not exist.
+     * @param index an index.
+     * @param value the value.
+     */
+    void put(int index, double value) {
+        int pos = this.find(index);
+        if (pos >= 0) {
+            this.values[pos] = value;
+            return;
+        }
+
+        pos = -pos - 1;
+        if (this.size == this.indices.length) {
+            int capacity = 2 * this.indices.length;
+            this.indices = Arrays.copyOf(this.indices, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        System.arraycopy(this.indices, pos, this.indices, pos + 1, this.size - pos);
+        System.arraycopy(this.values, pos, this.values, pos + 1, this.size - pos);
+        this.indices[pos] = index;
+        this.values[pos] = value;
+        this.size++;
+    }
+
+    /**
+     * Adds an entry after the last one. It is used for building the result of a merge, where the indices are
+     * added in increasing order.
+     * @param index an index greater than the index of the last entry.
+     * @param value the value.
+     */
+    void append(int index, double value) {
+        if (this.size == this.indices.length) {
+            int capacity = 2 * this.indices.length;
+            this.indices = Arrays.copyOf(this.indices, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        this.indices[this.size] = index;
+        this.values[this.size] = value;
+        this.size++;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns a view of the indices of the entries as a set.
+     * @return a {@code Set} of indices, in increasing order.
+     */
+    Set<Integer> indexSet() {
+        return new AbstractSet<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < size;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return indices[this.next++];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return (o instanceof Integer) && find((Integer) o) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -11,21 +11,24 @@
 
 package eu.amidst.core.utils;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
 
 /**
- * Created by andresmasegosa on 2/5/16.
+ * This class implements a sparse vector where all the entries which are not explicitly set are 0. The explicit
+ * entries are stored in sorted primitive arrays (see {@link SparseEntries}).
  */
 public class SparseVector implements Vector {
 
-    Map<Integer,Double> values;
+    /** Represents the explicit entries of this vector. */
+    SparseEntries entries;
+
+    /** Represents the dimension of this vector. */
     final int dimension;
 
     public SparseVector(int dimension) {
         this.dimension = dimension;
-        this.values = new HashMap<>();
+        this.entries = new SparseEntries(4);
     }
 
     /**
@@ -33,10 +36,8 @@ public class SparseVector implements Vector {
      */
     @Override
     public double get(int i) {
-        if (this.values.containsKey(i))
-            return this.values.get(i);
-        else
-            return 0;
+        int pos = this.entries.find(i);
+        return (pos >= 0) ? this.entries.getValue(pos) : 0;
     }
 
     /**
@@ -44,7 +45,7 @@ public class SparseVector implements Vector {
      */
     @Override
     public void set(int i, double val) {
-        this.values.put(i,val);
+        this.entries.put(i, val);
     }
 
     /**
@@ -61,8 +62,8 @@ public class SparseVector implements Vector {
     @Override
     public double sum() {
         double sum =0;
-        for (Double aDouble : values.values()) {
-            sum+=aDouble;
+        for (int k = 0; k < this.entries.size(); k++) {
+            sum += this.entries.getValue(k);
         }
         return sum;
     }
@@ -72,59 +73,69 @@ public class SparseVector implements Vector {
      */
     @Override
     public void sum(Vector vector) {
-        SparseVector sparseVector = (SparseVector)vector;
-
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer,this.get(integer)+sparseVector.get(integer));
-        }
-
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            if (!this.values.containsKey(integer))
-                this.set(integer,sparseVector.get(integer));
-        }
+        this.merge((SparseVector) vector, (a, b) -> a + b);
     }
 
     @Override
     public void substract(Vector vector) {
-        SparseVector sparseVector = (SparseVector)vector;
-
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer,this.get(integer)-sparseVector.get(integer));
-        }
+        this.merge((SparseVector) vector, (a, b) -> a - b);
+    }
 
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            if (!this.values.containsKey(integer))
-                this.set(integer,-sparseVector.get(integer));
+    /**
+     * Combines, entry by entry, this vector with another one, and stores the result in this vector.
+     * @param vector the other vector.
+     * @param operator the operator applied to each pair of values, where a missing entry is taken as 0.
+     */
+    private void merge(SparseVector vector, DoubleBinaryOperator operator) {
+        SparseEntries other = vector.entries;
+        SparseEntries result = new SparseEntries(this.entries.size() + other.size());
+        int i = 0;
+        int j = 0;
+        while (i < this.entries.size() || j < other.size()) {
+            int indexA = (i < this.entries.size()) ? this.entries.getIndex(i) : Integer.MAX_VALUE;
+            int indexB = (j < other.size()) ? other.getIndex(j) : Integer.MAX_VALUE;
+            if (indexA < indexB) {
+                result.append(indexA, operator.applyAsDouble(this.entries.getValue(i++), 0));
+            } else if (indexA > indexB) {
+                result.append(indexB, operator.applyAsDouble(0, other.getValue(j++)));
+            } else {
+                result.append(indexA, operator.applyAsDouble(this.entries.getValue(i++), other.getValue(j++)));
+            }
         }
+        this.entries = result;
     }
 
     @Override
     public void copy(Vector vector) {
         SparseVector sparseVector = (SparseVector)vector;
+        this.entries = new SparseEntries(sparseVector.entries);
+    }
 
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            this.set(integer,sparseVector.get(integer));
-        }
+    @Override
+    public SparseVector deepCopy() {
+        SparseVector copy = new SparseVector(this.dimension);
+        copy.entries = new SparseEntries(this.entries);
+        return copy;
     }
 
     @Override
     public void divideBy(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer,this.get(integer)/val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) / val);
         }
     }
 
     @Override
     public void multiplyBy(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer,this.get(integer)*val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) * val);
         }
     }
 
     @Override
     public void sumConstant(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer,this.get(integer) + val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) + val);
         }
     }
 
@@ -133,8 +144,8 @@ public class SparseVector implements Vector {
         SparseVector sparseVector = (SparseVector)vector;
 
         double sum = 0;
-        for (Integer integer : this.getNonZeroEntries()) {
-            sum += this.get(integer)*sparseVector.get(integer);
+        for (int k = 0; k < this.entries.size(); k++) {
+            sum += this.entries.getValue(k) * sparseVector.get(this.entries.getIndex(k));
         }
 
         return sum;
@@ -144,14 +155,14 @@ public class SparseVector implements Vector {
     public boolean equalsVector(Vector vector, double threshold) {
         SparseVector sparseVector = (SparseVector)vector;
 
-        for (Integer integer : this.getNonZeroEntries()) {
-            if (Math.abs(this.get(integer)-sparseVector.get(integer))>threshold)
+        for (int k = 0; k < this.entries.size(); k++) {
+            if (Math.abs(this.entries.getValue(k) - sparseVector.get(this.entries.getIndex(k))) > threshold)
                 return false;
         }
 
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            if (!this.values.containsKey(integer))
-                if (Math.abs(-sparseVector.get(integer))>threshold)
+        for (int k = 0; k < sparseVector.entries.size(); k++) {
+            if (this.entries.find(sparseVector.entries.getIndex(k)) < 0)
+                if (Math.abs(-sparseVector.entries.getValue(k)) > threshold)
                     return false;
         }
 
@@ -161,11 +172,11 @@ public class SparseVector implements Vector {
     @Override
     public String output() {
         StringBuilder stringBuilder = new StringBuilder("{");
-        for (Integer integer : this.getNonZeroEntries()) {
+        for (int k = 0; k < this.entries.size(); k++) {
             stringBuilder.append("(");
-            stringBuilder.append(integer);
+            stringBuilder.append(this.entries.getIndex(k));
             stringBuilder.append(",");
-            stringBuilder.append(this.get(integer));
+            stringBuilder.append(this.entries.getValue(k));
             stringBuilder.append(")");
             stringBuilder.append(", ");
         }
@@ -174,7 +185,37 @@ public class SparseVector implements Vector {
         return stringBuilder.toString();
     }
 
+    /**
+     * Returns the indices of the explicit entries, in increasing order. The set is a view backed by this vector.
+     * @return a {@code Set} of indices.
+     */
     public Set<Integer> getNonZeroEntries(){
-        return this.values.keySet();
+        return this.entries.indexSet();
+    }
+
+    /**
+     * Returns the number of entries which are explicitly set.
+     * @return the number of explicit entries.
+     */
+    public int getNumberOfNonZeroEntries() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the index of an explicit entry, where the explicit entries are sorted by index.
+     * @param position a position between 0 and {@link #getNumberOfNonZeroEntries()}-1.
+     * @return the index of the entry.
+     */
+    public int getNonZeroIndex(int position) {
+        return this.entries.getIndex(position);
+    }
+
+    /**
+     * Returns the value of an explicit entry, where the explicit entries are sorted by index.
+     * @param position a position between 0 and {@link #getNumberOfNonZeroEntries()}-1.
+     * @return the value of the entry.
+     */
+    public double getNonZeroValue(int position) {
+        return this.entries.getValue(position);
     }
 }
@@ -19,24 +19,36 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
 
 /**
- * Created by andresmasegosa on 2/5/16.
+ * This class implements a sparse vector where all the entries which are not explicitly set take a common default
+ * value. The explicit entries are stored in sorted primitive arrays (see {@link SparseEntries}), so the indices and
+ * values are never boxed, and {@link #sum(Vector)}, {@link #substract(Vector)} and {@link #dotProduct(Vector)} merge
+ * the sorted entries of both vectors.
  */
 public class SparseVectorDefaultValue implements Vector, NaturalParameters, MomentParameters, SufficientStatistics, Serializable {
 
     /** Represents the serial version ID for serializing the object. */
-    private static final long serialVersionUID = 4107783324901370839L;
+    private static final long serialVersionUID = -2484342146209384453L;
 
-    Map<Integer, Double> values;
+    /** Represents the threshold below which the entries of a vector with default value 0 are ignored when summed. */
+    private static final double NEGLIGIBLE_VALUE = 0.00001;
+
+    /** Represents the explicit entries of this vector. */
+    SparseEntries entries;
+
+    /** Represents the dimension of this vector. */
     final int dimension;
+
+    /** Represents the value of the entries which are not explicitly set. */
     double defaultValue = 0;
 
 
     public SparseVectorDefaultValue(int dimension, double defaultValue) {
         this.dimension = dimension;
-        this.values = new HashMap<>();
+        this.entries = new SparseEntries(4);
         this.defaultValue = defaultValue;
     }
 
@@ -49,11 +61,37 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
     }
 
     public void reset() {
-        this.values = new HashMap<>();
+        this.entries.clear();
     }
 
     public int getNDefaultValues() {
-        return this.dimension - this.values.keySet().size();
+        return this.dimension - this.entries.size();
+    }
+
+    /**
+     * Returns the number of entries which are explicitly set, i.e., which do not take the default value.
+     * @return the number of explicit entries.
+     */
+    public int getNumberOfNonZeroEntries() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the index of an explicit entry, where the explicit entries are sorted by index.
+     * @param position a position between 0 and {@link #getNumberOfNonZeroEntries()}-1.
+     * @return the index of the entry.
+     */
+    public int getNonZeroIndex(int position) {
+        return this.entries.getIndex(position);
+    }
+
+    /**
+     * Returns the value of an explicit entry, where the explicit entries are sorted by index.
+     * @param position a position between 0 and {@link #getNumberOfNonZeroEntries()}-1.
+     * @return the value of the entry.
+     */
+    public double getNonZeroValue(int position) {
+        return this.entries.getValue(position);
     }
 
     /**
@@ -61,10 +99,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
      */
     @Override
     public double get(int i) {
-        if (this.values.containsKey(i))
-            return this.values.get(i);
-        else
-            return this.defaultValue;
+        int pos = this.entries.find(i);
+        return (pos >= 0) ? this.entries.getValue(pos) : this.defaultValue;
     }
 
     /**
@@ -72,7 +108,7 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
      */
     @Override
     public void set(int i, double val) {
-        this.values.put(i, val);
+        this.entries.put(i, val);
     }
 
     /**
@@ -89,8 +125,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
     @Override
     public double sum() {
         double sum = 0;
-        for (Double aDouble : values.values()) {
-            sum += aDouble;
+        for (int k = 0; k < this.entries.size(); k++) {
+            sum += this.entries.getValue(k);
         }
 
         sum += this.defaultValue * this.getNDefaultValues();
@@ -103,55 +139,87 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
      */
     @Override
     public void sum(Vector vector) {
-        SparseVectorDefaultValue sparseVector = (SparseVectorDefaultValue) vector;
-
-        if (sparseVector.getDefaultValue()==0){
-            for (Integer integer : sparseVector.getNonZeroEntries()) {
-                if (Math.abs(sparseVector.get(integer))>0.00001)
-                    this.set(integer, this.get(integer) + sparseVector.get(integer));
-            }
-        }else {
-            for (Integer integer : this.getNonZeroEntries()) {
-                this.set(integer, this.get(integer) + sparseVector.get(integer));
-            }
-
-            for (Integer integer : sparseVector.getNonZeroEntries()) {
-                if (!this.values.containsKey(integer))
-                    this.set(integer, this.getDefaultValue() + sparseVector.get(integer));
-            }
-
-            this.setDefaultValue(this.getDefaultValue() + sparseVector.getDefaultValue());
-        }
+        this.merge((SparseVectorDefaultValue) vector, (a, b) -> a + b, true);
     }
 
     @Override
     public void substract(Vector vector) {
-        SparseVectorDefaultValue sparseVector = (SparseVectorDefaultValue) vector;
+        this.merge((SparseVectorDefaultValue) vector, (a, b) -> a - b, false);
+    }
 
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer, this.get(integer) - sparseVector.get(integer));
+    /**
+     * Combines, entry by entry, this vector with another one, and stores the result in this vector.
+     * When the default value of the other vector is 0, the explicit entries of this vector which are not present in
+     * the other one are left unchanged, so the operator must satisfy {@code operator(a, 0) = a}, and, if
+     * {@code skipNegligible} is true, the entries of the other vector whose absolute value is below
+     * {@link #NEGLIGIBLE_VALUE} are ignored.
+     * @param vector the other vector.
+     * @param operator the operator applied to each pair of values.
+     * @param skipNegligible whether negligible entries of the other vector are ignored when its default value is 0.
+     */
+    private void merge(SparseVectorDefaultValue vector, DoubleBinaryOperator operator, boolean skipNegligible) {
+        SparseEntries other = vector.entries;
+        double otherDefault = vector.getDefaultValue();
+
+        if (otherDefault == 0) {
+            if (other.size() < this.entries.size() / 8) {
+                // Few entries: they are looked up instead of traversing all the entries of this vector.
+                for (int k = 0; k < other.size(); k++) {
+                    double b = other.getValue(k);
+                    if (skipNegligible && Math.abs(b) <= NEGLIGIBLE_VALUE)
+                        continue;
+                    int pos = this.entries.find(other.getIndex(k));
+                    if (pos >= 0)
+                        this.entries.setValue(pos, operator.applyAsDouble(this.entries.getValue(pos), b));
+                    else
+                        this.entries.put(other.getIndex(k), operator.applyAsDouble(this.defaultValue, b));
+                }
+                return;
+            }
         }
 
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            if (!this.values.containsKey(integer))
-                this.set(integer, this.defaultValue - sparseVector.get(integer));
+        SparseEntries result = new SparseEntries(this.entries.size() + other.size());
+        int i = 0;
+        int j = 0;
+        while (i < this.entries.size() || j < other.size()) {
+            int indexA = (i < this.entries.size()) ? this.entries.getIndex(i) : Integer.MAX_VALUE;
+            int indexB = (j < other.size()) ? other.getIndex(j) : Integer.MAX_VALUE;
+            if (indexA < indexB) {
+                double a = this.entries.getValue(i++);
+                result.append(indexA, (otherDefault == 0) ? a : operator.applyAsDouble(a, otherDefault));
+            } else {
+                double b = other.getValue(j++);
+                boolean negligible = skipNegligible && otherDefault == 0 && Math.abs(b) <= NEGLIGIBLE_VALUE;
+                if (indexA == indexB) {
+                    double a = this.entries.getValue(i++);
+                    result.append(indexA, negligible ? a : operator.applyAsDouble(a, b));
+                } else if (!negligible) {
+                    result.append(indexB, operator.applyAsDouble(this.defaultValue, b));
+                }
+            }
         }
-
-        this.setDefaultValue(this.getDefaultValue() - sparseVector.getDefaultValue());
-
+        this.entries = result;
+        this.defaultValue = operator.applyAsDouble(this.defaultValue, otherDefault);
     }
 
     @Override
     public void copy(Vector vector) {
         SparseVectorDefaultValue sparseVector = (SparseVectorDefaultValue) vector;
-        this.values= new HashMap<>(sparseVector.values);
+        this.entries = new SparseEntries(sparseVector.entries);
         this.defaultValue = sparseVector.getDefaultValue();
     }
 
+    @Override
+    public SparseVectorDefaultValue deepCopy() {
+        SparseVectorDefaultValue copy = new SparseVectorDefaultValue(this.dimension, this.defaultValue);
+        copy.entries = new SparseEntries(this.entries);
+        return copy;
+    }
+
     @Override
     public void divideBy(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer, this.get(integer) / val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) / val);
         }
 
         this.setDefaultValue(this.getDefaultValue() / val);
@@ -159,8 +227,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
 
     @Override
     public void multiplyBy(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer, this.get(integer) * val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) * val);
         }
 
         this.setDefaultValue(this.getDefaultValue() * val);
@@ -169,8 +237,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
 
     @Override
     public void sumConstant(double val) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer, this.get(integer) + val);
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, this.entries.getValue(k) + val);
         }
 
         this.setDefaultValue(this.getDefaultValue() + val);
@@ -180,44 +248,46 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
     @Override
     public double dotProduct(Vector vector) {
         SparseVectorDefaultValue sparseVector = (SparseVectorDefaultValue) vector;
+        SparseEntries other = sparseVector.entries;
+        double otherDefault = sparseVector.getDefaultValue();
 
-
-        if (sparseVector.getDefaultValue()==0){
+        if (otherDefault == 0 && this.defaultValue == 0) {
+            // Only the common entries contribute: the smallest set of entries is looked up in the largest one.
+            SparseEntries small = (this.entries.size() <= other.size()) ? this.entries : other;
+            SparseEntries large = (small == this.entries) ? other : this.entries;
             double sum = 0;
-            for (Integer integer : sparseVector.getNonZeroEntries()) {
-                    sum += this.get(integer) * sparseVector.get(integer);
+            for (int k = 0; k < small.size(); k++) {
+                int pos = large.find(small.getIndex(k));
+                if (pos >= 0)
+                    sum += small.getValue(k) * large.getValue(pos);
             }
             return sum;
-        }else if (this.getDefaultValue()==0){
-            double sum = 0;
-            for (Integer integer : this.getNonZeroEntries()) {
-                sum += this.get(integer) * sparseVector.get(integer);
-            }
-            return sum;
-        }else{
-            double sum = 0;
-            double cont = this.dimension;
-            for (Integer integer : this.getNonZeroEntries()) {
-                if (!sparseVector.values.containsKey(integer)) {
-                    sum += this.get(integer) * sparseVector.getDefaultValue();
-                    cont--;
-                } else {
-                    sum += this.get(integer) * sparseVector.get(integer);
-                    cont--;
-                }
-            }
-
-            for (Integer integer : sparseVector.getNonZeroEntries()) {
-                if (!this.values.containsKey(integer)) {
-                    sum += this.getDefaultValue() * sparseVector.get(integer);
-                    cont--;
-                }
+        }
 
+        double sum = 0;
+        int cont = this.dimension;
+        int i = 0;
+        int j = 0;
+        while (i < this.entries.size() || j < other.size()) {
+            int indexA = (i < this.entries.size()) ? this.entries.getIndex(i) : Integer.MAX_VALUE;
+            int indexB = (j < other.size()) ? other.getIndex(j) : Integer.MAX_VALUE;
+            if (indexA < indexB) {
+                if (otherDefault != 0)
+                    sum += this.entries.getValue(i) * otherDefault;
+                i++;
+            } else if (indexA > indexB) {
+                if (this.defaultValue != 0)
+                    sum += this.defaultValue * other.getValue(j);
+                j++;
+            } else {
+                sum += this.entries.getValue(i++) * other.getValue(j++);
             }
-
-            sum += cont * this.getDefaultValue() * sparseVector.getDefaultValue();
-            return sum;
+            cont--;
         }
+
+        if (otherDefault != 0 && this.defaultValue != 0)
+            sum += cont * this.getDefaultValue() * otherDefault;
+        return sum;
     }
 
     @Override
@@ -230,14 +300,14 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
         if (Math.abs(this.getNDefaultValues() - sparseVector.getNDefaultValues()) > threshold)
             return false;
 
-        for (Integer integer : this.getNonZeroEntries()) {
-            if (Math.abs(this.get(integer) - sparseVector.get(integer)) > threshold)
+        for (int k = 0; k < this.entries.size(); k++) {
+            if (Math.abs(this.entries.getValue(k) - sparseVector.get(this.entries.getIndex(k))) > threshold)
                 return false;
         }
 
-        for (Integer integer : sparseVector.getNonZeroEntries()) {
-            if (!this.values.containsKey(integer))
-                if (Math.abs(-sparseVector.get(integer)) > threshold)
+        for (int k = 0; k < sparseVector.entries.size(); k++) {
+            if (this.entries.find(sparseVector.entries.getIndex(k)) < 0)
+                if (Math.abs(-sparseVector.entries.getValue(k)) > threshold)
                     return false;
         }
 
@@ -250,11 +320,11 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
         StringBuilder stringBuilder = new StringBuilder("{");
         stringBuilder.append(this.defaultValue);
         stringBuilder.append(",");
-        for (Integer integer : this.getNonZeroEntries()) {
+        for (int k = 0; k < this.entries.size(); k++) {
             stringBuilder.append("(");
-            stringBuilder.append(integer);
+            stringBuilder.append(this.entries.getIndex(k));
             stringBuilder.append(",");
-            stringBuilder.append(this.get(integer));
+            stringBuilder.append(this.entries.getValue(k));
             stringBuilder.append(")");
             stringBuilder.append(", ");
         }
@@ -263,11 +333,24 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
         return stringBuilder.toString();
     }
 
+    /**
+     * Returns the indices of the explicit entries, in increasing order. The set is a view backed by this vector.
+     * @return a {@code Set} of indices.
+     */
     public Set<Integer> getNonZeroEntries() {
-        return this.values.keySet();
+        return this.entries.indexSet();
     }
 
+    /**
+     * Returns a map from the indices of the explicit entries to their values. The map is a copy, so changes on it
+     * are not reflected on this vector.
+     * @return a {@code Map} of indices to values.
+     */
     public Map<Integer, Double> getValues() {
+        Map<Integer, Double> values = new HashMap<>();
+        for (int k = 0; k < this.entries.size(); k++) {
+            values.put(this.entries.getIndex(k), this.entries.getValue(k));
+        }
         return values;
     }
 
@@ -280,15 +363,15 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
     public static SparseVectorDefaultValue logNormalize(SparseVectorDefaultValue vector) {
 
         double maxValue = vector.defaultValue;
-        for (Integer index : vector.getNonZeroEntries()) {
-            double val = vector.get(index);
+        for (int k = 0; k < vector.entries.size(); k++) {
+            double val = vector.entries.getValue(k);
             if (val > maxValue) {
                 maxValue = val;
             }
         }
 
-        for (Integer index : vector.getNonZeroEntries()) {
-            vector.set(index, vector.get(index) - maxValue);
+        for (int k = 0; k < vector.entries.size(); k++) {
+            vector.entries.setValue(k, vector.entries.getValue(k) - maxValue);
         }
 
         vector.setDefaultValue(vector.getDefaultValue() - maxValue);
@@ -306,8 +389,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
 
         double sum = vector.sum();
 
-        for (Integer index : vector.getNonZeroEntries()) {
-            vector.set(index, vector.get(index) / sum);
+        for (int k = 0; k < vector.entries.size(); k++) {
+            vector.entries.setValue(k, vector.entries.getValue(k) / sum);
         }
 
         vector.setDefaultValue(vector.getDefaultValue() / sum);
@@ -316,8 +399,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
     }
 
     public void apply(Function<Double,Double> function) {
-        for (Integer integer : this.getNonZeroEntries()) {
-            this.set(integer, function.apply(this.get(integer)));
+        for (int k = 0; k < this.entries.size(); k++) {
+            this.entries.setValue(k, function.apply(this.entries.getValue(k)));
         }
 
         this.setDefaultValue(function.apply(this.getDefaultValue()));
@@ -326,8 +409,8 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
 
     public double sumApply(Function<Double,Double> function) {
         double sum = 0;
-        for (Integer integer : this.getNonZeroEntries()) {
-            sum+=function.apply(this.get(integer));
+        for (int k = 0; k < this.entries.size(); k++) {
+            sum+=function.apply(this.entries.getValue(k));
         }
 
         sum += function.apply(this.defaultValue) * this.getNDefaultValues();
@@ -335,5 +418,3 @@ public class SparseVectorDefaultValue implements Vector, NaturalParameters, Mome
         return sum;
     }
 }
-
-
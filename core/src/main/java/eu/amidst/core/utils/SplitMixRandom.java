@@ -0,0 +1,104 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.utils;
+
+import java.util.Random;
+
+/**
+ * This class defines a {@link java.util.Random} whose values are generated by the SplitMix64 algorithm, the one of
+ * {@link java.util.SplittableRandom}. Its {@link #nextLong()} values are the ones of a {@code SplittableRandom}
+ * created with the same seed.
+ *
+ * <p> Unlike {@link java.util.Random}, the state is not an {@code AtomicLong}, so an object of this class must not
+ * be shared by several threads. It can be passed to any method expecting a {@link java.util.Random}, such as
+ * {@link eu.amidst.core.distribution.UnivariateDistribution#sample(Random)}. Independent streams for the workers
+ * of a parallel computation are given by {@link LocalRandomGenerator}. </p>
+ */
+public class SplitMixRandom extends Random {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = -2713469371373420962L;
+
+    /** Represents the increment of the state, the same as the default gamma of {@link java.util.SplittableRandom}. */
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Represents the state of the generator. */
+    private long state;
+
+    /**
+     * Creates a new random number generator using a single {@code long} seed.
+     * @param seed the initial seed.
+     */
+    public SplitMixRandom(long seed) {
+        super(seed);
+        this.state = seed;
+    }
+
+    /**
+     * Mixes the bits of a {@code long} value, as in {@link java.util.SplittableRandom}.
+     * @param z a {@code long} value.
+     * @return the mixed value.
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = seed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int next(int bits) {
+        return (int) (this.nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextLong() {
+        this.state += GOLDEN_GAMMA;
+        return mix64(this.state);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextInt() {
+        return (int) (this.nextLong() >>> 32);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
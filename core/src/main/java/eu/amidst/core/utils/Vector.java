@@ -93,6 +93,16 @@ public interface Vector {
         }
     }
 
+    /**
+     * Returns a deep copy of this Vector, i.e., a new Vector of the same type which does not share any mutable
+     * state with this one. The default implementation performs a serialization round-trip, so implementations used
+     * on hot paths (message combination, prior/posterior snapshots) override it with a typed copy.
+     * @return a deep copy of this Vector.
+     */
+    default Vector deepCopy(){
+        return Serialization.deepCopy(this);
+    }
+
     /**
      * Updates the values of this Vector via dividing its initial values by an input {@code double} value.
      * @param val an input {@code double} value.
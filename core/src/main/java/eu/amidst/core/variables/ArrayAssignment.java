@@ -0,0 +1,164 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.variables;
+
+import eu.amidst.core.utils.Utils;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * This class implements the interface {@link Assignment} and handles the assignments using a dense array of
+ * doubles indexed by {@link Variable#getVarID()}.
+ *
+ * <p> It is meant for assignments over (almost) all the variables of a model, such as the samples of a
+ * {@link eu.amidst.core.utils.BayesianNetworkSampler}, where it avoids the hashing and boxing costs of
+ * {@link HashMapAssignment}. For partial evidence over a few variables use {@link SparseAssignment}. </p>
+ *
+ * <p> All the variables of an ArrayAssignment are expected to come from the same {@link Variables} object, as
+ * two variables with the same ID are considered equal. This class is not thread-safe for concurrent writes. </p>
+ */
+public class ArrayAssignment implements Assignment, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = 2634806285286431094L;
+
+    /** Represents the variables of this assignment, indexed by their ID, or null if not assigned. */
+    private Variable[] variables;
+
+    /** Represents the values of this assignment, indexed by the ID of the variables. */
+    private double[] values;
+
+    /** Represents the number of variables included in this assignment. */
+    private int size;
+
+    /**
+     * Creates a new ArrayAssignment given the number of variables.
+     * @param nOfVars the number of variables, which sets the initial capacity.
+     */
+    public ArrayAssignment(int nOfVars){
+        this.variables = new Variable[Math.max(nOfVars, 1)];
+        this.values = new double[this.variables.length];
+        Arrays.fill(this.values, Utils.missingValue());
+    }
+
+    /**
+     * Creates a new ArrayAssignment given an {@link Assignment} object.
+     * @param assignment1 an assignment.
+     */
+    public ArrayAssignment(Assignment assignment1){
+        if (assignment1 instanceof ArrayAssignment) {
+            ArrayAssignment arrayAssignment = (ArrayAssignment) assignment1;
+            this.variables = arrayAssignment.variables.clone();
+            this.values = arrayAssignment.values.clone();
+            this.size = arrayAssignment.size;
+        } else {
+            Set<Variable> variableList = assignment1.getVariables();
+            int capacity = 1;
+            for (Variable var : variableList) {
+                capacity = Math.max(capacity, var.getVarID() + 1);
+            }
+            this.variables = new Variable[capacity];
+            this.values = new double[capacity];
+            Arrays.fill(this.values, Utils.missingValue());
+            for (Variable var : variableList) {
+                this.setValue(var, assignment1.getValue(var));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(Variable var){
+        int id = var.getVarID();
+        return (id < this.values.length) ? this.values[id] : Utils.missingValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(Variable var, double val) {
+        int id = var.getVarID();
+        if (id >= this.values.length) {
+            int capacity = Math.max(id + 1, 2 * this.values.length);
+            int oldCapacity = this.values.length;
+            this.variables = Arrays.copyOf(this.variables, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            Arrays.fill(this.values, oldCapacity, capacity, Utils.missingValue());
+        }
+        if (this.variables[id] == null)
+            this.size++;
+        this.variables[id] = var;
+        this.values[id] = val;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Variable> getVariables() {
+        return new AbstractSet<Variable>() {
+            @Override
+            public Iterator<Variable> iterator() {
+                return new Iterator<Variable>() {
+                    int next = advance(0);
+
+                    int advance(int from) {
+                        while (from < variables.length && variables[from] == null)
+                            from++;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < variables.length;
+                    }
+
+                    @Override
+                    public Variable next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        Variable var = variables[this.next];
+                        this.next = advance(this.next + 1);
+                        return var;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Variable))
+                    return false;
+                int id = ((Variable) o).getVarID();
+                return id < variables.length && variables[id] != null && variables[id].equals(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.variables;
+
+import eu.amidst.core.utils.Utils;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * This class implements the interface {@link Assignment} and handles the assignments using parallel arrays of
+ * variable IDs and values, sorted by {@link Variable#getVarID()}.
+ *
+ * <p> It is the companion of {@link ArrayAssignment} for partial assignments over a few variables, such as the
+ * evidence of an inference algorithm or the configuration of the parents of a variable. Look-ups are done with a
+ * binary search, so no hashing nor boxing is involved. This class is not thread-safe for concurrent writes. </p>
+ */
+public class SparseAssignment implements Assignment, Serializable {
+
+    /** Represents the serial version ID for serializing the object. */
+    private static final long serialVersionUID = -5386213893470127302L;
+
+    /** Represents the sorted IDs of the variables of this assignment. */
+    private int[] ids;
+
+    /** Represents the variables of this assignment, in the same order as the IDs. */
+    private Variable[] variables;
+
+    /** Represents the values of this assignment, in the same order as the IDs. */
+    private double[] values;
+
+    /** Represents the number of variables included in this assignment. */
+    private int size;
+
+    /**
+     * Creates a new SparseAssignment.
+     */
+    public SparseAssignment(){
+        this(4);
+    }
+
+    /**
+     * Creates a new SparseAssignment given the number of variables.
+     * @param nOfVars the number of variables, which sets the initial capacity.
+     */
+    public SparseAssignment(int nOfVars){
+        int capacity = Math.max(nOfVars, 1);
+        this.ids = new int[capacity];
+        this.variables = new Variable[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Creates a new SparseAssignment given an {@link Assignment} object.
+     * @param assignment1 an assignment.
+     */
+    public SparseAssignment(Assignment assignment1){
+        this(assignment1.getVariables().size());
+        for (Variable var : assignment1.getVariables()) {
+            this.setValue(var, assignment1.getValue(var));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(Variable var){
+        int pos = Arrays.binarySearch(this.ids, 0, this.size, var.getVarID());
+        return (pos >= 0) ? this.values[pos] : Utils.missingValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(Variable var, double val) {
+        int pos = Arrays.binarySearch(this.ids, 0, this.size, var.getVarID());
+        if (pos >= 0) {
+            this.variables[pos] = var;
+            this.values[pos] = val;
+            return;
+        }
+
+        pos = -pos - 1;
+        if (this.size == this.ids.length) {
+            int capacity = 2 * this.ids.length;
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.variables = Arrays.copyOf(this.variables, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        System.arraycopy(this.ids, pos, this.ids, pos + 1, this.size - pos);
+        System.arraycopy(this.variables, pos, this.variables, pos + 1, this.size - pos);
+        System.arraycopy(this.values, pos, this.values, pos + 1, this.size - pos);
+        this.ids[pos] = var.getVarID();
+        this.variables[pos] = var;
+        this.values[pos] = val;
+        this.size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Variable> getVariables() {
+        return new AbstractSet<Variable>() {
+            @Override
+            public Iterator<Variable> iterator() {
+                return new Iterator<Variable>() {
+                    int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < size;
+                    }
+
+                    @Override
+                    public Variable next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return variables[this.next++];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Variable))
+                    return false;
+                int pos = Arrays.binarySearch(ids, 0, size, ((Variable) o).getVarID());
+                return pos >= 0 && variables[pos].equals(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
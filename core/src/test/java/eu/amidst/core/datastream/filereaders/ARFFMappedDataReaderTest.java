@@ -0,0 +1,70 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.datastream.filereaders;
+
+import eu.amidst.core.datastream.filereaders.arffFileReader.ARFFDataReader;
+import eu.amidst.core.datastream.filereaders.arffFileReader.ARFFMappedDataReader;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that {@link ARFFMappedDataReader} reads exactly the same values as {@link ARFFDataReader}.
+ */
+public class ARFFMappedDataReaderTest extends TestCase {
+
+    private static void compareReaders(String path) {
+        ARFFDataReader reader = new ARFFDataReader();
+        reader.loadFromFile(path);
+        ARFFMappedDataReader mappedReader = new ARFFMappedDataReader();
+        mappedReader.loadFromFile(path);
+
+        assertEquals(reader.getAttributes().getNumberOfAttributes(), mappedReader.getAttributes().getNumberOfAttributes());
+
+        List<double[]> expected = reader.stream().map(DataRow::toArray).collect(Collectors.toList());
+        List<double[]> sequential = mappedReader.stream().map(DataRow::toArray).collect(Collectors.toList());
+        List<double[]> parallel = mappedReader.parallelStream(10).map(DataRow::toArray).collect(Collectors.toList());
+
+        assertEquals(expected.size(), sequential.size());
+        assertEquals(expected.size(), parallel.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < expected.get(i).length; j++) {
+                assertEquals(Double.doubleToLongBits(expected.get(i)[j]), Double.doubleToLongBits(sequential.get(i)[j]));
+                assertEquals(Double.doubleToLongBits(expected.get(i)[j]), Double.doubleToLongBits(parallel.get(i)[j]));
+            }
+        }
+    }
+
+    public static void testMissingValues() {
+        compareReaders("../datasets/dataWeka/labor.arff");
+    }
+
+    public static void testMixedAttributes() {
+        compareReaders("../datasets/simulated/syntheticData.arff");
+        compareReaders("../datasets/simulated/exampleDS_d2_c3.arff");
+    }
+
+    public static void testSparseMultinomial() {
+        compareReaders("../datasets/text/docword.simulated.arff");
+    }
+
+    public static void testParallelSplits() {
+        compareReaders("../datasets/DriftSets/electricity.arff");
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.datastream.filereaders;
+
+import eu.amidst.core.datastream.Attribute;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.datastream.filereaders.binaryFileReader.BinaryDataReader;
+import eu.amidst.core.datastream.filereaders.binaryFileReader.BinaryDataWriter;
+import eu.amidst.core.io.DataStreamLoader;
+import eu.amidst.core.io.DataStreamWriter;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that data written with {@link BinaryDataWriter} is read back unchanged by {@link BinaryDataReader}.
+ */
+public class BinaryDataReaderTest extends TestCase {
+
+    private static void assertSameData(DataOnMemory<DataInstance> expected, List<DataInstance> actual) {
+        assertEquals(expected.getNumberOfDataInstances(), actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            for (Attribute att : expected.getAttributes()) {
+                Attribute actualAtt = actual.get(i).getAttributes().getAttributeByName(att.getName());
+                assertEquals(Double.doubleToLongBits(expected.getDataInstance(i).getValue(att)),
+                        Double.doubleToLongBits(actual.get(i).getValue(actualAtt)));
+            }
+        }
+    }
+
+    public static void testRoundTrip() throws IOException {
+        DataOnMemory<DataInstance> data = DataStreamLoader.loadDataOnMemoryFromFile("../datasets/dataWeka/labor.arff");
+
+        File file = File.createTempFile("labor", ".amdb");
+        file.deleteOnExit();
+        new BinaryDataWriter(7).writeToFile(data, file.getPath());
+
+        DataStream<DataInstance> binary = DataStreamLoader.open(file.getPath());
+        assertEquals(data.getAttributes().getNumberOfAttributes(), binary.getAttributes().getNumberOfAttributes());
+
+        assertSameData(data, binary.stream().collect(Collectors.toList()));
+        binary.restart();
+        assertSameData(data, binary.parallelStream(1).collect(Collectors.toList()));
+    }
+
+    public static void testProjection() throws IOException {
+        DataOnMemory<DataInstance> data = DataStreamLoader.loadDataOnMemoryFromFile("../datasets/simulated/syntheticData.arff");
+
+        File file = File.createTempFile("syntheticData", ".amdb");
+        file.deleteOnExit();
+        DataStreamWriter.writeDataToFile(data, file.getPath());
+
+        BinaryDataReader reader = new BinaryDataReader();
+        reader.loadFromFile(file.getPath());
+        String first = data.getAttributes().getFullListOfAttributes().get(0).getName();
+        String last = data.getAttributes().getFullListOfAttributes().get(data.getAttributes().getNumberOfAttributes() - 1).getName();
+        reader.setProjection(last, first);
+
+        assertEquals(2, reader.getAttributes().getNumberOfAttributes());
+        assertEquals(last, reader.getAttributes().getFullListOfAttributes().get(0).getName());
+
+        List<DataInstance> projected = new DataStreamFromFile(reader).stream().collect(Collectors.toList());
+        assertEquals(data.getNumberOfDataInstances(), projected.size());
+        for (int i = 0; i < projected.size(); i++) {
+            assertEquals(data.getDataInstance(i).getValue(data.getAttributes().getAttributeByName(first)),
+                    projected.get(i).getValue(reader.getAttributes().getAttributeByName(first)), 0.0);
+            assertEquals(data.getDataInstance(i).getValue(data.getAttributes().getAttributeByName(last)),
+                    projected.get(i).getValue(reader.getAttributes().getAttributeByName(last)), 0.0);
+        }
+    }
+
+    public static void testParallelStreamBatches() throws IOException {
+        DataOnMemory<DataInstance> data = DataStreamLoader.loadDataOnMemoryFromFile("../datasets/dataWeka/labor.arff");
+
+        File file = File.createTempFile("labor", ".amdb");
+        file.deleteOnExit();
+        new BinaryDataWriter(7).writeToFile(data, file.getPath());
+
+        BinaryDataReader reader = new BinaryDataReader();
+        reader.loadFromFile(file.getPath());
+
+        //The splits follow the batch size, not the blocks of the file.
+        Spliterator<DataRow> spliterator = reader.parallelStream(5).spliterator();
+        Spliterator<DataRow> prefix = spliterator.trySplit();
+        assertEquals(0, prefix.estimateSize() % 5);
+        assertEquals(data.getNumberOfDataInstances(), prefix.estimateSize() + spliterator.estimateSize());
+        assertNull(reader.parallelStream(data.getNumberOfDataInstances()).spliterator().trySplit());
+
+        assertSameData(data, new DataStreamFromFile(reader).parallelStream(5).collect(Collectors.toList()));
+    }
+}
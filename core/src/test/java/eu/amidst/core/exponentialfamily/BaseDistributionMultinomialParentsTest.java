@@ -139,4 +139,73 @@ public class BaseDistributionMultinomialParentsTest {
         }
     }
 
+    @Test
+    public void testingSufficientStatistics_FlatLayout() throws IOException, ClassNotFoundException  {
+
+        for (String network : new String[]{"../networks/dataWeka/asia.bn", "../networks/simulated/Normal_MultinomialNormalParents.bn"}) {
+            BayesianNetwork testnet = BayesianNetworkLoader.loadFromFile(network);
+            EF_BayesianNetwork ef_testnet = new EF_BayesianNetwork(testnet);
+
+            BayesianNetworkSampler sampler = new BayesianNetworkSampler(testnet);
+            sampler.setSeed(0);
+
+            for (EF_ConditionalDistribution ef_dist : ef_testnet.getDistributionList()) {
+                if (!(ef_dist instanceof EF_BaseDistribution_MultinomialParents))
+                    continue;
+
+                //The accumulated statistics switch from the sparse to the dense layout along the way.
+                SufficientStatistics sumSS = ef_dist.createZeroSufficientStatistics();
+                double[] expected = new double[sumSS.size()];
+                for (DataInstance e : sampler.sampleToDataStream(100)) {
+                    SufficientStatistics ss = ef_dist.getSufficientStatistics(e);
+                    Assert.assertEquals(ef_dist.getNaturalParameters().dotProduct(ss) - ef_dist.computeLogNormalizer(),
+                            ef_dist.computeLogProbabilityOf(e) - ef_dist.computeLogBaseMeasure(e), 0.0001);
+
+                    sumSS.sum(ss);
+                    for (int i = 0; i < expected.length; i++) {
+                        expected[i] += ss.get(i);
+                    }
+                }
+
+                double dotProduct = 0;
+                for (int i = 0; i < expected.length; i++) {
+                    Assert.assertEquals(expected[i], sumSS.get(i), 0.0001);
+                    dotProduct += expected[i] * sumSS.get(i);
+                }
+                Assert.assertEquals(dotProduct, sumSS.dotProduct(sumSS), 0.0001);
+
+                SufficientStatistics copySS = ef_dist.createZeroSufficientStatistics();
+                copySS.copy(sumSS);
+                copySS.divideBy(100);
+                for (int i = 0; i < expected.length; i++) {
+                    Assert.assertEquals(expected[i] / 100, copySS.get(i), 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testingAccumulateSufficientStatistics() throws IOException, ClassNotFoundException  {
+
+        for (String network : new String[]{"../networks/dataWeka/asia.bn", "../networks/simulated/WasteIncinerator.bn",
+                "../networks/simulated/Normal_MultinomialNormalParents.bn"}) {
+            BayesianNetwork testnet = BayesianNetworkLoader.loadFromFile(network);
+            EF_BayesianNetwork ef_testnet = new EF_BayesianNetwork(testnet);
+
+            BayesianNetworkSampler sampler = new BayesianNetworkSampler(testnet);
+            sampler.setSeed(0);
+
+            SufficientStatistics sumSS = ef_testnet.createZeroSufficientStatistics();
+            SufficientStatistics accumulatedSS = ef_testnet.createZeroSufficientStatistics();
+            for (DataInstance e : sampler.sampleToDataStream(100)) {
+                sumSS.sum(ef_testnet.getSufficientStatistics(e));
+                ef_testnet.accumulateSufficientStatistics(e, accumulatedSS);
+            }
+
+            for (int i = 0; i < sumSS.size(); i++) {
+                Assert.assertEquals(sumSS.get(i), accumulatedSS.get(i), 0.0001);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,278 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.distribution.ConditionalLinearGaussian;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Multinomial_LogisticParents;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.Normal_MultinomialParents;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.models.DAG;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.core.variables.Variables;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+
+/**
+ * Checks the posteriors and the convergence diagnostics of {@link GibbsSampling} against {@link JunctionTreeInference}.
+ */
+public class GibbsSamplingTest extends TestCase {
+
+    /**
+     * Builds a mixture of a chain of two strongly correlated normal variables, with a third normal child of both.
+     */
+    private static BayesianNetwork getHybridNetwork() {
+        Variables variables = new Variables();
+        Variable varC = variables.newMultinomialVariable("C", 2);
+        Variable varX = variables.newGaussianVariable("X");
+        Variable varY = variables.newGaussianVariable("Y");
+        Variable varZ = variables.newGaussianVariable("Z");
+        DAG dag = new DAG(variables);
+        dag.getParentSet(varX).addParent(varC);
+        dag.getParentSet(varY).addParent(varX);
+        dag.getParentSet(varZ).addParent(varX);
+        dag.getParentSet(varZ).addParent(varY);
+        BayesianNetwork bn = new BayesianNetwork(dag);
+
+        Multinomial distC = bn.getConditionalDistribution(varC);
+        distC.setProbabilities(new double[]{0.4, 0.6});
+        Normal_MultinomialParents distX = bn.getConditionalDistribution(varX);
+        distX.getNormal(0).setMean(-1);
+        distX.getNormal(0).setVariance(1);
+        distX.getNormal(1).setMean(1);
+        distX.getNormal(1).setVariance(1);
+        ConditionalLinearGaussian distY = bn.getConditionalDistribution(varY);
+        distY.setIntercept(0.5);
+        distY.setCoeffForParent(varX, 2);
+        distY.setVariance(0.05);
+        ConditionalLinearGaussian distZ = bn.getConditionalDistribution(varZ);
+        distZ.setIntercept(0);
+        distZ.setCoeffForParent(varX, 1);
+        distZ.setCoeffForParent(varY, -1);
+        distZ.setVariance(0.5);
+        return bn;
+    }
+
+    private static void checkAgainstJunctionTree(BayesianNetwork bn, HashMapAssignment evidence, GibbsSampling gibbs, double tolerance) {
+        gibbs.setModel(bn);
+        gibbs.setEvidence(evidence);
+        gibbs.runInference();
+
+        JunctionTreeInference exact = new JunctionTreeInference();
+        exact.setModel(bn);
+        exact.setEvidence(evidence);
+        exact.runInference();
+
+        for (Variable var : bn.getVariables()) {
+            if (evidence.getVariables().contains(var))
+                continue;
+            if (var.isMultinomial()) {
+                Multinomial expected = exact.getPosterior(var);
+                Multinomial posterior = gibbs.getPosterior(var);
+                for (int s = 0; s < var.getNumberOfStates(); s++) {
+                    assertEquals(expected.getProbabilityOfState(s), posterior.getProbabilityOfState(s), tolerance);
+                }
+            } else {
+                Normal expected = exact.getPosterior(var);
+                Normal posterior = gibbs.getPosterior(var);
+                assertEquals(expected.getMean(), posterior.getMean(), tolerance);
+                assertEquals(expected.getVariance(), posterior.getVariance(), 2 * tolerance * expected.getVariance() + tolerance);
+            }
+        }
+    }
+
+    public static void testAsia() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+        //E is a deterministic function of T and L, so it is observed to keep the chains irreducible.
+        HashMapAssignment evidence = new HashMapAssignment(2);
+        evidence.setValue(bn.getVariables().getVariableByName("E"), 0);
+        evidence.setValue(bn.getVariables().getVariableByName("D"), 0);
+
+        GibbsSampling gibbs = new GibbsSampling();
+        gibbs.setSeed(0);
+        gibbs.setRHatThreshold(0);
+        gibbs.setMaxIterations(10000);
+        checkAgainstJunctionTree(bn, evidence, gibbs, 0.02);
+        assertEquals(10000, gibbs.getNumberOfIterations());
+    }
+
+    public static void testHybridNetwork() {
+        BayesianNetwork bn = getHybridNetwork();
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(bn.getVariables().getVariableByName("Z"), 1.5);
+
+        for (boolean blocked : new boolean[]{true, false}) {
+            GibbsSampling gibbs = new GibbsSampling();
+            gibbs.setSeed(0);
+            gibbs.setBlockedGaussianUpdates(blocked);
+            gibbs.setRHatThreshold(0);
+            gibbs.setMaxIterations(10000);
+            checkAgainstJunctionTree(bn, evidence, gibbs, 0.05);
+        }
+    }
+
+    public static void testLogisticChild() {
+        Variables variables = new Variables();
+        Variable varX = variables.newGaussianVariable("X");
+        Variable varC = variables.newMultinomialLogisticVariable("C", 2);
+        DAG dag = new DAG(variables);
+        dag.getParentSet(varC).addParent(varX);
+        BayesianNetwork bn = new BayesianNetwork(dag);
+
+        Normal distX = bn.getConditionalDistribution(varX);
+        distX.setMean(0);
+        distX.setVariance(1);
+        Multinomial_LogisticParents distC = bn.getConditionalDistribution(varC);
+        distC.setIntercept(0, 1);
+        distC.setCoeffParents(0, new double[]{3});
+
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(varC, 0);
+
+        GibbsSampling gibbs = new GibbsSampling();
+        gibbs.setModel(bn);
+        gibbs.setSeed(0);
+        gibbs.setEvidence(evidence);
+        gibbs.setRHatThreshold(0);
+        gibbs.setMaxIterations(10000);
+        gibbs.runInference();
+
+        double[] moments = getLogisticChildPosteriorMoments();
+        Normal posterior = gibbs.getPosterior(varX);
+        assertEquals(moments[0], posterior.getMean(), 0.03);
+        assertEquals(moments[1], posterior.getVariance(), 0.03);
+    }
+
+    /**
+     * Checks a normal variable with a logistic child, sampled alone, whose normal children form a larger block.
+     */
+    public static void testLogisticChildWithGaussianBlock() {
+        Variables variables = new Variables();
+        Variable varX = variables.newGaussianVariable("X");
+        Variable varC = variables.newMultinomialLogisticVariable("C", 2);
+        Variable varY = variables.newGaussianVariable("Y");
+        Variable varZ = variables.newGaussianVariable("Z");
+        DAG dag = new DAG(variables);
+        dag.getParentSet(varC).addParent(varX);
+        dag.getParentSet(varY).addParent(varX);
+        dag.getParentSet(varZ).addParent(varX);
+        dag.getParentSet(varZ).addParent(varY);
+        BayesianNetwork bn = new BayesianNetwork(dag);
+
+        Normal distX = bn.getConditionalDistribution(varX);
+        distX.setMean(0);
+        distX.setVariance(1);
+        Multinomial_LogisticParents distC = bn.getConditionalDistribution(varC);
+        distC.setIntercept(0, 1);
+        distC.setCoeffParents(0, new double[]{3});
+        ConditionalLinearGaussian distY = bn.getConditionalDistribution(varY);
+        distY.setIntercept(0.5);
+        distY.setCoeffForParent(varX, 2);
+        distY.setVariance(0.05);
+        ConditionalLinearGaussian distZ = bn.getConditionalDistribution(varZ);
+        distZ.setIntercept(0);
+        distZ.setCoeffForParent(varX, 1);
+        distZ.setCoeffForParent(varY, -1);
+        distZ.setVariance(0.5);
+
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(varC, 0);
+
+        GibbsSampling gibbs = new GibbsSampling();
+        gibbs.setModel(bn);
+        gibbs.setSeed(0);
+        gibbs.setEvidence(evidence);
+        gibbs.setRHatThreshold(0);
+        gibbs.setMaxIterations(10000);
+        gibbs.runInference();
+
+        //Y and Z are not observed, so the posterior of X is the same as without them.
+        double[] moments = getLogisticChildPosteriorMoments();
+        Normal posteriorX = gibbs.getPosterior(varX);
+        assertEquals(moments[0], posteriorX.getMean(), 0.03);
+        assertEquals(moments[1], posteriorX.getVariance(), 0.03);
+        Normal posteriorY = gibbs.getPosterior(varY);
+        assertEquals(0.5 + 2 * moments[0], posteriorY.getMean(), 0.1);
+        Normal posteriorZ = gibbs.getPosterior(varZ);
+        assertEquals(-0.5 - moments[0], posteriorZ.getMean(), 0.1);
+    }
+
+    /**
+     * Computes by numerical integration the posterior mean and variance of X ~ N(0,1) given that its logistic child
+     * with intercept 1 and coefficient 3 is in state 0.
+     */
+    private static double[] getLogisticChildPosteriorMoments() {
+        double weight = 0;
+        double moment1 = 0;
+        double moment2 = 0;
+        for (double x = -10; x <= 10; x += 0.001) {
+            double density = Math.exp(-x * x / 2) / (1 + Math.exp(-1 - 3 * x));
+            weight += density;
+            moment1 += density * x;
+            moment2 += density * x * x;
+        }
+        double mean = moment1 / weight;
+        return new double[]{mean, moment2 / weight - mean * mean};
+    }
+
+    public static void testEarlyStopping() {
+        BayesianNetwork bn = getHybridNetwork();
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(bn.getVariables().getVariableByName("Z"), 1.5);
+
+        GibbsSampling gibbs = new GibbsSampling();
+        gibbs.setModel(bn);
+        gibbs.setSeed(0);
+        gibbs.setEvidence(evidence);
+        gibbs.setRHatThreshold(1.05);
+        gibbs.runInference();
+
+        assertTrue(gibbs.getNumberOfIterations() < 5000);
+        assertTrue(gibbs.getMaxRHat() < 1.05);
+    }
+
+    public static void testParallelChains() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(bn.getVariables().getVariableByName("X"), 0);
+
+        Multinomial[][] posteriors = new Multinomial[2][bn.getNumberOfVars()];
+        for (int i = 0; i < 2; i++) {
+            GibbsSampling gibbs = new GibbsSampling();
+            gibbs.setModel(bn);
+            gibbs.setSeed(5);
+            gibbs.setParallelMode(i == 0);
+            gibbs.setEvidence(evidence);
+            gibbs.runInference();
+            for (Variable var : bn.getVariables()) {
+                posteriors[i][var.getVarID()] = gibbs.getPosterior(var);
+            }
+        }
+
+        //Each chain has its own random stream, so the result does not depend on the scheduling of the chains.
+        for (Variable var : bn.getVariables()) {
+            for (int s = 0; s < var.getNumberOfStates(); s++) {
+                assertEquals(posteriors[1][var.getVarID()].getProbabilityOfState(s), posteriors[0][var.getVarID()].getProbabilityOfState(s));
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.UnivariateDistribution;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.utils.BayesianNetworkSampler;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the posteriors of {@link ImportanceSampling}.
+ */
+public class ImportanceSamplingTest extends TestCase {
+
+    public static void testComputePosteriors() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+        Variable varL = bn.getVariables().getVariableByName("L");
+        Variable varB = bn.getVariables().getVariableByName("B");
+
+        BayesianNetworkSampler sampler = new BayesianNetworkSampler(bn);
+        sampler.setSeed(0);
+        sampler.setHiddenVar(varL);
+        sampler.setHiddenVar(varB);
+        DataOnMemory<DataInstance> batch = sampler.sampleToDataStream(50).toDataOnMemory();
+
+        ImportanceSampling importanceSampling = new ImportanceSampling();
+        importanceSampling.setModel(bn);
+        importanceSampling.setSampleSize(2000);
+        importanceSampling.setSeed(3);
+        List<List<UnivariateDistribution>> posteriors = importanceSampling.computePosteriors(batch, Arrays.asList(varL, varB));
+
+        JunctionTreeInference exact = new JunctionTreeInference();
+        exact.setModel(bn);
+
+        assertEquals(batch.getNumberOfDataInstances(), posteriors.size());
+        for (int i = 0; i < batch.getNumberOfDataInstances(); i++) {
+            ImportanceSampling single = new ImportanceSampling();
+            single.setModel(bn);
+            single.setSampleSize(2000);
+            single.setSeed(3);
+            single.setParallelMode(false);
+            single.setEvidence(batch.getDataInstance(i));
+            single.runInference();
+
+            exact.setEvidence(batch.getDataInstance(i));
+            exact.runInference();
+
+            for (int j = 0; j < 2; j++) {
+                Variable var = j == 0 ? varL : varB;
+                Multinomial posterior = (Multinomial) posteriors.get(i).get(j);
+                assertEquals(((Multinomial) single.getPosterior(var)).getProbabilityOfState(0), posterior.getProbabilityOfState(0), 1e-12);
+                assertEquals(((Multinomial) exact.getPosterior(var)).getProbabilityOfState(0), posterior.getProbabilityOfState(0), 0.1);
+            }
+        }
+    }
+
+    public static void testRegisteredQueries() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment evidence = new HashMapAssignment(2);
+        evidence.setValue(bn.getVariables().getVariableByName("X"), 1);
+        evidence.setValue(bn.getVariables().getVariableByName("D"), 0);
+        List<Variable> hidden = bn.getVariables().getListOfVariables().stream()
+                .filter(var -> !evidence.getVariables().contains(var))
+                .collect(Collectors.toList());
+        Variable varL = bn.getVariables().getVariableByName("L");
+
+        ImportanceSampling stored = new ImportanceSampling();
+        stored.setModel(bn);
+        stored.setSampleSize(5000);
+        stored.setSeed(1);
+        stored.setParallelMode(false);
+        stored.setEvidence(evidence);
+        stored.runInference();
+
+        AtomicInteger nCalls = new AtomicInteger(0);
+        Function<Double, Double> function = x -> {
+            nCalls.incrementAndGet();
+            return x * x + 1;
+        };
+
+        ImportanceSampling accumulated = new ImportanceSampling();
+        accumulated.setModel(bn);
+        accumulated.setSampleSize(5000);
+        accumulated.setSeed(1);
+        accumulated.setParallelMode(false);
+        accumulated.setKeepDataOnMemory(false);
+        accumulated.setVariablesAPosteriori(hidden);
+        accumulated.addExpectedValueQuery(varL, function);
+        accumulated.setEvidence(evidence);
+        accumulated.runInference();
+
+        //Each sample is drawn once, and the registered queries do not draw them again.
+        assertEquals(5000, nCalls.get());
+        for (Variable var : hidden) {
+            Multinomial expected = stored.getPosterior(var);
+            Multinomial posterior = accumulated.getPosterior(var);
+            for (int s = 0; s < var.getNumberOfStates(); s++) {
+                assertEquals(expected.getProbabilityOfState(s), posterior.getProbabilityOfState(s), 1e-10);
+            }
+        }
+        assertEquals(stored.getLogProbabilityOfEvidence(), accumulated.getLogProbabilityOfEvidence(), 1e-10);
+        assertEquals(stored.getExpectedValue(varL, x -> x * x + 1), accumulated.getExpectedValue(varL, function), 1e-10);
+        assertEquals(5000, nCalls.get());
+
+        //Queries which were not registered draw the samples again.
+        assertEquals(stored.getExpectedValue(varL, x -> x), accumulated.getExpectedValue(varL, x -> x), 1e-10);
+    }
+
+    public static void testAdaptiveMode() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment evidence = new HashMapAssignment(2);
+        evidence.setValue(bn.getVariables().getVariableByName("X"), 0);
+        evidence.setValue(bn.getVariables().getVariableByName("D"), 0);
+
+        JunctionTreeInference exact = new JunctionTreeInference();
+        exact.setModel(bn);
+        exact.setEvidence(evidence);
+        exact.runInference();
+
+        double[] probabilities = null;
+        for (int mode = 0; mode < 2; mode++) {
+            ImportanceSampling adaptive = new ImportanceSampling();
+            adaptive.setModel(bn);
+            adaptive.setSeed(1);
+            adaptive.setParallelMode(mode == 1);
+            adaptive.setSampleSize(500);
+            adaptive.setAdaptiveMode(true);
+            adaptive.setMaxRounds(20);
+            adaptive.setTargetEffectiveSampleSize(2000);
+            adaptive.setTargetStandardError(0.01);
+            adaptive.setVariablesAPosteriori(bn.getVariables().getListOfVariables());
+            adaptive.setEvidence(evidence);
+            adaptive.runInference();
+
+            assertTrue(adaptive.getNumberOfRounds() > 1 && adaptive.getNumberOfRounds() < 20);
+            assertTrue(adaptive.getEffectiveSampleSize() >= 2000);
+            assertSame(adaptive.getOriginalModel(), adaptive.getSamplingModel());
+            assertNotSame(adaptive.getSamplingModel(), adaptive.getAdaptedSamplingModel());
+            assertEquals(exact.getLogProbabilityOfEvidence(), adaptive.getLogProbabilityOfEvidence(), 0.05);
+
+            double[] current = new double[bn.getNumberOfVars()];
+            for (Variable var : bn.getVariables()) {
+                current[var.getVarID()] = ((Multinomial) adaptive.getPosterior(var)).getProbabilityOfState(0);
+                assertEquals(((Multinomial) exact.getPosterior(var)).getProbabilityOfState(0), current[var.getVarID()], 0.05);
+            }
+            if (probabilities != null)
+                assertTrue(Arrays.equals(probabilities, current));
+            probabilities = current;
+        }
+
+        //The refitted sampling models give a higher effective sample size than the prior for the same budget.
+        ImportanceSampling fixed = new ImportanceSampling();
+        fixed.setModel(bn);
+        fixed.setSeed(1);
+        fixed.setSampleSize(5000);
+        fixed.setVariablesAPosteriori(bn.getVariables().getListOfVariables());
+        fixed.setEvidence(evidence);
+        fixed.runInference();
+        assertTrue(fixed.getEffectiveSampleSize() < 2000);
+    }
+}
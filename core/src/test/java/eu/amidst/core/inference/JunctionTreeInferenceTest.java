@@ -0,0 +1,201 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.inference;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.distribution.ConditionalLinearGaussian;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.distribution.Normal_MultinomialParents;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.models.DAG;
+import eu.amidst.core.utils.BayesianNetworkSampler;
+import eu.amidst.core.utils.MultinomialIndex;
+import eu.amidst.core.variables.Assignment;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.core.variables.Variables;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the posteriors of {@link JunctionTreeInference} against exact enumeration and closed-form results.
+ */
+public class JunctionTreeInferenceTest extends TestCase {
+
+    /**
+     * Compares the posteriors of the unobserved multinomial variables and the probability of the evidence with the
+     * ones obtained by enumerating all the configurations of these variables.
+     */
+    private static void checkByEnumeration(BayesianNetwork bn, Assignment evidence) {
+        JunctionTreeInference inference = new JunctionTreeInference();
+        inference.setModel(bn);
+        inference.setEvidence(evidence);
+        inference.runInference();
+
+        List<Variable> hidden = bn.getVariables().getListOfVariables().stream()
+                .filter(var -> !evidence.getVariables().contains(var))
+                .collect(Collectors.toList());
+        int nConfigs = MultinomialIndex.getNumberOfPossibleAssignments(hidden);
+
+        double[] logJoint = new double[nConfigs];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < nConfigs; c++) {
+            HashMapAssignment assignment = new HashMapAssignment(bn.getNumberOfVars());
+            double[] states = MultinomialIndex.getVariableArrayAssignmentFromIndex(hidden, c);
+            for (int i = 0; i < hidden.size(); i++) {
+                assignment.setValue(hidden.get(i), states[i]);
+            }
+            for (Variable var : evidence.getVariables()) {
+                assignment.setValue(var, evidence.getValue(var));
+            }
+            logJoint[c] = bn.getLogProbabiltyOf(assignment);
+            max = Math.max(max, logJoint[c]);
+        }
+
+        double total = 0;
+        for (int c = 0; c < nConfigs; c++) {
+            total += Math.exp(logJoint[c] - max);
+        }
+        assertEquals(max + Math.log(total), inference.getLogProbabilityOfEvidence(), 1e-8);
+
+        for (int i = 0; i < hidden.size(); i++) {
+            Variable var = hidden.get(i);
+            double[] marginal = new double[var.getNumberOfStates()];
+            for (int c = 0; c < nConfigs; c++) {
+                int state = (int) MultinomialIndex.getVariableArrayAssignmentFromIndex(hidden, c)[i];
+                marginal[state] += Math.exp(logJoint[c] - max) / total;
+            }
+            Multinomial posterior = inference.getPosterior(var);
+            for (int s = 0; s < marginal.length; s++) {
+                assertEquals(marginal[s], posterior.getProbabilityOfState(s), 1e-8);
+            }
+        }
+    }
+
+    public static void testAsia() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment evidence = new HashMapAssignment(2);
+        evidence.setValue(bn.getVariables().getVariableByName("X"), 1);
+        evidence.setValue(bn.getVariables().getVariableByName("D"), 0);
+        checkByEnumeration(bn, evidence);
+
+        checkByEnumeration(bn, new HashMapAssignment(0));
+    }
+
+    public static void testWasteIncinerator() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/simulated/WasteIncinerator.bn");
+
+        BayesianNetworkSampler sampler = new BayesianNetworkSampler(bn);
+        sampler.setSeed(0);
+        List<DataInstance> samples = sampler.sampleToDataStream(3).stream().collect(Collectors.toList());
+        for (DataInstance sample : samples) {
+            HashMapAssignment evidence = new HashMapAssignment(bn.getNumberOfVars());
+            for (Variable var : bn.getVariables()) {
+                if (var.isNormal())
+                    evidence.setValue(var, sample.getValue(var));
+            }
+            checkByEnumeration(bn, evidence);
+        }
+    }
+
+    public static void testLinearGaussianChain() {
+        Variables variables = new Variables();
+        Variable varA = variables.newGaussianVariable("A");
+        Variable varB = variables.newGaussianVariable("B");
+        DAG dag = new DAG(variables);
+        dag.getParentSet(varB).addParent(varA);
+        BayesianNetwork bn = new BayesianNetwork(dag);
+
+        Normal distA = bn.getConditionalDistribution(varA);
+        distA.setMean(1);
+        distA.setVariance(0.25);
+        ConditionalLinearGaussian distB = bn.getConditionalDistribution(varB);
+        distB.setIntercept(1);
+        distB.setCoeffForParent(varA, 2);
+        distB.setVariance(0.5);
+
+        JunctionTreeInference inference = new JunctionTreeInference();
+        inference.setModel(bn);
+        inference.runInference();
+
+        Normal posteriorB = inference.getPosterior(varB);
+        assertEquals(3, posteriorB.getMean(), 1e-10);
+        assertEquals(0.5 + 4 * 0.25, posteriorB.getVariance(), 1e-10);
+
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(varB, 4);
+        inference.setEvidence(evidence);
+        inference.runInference();
+
+        double precision = 1 / 0.25 + 4 / 0.5;
+        Normal posteriorA = inference.getPosterior(varA);
+        assertEquals(1 / precision, posteriorA.getVariance(), 1e-10);
+        assertEquals((1 / 0.25 + 2 * (4 - 1) / 0.5) / precision, posteriorA.getMean(), 1e-10);
+        Normal marginalB = new Normal(varB);
+        marginalB.setMean(3);
+        marginalB.setVariance(1.5);
+        assertEquals(marginalB.getLogProbability(4), inference.getLogProbabilityOfEvidence(), 1e-10);
+    }
+
+    public static void testMixtureOfGaussians() {
+        Variables variables = new Variables();
+        Variable varC = variables.newMultinomialVariable("C", 2);
+        Variable varX = variables.newGaussianVariable("X");
+        Variable varY = variables.newGaussianVariable("Y");
+        DAG dag = new DAG(variables);
+        dag.getParentSet(varX).addParent(varC);
+        dag.getParentSet(varY).addParent(varX);
+        BayesianNetwork bn = new BayesianNetwork(dag);
+
+        Multinomial distC = bn.getConditionalDistribution(varC);
+        distC.setProbabilities(new double[]{0.3, 0.7});
+        Normal_MultinomialParents distX = bn.getConditionalDistribution(varX);
+        distX.getNormal(0).setMean(-2);
+        distX.getNormal(0).setVariance(1);
+        distX.getNormal(1).setMean(3);
+        distX.getNormal(1).setVariance(2);
+        ConditionalLinearGaussian distY = bn.getConditionalDistribution(varY);
+        distY.setIntercept(0.5);
+        distY.setCoeffForParent(varX, -1.5);
+        distY.setVariance(0.1);
+
+        JunctionTreeInference inference = new JunctionTreeInference();
+        inference.setModel(bn);
+        inference.runInference();
+
+        double meanX = 0.3 * -2 + 0.7 * 3;
+        double varianceX = 0.3 * (1 + 4) + 0.7 * (2 + 9) - meanX * meanX;
+        Normal posteriorX = inference.getPosterior(varX);
+        assertEquals(meanX, posteriorX.getMean(), 1e-10);
+        assertEquals(varianceX, posteriorX.getVariance(), 1e-10);
+
+        Normal posteriorY = inference.getPosterior(varY);
+        assertEquals(0.5 - 1.5 * meanX, posteriorY.getMean(), 1e-10);
+        assertEquals(0.1 + 2.25 * varianceX, posteriorY.getVariance(), 1e-10);
+
+        Multinomial posteriorC = inference.getPosterior(varC);
+        assertEquals(0.3, posteriorC.getProbabilityOfState(0), 1e-10);
+        assertEquals(0.0, inference.getLogProbabilityOfEvidence(), 1e-10);
+    }
+}
@@ -18,12 +18,19 @@
 package eu.amidst.core.inference;
 
 import eu.amidst.core.Main;
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.distribution.Multinomial;
 import eu.amidst.core.distribution.Multinomial_MultinomialParents;
+import eu.amidst.core.distribution.UnivariateDistribution;
 import eu.amidst.core.exponentialfamily.EF_Multinomial;
+import eu.amidst.core.exponentialfamily.MomentParameters;
+import eu.amidst.core.inference.messagepassing.Node;
 import eu.amidst.core.inference.messagepassing.VMP;
+import eu.amidst.core.io.BayesianNetworkLoader;
 import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.models.DAG;
+import eu.amidst.core.utils.BayesianNetworkSampler;
 import eu.amidst.core.utils.MultinomialIndex;
 import eu.amidst.core.utils.Utils;
 import eu.amidst.core.variables.Assignment;
@@ -32,8 +39,10 @@ import eu.amidst.core.variables.Variable;
 import eu.amidst.core.variables.Variables;
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 public class VMPTest extends TestCase {
@@ -997,4 +1006,162 @@ public class VMPTest extends TestCase {
 
     }
 
-}
\ No newline at end of file
+    public static void testParallelMode() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment assignment = new HashMapAssignment(2);
+        assignment.setValue(bn.getVariables().getVariableByName("X"), 1);
+        assignment.setValue(bn.getVariables().getVariableByName("D"), 0);
+
+        VMP sequential = new VMP();
+        sequential.setThreshold(0.0001);
+        sequential.setModel(bn);
+        sequential.setEvidence(assignment);
+        sequential.runInference();
+
+        double[][] posteriors = new double[2][];
+        for (int run = 0; run < 2; run++) {
+            VMP parallel = new VMP();
+            parallel.setParallelMode(true);
+            parallel.setThreshold(0.0001);
+            parallel.setModel(bn);
+            parallel.setEvidence(assignment);
+            parallel.runInference();
+
+            //No two nodes of a color class are in the Markov blanket of each other.
+            for (List<Node> colorClass : parallel.getColorClasses()) {
+                for (Node node : colorClass) {
+                    for (Node other : colorClass) {
+                        assertFalse(node.getParents().contains(other));
+                        assertFalse(node.getChildren().stream().anyMatch(child -> child == other || child.getParents().contains(other) && other != node));
+                    }
+                }
+            }
+
+            posteriors[run] = bn.getVariables().getListOfVariables().stream()
+                    .filter(var -> !assignment.getVariables().contains(var))
+                    .mapToDouble(var -> ((Multinomial) parallel.getPosterior(var)).getProbabilityOfState(0))
+                    .toArray();
+
+            int pos = 0;
+            for (Variable var : bn.getVariables()) {
+                if (assignment.getVariables().contains(var))
+                    continue;
+                Multinomial posterior = sequential.getPosterior(var);
+                assertEquals(posterior.getProbabilityOfState(0), posteriors[run][pos++], 0.01);
+            }
+        }
+
+        assertTrue(Arrays.equals(posteriors[0], posteriors[1]));
+    }
+
+    public static void testResidualScheduling() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment assignment = new HashMapAssignment(2);
+        assignment.setValue(bn.getVariables().getVariableByName("X"), 1);
+        assignment.setValue(bn.getVariables().getVariableByName("D"), 0);
+
+        VMP sequential = new VMP();
+        sequential.setThreshold(0.000001);
+        sequential.setModel(bn);
+        sequential.setEvidence(assignment);
+        sequential.runInference();
+
+        VMP residual = new VMP();
+        residual.setResidualScheduling(true);
+        residual.setResidualThreshold(0.00001);
+        residual.setModel(bn);
+        residual.setEvidence(assignment);
+        residual.runInference();
+
+        assertTrue(residual.getNumberOfUpdates() <= sequential.getNumberOfUpdates());
+        for (Variable var : bn.getVariables()) {
+            if (assignment.getVariables().contains(var))
+                continue;
+            Multinomial expected = sequential.getPosterior(var);
+            Multinomial posterior = residual.getPosterior(var);
+            assertEquals(expected.getProbabilityOfState(0), posterior.getProbabilityOfState(0), 0.001);
+        }
+        assertEquals(sequential.getLogProbabilityOfEvidence(), residual.getLogProbabilityOfEvidence(), 0.001);
+    }
+
+    public static void testIncrementalELBO() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/simulated/WasteIncinerator.bn");
+
+        HashMapAssignment assignment = new HashMapAssignment(1);
+        assignment.setValue(bn.getVariables().getVariableByName("Mout"), 1.5);
+
+        VMP vmp = new VMP();
+        vmp.setThreshold(0.000001);
+        vmp.setModel(bn);
+        vmp.setEvidence(assignment);
+        vmp.runInference();
+
+        double elbo = vmp.getLogProbabilityOfEvidence();
+        assertEquals(vmp.computeLogProbabilityOfEvidence(), elbo, 1e-8);
+
+        VMP sparseChecks = new VMP();
+        sparseChecks.setThreshold(0.000001);
+        sparseChecks.setConvergenceCheckInterval(3);
+        sparseChecks.setModel(bn);
+        sparseChecks.setEvidence(assignment);
+        sparseChecks.runInference();
+
+        assertTrue(sparseChecks.getNumberOfIterations() % 3 == 0 || sparseChecks.getNumberOfIterations() > sparseChecks.getMaxIter());
+        assertEquals(sparseChecks.computeLogProbabilityOfEvidence(), sparseChecks.getLogProbabilityOfEvidence(), 1e-8);
+        assertEquals(elbo, sparseChecks.getLogProbabilityOfEvidence(), 0.001);
+    }
+
+    public static void testMomentParents() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        VMP vmp = new VMP();
+        vmp.setModel(bn);
+        vmp.runInference();
+
+        for (Node node : vmp.getNodes()) {
+            Map<Variable, MomentParameters> momentParents = node.getMomentParents();
+            assertSame(momentParents, node.getMomentParents());
+            assertEquals(node.getParents().size() + 1, momentParents.size());
+            assertSame(node.getQMomentParameters(), momentParents.get(node.getMainVariable()));
+            for (Node parent : node.getParents()) {
+                assertSame(parent.getQMomentParameters(), momentParents.get(parent.getMainVariable()));
+            }
+        }
+    }
+
+    public static void testComputePosteriors() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+        Variable varL = bn.getVariables().getVariableByName("L");
+        Variable varB = bn.getVariables().getVariableByName("B");
+
+        BayesianNetworkSampler sampler = new BayesianNetworkSampler(bn);
+        sampler.setSeed(0);
+        sampler.setHiddenVar(varL);
+        sampler.setHiddenVar(varB);
+        sampler.setMARVar(bn.getVariables().getVariableByName("T"), 0.3);
+        DataOnMemory<DataInstance> batch = sampler.sampleToDataStream(200).toDataOnMemory();
+
+        VMP vmp = new VMP();
+        vmp.setThreshold(0.0001);
+        vmp.setModel(bn);
+        List<List<UnivariateDistribution>> posteriors = vmp.computePosteriors(batch, Arrays.asList(varL, varB));
+
+        assertEquals(batch.getNumberOfDataInstances(), posteriors.size());
+        for (int i = 0; i < batch.getNumberOfDataInstances(); i++) {
+            VMP single = new VMP();
+            single.setThreshold(0.0001);
+            single.setModel(bn);
+            single.setEvidence(batch.getDataInstance(i));
+            single.runInference();
+
+            assertEquals(2, posteriors.get(i).size());
+            Multinomial posteriorL = (Multinomial) posteriors.get(i).get(0);
+            Multinomial posteriorB = (Multinomial) posteriors.get(i).get(1);
+            assertEquals(((Multinomial) single.getPosterior(varL)).getProbabilityOfState(0), posteriorL.getProbabilityOfState(0), 1e-12);
+            assertEquals(((Multinomial) single.getPosterior(varB)).getProbabilityOfState(0), posteriorB.getProbabilityOfState(0), 1e-12);
+        }
+    }
+
+}
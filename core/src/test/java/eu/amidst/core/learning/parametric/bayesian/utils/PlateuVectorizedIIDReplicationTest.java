@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.  See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+
+package eu.amidst.core.learning.parametric.bayesian.utils;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataStream;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.learning.parametric.bayesian.SVB;
+import eu.amidst.core.learning.parametric.bayesian.StochasticVI;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.utils.BayesianNetworkSampler;
+import eu.amidst.core.utils.Serialization;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that {@link PlateuVectorizedIIDReplication} learns the same model as {@link PlateuIIDReplication}.
+ */
+public class PlateuVectorizedIIDReplicationTest extends TestCase {
+
+    private static List<DataOnMemory<DataInstance>> sampleBatches(BayesianNetwork bn) {
+        BayesianNetworkSampler sampler = new BayesianNetworkSampler(bn);
+        sampler.setSeed(0);
+        sampler.setHiddenVar(bn.getVariables().getVariableById(0));
+        sampler.setMARVar(bn.getVariables().getVariableById(3), 0.3);
+        DataStream<DataInstance> data = sampler.sampleToDataStream(1000);
+
+        List<DataOnMemory<DataInstance>> batches = new ArrayList<>();
+        for (DataOnMemory<DataInstance> batch : data.iterableOverBatches(250)) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static SVB learn(BayesianNetwork bn, PlateuStructure plateuStructure, List<DataOnMemory<DataInstance>> batches) {
+        SVB svb = new SVB();
+        if (plateuStructure != null)
+            svb.setPlateuStructure(plateuStructure);
+        svb.setWindowsSize(250);
+        svb.setSeed(5);
+        svb.setDAG(bn.getDAG());
+        svb = Serialization.deepCopy(svb);
+        svb.initLearning();
+        for (DataOnMemory<DataInstance> batch : batches) {
+            svb.updateModel(batch);
+        }
+        return svb;
+    }
+
+    public static void testSameModelAsPlateuIIDReplication() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/simulated/WasteIncinerator.bn");
+        List<DataOnMemory<DataInstance>> batches = sampleBatches(bn);
+
+        SVB reference = learn(bn, null, batches);
+
+        for (int nCores = 1; nCores <= 3; nCores++) {
+            PlateuVectorizedIIDReplication plateu = new PlateuVectorizedIIDReplication();
+            plateu.setNCores(nCores);
+            SVB vectorized = learn(bn, plateu, batches);
+
+            assertEquals(reference.getLogMarginalProbability(), vectorized.getLogMarginalProbability(), 1e-6);
+            assertEquals(reference.getPlateuStructure().getVMP().getNumberOfIterations(),
+                    vectorized.getPlateuStructure().getVMP().getNumberOfIterations());
+            assertTrue(reference.getLearntBayesianNetwork().equalBNs(vectorized.getLearntBayesianNetwork(), 1e-6));
+        }
+    }
+
+    private static SVB randomInitialize(BayesianNetwork bn, PlateuStructure plateuStructure, DataOnMemory<DataInstance> batch) {
+        SVB svb = new SVB();
+        if (plateuStructure != null)
+            svb.setPlateuStructure(plateuStructure);
+        svb.setWindowsSize(250);
+        svb.setSeed(5);
+        svb.setDAG(bn.getDAG());
+        if (batch == null)
+            svb.randomInitialize();
+        else
+            svb.randomInitialize(batch);
+        return svb;
+    }
+
+    public static void testRandomInitialize() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/simulated/WasteIncinerator.bn");
+        List<DataOnMemory<DataInstance>> batches = sampleBatches(bn);
+
+        for (DataOnMemory<DataInstance> batch : new DataOnMemory[]{null, batches.get(0)}) {
+            SVB reference = randomInitialize(bn, null, batch);
+            SVB prior = new SVB();
+            prior.setDAG(bn.getDAG());
+            prior.initLearning();
+
+            for (int nCores = 1; nCores <= 3; nCores++) {
+                PlateuVectorizedIIDReplication plateu = new PlateuVectorizedIIDReplication();
+                plateu.setNCores(nCores);
+                SVB vectorized = randomInitialize(bn, plateu, batch);
+
+                //The messages of the replications have been collected, and the global updates are restored.
+                assertFalse(prior.getLearntBayesianNetwork().equalBNs(vectorized.getLearntBayesianNetwork(), 1e-6));
+                assertTrue(reference.getLearntBayesianNetwork().equalBNs(vectorized.getLearntBayesianNetwork(), 1e-6));
+                assertFalse(((PlateuVectorizedIIDReplication.VectorizedVMP) plateu.getVMP()).localUpdates);
+
+                for (DataOnMemory<DataInstance> next : batches) {
+                    reference.updateModel(next);
+                    vectorized.updateModel(next);
+                }
+                assertEquals(reference.getLogMarginalProbability(), vectorized.getLogMarginalProbability(), 1e-6);
+                assertTrue(reference.getLearntBayesianNetwork().equalBNs(vectorized.getLearntBayesianNetwork(), 1e-6));
+
+                reference = randomInitialize(bn, null, batch);
+            }
+        }
+    }
+
+    private static StochasticVI learnStochasticVI(BayesianNetwork bn, PlateuStructure plateuStructure, List<DataOnMemory<DataInstance>> batches) {
+        StochasticVI stochasticVI = new StochasticVI();
+        if (plateuStructure != null)
+            stochasticVI.setPlateuStructure(plateuStructure);
+        stochasticVI.setLearningFactor(0.7);
+        stochasticVI.setDataSetSize(1000);
+        stochasticVI.setSeed(5);
+        stochasticVI.setBatchSize(250);
+        stochasticVI.setLocalThreshold(0.001);
+        stochasticVI.setMaximumLocalIterations(100);
+        stochasticVI.setDAG(bn.getDAG());
+        stochasticVI.initLearning();
+        for (DataOnMemory<DataInstance> batch : batches) {
+            stochasticVI.updateModel(batch);
+        }
+        return stochasticVI;
+    }
+
+    public static void testStochasticVI() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/simulated/WasteIncinerator.bn");
+        List<DataOnMemory<DataInstance>> batches = sampleBatches(bn);
+
+        StochasticVI reference = learnStochasticVI(bn, null, batches);
+
+        for (int nCores = 1; nCores <= 3; nCores++) {
+            PlateuVectorizedIIDReplication plateu = new PlateuVectorizedIIDReplication();
+            plateu.setNCores(nCores);
+            StochasticVI vectorized = learnStochasticVI(bn, plateu, batches);
+
+            PlateuVectorizedIIDReplication.VectorizedVMP vmp = (PlateuVectorizedIIDReplication.VectorizedVMP) plateu.getVMP();
+            assertTrue(vmp.localUpdates);
+            assertEquals(100, vmp.getMaxIter());
+            assertEquals(0.001, vmp.getThreshold());
+            assertTrue(reference.getLearntBayesianNetwork().equalBNs(vectorized.getLearntBayesianNetwork(), 1e-6));
+        }
+    }
+}
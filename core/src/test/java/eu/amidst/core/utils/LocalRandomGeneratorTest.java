@@ -0,0 +1,107 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.core.utils;
+
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.distribution.Normal;
+import eu.amidst.core.inference.ImportanceSampling;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.variables.HashMapAssignment;
+import eu.amidst.core.variables.Variable;
+import eu.amidst.core.variables.Variables;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the streams of {@link LocalRandomGenerator} do not depend on the parallel mode.
+ */
+public class LocalRandomGeneratorTest extends TestCase {
+
+    public static void testSplitMixRandom() {
+        SplitMixRandom random = new SplitMixRandom(42);
+        SplittableRandom splittableRandom = new SplittableRandom(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(splittableRandom.nextLong(), random.nextLong());
+        }
+
+        random.setSeed(42);
+        assertEquals(new SplittableRandom(42).nextDouble(), random.nextDouble());
+        for (int i = 0; i < 1000; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+            int state = random.nextInt(5);
+            assertTrue(state >= 0 && state < 5);
+        }
+    }
+
+    public static void testStreams() {
+        LocalRandomGenerator randomGenerator = new LocalRandomGenerator(3);
+        assertEquals(randomGenerator.getStream(7).nextLong(), new LocalRandomGenerator(3).getStream(7).nextLong());
+        assertFalse(randomGenerator.getStream(7).nextLong() == randomGenerator.getStream(8).nextLong());
+        assertFalse(randomGenerator.getStream(7).nextLong() == new LocalRandomGenerator(4).getStream(7).nextLong());
+
+        Variables variables = new Variables();
+        Variable var = variables.newGaussianVariable("A");
+        Normal normal = new Normal(var);
+        normal.setMean(1);
+        normal.setVariance(2);
+
+        int nSamples = 10 * LocalRandomGenerator.CHUNK_SIZE + 5;
+        List<Double> sequential = randomGenerator.generate(nSamples, false, normal::sample).collect(Collectors.toList());
+        List<Double> parallel = randomGenerator.generate(nSamples, true, normal::sample).collect(Collectors.toList());
+        assertEquals(nSamples, sequential.size());
+        assertEquals(sequential, parallel);
+
+        List<Integer> chunkSizes = randomGenerator.generateChunks(nSamples, true, (Random random, Integer size) -> size)
+                .collect(Collectors.toList());
+        assertEquals(11, chunkSizes.size());
+        assertEquals(5, chunkSizes.get(10).intValue());
+    }
+
+    public static void testImportanceSamplingParallelMode() throws IOException, ClassNotFoundException {
+        BayesianNetwork bn = BayesianNetworkLoader.loadFromFile("../networks/dataWeka/asia.bn");
+
+        HashMapAssignment evidence = new HashMapAssignment(1);
+        evidence.setValue(bn.getVariables().getVariableByName("X"), 1);
+        Variable varL = bn.getVariables().getVariableByName("L");
+
+        double[][] probabilities = new double[2][];
+        for (int mode = 0; mode < 2; mode++) {
+            ImportanceSampling importanceSampling = new ImportanceSampling();
+            importanceSampling.setModel(bn);
+            importanceSampling.setSampleSize(3000);
+            importanceSampling.setSeed(11);
+            importanceSampling.setParallelMode(mode == 1);
+            importanceSampling.setKeepDataOnMemory(false);
+            importanceSampling.setVariablesAPosteriori(bn.getVariables().getListOfVariables());
+            importanceSampling.setEvidence(evidence);
+            importanceSampling.runInference();
+            probabilities[mode] = ((Multinomial) importanceSampling.getPosterior(varL)).getProbabilities();
+        }
+
+        assertEquals(probabilities[0][0], probabilities[1][0]);
+        assertEquals(probabilities[0][1], probabilities[1][1]);
+    }
+}
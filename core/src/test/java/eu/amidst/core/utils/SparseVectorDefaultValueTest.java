@@ -141,4 +141,74 @@ public class SparseVectorDefaultValueTest extends TestCase {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Checks the merges of sparse vectors with different numbers of entries and default values against the same
+     * operations on dense arrays.
+     */
+    public static void test3() {
+        java.util.Random random = new java.util.Random(0);
+        int dimension = 200;
+        for (int iter = 0; iter < 50; iter++) {
+            double defaultA = (iter % 2 == 0) ? 0 : random.nextDouble();
+            double defaultB = (iter % 3 == 0) ? 0 : random.nextDouble();
+            SparseVectorDefaultValue vectorA = new SparseVectorDefaultValue(dimension, defaultA);
+            SparseVectorDefaultValue vectorB = new SparseVectorDefaultValue(dimension, defaultB);
+            double[] denseA = new double[dimension];
+            double[] denseB = new double[dimension];
+            java.util.Arrays.fill(denseA, defaultA);
+            java.util.Arrays.fill(denseB, defaultB);
+
+            int nA = random.nextInt(dimension);
+            int nB = (iter % 4 == 0) ? 3 : random.nextInt(dimension);
+            for (int k = 0; k < nA; k++) {
+                int index = random.nextInt(dimension);
+                denseA[index] = 1 + random.nextDouble();
+                vectorA.set(index, denseA[index]);
+            }
+            for (int k = 0; k < nB; k++) {
+                int index = random.nextInt(dimension);
+                denseB[index] = 1 + random.nextDouble();
+                vectorB.set(index, denseB[index]);
+            }
+
+            double dotProduct = 0;
+            for (int i = 0; i < dimension; i++) {
+                dotProduct += denseA[i] * denseB[i];
+            }
+            assertEquals(dotProduct, vectorA.dotProduct(vectorB), 1e-8);
+
+            vectorA.sum(vectorB);
+            for (int i = 0; i < dimension; i++) {
+                assertEquals(denseA[i] + denseB[i], vectorA.get(i), 1e-10);
+            }
+
+            vectorA.substract(vectorB);
+            for (int i = 0; i < dimension; i++) {
+                assertEquals(denseA[i], vectorA.get(i), 1e-10);
+            }
+        }
+    }
+
+    /**
+     * Checks that small entries are subtracted, both when the other vector has few entries and when it has many.
+     */
+    public static void test4() {
+        for (int nEntriesB : new int[]{1, 30}) {
+            SparseVectorDefaultValue vectorA = new SparseVectorDefaultValue(100, 0.0);
+            SparseVectorDefaultValue vectorB = new SparseVectorDefaultValue(100, 0.0);
+            for (int i = 0; i < 20; i++) {
+                vectorA.set(i, 1.0);
+            }
+            for (int i = 0; i < nEntriesB; i++) {
+                vectorB.set(3 * i, 1e-6);
+            }
+
+            vectorA.substract(vectorB);
+            for (int i = 0; i < nEntriesB; i++) {
+                assertEquals(((3 * i < 20) ? 1.0 : 0.0) - 1e-6, vectorA.get(3 * i), 1e-12);
+            }
+            assertEquals(1.0, vectorA.get(1));
+        }
+    }
+
+}
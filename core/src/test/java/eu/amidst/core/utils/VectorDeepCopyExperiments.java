@@ -0,0 +1,78 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.core.utils;
+
+import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compares the time and the allocated bytes of {@link Vector#deepCopy()} against the serialization round-trip of
+ * {@link Serialization#deepCopy(Object)} on the natural parameters of some networks.
+ */
+public class VectorDeepCopyExperiments {
+
+    /** Represents the number of copies performed in each measurement. */
+    private static final int N_COPIES = 2000;
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or -1 if it is not supported by the JVM.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /**
+     * Copies a vector a number of times and prints the average time and allocated bytes per copy.
+     */
+    private static void measure(String name, Vector vector, UnaryOperator<Vector> copier) {
+        // Warm-up
+        for (int i = 0; i < N_COPIES; i++) {
+            copier.apply(vector);
+        }
+
+        long bytes = allocatedBytes();
+        long time = System.nanoTime();
+        for (int i = 0; i < N_COPIES; i++) {
+            copier.apply(vector);
+        }
+        time = System.nanoTime() - time;
+        bytes = allocatedBytes() - bytes;
+
+        System.out.printf("%-40s %12.2f us/copy %14d bytes/copy%n", name, time / 1000.0 / N_COPIES, bytes / N_COPIES);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] networks = {"networks/dataWeka/asia.bn", "networks/dataWeka/Pigs.bn", "networks/simulated/WasteIncinerator.bn"};
+        for (String file : networks) {
+            BayesianNetwork bn = BayesianNetworkLoader.loadFromFile(file);
+            Vector naturalParameters = new EF_BayesianNetwork(bn).getNaturalParameters();
+
+            System.out.println(file + " (" + naturalParameters.size() + " parameters)");
+            measure("  Vector.deepCopy()", naturalParameters, Vector::deepCopy);
+            measure("  Serialization.deepCopy()", naturalParameters, Serialization::deepCopy);
+        }
+    }
+}
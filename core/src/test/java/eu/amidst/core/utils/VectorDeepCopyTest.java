@@ -0,0 +1,95 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+
+package eu.amidst.core.utils;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.exponentialfamily.EF_BayesianNetwork;
+import eu.amidst.core.exponentialfamily.SufficientStatistics;
+import eu.amidst.core.io.BayesianNetworkLoader;
+import eu.amidst.core.models.BayesianNetwork;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Checks that {@link Vector#deepCopy()} returns independent copies of the same type and values.
+ */
+public class VectorDeepCopyTest extends TestCase {
+
+    /**
+     * Checks that a copy has the same class and values as the original vector and that it does not share any
+     * state with it.
+     */
+    private static void checkDeepCopy(Vector vector) {
+        Vector copy = vector.deepCopy();
+        assertNotSame(vector, copy);
+        assertEquals(vector.getClass(), copy.getClass());
+        assertEquals(vector.size(), copy.size());
+        for (int i = 0; i < vector.size(); i++) {
+            assertEquals(vector.get(i), copy.get(i));
+        }
+
+        Vector serialized = Serialization.deepCopy(vector);
+        copy.multiplyBy(2);
+        for (int i = 0; i < vector.size(); i++) {
+            assertEquals(serialized.get(i), vector.get(i));
+            assertEquals(2 * serialized.get(i), copy.get(i), 1e-10);
+        }
+    }
+
+    public static void testBaseVectors() {
+        checkDeepCopy(new ArrayVector(new double[]{1, -2, 3.5}));
+
+        SparseVectorDefaultValue sparseDefault = new SparseVectorDefaultValue(10, 0.5);
+        sparseDefault.set(3, 7.0);
+        checkDeepCopy(sparseDefault);
+
+        CompoundVector compound = new CompoundVector(Arrays.asList(new ArrayVector(new double[]{1, 2}), sparseDefault));
+        checkDeepCopy(compound);
+
+        SparseVector sparse = new SparseVector(10);
+        sparse.set(2, 4.0);
+        SparseVector sparseCopy = sparse.deepCopy();
+        sparseCopy.set(2, 5.0);
+        assertEquals(4.0, sparse.get(2));
+        assertEquals(0.0, sparseCopy.get(3));
+
+        KeyCompoundVector<String> keyCompound = new KeyCompoundVector<>();
+        keyCompound.addVector("A", new ArrayVector(new double[]{1, 2}));
+        KeyCompoundVector<String> keyCompoundCopy = keyCompound.deepCopy();
+        keyCompoundCopy.getVectorByPosition("A").set(0, 10);
+        assertEquals(1.0, keyCompound.getVectorByPosition("A").get(0));
+        assertEquals(2, keyCompoundCopy.size());
+    }
+
+    public static void testExponentialFamilyVectors() throws IOException, ClassNotFoundException {
+        for (String file : new String[]{"../networks/dataWeka/asia.bn", "../networks/simulated/WasteIncinerator.bn"}) {
+            BayesianNetwork bn = BayesianNetworkLoader.loadFromFile(file);
+            EF_BayesianNetwork efBayesianNetwork = new EF_BayesianNetwork(bn);
+            checkDeepCopy(efBayesianNetwork.getNaturalParameters());
+
+            BayesianNetworkSampler sampler = new BayesianNetworkSampler(bn);
+            for (DataInstance sample : sampler.sampleToDataStream(3)) {
+                SufficientStatistics sufficientStatistics = efBayesianNetwork.getSufficientStatistics(sample);
+                checkDeepCopy(sufficientStatistics);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.core.variables;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Checks that {@link ArrayAssignment} and {@link SparseAssignment} behave as {@link HashMapAssignment}.
+ */
+public class ArrayAssignmentTest extends TestCase {
+
+    private static void checkAssignment(Assignment assignment) {
+        Variables variables = new Variables();
+        Variable a = variables.newMultinomialVariable("A", 2);
+        Variable b = variables.newGaussianVariable("B");
+        Variable c = variables.newGaussianVariable("C");
+        Variable d = variables.newMultinomialVariable("D", 3);
+
+        assertTrue(Double.isNaN(assignment.getValue(a)));
+        assertEquals(0, assignment.getVariables().size());
+
+        assignment.setValue(d, 2);
+        assignment.setValue(b, 0.5);
+        assignment.setValue(a, 1);
+        assignment.setValue(b, 1.5);
+
+        assertEquals(1.0, assignment.getValue(a));
+        assertEquals(1.5, assignment.getValue(b));
+        assertTrue(Double.isNaN(assignment.getValue(c)));
+        assertEquals(2.0, assignment.getValue(d));
+        assertEquals(3, assignment.getVariables().size());
+        assertEquals(new HashSet<>(Arrays.asList(a, b, d)), new HashSet<>(assignment.getVariables()));
+        assertTrue(assignment.getVariables().contains(d));
+        assertFalse(assignment.getVariables().contains(c));
+
+        HashMapAssignment copy = new HashMapAssignment(assignment);
+        assertEquals(1.5, copy.getValue(b));
+        assertEquals(3, copy.getVariables().size());
+    }
+
+    public static void testArrayAssignment() {
+        checkAssignment(new ArrayAssignment(1));
+        checkAssignment(new ArrayAssignment(10));
+    }
+
+    public static void testSparseAssignment() {
+        checkAssignment(new SparseAssignment(1));
+        checkAssignment(new SparseAssignment());
+    }
+
+    public static void testCopies() {
+        Variables variables = new Variables();
+        Variable a = variables.newMultinomialVariable("A", 2);
+        Variable b = variables.newGaussianVariable("B");
+
+        HashMapAssignment assignment = new HashMapAssignment(2);
+        assignment.setValue(b, 3.0);
+
+        ArrayAssignment arrayAssignment = new ArrayAssignment(assignment);
+        assertEquals(3.0, arrayAssignment.getValue(b));
+        assertTrue(Double.isNaN(arrayAssignment.getValue(a)));
+
+        ArrayAssignment arrayCopy = new ArrayAssignment(arrayAssignment);
+        arrayCopy.setValue(a, 1);
+        assertTrue(Double.isNaN(arrayAssignment.getValue(a)));
+        assertEquals(2, arrayCopy.getVariables().size());
+
+        SparseAssignment sparseAssignment = new SparseAssignment(arrayCopy);
+        assertEquals(1.0, sparseAssignment.getValue(a));
+        assertEquals(3.0, sparseAssignment.getValue(b));
+    }
+}
@@ -716,7 +716,7 @@ public class DynamicParallelVB implements ParameterLearningAlgorithm, Serializab
 
 
                 if (partialVectors.containsKey(batchID)) {
-                    CompoundVector newVector = Serialization.deepCopy(updatedPrior);
+                    CompoundVector newVector = updatedPrior.deepCopy();
                     newVector.substract(partialVectors.get(batchID));
                     this.svb.updateNaturalParameterPrior(newVector);
                     this.svb.updateNaturalParameterPosteriors(updatedPrior);
@@ -763,15 +763,15 @@ public class DynamicParallelVB implements ParameterLearningAlgorithm, Serializab
                 //svb.initLearning();
                 //System.out.println("BaseELBO:"+ basedELBO);
             }else{
-                this.prior=Serialization.deepCopy(updatedPrior);
+                this.prior=updatedPrior.deepCopy();
                 this.svb.updateNaturalParameterPrior(prior);
                 if (randomStart) {
                     this.svb.getPlateuStructure().setSeed(this.svb.getSeed());
                     this.svb.getPlateuStructure().resetQs();
-                    initialPosterior = Serialization.deepCopy(this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior());
+                    initialPosterior = this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior().deepCopy();
                     initialPosterior.sum(prior);
                 }else{
-                    initialPosterior=Serialization.deepCopy(svb.getNaturalParameterPrior());
+                    initialPosterior=svb.getNaturalParameterPrior().deepCopy();
                 }
 
                 this.svb.updateNaturalParameterPosteriors(initialPosterior);
@@ -470,20 +470,20 @@ public class DistributedVI implements ParameterLearningAlgorithm, Serializable {
 
 
 
-                CompoundVector referencePrior = Serialization.deepCopy(updatedPosterior);
+                CompoundVector referencePrior = updatedPosterior.deepCopy();
                 referencePrior.multiplyBy(factor);
                 svb.updateNaturalParameterPrior(referencePrior);
 
             }else{
-                this.prior=Serialization.deepCopy(updatedPosterior);
+                this.prior=updatedPosterior.deepCopy();
                 this.svb.updateNaturalParameterPrior(prior);
                 if (randomStart) {
                     this.svb.getPlateuStructure().setSeed(this.svb.getSeed());
                     this.svb.getPlateuStructure().resetQs();
-                    initialPosterior = Serialization.deepCopy(this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior());
+                    initialPosterior = this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior().deepCopy();
                     initialPosterior.sum(prior);
                 }else{
-                    initialPosterior=Serialization.deepCopy(svb.getNaturalParameterPrior());
+                    initialPosterior=svb.getNaturalParameterPrior().deepCopy();
                 }
 
                 this.svb.updateNaturalParameterPosteriors(initialPosterior);
@@ -556,7 +556,7 @@ public class DistributedVI implements ParameterLearningAlgorithm, Serializable {
             return value2;
 */
 
-            CompoundVector newValue  = Serialization.deepCopy(value1);
+            CompoundVector newValue  = value1.deepCopy();
             newValue.sum(value2);
             return newValue;
         }
@@ -400,7 +400,7 @@ public class ParallelVB implements BayesianParameterLearningAlgorithm, Serializa
 
 
                 if (partialVectors.containsKey(dataBatch.getBatchID())) {
-                    CompoundVector newVector = Serialization.deepCopy(updatedPrior);
+                    CompoundVector newVector = updatedPrior.deepCopy();
                     newVector.substract(partialVectors.get(dataBatch.getBatchID()));
                     this.svb.updateNaturalParameterPrior(newVector);
                     this.svb.updateNaturalParameterPosteriors(updatedPrior);
@@ -450,15 +450,15 @@ public class ParallelVB implements BayesianParameterLearningAlgorithm, Serializa
                 svb.updateNaturalParameterPosteriors(updatedPrior);
                 basedELBO = svb.getPlateuStructure().getNonReplictedNodes().mapToDouble(node -> svb.getPlateuStructure().getVMP().computeELBO(node)).sum();
             }else{
-                this.prior=Serialization.deepCopy(updatedPrior);
+                this.prior=updatedPrior.deepCopy();
                 this.svb.updateNaturalParameterPrior(prior);
                 if (randomStart) {
                     this.svb.getPlateuStructure().setSeed(this.svb.getSeed());
                     this.svb.getPlateuStructure().resetQs();
-                    initialPosterior = Serialization.deepCopy(this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior());
+                    initialPosterior = this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior().deepCopy();
                     initialPosterior.sum(prior);
                 }else{
-                    initialPosterior=Serialization.deepCopy(svb.getNaturalParameterPrior());
+                    initialPosterior=svb.getNaturalParameterPrior().deepCopy();
                 }
 
                 this.svb.updateNaturalParameterPosteriors(initialPosterior);
@@ -535,7 +535,7 @@ public class ParallelVB implements BayesianParameterLearningAlgorithm, Serializa
             return value2;
 */
 
-            CompoundVector newValue  = Serialization.deepCopy(value1);
+            CompoundVector newValue  = value1.deepCopy();
             newValue.sum(value2);
             return newValue;
         }
@@ -480,15 +480,15 @@ public class dVMPv1 implements BayesianParameterLearningAlgorithm, Serializable
                 svb.updateNaturalParameterPosteriors(updatedPosterior);
                 basedELBO = svb.getPlateuStructure().getNonReplictedNodes().mapToDouble(node -> svb.getPlateuStructure().getVMP().computeELBO(node)).sum();
             }else{
-                this.prior=Serialization.deepCopy(updatedPosterior);
+                this.prior=updatedPosterior.deepCopy();
                 this.svb.updateNaturalParameterPrior(prior);
                 if (randomStart) {
                     this.svb.getPlateuStructure().setSeed(this.svb.getSeed());
                     this.svb.getPlateuStructure().resetQs();
-                    initialPosterior = Serialization.deepCopy(this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior());
+                    initialPosterior = this.svb.getPlateuStructure().getPlateauNaturalParameterPosterior().deepCopy();
                     initialPosterior.sum(prior);
                 }else{
-                    initialPosterior=Serialization.deepCopy(svb.getNaturalParameterPrior());
+                    initialPosterior=svb.getNaturalParameterPrior().deepCopy();
                 }
 
                 this.svb.updateNaturalParameterPosteriors(initialPosterior);
@@ -561,7 +561,7 @@ public class dVMPv1 implements BayesianParameterLearningAlgorithm, Serializable
             return value2;
 */
 
-            CompoundVector newValue  = Serialization.deepCopy(value1);
+            CompoundVector newValue  = value1.deepCopy();
             newValue.sum(value2);
             return newValue;
         }
@@ -22,6 +22,7 @@ import eu.amidst.core.datastream.DataInstance;
 import eu.amidst.core.datastream.DataOnMemory;
 import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.inference.InferenceAlgorithm;
 import eu.amidst.core.learning.parametric.ParallelMaximumLikelihood;
 import eu.amidst.core.models.DAG;
 import eu.amidst.core.utils.DataSetGenerator;
@@ -137,22 +138,17 @@ public class AODE extends Classifier<AODE> {
 
     }
 
+    /**
+     * Returns the posterior probability of the class variable, averaging the posteriors of its replicas.
+     * @param inferenceAlgorithm the inference algorithm, already run with the evidence of an instance
+     * @return the posterior probability of the class variable
+     */
     @Override
-    public Multinomial predict(DataInstance instance) {
-        if (!Utils.isMissingValue(instance.getValue(classVar)))
-            System.out.println("Class Variable can not be set.");
-
-        inferenceAlgoPredict.setModel(this.getModel());
-        this.inferenceAlgoPredict.setEvidence(instance);
-
-        System.out.println(instance);
-
-        this.inferenceAlgoPredict.runInference();
-
+    protected Multinomial getPosterior(InferenceAlgorithm inferenceAlgorithm) {
         List<Multinomial> posteriors = new ArrayList<>();
 
         for (Variable classVariable : classVariables) {
-             posteriors.add(this.inferenceAlgoPredict.getPosterior(classVariable));
+             posteriors.add(inferenceAlgorithm.getPosterior(classVariable));
         }
 
         double[] vectorPosteriors = new double[classVar.getNumberOfStates()];
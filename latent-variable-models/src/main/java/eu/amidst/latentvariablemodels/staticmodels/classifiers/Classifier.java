@@ -20,14 +20,20 @@ package eu.amidst.latentvariablemodels.staticmodels.classifiers;
 
 import eu.amidst.core.datastream.Attributes;
 import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.distribution.Multinomial;
 import eu.amidst.core.inference.ImportanceSampling;
 import eu.amidst.core.inference.InferenceAlgorithm;
+import eu.amidst.core.learning.parametric.ParameterLearningAlgorithm;
 import eu.amidst.core.utils.Utils;
 import eu.amidst.core.variables.Variable;
+import eu.amidst.flinklink.core.data.DataFlink;
 import eu.amidst.latentvariablemodels.staticmodels.Model;
 import eu.amidst.latentvariablemodels.staticmodels.exceptions.WrongConfigurationException;
 
+import java.util.List;
+
 /**
  * The Classifier abstract class is defined for Bayesian classification models.
  */
@@ -39,6 +45,9 @@ public abstract class Classifier<T extends Classifier> extends Model<T> {
     /** class variable */
     protected Variable classVar = null;
 
+    /** Represents the predictor compiled for the current model, or null if it must be compiled again. */
+    private volatile CompiledPredictor compiledPredictor = null;
+
     /**
      * Constructor of a classifier which is initialized with the default arguments:
      * the last variable in attributes is the class variable and importance sampling
@@ -66,18 +75,110 @@ public abstract class Classifier<T extends Classifier> extends Model<T> {
         if (!Utils.isMissingValue(instance.getValue(classVar)))
             System.out.println("Class Variable can not be set.");
 
-        inferenceAlgoPredict.setModel(this.getModel());
-        this.inferenceAlgoPredict.setEvidence(instance);
+        return this.getCompiledPredictor().predict(instance);
+    }
 
-        //System.out.println(instance);
+    /**
+     * Predicts in parallel the class membership probabilities for a batch of instances.
+     * @param batch the data instances to be classified. The values associated to the class variable must be
+     *                 missing values (i.e. NaN)
+     * @return the posterior probabilities of the class variable, in the same order as the instances
+     */
+    public List<Multinomial> predict(DataOnMemory<DataInstance> batch) {
+        return this.getCompiledPredictor().predict(batch);
+    }
 
-        this.inferenceAlgoPredict.runInference();
+    /**
+     * Method to obtain the predictor compiled for the current model. It is compiled on the first call after the
+     * model or the inference algorithm change, and reused by the next predictions.
+     * @return an object of the class {@link CompiledPredictor}
+     */
+    public CompiledPredictor getCompiledPredictor() {
+        CompiledPredictor predictor = this.compiledPredictor;
+        if (predictor == null) {
+            synchronized (this) {
+                predictor = this.compiledPredictor;
+                if (predictor == null) {
+                    predictor = new CompiledPredictor(this.getModel(), this.inferenceAlgoPredict, this::getPosterior);
+                    this.compiledPredictor = predictor;
+                }
+            }
+        }
+        return predictor;
+    }
 
+    /**
+     * Discards the compiled predictor, so that it is compiled again for the current model on the next prediction.
+     * Should be invoked by any subclass which changes the model without calling the methods of this class.
+     */
+    protected void invalidateCompiledPredictor() {
+        this.compiledPredictor = null;
+    }
 
-        return this.inferenceAlgoPredict.getPosterior(classVar);
+    /**
+     * Returns the posterior probability of the class variable once the inference has been run.
+     * @param inferenceAlgorithm the inference algorithm, already run with the evidence of an instance
+     * @return the posterior probability of the class variable
+     */
+    protected Multinomial getPosterior(InferenceAlgorithm inferenceAlgorithm) {
+        return inferenceAlgorithm.getPosterior(classVar);
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double updateModel(DataFlink<DataInstance> dataFlink) {
+        double value = super.updateModel(dataFlink);
+        this.invalidateCompiledPredictor();
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double updateModel(DataStream<DataInstance> dataStream) {
+        double value = super.updateModel(dataStream);
+        this.invalidateCompiledPredictor();
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double updateModel(DataOnMemory<DataInstance> datBatch) {
+        double value = super.updateModel(datBatch);
+        this.invalidateCompiledPredictor();
+        return value;
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLearningAlgorithm(ParameterLearningAlgorithm learningAlgorithm) {
+        super.setLearningAlgorithm(learningAlgorithm);
+        this.invalidateCompiledPredictor();
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFlinkLearningAlgorithm(eu.amidst.flinklink.core.learning.parametric.ParameterLearningAlgorithm learningAlgorithm) {
+        super.setFlinkLearningAlgorithm(learningAlgorithm);
+        this.invalidateCompiledPredictor();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetModel() {
+        super.resetModel();
+        this.invalidateCompiledPredictor();
     }
 
 
@@ -108,6 +209,7 @@ public abstract class Classifier<T extends Classifier> extends Model<T> {
 
         this.classVar = classVar;
         dag = null;
+        this.invalidateCompiledPredictor();
         return ((T) this);
 
     }
@@ -139,6 +241,7 @@ public abstract class Classifier<T extends Classifier> extends Model<T> {
      */
     public T setInferenceAlgoPredict(InferenceAlgorithm inferenceAlgoPredict) {
         this.inferenceAlgoPredict = inferenceAlgoPredict;
+        this.invalidateCompiledPredictor();
         return ((T) this);
     }
 }
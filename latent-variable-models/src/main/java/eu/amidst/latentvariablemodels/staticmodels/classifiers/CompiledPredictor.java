@@ -0,0 +1,109 @@
+/*
+ *
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements.
+ *    See the NOTICE file distributed with this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0 (the "License"); you may not use
+ *    this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software distributed under the License is
+ *    distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and limitations under the License.
+ *
+ *
+ */
+
+package eu.amidst.latentvariablemodels.staticmodels.classifiers;
+
+import eu.amidst.core.datastream.DataInstance;
+import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.distribution.Multinomial;
+import eu.amidst.core.inference.InferenceAlgorithm;
+import eu.amidst.core.models.BayesianNetwork;
+import eu.amidst.core.utils.Serialization;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The CompiledPredictor class computes the class posteriors of a {@link Classifier} for a fixed learnt model.
+ *
+ * <p> The learnt {@link BayesianNetwork} is taken once, when the predictor is created, and each thread gets its own
+ * copy of the inference algorithm, on which {@link InferenceAlgorithm#setModel(BayesianNetwork)} is called only the
+ * first time the thread makes a prediction. Later predictions only set the evidence and run the inference, so a
+ * CompiledPredictor can be shared by several threads. The inference algorithm must be serializable. </p>
+ *
+ * <p> A CompiledPredictor is not updated when the classifier learns from new data: {@link Classifier} discards it
+ * in that case and compiles a new one on the next prediction. </p>
+ */
+public final class CompiledPredictor {
+
+    /** Represents the learnt model used for the predictions. */
+    private final BayesianNetwork model;
+
+    /** Represents the inference algorithm which is copied for each thread. */
+    private final InferenceAlgorithm prototype;
+
+    /** Represents the function computing the class posterior once the inference has been run. */
+    private final Function<InferenceAlgorithm, Multinomial> posterior;
+
+    /** Represents the inference algorithm of each thread, already set with the model. */
+    private final ThreadLocal<InferenceAlgorithm> algorithms = ThreadLocal.withInitial(this::newInferenceAlgorithm);
+
+    /**
+     * Creates a new CompiledPredictor.
+     * @param model the learnt {@link BayesianNetwork}.
+     * @param prototype the {@link InferenceAlgorithm} which is copied for each thread, it is not modified.
+     * @param posterior the function computing the class posterior from an inference algorithm.
+     */
+    public CompiledPredictor(BayesianNetwork model, InferenceAlgorithm prototype,
+                             Function<InferenceAlgorithm, Multinomial> posterior) {
+        this.model = model;
+        this.prototype = Serialization.deepCopy(prototype);
+        this.posterior = posterior;
+    }
+
+    /**
+     * Returns the learnt model used for the predictions.
+     * @return a {@link BayesianNetwork} object.
+     */
+    public BayesianNetwork getModel() {
+        return model;
+    }
+
+    /**
+     * Predicts the class membership probabilities for a given instance.
+     * @param instance the data instance to be classified, with a missing value for the class variable.
+     * @return the posterior probability of the class variable.
+     */
+    public Multinomial predict(DataInstance instance) {
+        InferenceAlgorithm algorithm = this.algorithms.get();
+        algorithm.setEvidence(instance);
+        algorithm.runInference();
+        return this.posterior.apply(algorithm);
+    }
+
+    /**
+     * Predicts in parallel the class membership probabilities for a batch of instances.
+     * @param batch the data instances to be classified, with missing values for the class variable.
+     * @return the posterior probabilities of the class variable, in the same order as the instances.
+     */
+    public List<Multinomial> predict(DataOnMemory<DataInstance> batch) {
+        return batch.getList().parallelStream()
+                .map(this::predict)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the inference algorithm of a thread.
+     * @return a copy of the prototype set with the model.
+     */
+    private InferenceAlgorithm newInferenceAlgorithm() {
+        InferenceAlgorithm algorithm = Serialization.deepCopy(this.prototype);
+        algorithm.setModel(this.model);
+        return algorithm;
+    }
+}
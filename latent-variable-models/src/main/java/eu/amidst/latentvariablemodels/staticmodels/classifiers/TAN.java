@@ -101,6 +101,7 @@ public class TAN extends Classifier<TAN> {
         learningAlgorithm.setDataStream(dataStream);
         learningAlgorithm.initLearning();
         learningAlgorithm.runLearning();
+        this.invalidateCompiledPredictor();
 
         return learningAlgorithm.getLogMarginalProbability();
     }
@@ -13,6 +13,7 @@ package eu.amidst.latentvariablemodels.classifiers;
 
 import eu.amidst.core.datastream.DataInstance;
 import eu.amidst.core.datastream.DataOnMemory;
+import eu.amidst.core.datastream.DataOnMemoryListContainer;
 import eu.amidst.core.datastream.DataStream;
 import eu.amidst.core.distribution.Multinomial;
 import eu.amidst.core.learning.parametric.ParallelMaximumLikelihood;
@@ -20,6 +21,7 @@ import eu.amidst.core.models.BayesianNetwork;
 import eu.amidst.core.utils.DataSetGenerator;
 import eu.amidst.core.utils.Utils;
 import eu.amidst.core.variables.Variable;
+import eu.amidst.latentvariablemodels.staticmodels.classifiers.CompiledPredictor;
 import eu.amidst.latentvariablemodels.staticmodels.classifiers.NaiveBayesClassifier;
 import eu.amidst.latentvariablemodels.staticmodels.exceptions.WrongConfigurationException;
 import junit.framework.TestCase;
@@ -127,6 +129,31 @@ public class NaiveBayesClassifierTest extends TestCase {
     }
 
 
+    public void testBatchPrediction() {
+
+        List<DataInstance> dataTest = data.stream().collect(Collectors.toList()).subList(0,50);
+        dataTest.forEach(d -> d.setValue(nb.getClassVar(), Utils.missingValue()));
+
+        DataOnMemory<DataInstance> batch = new DataOnMemoryListContainer<>(data.getAttributes(), dataTest);
+        List<Multinomial> posteriors = nb.predict(batch);
+
+        assertEquals(dataTest.size(), posteriors.size());
+        for (int i = 0; i < dataTest.size(); i++) {
+            double[] expected = nb.predict(dataTest.get(i)).getProbabilities();
+            double[] actual = posteriors.get(i).getProbabilities();
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j], actual[j], 1e-10);
+            }
+        }
+
+        //The compiled predictor is reused until the model is updated
+        assertSame(nb.getCompiledPredictor(), nb.getCompiledPredictor());
+        CompiledPredictor predictor = nb.getCompiledPredictor();
+        nb.updateModel(batch);
+        assertNotSame(predictor, nb.getCompiledPredictor());
+    }
+
+
     public void testNBClassifier() {
 
         long time = System.nanoTime();
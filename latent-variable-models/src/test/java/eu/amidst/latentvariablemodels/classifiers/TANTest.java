@@ -21,6 +21,7 @@ import eu.amidst.latentvariablemodels.staticmodels.classifiers.TAN;
 import eu.amidst.latentvariablemodels.staticmodels.exceptions.WrongConfigurationException;
 import junit.framework.TestCase;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -146,4 +147,18 @@ public class TANTest extends TestCase {
     }
 
 
+    public void testPredictionAfterRelearning() {
+
+        DataInstance instance = data.stream().findFirst().get();
+        instance.setValue(model.getClassVar(), Utils.missingValue());
+        double[] before = model.predict(instance).getProbabilities();
+
+        //The predictor compiled for the previous model must not be reused once the TAN is learnt again.
+        model.updateModel(DataSetGenerator.generate(1234, 5000, 5, 10));
+        double[] after = model.predict(instance).getProbabilities();
+
+        assertFalse(Arrays.equals(before, after));
+    }
+
+
 }